@@ -0,0 +1,72 @@
+package com.swissre.bigcompanyanalyzer.benchmark;
+
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Linking of already parsed rows: building the columnar structure from the parsed rows,
+ * converting employee objects into the structure, and parsing plus linking of employee objects by the retriever.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkingBenchmark {
+
+    @Param({"BALANCED", "DEEP", "WIDE"})
+    private OrganisationGenerator.Shape shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private CompanyStructure.Builder rows;
+    private Map<Long, Employee> employees;
+    private FileDataRetriever fileDataRetriever;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = OrganisationGenerator.companyFile(shape, size);
+        var fileParser = new FileParser();
+        rows = fileParser.parseStructure(file);
+        employees = fileParser.parse(file).idsToEmployees();
+        fileDataRetriever = new FileDataRetriever(fileParser);
+    }
+
+    @Benchmark
+    public CompanyStructure buildStructure() {
+        return rows.build();
+    }
+
+    @Benchmark
+    public CompanyStructure convertEmployees() {
+        return CompanyStructure.of(employees);
+    }
+
+    @Benchmark
+    public Map<Long, Employee> parseAndLinkEmployees() {
+        return fileDataRetriever.retrieveLinkedCompanyEmployeesData(file);
+    }
+}
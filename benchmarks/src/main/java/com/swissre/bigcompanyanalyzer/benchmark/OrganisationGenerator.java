@@ -0,0 +1,131 @@
+package com.swissre.bigcompanyanalyzer.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Deterministic generator of synthetic company files, the same shape, size and seed always give the same file.
+ * Generated files are cached in the temporary directory, so benchmarks of big companies do not pay for generation
+ * on every fork.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class OrganisationGenerator {
+    private static final String HEADERS = "Id,firstName,lastName,salary,managerId";
+    private static final long SEED = 20_240_501L;
+    private static final Path CACHE_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"), "big-company-analyzer-benchmarks");
+
+    public enum Shape {
+        /**
+         * Every manager has {@value #BALANCED_FAN_OUT} subordinates, the depth is logarithmic
+         */
+        BALANCED,
+        /**
+         * Long chains of managers, every manager on the chain has one more subordinate outside the chain
+         */
+        DEEP,
+        /**
+         * All employees report to the CEO
+         */
+        WIDE;
+
+        private static final int BALANCED_FAN_OUT = 8;
+
+        int managerOf(int employee) {
+            return switch (this) {
+                case BALANCED -> (employee - 1) / BALANCED_FAN_OUT;
+                case DEEP -> employee % 2 == 1 ? Math.max(employee - 2, 0) : employee - 1;
+                case WIDE -> 0;
+            };
+        }
+    }
+
+    private OrganisationGenerator() {
+    }
+
+    /**
+     * @return generated file, created on the first request and reused afterwards
+     */
+    public static synchronized Path companyFile(Shape shape, int size) throws IOException {
+        return cachedFile("%s-%d.csv".formatted(shape.name().toLowerCase(), size), shape, size, 0);
+    }
+
+    /**
+     * @return generated file where every {@code dirtyRowsInterval}-th employee has an id which is not a number,
+     * so these rows are rejected by the parser
+     */
+    public static synchronized Path dirtyCompanyFile(Shape shape, int size, int dirtyRowsInterval) throws IOException {
+        return cachedFile("%s-%d-dirty-%d.csv".formatted(shape.name().toLowerCase(), size, dirtyRowsInterval),
+                shape, size, dirtyRowsInterval);
+    }
+
+    /**
+     * @return gzip compressed copy of the generated file
+     */
+    public static synchronized Path compressedCompanyFile(Shape shape, int size) throws IOException {
+        var plain = companyFile(shape, size);
+        var file = plain.resolveSibling(plain.getFileName() + ".gz");
+        if (!Files.exists(file)) {
+            var temporary = Files.createTempFile(CACHE_DIRECTORY, "company", ".tmp");
+            try (var output = new GZIPOutputStream(Files.newOutputStream(temporary), 1 << 16)) {
+                Files.copy(plain, output);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    /**
+     * Write the company of the given shape, the CEO has id 1 and ids follow the order of rows
+     */
+    public static void write(Path file, Shape shape, int size) throws IOException {
+        write(file, shape, size, 0);
+    }
+
+    private static Path cachedFile(String name, Shape shape, int size, int dirtyRowsInterval) throws IOException {
+        var file = CACHE_DIRECTORY.resolve(name);
+        if (!Files.exists(file)) {
+            Files.createDirectories(CACHE_DIRECTORY);
+            var temporary = Files.createTempFile(CACHE_DIRECTORY, "company", ".tmp");
+            write(temporary, shape, size, dirtyRowsInterval);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    /**
+     * @param dirtyRowsInterval 0 when all rows are valid
+     */
+    private static void write(Path file, Shape shape, int size, int dirtyRowsInterval) throws IOException {
+        var random = new Random(SEED);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADERS);
+            writer.newLine();
+            for (var employee = 0; employee < size; employee++) {
+                if (dirtyRowsInterval > 0 && employee > 0 && employee % dirtyRowsInterval == 0) {
+                    writer.write("E-");
+                }
+                writer.write(Long.toString(employee + 1L));
+                writer.write(",First");
+                writer.write(Integer.toString(employee));
+                writer.write(",Last");
+                writer.write(Integer.toString(random.nextInt(10_000)));
+                writer.write(',');
+                writer.write(Integer.toString(30_000 + random.nextInt(70_000)));
+                writer.write('.');
+                writer.write(Integer.toString(10 + random.nextInt(90)));
+                writer.write(',');
+                if (employee > 0) {
+                    writer.write(Long.toString(shape.managerOf(employee) + 1L));
+                }
+                writer.newLine();
+            }
+        }
+    }
+}
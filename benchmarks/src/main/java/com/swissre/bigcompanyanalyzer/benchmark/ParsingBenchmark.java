@@ -0,0 +1,93 @@
+package com.swissre.bigcompanyanalyzer.benchmark;
+
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.file.ParsingResult;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the generated company file: into employee objects and into the columnar rows,
+ * sequentially and by all available processors. The dirty file has every tenth id broken,
+ * so it shows the cost of rejected rows. The compressed file is the gzip copy of the generated file,
+ * it is inflated on its own thread while it is parsed. The projecting parser reads only the fields
+ * of the reports, so the names are neither trimmed nor decoded.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingBenchmark {
+
+    @Param({"BALANCED"})
+    private OrganisationGenerator.Shape shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private Path file;
+    private Path dirtyFile;
+    private Path compressedFile;
+    private FileParser sequentialParser;
+    private FileParser parallelParser;
+    private FileParser projectingParser;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = OrganisationGenerator.companyFile(shape, size);
+        dirtyFile = OrganisationGenerator.dirtyCompanyFile(shape, size, 10);
+        compressedFile = OrganisationGenerator.compressedCompanyFile(shape, size);
+        sequentialParser = new FileParser();
+        parallelParser = new FileParser(Runtime.getRuntime().availableProcessors());
+        projectingParser = new FileParser(1, EnumSet.of(EmployeeField.ID, EmployeeField.SALARY, EmployeeField.MANAGER_ID));
+    }
+
+    @Benchmark
+    public ParsingResult parseEmployees() throws IOException {
+        return sequentialParser.parse(file);
+    }
+
+    @Benchmark
+    public CompanyStructure.Builder parseStructure() throws IOException {
+        return sequentialParser.parseStructure(file);
+    }
+
+    @Benchmark
+    public CompanyStructure.Builder parseProjectedStructure() throws IOException {
+        return projectingParser.parseStructure(file);
+    }
+
+    @Benchmark
+    public CompanyStructure.Builder parseStructureInParallel() throws IOException {
+        return parallelParser.parseStructure(file);
+    }
+
+    @Benchmark
+    public CompanyStructure.Builder parseDirtyStructure() throws IOException {
+        return sequentialParser.parseStructure(dirtyFile);
+    }
+
+    @Benchmark
+    public CompanyStructure.Builder parseCompressedStructure() throws IOException {
+        return sequentialParser.parseStructure(compressedFile);
+    }
+}
@@ -0,0 +1,93 @@
+package com.swissre.bigcompanyanalyzer.benchmark;
+
+import com.swissre.bigcompanyanalyzer.control.ReportService;
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.file.StructureSnapshotStore;
+import com.swissre.bigcompanyanalyzer.control.output.ReportOutputService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ForkJoinReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportingLineReportGenerationService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryLevelReportGenerationService;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole {@link ReportService} run as configured in the application: parsing or snapshot reading, linking
+ * and generation of all reports. Reports are consumed by the blackhole instead of the console.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"BALANCED", "DEEP", "WIDE"})
+    private OrganisationGenerator.Shape shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean snapshots;
+
+    private Path file;
+    private ForkJoinPool forkJoinPool;
+    private ReportService reportService;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws IOException {
+        file = OrganisationGenerator.companyFile(shape, size);
+        var processors = Runtime.getRuntime().availableProcessors();
+        var fileDataRetriever = new FileDataRetriever(new FileParser(processors), snapshots ? new StructureSnapshotStore() : null);
+        forkJoinPool = new ForkJoinPool(processors);
+        reportService = new ReportService(fileDataRetriever, new BlackholeOutputService(blackhole),
+                List.of(new ReportingLineReportGenerationService(4), new SalaryLevelReportGenerationService(120, 150)),
+                new ForkJoinReportGenerationEngine(forkJoinPool, 10_000));
+    }
+
+    @TearDown
+    public void tearDown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public void analyzeFile() {
+        reportService.analyzeAndMakeReportFromFile(file);
+    }
+
+    private record BlackholeOutputService(Blackhole blackhole) implements ReportOutputService {
+
+        @Override
+        public void writeReports(Collection<Report> reports) {
+            blackhole.consume(reports);
+        }
+
+        @Override
+        public void writeErrorReport(Report report) {
+            throw new IllegalStateException(report.getErrorsReportEntries().toString());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.swissre.bigcompanyanalyzer.benchmark;
+
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ForkJoinReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.FusedReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportingLineReportGenerationService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryLevelReportGenerationService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryRatioIndex;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of every report on its own and of all reports at once, by one walk and by fork/join tasks.
+ * Salary thresholds sweep compares a walk per threshold pair with one call of the salary ratio index.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportGenerationBenchmark {
+    private static final int[] SWEEP_MIN_PERCENTS = {100, 105, 110, 115, 120, 125, 130};
+    private static final int[] SWEEP_MAX_PERCENTS = {140, 145, 150, 155, 160, 170, 180};
+
+    @Param({"BALANCED", "DEEP", "WIDE"})
+    private OrganisationGenerator.Shape shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private CompanyStructure companyStructure;
+    private ReportingLineReportGenerationService reportingLineReportGenerationService;
+    private SalaryLevelReportGenerationService salaryLevelReportGenerationService;
+    private List<ReportGenerationService> reportGenerationServices;
+    private FusedReportGenerationEngine fusedEngine;
+    private ForkJoinPool forkJoinPool;
+    private ForkJoinReportGenerationEngine forkJoinEngine;
+    private SalaryRatioIndex salaryRatioIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        companyStructure = new FileDataRetriever(new FileParser())
+                .retrieveCompanyStructure(OrganisationGenerator.companyFile(shape, size));
+        reportingLineReportGenerationService = new ReportingLineReportGenerationService(4);
+        salaryLevelReportGenerationService = new SalaryLevelReportGenerationService(120, 150);
+        reportGenerationServices = List.of(reportingLineReportGenerationService, salaryLevelReportGenerationService);
+        fusedEngine = new FusedReportGenerationEngine();
+        forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        forkJoinEngine = new ForkJoinReportGenerationEngine(forkJoinPool, 10_000);
+        salaryRatioIndex = SalaryRatioIndex.of(companyStructure);
+    }
+
+    @TearDown
+    public void tearDown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public Report reportingLineReport() {
+        return reportingLineReportGenerationService.generateReport(companyStructure);
+    }
+
+    @Benchmark
+    public Report salaryLevelReport() {
+        return salaryLevelReportGenerationService.generateReport(companyStructure);
+    }
+
+    @Benchmark
+    public List<Report> allReportsInOneWalk() {
+        return fusedEngine.generateReports(companyStructure, reportGenerationServices);
+    }
+
+    @Benchmark
+    public List<Report> allReportsByForkJoin() {
+        return forkJoinEngine.generateReports(companyStructure, reportGenerationServices);
+    }
+
+    @Benchmark
+    public Report salaryLevelReportFromIndex() {
+        return salaryRatioIndex.generateReport(120, 150);
+    }
+
+    @Benchmark
+    public int salaryThresholdsSweepByWalks() {
+        var outOfRange = 0;
+        for (var minPercent : SWEEP_MIN_PERCENTS) {
+            for (var maxPercent : SWEEP_MAX_PERCENTS) {
+                outOfRange += new SalaryLevelReportGenerationService(minPercent, maxPercent)
+                        .generateReport(companyStructure).getReportEntriesCount();
+            }
+        }
+        return outOfRange;
+    }
+
+    @Benchmark
+    public int[][] salaryThresholdsSweepByIndex() {
+        return salaryRatioIndex.countOutOfRange(SWEEP_MIN_PERCENTS, SWEEP_MAX_PERCENTS);
+    }
+}
@@ -0,0 +1,98 @@
+package com.swissre.bigcompanyanalyzer.benchmark;
+
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryArithmetic;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryLevelReportGenerationService;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Salary percent of one manager with a wide team: BigDecimal calculation (as it was done before salaries were stored
+ * in cents) against the fixed-point calculation, plus the whole salary report on the same team.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SalaryArithmeticBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    private int teamSize;
+
+    private long managerSalary;
+    private long[] salaries;
+    private List<BigDecimal> bigDecimalSalaries;
+    private CompanyStructure companyStructure;
+    private SalaryLevelReportGenerationService salaryLevelReportGenerationService;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(42);
+        managerSalary = 10_000_000L;
+        salaries = new long[teamSize];
+        var builder = new CompanyStructure.Builder(teamSize + 1);
+        builder.add(1, null, null, managerSalary, false, 0);
+        for (var i = 0; i < teamSize; i++) {
+            salaries[i] = 3_000_000L + random.nextInt(5_000_000);
+            builder.add(i + 2, null, null, salaries[i], true, 1);
+        }
+        bigDecimalSalaries = Arrays.stream(salaries).mapToObj(salary -> BigDecimal.valueOf(salary, 2)).toList();
+        companyStructure = builder.build();
+        salaryLevelReportGenerationService = new SalaryLevelReportGenerationService(120, 150);
+    }
+
+    @Benchmark
+    public int bigDecimalPercent() {
+        var subordinateSalaries = bigDecimalSalaries.stream()
+                .filter(Objects::nonNull)
+                .filter(salary -> salary.compareTo(BigDecimal.ZERO) > 0)
+                .toList();
+        var averageSalary = subordinateSalaries.stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .divide(new BigDecimal(subordinateSalaries.size()), RoundingMode.HALF_UP);
+        var salary = BigDecimal.valueOf(managerSalary, 2);
+        return salary.divide(averageSalary, averageSalary.scale() + salary.scale(), RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+                .intValue();
+    }
+
+    @Benchmark
+    public int fixedPointPercent() {
+        var sum = 0L;
+        var count = 0;
+        for (var salary : salaries) {
+            if (salary > 0) {
+                sum += salary;
+                count++;
+            }
+        }
+        return SalaryArithmetic.percentOfAverage(managerSalary, sum, count);
+    }
+
+    @Benchmark
+    public Report salaryLevelReport() {
+        return salaryLevelReportGenerationService.generateReport(companyStructure);
+    }
+}
@@ -1,25 +1,75 @@
 package com.swissre;
 
+import com.swissre.bigcompanyanalyzer.control.BatchReportService;
 import com.swissre.bigcompanyanalyzer.control.ReportService;
+import com.swissre.bigcompanyanalyzer.control.ResidentAnalysisService;
+import com.swissre.bigcompanyanalyzer.control.StreamingSalaryAnalysis;
+import com.swissre.bigcompanyanalyzer.control.cache.ReportCache;
+import com.swissre.bigcompanyanalyzer.control.external.ExternalMemoryAnalysis;
 import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
 import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.file.StructureSnapshotStore;
+import com.swissre.bigcompanyanalyzer.control.file.TailingFileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.instrumentation.PipelineInstrumentation;
 import com.swissre.bigcompanyanalyzer.control.output.ConsoleOutputReportService;
+import com.swissre.bigcompanyanalyzer.control.output.FileOutputReportService;
+import com.swissre.bigcompanyanalyzer.control.output.ReportFormat;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ForkJoinReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.FusedReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationService;
 import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportingLineReportGenerationService;
 import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryLevelReportGenerationService;
+import com.swissre.bigcompanyanalyzer.facade.AnalysisServer;
 import com.swissre.bigcompanyanalyzer.facade.Analyzer;
+import com.swissre.bigcompanyanalyzer.facade.BatchAnalyzer;
+import com.swissre.bigcompanyanalyzer.facade.DirectoryWatcher;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Main class for starting analysis and providing reports.
- * Currently only possible to analyze CSV files and print reports in the console output.
+ * Analyzes CSV files, plain or gzip compressed, and prints reports in the console output or writes them to a file
+ * as CSV, JSON Lines or text. Besides one analysis of one file it can serve reports over HTTP, analyze the file again
+ * after every change, analyze all files of a directory, analyze a company larger than the heap
+ * or make only the salary report while the file is read.
  * <p>
  * Available configurations:
  * BASIC_DIRECTORY - directory for storing the file with input data
  * FILE_NAME - name of the file
  * ALLOWED_REPORTING_LEVEL - maximum level of the reporting line, if Employee has longer line, his id will be presented in the report
+ * REPORTING_LINE_SUMMARY - report too long reporting lines as one entry per subtree under the highest employee with a too long line
  * MIN_ALLOWED_SALARY_PERCENT - minimal level of managers salary in percents from average salary of their subordinates
  * MAX_ALLOWED_SALARY_PERCENT - maximum level of managers salary in percents from average salary of their subordinates
+ * PARSING_THREADS - amount of threads parsing the file, 1 means sequential parsing
+ * REPORT_GENERATION_THREADS - amount of threads generating reports, 1 means one sequential walk for all reports
+ * REPORT_GENERATION_SUBTREE_THRESHOLD - subtrees with more employees are split between several report generation tasks
+ * OUTPUT_FILE - file for reports, null prints reports in the console output
+ * OUTPUT_FORMAT - format of the report file: CSV, JSON_LINES or TEXT
+ * USE_STRUCTURE_SNAPSHOTS - keep the parsed structure in a binary snapshot next to the file and use it while the file is unchanged
+ * RUN_AS_SERVER - keep the structure in memory and serve reports over HTTP instead of one analysis
+ * SERVER_PORT - port of the HTTP server
+ * WATCH_DIRECTORY - analyze the file again after every change in the basic directory, appended rows are parsed alone
+ * WATCH_QUIET_PERIOD - analysis starts when there were no file events during this period
+ * BATCH_MODE - analyze all CSV files, plain or gzip compressed, of the basic directory concurrently, each file is parsed sequentially
+ * BATCH_OUTPUT_DIRECTORY - directory for the reports of the files, the summary is printed in the console output
+ * BATCH_MEMORY_BUDGET - amount of bytes all files analyzed at once may take, larger files wait for each other
+ * EXTERNAL_MEMORY_MODE - analyze a company which does not fit into the heap by sorting its rows in temporary files
+ * EXTERNAL_MEMORY_BUDGET - amount of heap bytes the external-memory analysis uses for sorting
+ * EXTERNAL_MEMORY_DIRECTORY - directory for the temporary files of the external-memory analysis
+ * STREAMING_SALARY_MODE - make only the salary report, aggregated while the file is read, without linking the structure
+ * REPORT_CACHE - reuse reports of a file with the same content and the same report parameters
+ * REPORT_CACHE_WEIGHT - estimated amount of bytes the cached reports may take in memory
+ * REPORT_CACHE_DIRECTORY - directory of the disk tier of the report cache, null keeps the reports in memory only
+ * REPORT_CACHE_DISK_BYTES - amount of bytes the disk tier of the report cache may take
+ * INSTRUMENTATION - measure the stages of the analysis, expose them as the PipelineMetrics MXBean and JFR events
+ * and print the summary at the end of the run
  * <p>
  * Improvements:
  * Introduce separate property file for configs, move object creation to an ObjectFactory, that can create Analizer with all
@@ -34,20 +84,142 @@ public class Application {
     private static final String FILE_NAME = "file.csv";
 
     private static final int ALLOWED_REPORTING_LEVEL = 4;
+    private static final boolean REPORTING_LINE_SUMMARY = false;
     private static final int MIN_ALLOWED_SALARY_PERCENT = 120;
     private static final int MAX_ALLOWED_SALARY_PERCENT = 150;
+    private static final int PARSING_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int REPORT_GENERATION_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int REPORT_GENERATION_SUBTREE_THRESHOLD = 10_000;
+    private static final boolean USE_STRUCTURE_SNAPSHOTS = true;
+    private static final String OUTPUT_FILE = null;
+    private static final ReportFormat OUTPUT_FORMAT = ReportFormat.CSV;
+    private static final boolean RUN_AS_SERVER = false;
+    private static final int SERVER_PORT = 8080;
+    private static final boolean WATCH_DIRECTORY = false;
+    private static final Duration WATCH_QUIET_PERIOD = Duration.ofMillis(500);
+    private static final boolean BATCH_MODE = false;
+    private static final String BATCH_OUTPUT_DIRECTORY = "./reports/";
+    private static final long BATCH_MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 2;
+    private static final boolean EXTERNAL_MEMORY_MODE = false;
+    private static final long EXTERNAL_MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+    private static final String EXTERNAL_MEMORY_DIRECTORY = System.getProperty("java.io.tmpdir");
+    private static final boolean STREAMING_SALARY_MODE = false;
+    private static final boolean REPORT_CACHE = false;
+    private static final long REPORT_CACHE_WEIGHT = 64L << 20;
+    private static final String REPORT_CACHE_DIRECTORY = "./report-cache/";
+    private static final long REPORT_CACHE_DISK_BYTES = 1L << 30;
+    private static final boolean INSTRUMENTATION = false;
 
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         // Context creation, better move to separate Factory
-        var fileParser = new FileParser();
-        var consoleOutputReportService = new ConsoleOutputReportService();
-        var reportGenerationService = new ReportingLineReportGenerationService(ALLOWED_REPORTING_LEVEL);
-        var salaryLevelReportGenerationService = new SalaryLevelReportGenerationService(MIN_ALLOWED_SALARY_PERCENT, MAX_ALLOWED_SALARY_PERCENT);
-        var fileDataRetriever = new FileDataRetriever(fileParser);
-        var reportManager = new ReportService(fileDataRetriever, consoleOutputReportService, List.of(reportGenerationService, salaryLevelReportGenerationService));
+        var reportGenerationServices = createReportGenerationServices();
+        // only the fields read by the reports are parsed, the names are never kept by the current reports
+        var fileParser = new FileParser(PARSING_THREADS, ReportGenerationService.requiredFieldsOf(reportGenerationServices));
+        var instrumentation = INSTRUMENTATION ? new PipelineInstrumentation() : PipelineInstrumentation.DISABLED;
+        if (INSTRUMENTATION) {
+            instrumentation.register(ManagementFactory.getPlatformMBeanServer());
+        }
+        if (RUN_AS_SERVER) {
+            startServer(fileParser, instrumentation);
+            return;
+        }
+        if (BATCH_MODE) {
+            analyzeBatch(reportGenerationServices, instrumentation);
+            printSummary(instrumentation);
+            return;
+        }
+        var reportOutputService = OUTPUT_FILE != null
+                ? new FileOutputReportService(Path.of(BASIC_DIRECTORY, OUTPUT_FILE), OUTPUT_FORMAT)
+                : new ConsoleOutputReportService();
+        var fileDataRetriever = WATCH_DIRECTORY
+                ? new TailingFileDataRetriever(fileParser, instrumentation)
+                : createFileDataRetriever(fileParser, instrumentation);
+        var reportGenerationEngine = createReportGenerationEngine();
+        var reportCache = REPORT_CACHE ? createReportCache() : null;
+        if (reportCache != null && INSTRUMENTATION) {
+            reportCache.register(ManagementFactory.getPlatformMBeanServer());
+        }
+        ReportService reportManager;
+        if (EXTERNAL_MEMORY_MODE) {
+            reportManager = new ReportService(createExternalMemoryAnalysis(fileParser), reportOutputService, instrumentation);
+        } else if (STREAMING_SALARY_MODE) {
+            reportManager = new ReportService(createStreamingSalaryAnalysis(), reportOutputService, instrumentation);
+        } else {
+            reportManager = new ReportService(fileDataRetriever, reportOutputService, reportGenerationServices, reportGenerationEngine,
+                    instrumentation, reportCache);
+        }
 
-        var analyzer = new Analyzer(reportManager);
-        analyzer.analyzeFromFile(FILE_NAME, BASIC_DIRECTORY);
+        if (WATCH_DIRECTORY) {
+            new DirectoryWatcher(reportManager, WATCH_QUIET_PERIOD).watch(FILE_NAME, BASIC_DIRECTORY);
+        } else {
+            var analyzer = new Analyzer(reportManager);
+            analyzer.analyzeFromFile(FILE_NAME, BASIC_DIRECTORY);
+        }
+        if (reportOutputService instanceof FileOutputReportService fileOutputReportService) {
+            fileOutputReportService.close();
+        }
+        printSummary(instrumentation);
+        if (reportCache != null && INSTRUMENTATION) {
+            System.out.println(reportCache.summary());
+        }
     }
-}
\ No newline at end of file
+
+    private static void startServer(FileParser fileParser, PipelineInstrumentation instrumentation) throws IOException {
+        var fileDataRetriever = createFileDataRetriever(fileParser, instrumentation);
+        var residentAnalysisService = new ResidentAnalysisService(fileDataRetriever, createReportGenerationEngine(),
+                Executors.newSingleThreadExecutor());
+        var server = new AnalysisServer(residentAnalysisService, BASIC_DIRECTORY,
+                ALLOWED_REPORTING_LEVEL, MIN_ALLOWED_SALARY_PERCENT, MAX_ALLOWED_SALARY_PERCENT);
+        server.start(FILE_NAME, SERVER_PORT);
+    }
+
+    private static void analyzeBatch(List<ReportGenerationService> reportGenerationServices,
+                                     PipelineInstrumentation instrumentation) {
+        var fileParser = new FileParser(1, ReportGenerationService.requiredFieldsOf(reportGenerationServices));
+        var fileDataRetriever = createFileDataRetriever(fileParser, instrumentation);
+        var batchReportService = new BatchReportService(fileDataRetriever, reportGenerationServices,
+                createReportGenerationEngine(), new ConsoleOutputReportService(),
+                Path.of(BATCH_OUTPUT_DIRECTORY), OUTPUT_FORMAT, BATCH_MEMORY_BUDGET);
+        new BatchAnalyzer(batchReportService).analyzeDirectory(BASIC_DIRECTORY);
+    }
+
+    private static List<ReportGenerationService> createReportGenerationServices() {
+        return List.of(new ReportingLineReportGenerationService(ALLOWED_REPORTING_LEVEL, REPORTING_LINE_SUMMARY),
+                new SalaryLevelReportGenerationService(MIN_ALLOWED_SALARY_PERCENT, MAX_ALLOWED_SALARY_PERCENT));
+    }
+
+    private static FileDataRetriever createFileDataRetriever(FileParser fileParser, PipelineInstrumentation instrumentation) {
+        return new FileDataRetriever(fileParser, USE_STRUCTURE_SNAPSHOTS ? new StructureSnapshotStore() : null, instrumentation);
+    }
+
+    private static ExternalMemoryAnalysis createExternalMemoryAnalysis(FileParser fileParser) {
+        return new ExternalMemoryAnalysis(fileParser, ALLOWED_REPORTING_LEVEL, MIN_ALLOWED_SALARY_PERCENT,
+                MAX_ALLOWED_SALARY_PERCENT, EXTERNAL_MEMORY_BUDGET, Path.of(EXTERNAL_MEMORY_DIRECTORY));
+    }
+
+    private static StreamingSalaryAnalysis createStreamingSalaryAnalysis() {
+        var salaryLevelReportGenerationService = new SalaryLevelReportGenerationService(MIN_ALLOWED_SALARY_PERCENT,
+                MAX_ALLOWED_SALARY_PERCENT);
+        var fileParser = new FileParser(1, salaryLevelReportGenerationService.getRequiredFields());
+        return new StreamingSalaryAnalysis(fileParser, salaryLevelReportGenerationService);
+    }
+
+    private static ReportCache createReportCache() {
+        return REPORT_CACHE_DIRECTORY != null
+                ? new ReportCache(REPORT_CACHE_WEIGHT, Path.of(REPORT_CACHE_DIRECTORY), REPORT_CACHE_DISK_BYTES)
+                : new ReportCache(REPORT_CACHE_WEIGHT);
+    }
+
+    private static void printSummary(PipelineInstrumentation instrumentation) {
+        if (INSTRUMENTATION) {
+            System.out.println(instrumentation.summary());
+        }
+    }
+
+    private static ReportGenerationEngine createReportGenerationEngine() {
+        return REPORT_GENERATION_THREADS > 1
+                ? new ForkJoinReportGenerationEngine(new ForkJoinPool(REPORT_GENERATION_THREADS), REPORT_GENERATION_SUBTREE_THRESHOLD)
+                : new FusedReportGenerationEngine();
+    }
+}
@@ -0,0 +1,15 @@
+package com.swissre.bigcompanyanalyzer.control;
+
+import com.swissre.bigcompanyanalyzer.entity.RejectedRows;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.util.List;
+
+/**
+ * Reports of one file made by a {@link FileAnalysis} with the rows which were skipped by the parser
+ *
+ * @param reports      reports in the order of the analysis
+ * @param rejectedRows rows without all columns or without a valid id
+ */
+public record AnalysisResult(List<Report> reports, RejectedRows rejectedRows) {
+}
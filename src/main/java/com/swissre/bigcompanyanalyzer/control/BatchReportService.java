@@ -0,0 +1,235 @@
+package com.swissre.bigcompanyanalyzer.control;
+
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.output.ReportFormat;
+import com.swissre.bigcompanyanalyzer.control.output.ReportOutputService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationService;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Analyzes many company files concurrently, every file is analyzed by its own task on a virtual thread.
+ * Every file gets its own report file in the output directory and the batch gets a summary report,
+ * a file which can not be analyzed gets the error report and does not stop the other files.
+ * Report files are named after the files, files of the same name from different directories get numbered reports.
+ * <p>
+ * Memory is limited by a budget shared by all tasks: a task takes a part of the budget estimated from the size
+ * of the file content, inflated size for compressed files, before parsing and returns it after its reports
+ * are written, so large files wait for each other while small files keep going. The budget is not fair:
+ * a file takes its part as soon as enough of the budget is free, even while a larger file waits for more of it.
+ * A file larger than the whole budget takes the whole budget and runs alone.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class BatchReportService {
+    /**
+     * Parsed and linked structure with its reports takes up to this amount of memory per byte of the file
+     */
+    private static final long ESTIMATED_MEMORY_PER_FILE_BYTE = 4;
+    /**
+     * Budget is counted in permits of this size, so budgets above 2 GB fit into a semaphore
+     */
+    private static final long PERMIT_SIZE = 1 << 10;
+    private static final String FILE_PATTERN = "*.{csv,csv.gz}";
+
+    private final FileDataRetriever fileDataRetriever;
+    private final List<ReportGenerationService> reportGenerationServices;
+    private final ReportGenerationEngine reportGenerationEngine;
+    private final ReportOutputService summaryOutputService;
+    private final Path outputDirectory;
+    private final ReportFormat reportFormat;
+    private final Semaphore memoryBudget;
+    private final int memoryBudgetPermits;
+
+    /**
+     * @param summaryOutputService output of the summary report, reports of the files are written to the output directory
+     * @param memoryBudget         amount of bytes all files analyzed at once may take
+     */
+    public BatchReportService(FileDataRetriever fileDataRetriever,
+                              List<ReportGenerationService> reportGenerationServices,
+                              ReportGenerationEngine reportGenerationEngine,
+                              ReportOutputService summaryOutputService,
+                              Path outputDirectory,
+                              ReportFormat reportFormat,
+                              long memoryBudget) {
+        this.fileDataRetriever = fileDataRetriever;
+        this.reportGenerationServices = reportGenerationServices;
+        this.reportGenerationEngine = reportGenerationEngine;
+        this.summaryOutputService = summaryOutputService;
+        this.outputDirectory = outputDirectory;
+        this.reportFormat = reportFormat;
+        this.memoryBudgetPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, memoryBudget / PERMIT_SIZE));
+        this.memoryBudget = new Semaphore(memoryBudgetPermits);
+    }
+
+    /**
+     * Analyze all CSV files of the directory, plain or gzip compressed, in the order of their names
+     */
+    public Report analyzeDirectory(Path directory) {
+        var paths = new ArrayList<Path>();
+        try (var files = Files.newDirectoryStream(directory, FILE_PATTERN)) {
+            files.forEach(paths::add);
+        } catch (IOException ex) {
+            var summary = new Report(Report.ReportType.BATCH_SUMMARY_REPORT);
+            summary.addErrorsReportEntry("Impossible to read directory %s. Additional information: %s"
+                    .formatted(directory, ex.getMessage()));
+            summaryOutputService.writeErrorReport(summary);
+            return summary;
+        }
+        paths.sort(Comparator.comparing(Path::getFileName));
+        return this.analyzeFiles(paths);
+    }
+
+    /**
+     * Analyze the files concurrently and write the summary report when all files are analyzed
+     *
+     * @return summary report, one entry per analyzed file and one error per file which is not analyzed
+     */
+    public Report analyzeFiles(List<Path> paths) {
+        var summary = new Report(Report.ReportType.BATCH_SUMMARY_REPORT);
+        try {
+            Files.createDirectories(outputDirectory);
+        } catch (IOException ex) {
+            summary.addErrorsReportEntry("Impossible to create directory %s. Additional information: %s"
+                    .formatted(outputDirectory, ex.getMessage()));
+            summaryOutputService.writeErrorReport(summary);
+            return summary;
+        }
+
+        var reportPaths = this.reportPathsOf(paths);
+        var executor = VirtualThreads.newPerTaskExecutor();
+        try {
+            var results = new ArrayList<Future<FileResult>>(paths.size());
+            for (var i = 0; i < paths.size(); i++) {
+                var path = paths.get(i);
+                var reportPath = reportPaths.get(i);
+                results.add(executor.submit(() -> this.analyzeFile(path, reportPath)));
+            }
+            for (var i = 0; i < results.size(); i++) {
+                this.awaitResult(paths.get(i), reportPaths.get(i), results.get(i)).addTo(summary);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        summaryOutputService.writeReports(List.of(summary));
+        return summary;
+    }
+
+    /**
+     * @return report path of every file, the second and further files of the same name get numbered report names
+     * so the files of a batch never overwrite the reports of each other
+     */
+    List<Path> reportPathsOf(List<Path> paths) {
+        var reportPaths = new ArrayList<Path>(paths.size());
+        var taken = new HashSet<Path>();
+        for (var path : paths) {
+            var fileName = path.getFileName();
+            var extension = reportFormat.getFileExtension();
+            var reportPath = outputDirectory.resolve("%s.report.%s".formatted(fileName, extension));
+            for (var number = 2; !taken.add(reportPath); number++) {
+                reportPath = outputDirectory.resolve("%s.%d.report.%s".formatted(fileName, number, extension));
+            }
+            reportPaths.add(reportPath);
+        }
+        return reportPaths;
+    }
+
+    private FileResult analyzeFile(Path path, Path reportPath) {
+        int permits;
+        try {
+            permits = this.permitsOf(path);
+            memoryBudget.acquire(permits);
+        } catch (IOException ex) {
+            return FileResult.failed(path, reportPath, "Impossible to read file. Additional information: %s".formatted(ex.getMessage()));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return FileResult.failed(path, reportPath, "Analysis was interrupted");
+        }
+        try {
+            List<Report> reports;
+            FileResult result;
+            try {
+                var companyStructure = fileDataRetriever.retrieveCompanyStructure(path);
+                reports = ParsingReport.withParsingReport(companyStructure,
+                        reportGenerationEngine.generateReports(companyStructure, reportGenerationServices));
+                result = FileResult.analyzed(path, reportPath, companyStructure.size(), reports);
+            } catch (ReportException ex) {
+                var errorReport = new Report(Report.ReportType.UNRECOVERABLE_ERROR_REPORT);
+                ex.getErrors().forEach(errorReport::addErrorsReportEntry);
+                reports = List.of(errorReport);
+                result = FileResult.failed(path, reportPath, "%d errors are in the report".formatted(ex.getErrors().size()));
+            }
+            this.write(reportPath, reports);
+            return result;
+        } catch (IOException ex) {
+            return FileResult.failed(path, reportPath, "Impossible to write report. Additional information: %s".formatted(ex.getMessage()));
+        } catch (RuntimeException ex) {
+            return FileResult.failed(path, reportPath, String.valueOf(ex.getMessage()));
+        } finally {
+            memoryBudget.release(permits);
+        }
+    }
+
+    private int permitsOf(Path path) throws IOException {
+        var size = Files.exists(path) ? FileParser.contentSizeOf(path) : 0;
+        var estimate = size > Long.MAX_VALUE / ESTIMATED_MEMORY_PER_FILE_BYTE
+                ? Long.MAX_VALUE
+                : size * ESTIMATED_MEMORY_PER_FILE_BYTE;
+        return (int) Math.min(memoryBudgetPermits, Math.max(1, estimate / PERMIT_SIZE));
+    }
+
+    private void write(Path reportPath, List<Report> reports) throws IOException {
+        try (var output = new BufferedOutputStream(Files.newOutputStream(reportPath))) {
+            reportFormat.write(reports, output);
+        }
+    }
+
+    private FileResult awaitResult(Path path, Path reportPath, Future<FileResult> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return FileResult.failed(path, reportPath, "Analysis was interrupted");
+        } catch (ExecutionException ex) {
+            return FileResult.failed(path, reportPath, String.valueOf(ex.getCause().getMessage()));
+        }
+    }
+
+    /**
+     * @param failure reason why the file is not analyzed, null for analyzed files
+     */
+    private record FileResult(Path path, Path reportPath, int employees, int issues, int errors, String failure) {
+
+        static FileResult analyzed(Path path, Path reportPath, int employees, List<Report> reports) {
+            var issues = reports.stream().mapToInt(Report::getReportEntriesCount).sum();
+            var errors = reports.stream().mapToInt(Report::getErrorsReportEntriesCount).sum();
+            return new FileResult(path, reportPath, employees, issues, errors, null);
+        }
+
+        static FileResult failed(Path path, Path reportPath, String failure) {
+            return new FileResult(path, reportPath, 0, 0, 0, failure);
+        }
+
+        void addTo(Report summary) {
+            if (failure == null) {
+                summary.addReportEntry("File %s with %d employees has %d issues and %d errors, report: %s"
+                        .formatted(path.getFileName(), employees, issues, errors, reportPath.getFileName()));
+            } else {
+                summary.addErrorsReportEntry("File %s is not analyzed: %s".formatted(path.getFileName(), failure));
+            }
+        }
+    }
+}
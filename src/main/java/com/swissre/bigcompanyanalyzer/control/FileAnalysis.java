@@ -0,0 +1,14 @@
+package com.swissre.bigcompanyanalyzer.control;
+
+import java.nio.file.Path;
+
+/**
+ * Analysis making the reports straight from the file, without retrieving the linked company structure first
+ */
+public interface FileAnalysis {
+
+    /**
+     * @throws ReportException when the file can not be read or the company structure is invalid
+     */
+    AnalysisResult analyze(Path path);
+}
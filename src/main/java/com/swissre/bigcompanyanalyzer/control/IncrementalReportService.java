@@ -0,0 +1,75 @@
+package com.swissre.bigcompanyanalyzer.control;
+
+import com.swissre.bigcompanyanalyzer.control.file.ChangeFileParser;
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.output.ReportOutputService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.IncrementalAnalysis;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportingLineReportGenerationService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryLevelReportGenerationService;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Keeps the company structure loaded between change files, so every change file costs only the re-evaluation
+ * of the changed employees instead of parsing and analyzing the whole company again.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class IncrementalReportService {
+    private final FileDataRetriever fileDataRetriever;
+    private final ChangeFileParser changeFileParser;
+    private final ReportOutputService reportOutputService;
+    private final ReportingLineReportGenerationService reportingLineReportGenerationService;
+    private final SalaryLevelReportGenerationService salaryLevelReportGenerationService;
+    private IncrementalAnalysis incrementalAnalysis;
+
+    public IncrementalReportService(FileDataRetriever fileDataRetriever,
+                                    ChangeFileParser changeFileParser,
+                                    ReportOutputService reportOutputService,
+                                    ReportingLineReportGenerationService reportingLineReportGenerationService,
+                                    SalaryLevelReportGenerationService salaryLevelReportGenerationService) {
+        this.fileDataRetriever = fileDataRetriever;
+        this.changeFileParser = changeFileParser;
+        this.reportOutputService = reportOutputService;
+        this.reportingLineReportGenerationService = reportingLineReportGenerationService;
+        this.salaryLevelReportGenerationService = salaryLevelReportGenerationService;
+    }
+
+    /**
+     * Load the company structure and write reports of it, replaces the previously loaded structure
+     */
+    public void loadFromFile(Path path) {
+        try {
+            var companyStructure = fileDataRetriever.retrieveCompanyStructure(path);
+            this.incrementalAnalysis = new IncrementalAnalysis(companyStructure,
+                    reportingLineReportGenerationService, salaryLevelReportGenerationService);
+            this.reportOutputService.writeReports(incrementalAnalysis.getReports());
+        } catch (ReportException ex) {
+            writeErrorReport(ex.getErrors());
+        }
+    }
+
+    /**
+     * Apply changes from the file to the loaded structure and write reports of the changed structure
+     */
+    public void applyChangesFromFile(Path path) {
+        try {
+            if (incrementalAnalysis == null) {
+                throw new ReportException("Company structure must be loaded before applying changes");
+            }
+            var changes = changeFileParser.parse(path);
+            incrementalAnalysis.applyChanges(changes);
+            this.reportOutputService.writeReports(incrementalAnalysis.getReports());
+        } catch (ReportException ex) {
+            writeErrorReport(ex.getErrors());
+        }
+    }
+
+    private void writeErrorReport(List<String> errors) {
+        var errorReport = new Report(Report.ReportType.UNRECOVERABLE_ERROR_REPORT);
+        errors.forEach(errorReport::addErrorsReportEntry);
+        this.reportOutputService.writeErrorReport(errorReport);
+    }
+}
@@ -0,0 +1,47 @@
+package com.swissre.bigcompanyanalyzer.control;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.RejectedRows;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Report of the rows skipped by the parser: their amount and the sampled rows with reasons
+ */
+final class ParsingReport {
+
+    private ParsingReport() {
+    }
+
+    /**
+     * @return reports with the parsing report first, the same reports when no row of the file was rejected
+     */
+    static List<Report> withParsingReport(CompanyStructure companyStructure, List<Report> reports) {
+        return withParsingReport(companyStructure.getRejectedRows(), reports);
+    }
+
+    /**
+     * @return reports with the parsing report first, the same reports when no row of the file was rejected
+     */
+    static List<Report> withParsingReport(RejectedRows rejectedRows, List<Report> reports) {
+        if (rejectedRows.isEmpty()) {
+            return reports;
+        }
+        var parsingReport = new Report(Report.ReportType.PARSING_REPORT);
+        parsingReport.addReportEntry("%d rows of the file are rejected".formatted(rejectedRows.getCount()));
+        for (var i = 0; i < rejectedRows.getSampledCount(); i++) {
+            parsingReport.addErrorsReportEntry("Row at byte %d is rejected: %s"
+                    .formatted(rejectedRows.getPosition(i), rejectedRows.getReason(i)));
+        }
+        var notListed = rejectedRows.getCount() - rejectedRows.getSampledCount();
+        if (notListed > 0) {
+            parsingReport.addErrorsReportEntry("%d more rejected rows are not listed".formatted(notListed));
+        }
+        var result = new ArrayList<Report>(reports.size() + 1);
+        result.add(parsingReport);
+        result.addAll(reports);
+        return result;
+    }
+}
@@ -1,7 +1,24 @@
 package com.swissre.bigcompanyanalyzer.control;
 
+import java.util.List;
+
 public class ReportException extends RuntimeException {
+    private final List<String> errors;
+
     protected ReportException(String error) {
         super(error);
+        this.errors = List.of(error);
+    }
+
+    /**
+     * @param errors all found errors, the message joins them by line breaks
+     */
+    protected ReportException(List<String> errors) {
+        super(String.join(System.lineSeparator(), errors));
+        this.errors = List.copyOf(errors);
+    }
+
+    public List<String> getErrors() {
+        return errors;
     }
 }
@@ -1,41 +1,166 @@
 package com.swissre.bigcompanyanalyzer.control;
 
+import com.swissre.bigcompanyanalyzer.control.cache.ReportCache;
 import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.instrumentation.PipelineInstrumentation;
+import com.swissre.bigcompanyanalyzer.control.instrumentation.PipelineStage;
 import com.swissre.bigcompanyanalyzer.control.output.ReportOutputService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.FusedReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationEngine;
 import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationService;
 import com.swissre.bigcompanyanalyzer.entity.Report;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 public class ReportService {
     private final FileDataRetriever fileDataRetriever;
     private final ReportOutputService reportOutputService;
     private final List<ReportGenerationService> reportGenerationServices;
+    private final ReportGenerationEngine reportGenerationEngine;
+    private final PipelineInstrumentation instrumentation;
+    private final FileAnalysis fileAnalysis;
+    private final ReportCache reportCache;
 
     public ReportService(FileDataRetriever fileDataRetriever,
                          ReportOutputService reportOutputService,
                          List<ReportGenerationService> reportGenerationServices) {
+        this(fileDataRetriever, reportOutputService, reportGenerationServices, new FusedReportGenerationEngine());
+    }
+
+    /**
+     * @param reportGenerationEngine engine generating all reports at once, used when more than one report is configured
+     */
+    public ReportService(FileDataRetriever fileDataRetriever,
+                         ReportOutputService reportOutputService,
+                         List<ReportGenerationService> reportGenerationServices,
+                         ReportGenerationEngine reportGenerationEngine) {
+        this(fileDataRetriever, reportOutputService, reportGenerationServices, reportGenerationEngine,
+                PipelineInstrumentation.DISABLED);
+    }
+
+    /**
+     * @param instrumentation measures report generation and output, retrieval is measured by the retriever
+     */
+    public ReportService(FileDataRetriever fileDataRetriever,
+                         ReportOutputService reportOutputService,
+                         List<ReportGenerationService> reportGenerationServices,
+                         ReportGenerationEngine reportGenerationEngine,
+                         PipelineInstrumentation instrumentation) {
+        this(fileDataRetriever, reportOutputService, reportGenerationServices, reportGenerationEngine, instrumentation, null);
+    }
+
+    /**
+     * @param reportCache cache of the reports by the file content and the service parameters, null disables caching,
+     *                    reports are generated again when a service has no cache key
+     */
+    public ReportService(FileDataRetriever fileDataRetriever,
+                         ReportOutputService reportOutputService,
+                         List<ReportGenerationService> reportGenerationServices,
+                         ReportGenerationEngine reportGenerationEngine,
+                         PipelineInstrumentation instrumentation,
+                         ReportCache reportCache) {
         this.fileDataRetriever = fileDataRetriever;
         this.reportOutputService = reportOutputService;
         this.reportGenerationServices = reportGenerationServices;
+        this.reportGenerationEngine = reportGenerationEngine;
+        this.instrumentation = instrumentation;
+        this.fileAnalysis = null;
+        this.reportCache = reportCache;
+    }
+
+    /**
+     * Service making the reports by the analysis of the file instead of the retriever and the report generation services,
+     * e.g. for companies which do not fit into the heap
+     */
+    public ReportService(FileAnalysis fileAnalysis,
+                         ReportOutputService reportOutputService,
+                         PipelineInstrumentation instrumentation) {
+        this.fileDataRetriever = null;
+        this.reportOutputService = reportOutputService;
+        this.reportGenerationServices = List.of();
+        this.reportGenerationEngine = null;
+        this.instrumentation = instrumentation;
+        this.fileAnalysis = fileAnalysis;
+        this.reportCache = null;
     }
 
     public void analyzeAndMakeReportFromFile(Path path) {
+        if (fileAnalysis != null) {
+            this.analyzeFile(path);
+            return;
+        }
         try {
-            var idsToEmployeesMap = fileDataRetriever.retrieveLinkedCompanyEmployeesData(path);
-            var reports = this.reportGenerationServices.stream()
-                    .map(reportGenerationService -> reportGenerationService.generateReport(idsToEmployeesMap))
-                    .toList();
-            this.reportOutputService.writeReports(reports);
+            var cacheKey = this.cacheKeyOf(path);
+            if (cacheKey.isPresent()) {
+                var cachedReports = reportCache.get(cacheKey.get());
+                if (cachedReports.isPresent()) {
+                    this.writeReports(path, cachedReports.get());
+                    return;
+                }
+            }
+            var companyStructure = fileDataRetriever.retrieveCompanyStructure(path);
+            List<Report> reports;
+            try (var stage = instrumentation.start(PipelineStage.REPORT_GENERATION, path)) {
+                reports = this.reportGenerationServices.size() > 1
+                        ? this.reportGenerationEngine.generateReports(companyStructure, this.reportGenerationServices)
+                        : this.reportGenerationServices.stream()
+                        .map(reportGenerationService -> reportGenerationService.generateReport(companyStructure))
+                        .toList();
+                reports = ParsingReport.withParsingReport(companyStructure, reports);
+                stage.items(PipelineInstrumentation.entriesOf(reports));
+            }
+            // the file may change between hashing and parsing, reports of other content must not be kept under the old hash
+            if (cacheKey.isPresent() && cacheKey.equals(this.cacheKeyOf(path))) {
+                reportCache.put(cacheKey.get(), reports);
+            }
+            this.writeReports(path, reports);
+        } catch (ReportException ex) {
+            writeErrorReport(ex.getErrors());
+        }
+    }
+
+    /**
+     * @return empty when there is no cache, a service has no cache key or the file can not be hashed,
+     * the retriever reports the problems of the file then
+     */
+    private Optional<ReportCache.Key> cacheKeyOf(Path path) {
+        if (reportCache == null) {
+            return Optional.empty();
+        }
+        try {
+            return reportCache.keyOf(path, reportGenerationServices);
+        } catch (IOException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private void analyzeFile(Path path) {
+        try {
+            List<Report> reports;
+            try (var stage = instrumentation.start(PipelineStage.REPORT_GENERATION, path)) {
+                var result = fileAnalysis.analyze(path);
+                reports = ParsingReport.withParsingReport(result.rejectedRows(), result.reports());
+                stage.items(PipelineInstrumentation.entriesOf(reports));
+            }
+            this.writeReports(path, reports);
         } catch (ReportException ex) {
-            writeErrorReport(ex.getMessage());
+            writeErrorReport(ex.getErrors());
+        }
+    }
+
+    private void writeReports(Path path, List<Report> reports) {
+        try (var stage = instrumentation.start(PipelineStage.OUTPUT, path)) {
+            this.reportOutputService.writeReports(reports);
+            stage.items(PipelineInstrumentation.entriesOf(reports));
         }
     }
 
-    private void writeErrorReport(String error) {
+    private void writeErrorReport(List<String> errors) {
         var errorReport = new Report(Report.ReportType.UNRECOVERABLE_ERROR_REPORT);
-        errorReport.addErrorsReportEntry(error);
+        errors.forEach(errorReport::addErrorsReportEntry);
         this.reportOutputService.writeErrorReport(errorReport);
     }
 }
@@ -0,0 +1,108 @@
+package com.swissre.bigcompanyanalyzer.control;
+
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportingLineReportGenerationService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryRatioIndex;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the linked company structure in memory and generates reports of it with thresholds given per request.
+ * Salary percents are computed once per structure into a {@link SalaryRatioIndex}, so salary thresholds are cheap to change.
+ * <p>
+ * The loaded structure is never changed, a reload builds a new structure on the reload executor and then replaces
+ * the reference to the loaded one, so report generation never waits for a reload and always sees one whole structure.
+ * A failed reload keeps the previously loaded structure.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class ResidentAnalysisService {
+    private final FileDataRetriever fileDataRetriever;
+    private final ReportGenerationEngine reportGenerationEngine;
+    private final ExecutorService reloadExecutor;
+    private final AtomicReference<LoadedStructure> loadedStructure = new AtomicReference<>();
+
+    /**
+     * @param reloadExecutor executor building structures in the background, a single thread executor keeps reloads in order
+     */
+    public ResidentAnalysisService(FileDataRetriever fileDataRetriever,
+                                   ReportGenerationEngine reportGenerationEngine,
+                                   ExecutorService reloadExecutor) {
+        this.fileDataRetriever = fileDataRetriever;
+        this.reportGenerationEngine = reportGenerationEngine;
+        this.reloadExecutor = reloadExecutor;
+    }
+
+    /**
+     * Load the structure on the calling thread and replace the loaded one
+     */
+    public LoadedStructure load(Path path) {
+        var companyStructure = fileDataRetriever.retrieveCompanyStructure(path);
+        var loaded = new LoadedStructure(path, companyStructure, SalaryRatioIndex.of(companyStructure), Instant.now());
+        loadedStructure.set(loaded);
+        return loaded;
+    }
+
+    /**
+     * Load the structure on the reload executor and replace the loaded one when it is ready
+     *
+     * @return future completed with the new structure or with the {@link ReportException} of the reload
+     */
+    public CompletableFuture<LoadedStructure> reload(Path path) {
+        return CompletableFuture.supplyAsync(() -> this.load(path), reloadExecutor);
+    }
+
+    public Optional<LoadedStructure> getLoadedStructure() {
+        return Optional.ofNullable(loadedStructure.get());
+    }
+
+    /**
+     * Generate reporting line and salary reports of the loaded structure,
+     * the salary report is taken from the salary ratio index without walking the hierarchy
+     */
+    public List<Report> generateReports(int allowedReportingLevel, int minAllowedSalaryPercent, int maxAllowedSalaryPercent) {
+        return this.generateReports(allowedReportingLevel, minAllowedSalaryPercent, maxAllowedSalaryPercent, false);
+    }
+
+    /**
+     * @param reportingLineSummary true to group employees with too long reporting lines under the highest of them,
+     *                             see {@link ReportingLineReportGenerationService}
+     */
+    public List<Report> generateReports(int allowedReportingLevel, int minAllowedSalaryPercent, int maxAllowedSalaryPercent,
+                                        boolean reportingLineSummary) {
+        var loaded = this.getLoadedOrThrow();
+        var reportingLineReport = reportGenerationEngine.generateReports(loaded.companyStructure(),
+                List.of(new ReportingLineReportGenerationService(allowedReportingLevel, reportingLineSummary))).get(0);
+        return ParsingReport.withParsingReport(loaded.companyStructure(), List.of(reportingLineReport,
+                loaded.salaryRatioIndex().generateReport(minAllowedSalaryPercent, maxAllowedSalaryPercent)));
+    }
+
+    /**
+     * @return amount of managers out of the salary range for every pair of the thresholds,
+     * see {@link SalaryRatioIndex#countOutOfRange(int[], int[])}
+     */
+    public int[][] countSalariesOutOfRange(int[] minAllowedSalaryPercents, int[] maxAllowedSalaryPercents) {
+        return this.getLoadedOrThrow().salaryRatioIndex().countOutOfRange(minAllowedSalaryPercents, maxAllowedSalaryPercents);
+    }
+
+    private LoadedStructure getLoadedOrThrow() {
+        var loaded = loadedStructure.get();
+        if (loaded == null) {
+            throw new ReportException("Company structure is not loaded");
+        }
+        return loaded;
+    }
+
+    public record LoadedStructure(Path path, CompanyStructure companyStructure, SalaryRatioIndex salaryRatioIndex,
+                                  Instant loadedAt) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.swissre.bigcompanyanalyzer.control;
+
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.file.StructureValidator;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryLevelReportGenerationService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Salary report of a file aggregated while the file is read by {@link com.swissre.bigcompanyanalyzer.control.reportgeneration.StreamingSalaryAggregation},
+ * the company structure is never linked, so only the verdicts are left to compute after the last row.
+ * The rows are checked by {@link StructureValidator} the same way as by the file retriever, so an invalid file
+ * gives the same errors as the in-memory analysis.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class StreamingSalaryAnalysis implements FileAnalysis {
+    private final FileParser fileParser;
+    private final SalaryLevelReportGenerationService salaryLevelReportGenerationService;
+
+    public StreamingSalaryAnalysis(FileParser fileParser,
+                                   SalaryLevelReportGenerationService salaryLevelReportGenerationService) {
+        this.fileParser = fileParser;
+        this.salaryLevelReportGenerationService = salaryLevelReportGenerationService;
+    }
+
+    @Override
+    public AnalysisResult analyze(Path path) {
+        var aggregation = salaryLevelReportGenerationService.createAggregation();
+        try {
+            var rejectedRows = fileParser.parseRows(path,
+                    (position, id, salary, hasManager, managerId) -> aggregation.add(id, salary, hasManager, managerId));
+            var errors = new StructureValidator().validate(aggregation.getRows());
+            if (!errors.isEmpty()) {
+                throw new ReportException(errors);
+            }
+            return new AnalysisResult(List.of(aggregation.generateReport()), rejectedRows);
+        } catch (IOException ex) {
+            throw new ReportException("Impossible to read file. Additional information: %s".formatted(ex.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.swissre.bigcompanyanalyzer.control.cache;
+
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import com.swissre.bigcompanyanalyzer.entity.ReportEntries;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reports of the cache stored as one file per key, named by the SHA-256 of the key, with {@value #SUFFIX} suffix.
+ * A file of another version, of another key or with a wrong checksum is ignored and replaced by the next write.
+ * When the files take more than the limit, the files modified longest ago are deleted.
+ * <p>
+ * Format, big-endian: magic, version, content hash, parameters, amount of reports, every report as its type name,
+ * typed entries, typed errors, text entries and text errors, checksum. Strings are length-prefixed UTF-8,
+ * typed entries are the amount of them and the type name, employee id, value, limit and count of every entry.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+final class DiskTier {
+    static final String SUFFIX = ".reports";
+
+    private static final int MAGIC = 0x42434152;
+    private static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    private record StoredFile(Path path, long size, FileTime modified) {
+    }
+
+    DiskTier(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return reports of the key, empty when there is no file of the key or it can not be read
+     */
+    Optional<List<Report>> read(ReportCache.Key key) {
+        var file = this.fileOf(key);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try (var checkedInput = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE),
+                new CRC32C())) {
+            var input = new DataInputStream(checkedInput);
+            var reports = readBody(input, key);
+            if (reports.isEmpty()) {
+                return Optional.empty();
+            }
+            var checksum = (int) checkedInput.getChecksum().getValue();
+            if (input.readInt() != checksum || input.read() != -1) {
+                return Optional.empty();
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return reports;
+        } catch (IOException | IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Write the reports of the key and evict the oldest files above the limit, a failed write is ignored
+     */
+    void write(ReportCache.Key key, List<Report> reports) {
+        var file = this.fileOf(key);
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (var output = Files.newOutputStream(temporary)) {
+                var checksum = new CRC32C();
+                var checkedOutput = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(output, checksum), BUFFER_SIZE));
+                writeBody(checkedOutput, key, reports);
+                checkedOutput.flush();
+                new DataOutputStream(output).writeInt((int) checksum.getValue());
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            this.evict();
+        } catch (IOException ex) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // next write replaces the temporary file
+            }
+        }
+    }
+
+    Path fileOf(ReportCache.Key key) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+        digest.update(key.contentHash().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(key.parameters().getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(HexFormat.of().formatHex(digest.digest()) + SUFFIX);
+    }
+
+    private void evict() throws IOException {
+        var files = new ArrayList<StoredFile>();
+        try (Stream<Path> listed = Files.list(directory)) {
+            for (var path : listed.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                files.add(new StoredFile(path, Files.size(path), Files.getLastModifiedTime(path)));
+            }
+        }
+        var total = files.stream().mapToLong(StoredFile::size).sum();
+        if (total <= maxBytes) {
+            return;
+        }
+        files.sort(Comparator.comparing(StoredFile::modified));
+        for (var i = 0; i < files.size() && total > maxBytes; i++) {
+            Files.deleteIfExists(files.get(i).path());
+            total -= files.get(i).size();
+        }
+    }
+
+    private static void writeBody(DataOutputStream output, ReportCache.Key key, List<Report> reports) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        writeString(output, key.contentHash());
+        writeString(output, key.parameters());
+        output.writeInt(reports.size());
+        for (var report : reports) {
+            writeString(output, report.getType().name());
+            writeTyped(output, report.getTypedReportEntries());
+            writeTyped(output, report.getTypedErrorsReportEntries());
+            writeText(output, report.getTextReportEntries());
+            writeText(output, report.getTextErrorsReportEntries());
+        }
+    }
+
+    /**
+     * @return empty when the file is of another version or of another key
+     */
+    private static Optional<List<Report>> readBody(DataInputStream input, ReportCache.Key key) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION
+                || !key.contentHash().equals(readString(input)) || !key.parameters().equals(readString(input))) {
+            return Optional.empty();
+        }
+        var count = input.readInt();
+        var reports = new ArrayList<Report>(Math.max(0, Math.min(count, 16)));
+        for (var i = 0; i < count; i++) {
+            var report = new Report(Report.ReportType.valueOf(readString(input)));
+            var entries = input.readInt();
+            for (var j = 0; j < entries; j++) {
+                var type = Report.EntryType.valueOf(readString(input));
+                report.addReportEntry(type, input.readLong(), input.readInt(), input.readInt(), input.readInt());
+            }
+            var errors = input.readInt();
+            for (var j = 0; j < errors; j++) {
+                var type = Report.EntryType.valueOf(readString(input));
+                report.addErrorsReportEntry(type, input.readLong());
+                // errors have no value, limit and count
+                input.readInt();
+                input.readInt();
+                input.readInt();
+            }
+            var textEntries = input.readInt();
+            for (var j = 0; j < textEntries; j++) {
+                report.addReportEntry(readString(input));
+            }
+            var textErrors = input.readInt();
+            for (var j = 0; j < textErrors; j++) {
+                report.addErrorsReportEntry(readString(input));
+            }
+            reports.add(report);
+        }
+        return Optional.of(reports);
+    }
+
+    private static void writeTyped(DataOutputStream output, ReportEntries entries) throws IOException {
+        output.writeInt(entries.size());
+        for (var i = 0; i < entries.size(); i++) {
+            writeString(output, entries.getType(i).name());
+            output.writeLong(entries.getEmployeeId(i));
+            output.writeInt(entries.getValue(i));
+            output.writeInt(entries.getLimit(i));
+            output.writeInt(entries.getCount(i));
+        }
+    }
+
+    private static void writeText(DataOutputStream output, Set<String> entries) throws IOException {
+        output.writeInt(entries.size());
+        for (var entry : entries) {
+            writeString(output, entry);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        var length = input.readInt();
+        if (length < 0) {
+            throw new EOFException("Negative string length %d".formatted(length));
+        }
+        return new String(input.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
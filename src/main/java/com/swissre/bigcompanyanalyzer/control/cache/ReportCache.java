@@ -0,0 +1,236 @@
+package com.swissre.bigcompanyanalyzer.control.cache;
+
+import com.swissre.bigcompanyanalyzer.control.instrumentation.MXBeans;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationService;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import javax.management.MBeanServer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of generated reports keyed by the SHA-256 of the file content and the keys of the report generation services,
+ * so a renamed or touched file with the same content hits the cache, and a changed file or other thresholds miss it.
+ * <p>
+ * Reports are kept in memory in the least recently used order until their total weight, an estimate of their size
+ * in bytes, exceeds the limit, then the least recently used reports are evicted. With a directory the reports are
+ * also written to disk, the disk tier is read on a memory miss and outlives the process, it is limited by the size
+ * of its files and evicted by their modification time, which is updated by every disk hit.
+ * <p>
+ * Cached reports are shared between the hits, so they must not be changed.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class ReportCache implements ReportCacheMXBean {
+    static final String OBJECT_NAME = "com.swissre.bigcompanyanalyzer:type=ReportCache";
+
+    private static final int HASH_BUFFER_SIZE = 1 << 16;
+    private static final long TYPED_ENTRY_WEIGHT = Byte.BYTES + Long.BYTES + 3 * Integer.BYTES;
+    private static final long TEXT_ENTRY_WEIGHT = 48;
+    private static final long REPORT_WEIGHT = 256;
+
+    private final long maxWeight;
+    private final DiskTier diskTier;
+    private final LinkedHashMap<Key, CachedReports> memoryTier = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Key of cached reports
+     *
+     * @param contentHash hex SHA-256 of the file content
+     * @param parameters  keys of the report generation services in their order
+     */
+    public record Key(String contentHash, String parameters) {
+    }
+
+    private record CachedReports(List<Report> reports, long weight) {
+    }
+
+    /**
+     * Memory only cache
+     *
+     * @param maxWeight estimated amount of bytes the cached reports may take in memory
+     */
+    public ReportCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+        this.diskTier = null;
+    }
+
+    /**
+     * @param directory    directory of the disk tier, it is created when it does not exist
+     * @param maxDiskBytes amount of bytes the files of the disk tier may take
+     */
+    public ReportCache(long maxWeight, Path directory, long maxDiskBytes) {
+        this.maxWeight = maxWeight;
+        this.diskTier = new DiskTier(directory, maxDiskBytes);
+    }
+
+    /**
+     * @return key of the reports of the file, empty when a service has no {@link ReportGenerationService#getCacheKey() cache key}
+     */
+    public Optional<Key> keyOf(Path file, List<? extends ReportGenerationService> reportGenerationServices) throws IOException {
+        var parameters = new ArrayList<String>(reportGenerationServices.size());
+        for (var reportGenerationService : reportGenerationServices) {
+            var cacheKey = reportGenerationService.getCacheKey();
+            if (cacheKey.isEmpty()) {
+                return Optional.empty();
+            }
+            parameters.add(cacheKey.get());
+        }
+        return Optional.of(new Key(contentHashOf(file), String.join(";", parameters)));
+    }
+
+    /**
+     * @return reports from memory or from the disk tier, a disk hit is kept in memory as well
+     */
+    public Optional<List<Report>> get(Key key) {
+        synchronized (this) {
+            var cached = memoryTier.get(key);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached.reports());
+            }
+        }
+        var fromDisk = diskTier != null ? diskTier.read(key) : Optional.<List<Report>>empty();
+        if (fromDisk.isEmpty()) {
+            misses.increment();
+            return Optional.empty();
+        }
+        diskHits.increment();
+        this.putInMemory(key, fromDisk.get());
+        return fromDisk;
+    }
+
+    /**
+     * Keep the reports in memory and on disk, reports heavier than the memory limit are kept on disk only
+     */
+    public void put(Key key, List<Report> reports) {
+        this.putInMemory(key, reports);
+        if (diskTier != null) {
+            diskTier.write(key, reports);
+        }
+    }
+
+    /**
+     * Register as the platform MXBean, an already registered instance is replaced
+     */
+    public void register(MBeanServer mBeanServer) {
+        MXBeans.register(mBeanServer, this, OBJECT_NAME);
+    }
+
+    public String summary() {
+        return "Report cache: %d hits, %d disk hits, %d misses, %d evictions, %d entries, %d bytes"
+                .formatted(this.getHits(), this.getDiskHits(), this.getMisses(), this.getEvictions(),
+                        this.getEntries(), this.getWeight());
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getDiskHits() {
+        return diskHits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public synchronized int getEntries() {
+        return memoryTier.size();
+    }
+
+    @Override
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Reset the counters, cached reports are kept
+     */
+    @Override
+    public void reset() {
+        hits.reset();
+        diskHits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /**
+     * @return estimated amount of bytes the reports take in memory
+     */
+    static long weightOf(List<Report> reports) {
+        var total = 0L;
+        for (var report : reports) {
+            total += REPORT_WEIGHT
+                    + TYPED_ENTRY_WEIGHT * (report.getTypedReportEntries().size() + report.getTypedErrorsReportEntries().size());
+            for (var entry : report.getTextReportEntries()) {
+                total += TEXT_ENTRY_WEIGHT + 2L * entry.length();
+            }
+            for (var entry : report.getTextErrorsReportEntries()) {
+                total += TEXT_ENTRY_WEIGHT + 2L * entry.length();
+            }
+        }
+        return total;
+    }
+
+    static String contentHashOf(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                digest.update(buffer.flip());
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private synchronized void putInMemory(Key key, List<Report> reports) {
+        var reportsWeight = weightOf(reports);
+        var previous = memoryTier.remove(key);
+        if (previous != null) {
+            weight -= previous.weight();
+        }
+        if (reportsWeight > maxWeight) {
+            return;
+        }
+        memoryTier.put(key, new CachedReports(reports, reportsWeight));
+        weight += reportsWeight;
+        var iterator = memoryTier.values().iterator();
+        while (weight > maxWeight) {
+            weight -= iterator.next().weight();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.swissre.bigcompanyanalyzer.control.cache;
+
+/**
+ * Statistics of the report cache since the start or the last {@link #reset()}
+ */
+public interface ReportCacheMXBean {
+
+    long getHits();
+
+    long getDiskHits();
+
+    long getMisses();
+
+    long getEvictions();
+
+    int getEntries();
+
+    long getWeight();
+
+    void reset();
+}
@@ -0,0 +1,368 @@
+package com.swissre.bigcompanyanalyzer.control.external;
+
+import com.swissre.bigcompanyanalyzer.control.AnalysisResult;
+import com.swissre.bigcompanyanalyzer.control.FileAnalysis;
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.file.StructureValidator;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SubordinateSalaries;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.RejectedRows;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Reporting line and salary reports of a company which does not fit into the heap.
+ * No Employee objects and no {@link CompanyStructure} of the whole company are created, parsed rows are spilled
+ * to temporary files by {@link ExternalSorter} and the reports are made by merge joins of the sorted files:
+ * <ol>
+ * <li>rows are sorted by id, later rows with an already seen id are reported as duplicated;</li>
+ * <li>subordinates are sorted by manager id and joined with the employees sorted by id, one pass gives
+ * the amount of subordinates and the sum of their positive salaries for every manager, so the salary report is made,
+ * subordinates whose manager does not exist are found by the same join;</li>
+ * <li>reporting line depths are found level by level: the employees of one level, sorted by id, are joined with
+ * the subordinates sorted by manager id, which gives the next level. The walk starts from the CEO and from
+ * the employees with a missing manager, so the employees cut off by them are counted as well;</li>
+ * <li>employees reached by no walk are in reporting cycles or under them, only they are loaded into memory
+ * and checked by {@link StructureValidator}.</li>
+ * </ol>
+ * Reports and errors are the same as of the in-memory analysis, they are kept in memory as there.
+ * Every level costs one pass over the subordinates file, so the walk is meant for wide and not too deep companies.
+ * <p>
+ * The memory budget bounds the sort buffers and the merged runs, the sorters of two neighbouring steps may work
+ * at the same time, so the heap used by the sorting is about the budget.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class ExternalMemoryAnalysis implements FileAnalysis {
+    private static final String DIRECTORY_PREFIX = "external-analysis-";
+    /**
+     * Heap taken by one row left for the validation in {@link CompanyStructure.Builder} and its sorting
+     */
+    private static final int UNREACHED_ROW_BYTES = 64;
+    /**
+     * Flag of the walked employees which are under the CEO, other walked employees are under a missing manager
+     */
+    private static final long UNDER_CEO = 1;
+
+    private final FileParser fileParser;
+    private final int allowedReportingLevel;
+    private final int minAllowedPercent;
+    private final int maxAllowedPercent;
+    private final long memoryBudget;
+    private final Path temporaryDirectory;
+
+    /**
+     * @param memoryBudget       amount of heap bytes for sorting, see the class description
+     * @param temporaryDirectory directory for the temporary files, they take about 4 times the size of the rows
+     */
+    public ExternalMemoryAnalysis(FileParser fileParser, int allowedReportingLevel, int minAllowedPercent,
+                                  int maxAllowedPercent, long memoryBudget, Path temporaryDirectory) {
+        this.fileParser = fileParser;
+        this.allowedReportingLevel = allowedReportingLevel;
+        this.minAllowedPercent = minAllowedPercent;
+        this.maxAllowedPercent = maxAllowedPercent;
+        this.memoryBudget = memoryBudget;
+        this.temporaryDirectory = temporaryDirectory;
+    }
+
+    @Override
+    public AnalysisResult analyze(Path path) {
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory(temporaryDirectory, DIRECTORY_PREFIX);
+            return new Analysis(directory).run(path);
+        } catch (IOException ex) {
+            throw new ExternalMemoryException("Impossible to read file. Additional information: %s".formatted(ex.getMessage()));
+        } catch (UncheckedIOException ex) {
+            throw new ExternalMemoryException("Impossible to read file. Additional information: %s"
+                    .formatted(ex.getCause().getMessage()));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    private static void deleteDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ex) {
+            // the temporary directory is left to the operating system
+        }
+    }
+
+    /**
+     * Order of the rows with the same id: position of the row in the file, the lowest bit is set when the row has a manager
+     */
+    private static long sequenceOf(long position, boolean hasManager) {
+        return position << 1 | (hasManager ? 1 : 0);
+    }
+
+    private static boolean hasManager(long sequence) {
+        return (sequence & 1) != 0;
+    }
+
+    /**
+     * State of the analysis of one file, the files of all steps are in one temporary directory
+     */
+    private final class Analysis {
+        private final Path directory;
+        private final List<String> errors = new ArrayList<>();
+        private final Report reportingLineReport = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        private final Report salaryReport = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        /**
+         * Amounts of employees cut off by every missing manager, by the id of the employee with the missing manager
+         */
+        private final Map<Long, Long> unreachableGroupSizes = new HashMap<>();
+        /**
+         * Failure of the salary calculation, thrown only when the rows are valid, as by the in-memory analysis
+         */
+        private ArithmeticException salaryFailure;
+        private long employees;
+        private long ceos;
+        private long walked;
+
+        private Analysis(Path directory) {
+            this.directory = directory;
+        }
+
+        AnalysisResult run(Path path) throws IOException {
+            var rowsById = new ExternalSorter(directory, memoryBudget);
+            var rejectedRows = this.parse(path, rowsById);
+
+            var employeesFile = directory.resolve("employees.bin");
+            var subordinatesFile = directory.resolve("subordinates.bin");
+            var subordinates = new ExternalSorter(directory, memoryBudget);
+            var roots = new ExternalSorter(directory, memoryBudget);
+            this.removeDuplicates(rowsById, employeesFile, subordinates, roots);
+            subordinates.writeTo(subordinatesFile);
+            this.joinManagersWithSubordinates(employeesFile, subordinatesFile, roots);
+            var levels = this.walkLevels(roots, subordinatesFile);
+            unreachableGroupSizes.forEach((root, size) -> errors.add(
+                    "%d employees under the employee with id %d are not reachable from the CEO".formatted(size, root)));
+            if (walked < employees) {
+                this.validateNotWalked(levels, employeesFile);
+            }
+
+            if (!errors.isEmpty()) {
+                throw new ExternalMemoryException(errors);
+            }
+            if (ceos > 1) {
+                throw new ExternalMemoryException("There are more than 1 CEO in the company structure");
+            }
+            if (ceos == 0) {
+                throw new ExternalMemoryException("There is no CEO in the company structure");
+            }
+            if (salaryFailure != null) {
+                throw salaryFailure;
+            }
+            return new AnalysisResult(List.of(reportingLineReport, salaryReport), rejectedRows);
+        }
+
+        /**
+         * Rows are kept as (id, manager id, salary, sequence)
+         */
+        private RejectedRows parse(Path path, ExternalSorter rowsById) throws IOException {
+            try {
+                return fileParser.parseRows(path, (position, id, salary, hasManager, managerId) -> {
+                    try {
+                        rowsById.add(id, managerId, salary, sequenceOf(position, hasManager));
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        /**
+         * Keep the first row of every id, split the kept rows into subordinates by manager id
+         * as (manager id, id, salary, sequence) and roots of the walk, the CEOs, as (id, root id, flags, 0)
+         */
+        private void removeDuplicates(ExternalSorter rowsById, Path employeesFile, ExternalSorter subordinates,
+                                      ExternalSorter roots) throws IOException {
+            try (var rows = rowsById.sorted(); var writer = new ExternalSorter.RecordWriter(employeesFile)) {
+                var hasPrevious = false;
+                var previousId = 0L;
+                while (rows.next()) {
+                    var id = rows.field(0);
+                    if (hasPrevious && id == previousId) {
+                        errors.add("Employee id %d is duplicated".formatted(id));
+                        continue;
+                    }
+                    hasPrevious = true;
+                    previousId = id;
+                    writer.write(rows);
+                    employees++;
+                    var sequence = rows.field(3);
+                    if (hasManager(sequence)) {
+                        subordinates.add(rows.field(1), id, rows.field(2), sequence);
+                    } else {
+                        ceos++;
+                        roots.add(id, id, UNDER_CEO, 0);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Merge join of the employees by id with the subordinates by manager id: the salary report is made for every
+         * employee, subordinates without existing manager are reported and added to the roots of the walk
+         */
+        private void joinManagersWithSubordinates(Path employeesFile, Path subordinatesFile, ExternalSorter roots)
+                throws IOException {
+            var subordinateSalaries = new SubordinateSalaries();
+            try (var employeeRecords = new ExternalSorter.FileRecords(employeesFile, false);
+                 var subordinateRecords = new ExternalSorter.FileRecords(subordinatesFile, false)) {
+                var hasSubordinate = subordinateRecords.next();
+                while (employeeRecords.next()) {
+                    var id = employeeRecords.field(0);
+                    while (hasSubordinate && subordinateRecords.field(0) < id) {
+                        this.addNotExistingManager(subordinateRecords, roots);
+                        hasSubordinate = subordinateRecords.next();
+                    }
+                    subordinateSalaries.clear(0);
+                    while (hasSubordinate && subordinateRecords.field(0) == id) {
+                        subordinateSalaries.add(0, subordinateRecords.field(2));
+                        hasSubordinate = subordinateRecords.next();
+                    }
+                    this.checkSalary(id, employeeRecords.field(2), subordinateSalaries);
+                }
+                while (hasSubordinate) {
+                    this.addNotExistingManager(subordinateRecords, roots);
+                    hasSubordinate = subordinateRecords.next();
+                }
+            }
+        }
+
+        private void addNotExistingManager(ExternalSorter.Records subordinate, ExternalSorter roots) throws IOException {
+            var id = subordinate.field(1);
+            errors.add("Employer with Id: %d has non-existed manager id %d".formatted(id, subordinate.field(0)));
+            roots.add(id, id, 0, 0);
+        }
+
+        private void checkSalary(long id, long salary, SubordinateSalaries subordinateSalaries) {
+            if (salary == CompanyStructure.NO_SALARY) {
+                salaryReport.addErrorsReportEntry(Report.EntryType.NO_SALARY, id);
+                return;
+            } else if (salary < 0) {
+                salaryReport.addErrorsReportEntry(Report.EntryType.NEGATIVE_SALARY, id);
+                return;
+            } else if (subordinateSalaries.count(0) == 0) {
+                return;
+            }
+            int salaryPercent;
+            try {
+                salaryPercent = subordinateSalaries.percentOf(0, salary);
+            } catch (ArithmeticException ex) {
+                if (salaryFailure == null) {
+                    salaryFailure = ex;
+                }
+                return;
+            }
+            if (salaryPercent > maxAllowedPercent) {
+                salaryReport.addReportEntry(Report.EntryType.SALARY_ABOVE_MAXIMUM, id, salaryPercent, maxAllowedPercent);
+            } else if (salaryPercent < minAllowedPercent) {
+                salaryReport.addReportEntry(Report.EntryType.SALARY_BELOW_MINIMUM, id, salaryPercent, minAllowedPercent);
+            }
+        }
+
+        /**
+         * Walk from the roots level by level, every level is a file of (id, root id, flags, 0) sorted by id
+         *
+         * @return files of all levels
+         */
+        private List<Path> walkLevels(ExternalSorter roots, Path subordinatesFile) throws IOException {
+            var levels = new ArrayList<Path>();
+            var level = roots.newFile();
+            var levelSize = roots.writeTo(level);
+            levels.add(level);
+            walked = levelSize;
+            var depth = 0;
+            while (levelSize > 0) {
+                depth++;
+                var nextLevel = new ExternalSorter(directory, memoryBudget);
+                try (var managers = new ExternalSorter.FileRecords(level, false);
+                     var subordinateRecords = new ExternalSorter.FileRecords(subordinatesFile, false)) {
+                    var hasManager = managers.next();
+                    while (hasManager && subordinateRecords.next()) {
+                        var managerId = subordinateRecords.field(0);
+                        while (hasManager && managers.field(0) < managerId) {
+                            hasManager = managers.next();
+                        }
+                        if (hasManager && managers.field(0) == managerId) {
+                            this.addToLevel(nextLevel, subordinateRecords.field(1), managers, depth);
+                        }
+                    }
+                }
+                level = nextLevel.newFile();
+                levelSize = nextLevel.writeTo(level);
+                levels.add(level);
+                walked += levelSize;
+            }
+            return levels;
+        }
+
+        private void addToLevel(ExternalSorter level, long id, ExternalSorter.Records manager, int depth) throws IOException {
+            var root = manager.field(1);
+            var flags = manager.field(2);
+            level.add(id, root, flags, 0);
+            if (flags == UNDER_CEO) {
+                if (depth > allowedReportingLevel) {
+                    reportingLineReport.addReportEntry(Report.EntryType.REPORTING_LINE_TOO_LONG, id, depth, allowedReportingLevel);
+                }
+            } else {
+                unreachableGroupSizes.merge(root, 1L, Long::sum);
+            }
+        }
+
+        /**
+         * Employees which are not walked are in cycles or under them, they are validated in the order of the file,
+         * so the errors are the same as of the in-memory validation
+         */
+        private void validateNotWalked(List<Path> levels, Path employeesFile) throws IOException {
+            var notWalkedCount = employees - walked;
+            if (notWalkedCount > memoryBudget / UNREACHED_ROW_BYTES) {
+                errors.add("%d employees are in reporting cycles or under them".formatted(notWalkedCount));
+                return;
+            }
+            var walkedIds = new ExternalSorter(directory, memoryBudget);
+            levels.forEach(walkedIds::addRun);
+            var notWalked = new ExternalSorter(directory, memoryBudget);
+            try (var walkedRecords = walkedIds.sorted();
+                 var employeeRecords = new ExternalSorter.FileRecords(employeesFile, false)) {
+                var hasWalked = walkedRecords.next();
+                while (employeeRecords.next()) {
+                    var id = employeeRecords.field(0);
+                    while (hasWalked && walkedRecords.field(0) < id) {
+                        hasWalked = walkedRecords.next();
+                    }
+                    if (!hasWalked || walkedRecords.field(0) != id) {
+                        notWalked.add(employeeRecords.field(3), id, employeeRecords.field(1), 0);
+                    }
+                }
+            }
+            var rows = new CompanyStructure.Builder((int) notWalkedCount);
+            try (var records = notWalked.sorted()) {
+                while (records.next()) {
+                    rows.add(records.field(1), null, null, CompanyStructure.NO_SALARY, true, records.field(2));
+                }
+            }
+            errors.addAll(new StructureValidator().validate(rows));
+        }
+    }
+}
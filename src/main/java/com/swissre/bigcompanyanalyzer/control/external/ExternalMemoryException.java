@@ -0,0 +1,15 @@
+package com.swissre.bigcompanyanalyzer.control.external;
+
+import com.swissre.bigcompanyanalyzer.control.ReportException;
+
+import java.util.List;
+
+public class ExternalMemoryException extends ReportException {
+    ExternalMemoryException(String error) {
+        super(error);
+    }
+
+    ExternalMemoryException(List<String> errors) {
+        super(errors);
+    }
+}
@@ -0,0 +1,413 @@
+package com.swissre.bigcompanyanalyzer.control.external;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorts records of {@value #FIELDS} longs which may not fit into memory.
+ * Records are collected into a buffer of at most half of the memory budget, every full buffer is sorted and written
+ * to a temporary file as a sorted run, the runs are merged while the result is read. When there are more runs than
+ * can be read at once with the other half of the budget, they are merged into longer runs first.
+ * Records which fit into the buffer are never written.
+ * <p>
+ * Records are ordered by the first field, records with the same first field by the last one.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+final class ExternalSorter {
+    static final int FIELDS = 4;
+    static final int RECORD_BYTES = FIELDS * Long.BYTES;
+    static final int IO_BUFFER_SIZE = 1 << 16;
+
+    private static final int MIN_RUN_RECORDS = 16;
+    private static final int INITIAL_RUN_RECORDS = 1 << 10;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final Path directory;
+    private final int maxRunRecords;
+    private final int fanIn;
+    private final List<Path> runs = new ArrayList<>();
+    private long[] buffer;
+    private int size;
+
+    /**
+     * @param directory    directory for the runs, they are deleted when they are merged
+     * @param memoryBudget amount of bytes for the buffer and for the merged runs
+     */
+    ExternalSorter(Path directory, long memoryBudget) {
+        this.directory = directory;
+        this.maxRunRecords = (int) Math.max(MIN_RUN_RECORDS, Math.min(Integer.MAX_VALUE / FIELDS, memoryBudget / 2 / RECORD_BYTES));
+        this.fanIn = (int) Math.max(2, Math.min(Integer.MAX_VALUE, memoryBudget / 2 / IO_BUFFER_SIZE));
+        this.buffer = new long[Math.min(INITIAL_RUN_RECORDS, maxRunRecords) * FIELDS];
+    }
+
+    void add(long key, long second, long third, long order) throws IOException {
+        if (size == maxRunRecords) {
+            this.spill();
+        }
+        if (size * FIELDS == buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(maxRunRecords, size * 2) * FIELDS);
+        }
+        var offset = size * FIELDS;
+        buffer[offset] = key;
+        buffer[offset + 1] = second;
+        buffer[offset + 2] = third;
+        buffer[offset + 3] = order;
+        size++;
+    }
+
+    /**
+     * Add a file of records already sorted in the order of this sorter, the file is deleted when it is merged
+     */
+    void addRun(Path sortedFile) {
+        runs.add(sortedFile);
+    }
+
+    /**
+     * @return all added records in order, no records can be added after it
+     */
+    Records sorted() throws IOException {
+        if (runs.isEmpty()) {
+            sort(buffer, 0, size - 1);
+            var records = new BufferRecords(buffer, size);
+            buffer = null;
+            return records;
+        }
+        if (size > 0) {
+            this.spill();
+        }
+        buffer = null;
+        while (runs.size() > fanIn) {
+            var merged = this.newFile();
+            try (var records = merge(new ArrayList<>(runs.subList(0, fanIn)));
+                 var writer = new RecordWriter(merged)) {
+                while (records.next()) {
+                    writer.write(records);
+                }
+            }
+            runs.subList(0, fanIn).clear();
+            runs.add(merged);
+        }
+        return merge(runs);
+    }
+
+    /**
+     * Write all added records in order to a new file of the directory
+     *
+     * @return amount of written records
+     */
+    long writeTo(Path file) throws IOException {
+        try (var records = this.sorted(); var writer = new RecordWriter(file)) {
+            while (records.next()) {
+                writer.write(records);
+            }
+            return writer.count();
+        }
+    }
+
+    Path newFile() throws IOException {
+        return Files.createTempFile(directory, "run-", ".bin");
+    }
+
+    private void spill() throws IOException {
+        sort(buffer, 0, size - 1);
+        var run = this.newFile();
+        try (var writer = new RecordWriter(run)) {
+            for (var i = 0; i < size; i++) {
+                var offset = i * FIELDS;
+                writer.write(buffer[offset], buffer[offset + 1], buffer[offset + 2], buffer[offset + 3]);
+            }
+        }
+        runs.add(run);
+        size = 0;
+    }
+
+    private static Records merge(List<Path> files) throws IOException {
+        var sources = new ArrayList<Records>(files.size());
+        try {
+            for (var file : files) {
+                sources.add(new FileRecords(file, true));
+            }
+        } catch (IOException ex) {
+            for (var source : sources) {
+                source.close();
+            }
+            throw ex;
+        }
+        return sources.size() == 1 ? sources.get(0) : new MergedRecords(sources);
+    }
+
+    /**
+     * Quicksort of the records between two inclusive record indices, small ranges are sorted by insertion
+     */
+    private static void sort(long[] records, int from, int to) {
+        while (to - from >= INSERTION_SORT_THRESHOLD) {
+            var middle = ((from + to) >>> 1) * FIELDS;
+            var pivotKey = records[middle];
+            var pivotOrder = records[middle + FIELDS - 1];
+            var i = from - 1;
+            var j = to + 1;
+            while (true) {
+                do {
+                    i++;
+                } while (compare(records, i, pivotKey, pivotOrder) < 0);
+                do {
+                    j--;
+                } while (compare(records, j, pivotKey, pivotOrder) > 0);
+                if (i >= j) {
+                    break;
+                }
+                swap(records, i, j);
+            }
+            // the smaller part is sorted recursively, so the depth of the recursion is logarithmic
+            if (j - from < to - j) {
+                sort(records, from, j);
+                from = j + 1;
+            } else {
+                sort(records, j + 1, to);
+                to = j;
+            }
+        }
+        for (var i = from + 1; i <= to; i++) {
+            for (var j = i; j > from && compare(records, j - 1, records[j * FIELDS], records[j * FIELDS + FIELDS - 1]) > 0; j--) {
+                swap(records, j - 1, j);
+            }
+        }
+    }
+
+    private static int compare(long[] records, int record, long key, long order) {
+        var offset = record * FIELDS;
+        var result = Long.compare(records[offset], key);
+        return result != 0 ? result : Long.compare(records[offset + FIELDS - 1], order);
+    }
+
+    private static void swap(long[] records, int first, int second) {
+        var firstOffset = first * FIELDS;
+        var secondOffset = second * FIELDS;
+        for (var field = 0; field < FIELDS; field++) {
+            var value = records[firstOffset + field];
+            records[firstOffset + field] = records[secondOffset + field];
+            records[secondOffset + field] = value;
+        }
+    }
+
+    /**
+     * Cursor over records, fields of the current record are valid after {@link #next()} returned true
+     */
+    interface Records extends AutoCloseable {
+        boolean next() throws IOException;
+
+        long field(int index);
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Sequential writer of records to a file
+     */
+    static final class RecordWriter implements AutoCloseable {
+        private final DataOutputStream output;
+        private long count;
+
+        RecordWriter(Path file) throws IOException {
+            this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE));
+        }
+
+        void write(long key, long second, long third, long order) throws IOException {
+            output.writeLong(key);
+            output.writeLong(second);
+            output.writeLong(third);
+            output.writeLong(order);
+            count++;
+        }
+
+        void write(Records records) throws IOException {
+            this.write(records.field(0), records.field(1), records.field(2), records.field(3));
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
+
+    /**
+     * Records of a file written by {@link RecordWriter}
+     */
+    static final class FileRecords implements Records {
+        private final Path file;
+        private final boolean deleteOnClose;
+        private final DataInputStream input;
+        private final long[] fields = new long[FIELDS];
+        private long remaining;
+
+        /**
+         * @param deleteOnClose true for temporary runs which are not read again
+         */
+        FileRecords(Path file, boolean deleteOnClose) throws IOException {
+            this.file = file;
+            this.deleteOnClose = deleteOnClose;
+            this.remaining = Files.size(file) / RECORD_BYTES;
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), IO_BUFFER_SIZE));
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            for (var field = 0; field < FIELDS; field++) {
+                fields[field] = input.readLong();
+            }
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public long field(int index) {
+            return fields[index];
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+            if (deleteOnClose) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static final class BufferRecords implements Records {
+        private final long[] buffer;
+        private final int size;
+        private int offset = -FIELDS;
+
+        private BufferRecords(long[] buffer, int size) {
+            this.buffer = buffer;
+            this.size = size;
+        }
+
+        @Override
+        public boolean next() {
+            if (offset + FIELDS >= size * FIELDS) {
+                return false;
+            }
+            offset += FIELDS;
+            return true;
+        }
+
+        @Override
+        public long field(int index) {
+            return buffer[offset + index];
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * K-way merge of sorted sources with a binary heap of the sources ordered by their current records
+     */
+    private static final class MergedRecords implements Records {
+        private final List<Records> sources;
+        private final int[] heap;
+        private int heapSize;
+        private Records current;
+        private boolean started;
+
+        private MergedRecords(List<Records> sources) throws IOException {
+            this.sources = sources;
+            this.heap = new int[sources.size()];
+            for (var i = 0; i < sources.size(); i++) {
+                if (sources.get(i).next()) {
+                    heap[heapSize++] = i;
+                }
+            }
+            for (var i = heapSize / 2 - 1; i >= 0; i--) {
+                this.siftDown(i);
+            }
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (started && heapSize > 0) {
+                if (!sources.get(heap[0]).next()) {
+                    heap[0] = heap[--heapSize];
+                }
+                this.siftDown(0);
+            }
+            started = true;
+            if (heapSize == 0) {
+                current = null;
+                return false;
+            }
+            current = sources.get(heap[0]);
+            return true;
+        }
+
+        @Override
+        public long field(int index) {
+            return current.field(index);
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (var source : sources) {
+                try {
+                    source.close();
+                } catch (IOException ex) {
+                    failure = ex;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private void siftDown(int position) {
+            while (true) {
+                var smallest = position;
+                var left = 2 * position + 1;
+                var right = left + 1;
+                if (left < heapSize && this.isBefore(heap[left], heap[smallest])) {
+                    smallest = left;
+                }
+                if (right < heapSize && this.isBefore(heap[right], heap[smallest])) {
+                    smallest = right;
+                }
+                if (smallest == position) {
+                    return;
+                }
+                var source = heap[position];
+                heap[position] = heap[smallest];
+                heap[smallest] = source;
+                position = smallest;
+            }
+        }
+
+        private boolean isBefore(int first, int second) {
+            var firstRecords = sources.get(first);
+            var secondRecords = sources.get(second);
+            var result = Long.compare(firstRecords.field(0), secondRecords.field(0));
+            if (result == 0) {
+                result = Long.compare(firstRecords.field(FIELDS - 1), secondRecords.field(FIELDS - 1));
+            }
+            return result < 0;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeChange;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parser of change log files, works only with CSV files, with comma delimiter.
+ * File must have 4 columns, headers must have special order:
+ * <b>action, id, salary, managerId</b>
+ * Names of the headers and actions are case-insensitive, supported actions:
+ * ADD (id, salary, managerId), REMOVE (id), MOVE (id, managerId), SALARY (id, salary).
+ * Changes are applied in the order of rows, so the whole file is rejected when one row is invalid.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class ChangeFileParser {
+    private static final String HEADERS = "action,id,salary,managerId";
+    private static final int ACTION = 0;
+    private static final int ID = 1;
+    private static final int SALARY = 2;
+    private static final int MANAGER_ID = 3;
+    private static final int COLUMNS = 4;
+
+    public List<EmployeeChange> parse(Path path) {
+        if (!Files.exists(path)) {
+            throw new FileException("File %s does not exist".formatted(path.toString()));
+        }
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var reader = new MappedCsvReader(channel, MappedCsvReader.MAX_WINDOW_SIZE);
+            var header = reader.readHeader();
+            if (header.line() == null || !header.line().replace(" ", "").equalsIgnoreCase(HEADERS)) {
+                throw new FileException("Invalid change file structure, headers must be presented on the first line in the next order: (%s)"
+                        .formatted(HEADERS));
+            }
+            var changes = new ArrayList<EmployeeChange>();
+            reader.readRows(header.rowsStart(), channel.size(), COLUMNS, row -> changes.add(this.convert(row, changes.size() + 1)));
+            return changes;
+        } catch (IOException ex) {
+            throw new FileException("Impossible to read file. Additional information: %s"
+                    .formatted(ex.getMessage()));
+        }
+    }
+
+    private EmployeeChange convert(CsvRow row, int number) {
+        if (row.fieldCount() != COLUMNS) {
+            throw new FileException("Change %d must have %d columns".formatted(number, COLUMNS));
+        }
+        var type = this.convertToType(row.getString(ACTION), number);
+        var id = row.getLong(ID);
+        if (id == null) {
+            throw new FileException("Change %d has no valid employee id".formatted(number));
+        }
+        var managerId = row.getLong(MANAGER_ID);
+        if (type == EmployeeChange.Type.MOVE && managerId == null) {
+            throw new FileException("Change %d moves employee with id %d to no manager".formatted(number, id));
+        }
+        var salary = switch (row.parseCents(SALARY)) {
+            case CsvRow.VALID -> row.value();
+            case CsvRow.OUT_OF_RANGE ->
+                    throw new FileException("Change %d has salary out of the supported range".formatted(number));
+            default -> CompanyStructure.NO_SALARY;
+        };
+        if (type == EmployeeChange.Type.SALARY && salary == CompanyStructure.NO_SALARY) {
+            throw new FileException("Change %d has no valid salary".formatted(number));
+        }
+        return new EmployeeChange(type, id, salary, managerId != null, managerId != null ? managerId : 0);
+    }
+
+    private EmployeeChange.Type convertToType(String action, int number) {
+        try {
+            return EmployeeChange.Type.valueOf(action.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new FileException("Change %d has unknown action %s".formatted(number, action));
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable view of one CSV row inside a byte buffer.
+ * The row only keeps field boundaries, values are decoded on request straight from the bytes,
+ * so numeric columns never become Strings. Numbers are validated by hand, so a bad value is reported by its status
+ * and never costs an exception.
+ * Values are trimmed the same way as {@link String#trim()} does.
+ * <p>
+ * Skipped fields are only counted, their bytes are never trimmed or decoded. Strings of the kept text fields
+ * are decoded through a {@link StringTable} of the row, so repeated values of the rows read by one thread
+ * are one String instance.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+final class CsvRow {
+    static final int VALID = 0;
+    static final int BLANK = 1;
+    /**
+     * Value is not an ASCII number
+     */
+    static final int MALFORMED = 2;
+    /**
+     * Value is a valid number, but it does not fit into long
+     */
+    static final int OUT_OF_RANGE = 3;
+
+    /**
+     * Larger exponents of decimal values are MALFORMED, so a value never expands into a huge number
+     */
+    private static final int MAX_EXPONENT = 9_999;
+    /**
+     * Amount of digits of Long.MAX_VALUE
+     */
+    private static final int MAX_LONG_DIGITS = 19;
+
+    private final int[] fieldStarts;
+    private final int[] fieldEnds;
+    private final int skippedFields;
+    private StringTable strings;
+    private ByteBuffer buffer;
+    private long position;
+    private int fieldCount;
+    private long value;
+    private byte[] scratch = new byte[64];
+
+    CsvRow(int recordedFields) {
+        this(recordedFields, 0);
+    }
+
+    /**
+     * @param recordedFields amount of leading fields whose boundaries are kept
+     * @param skippedFields  bit mask of the recorded fields whose boundaries are not kept
+     */
+    CsvRow(int recordedFields, int skippedFields) {
+        this.fieldStarts = new int[recordedFields];
+        this.fieldEnds = new int[recordedFields];
+        this.skippedFields = skippedFields;
+    }
+
+    /**
+     * @param position position of the row start in the file
+     */
+    void reset(ByteBuffer buffer, long position) {
+        this.buffer = buffer;
+        this.position = position;
+        this.fieldCount = 0;
+    }
+
+    void addField(int start, int end) {
+        if (fieldCount < fieldStarts.length && (skippedFields & 1 << fieldCount) == 0) {
+            while (start < end && isTrimmed(buffer.get(start))) {
+                start++;
+            }
+            while (end > start && isTrimmed(buffer.get(end - 1))) {
+                end--;
+            }
+            fieldStarts[fieldCount] = start;
+            fieldEnds[fieldCount] = end;
+        }
+        fieldCount++;
+    }
+
+    /**
+     * Position of the row start in the file
+     */
+    long position() {
+        return position;
+    }
+
+    /**
+     * Amount of fields in the row, including the ones that were not recorded
+     */
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Value parsed by the last call of {@link #parseLong(int)} or {@link #parseCents(int)} returning VALID
+     */
+    long value() {
+        return value;
+    }
+
+    boolean isBlank(int column) {
+        return fieldStarts[column] == fieldEnds[column];
+    }
+
+    String getString(int column) {
+        var start = fieldStarts[column];
+        var length = fieldEnds[column] - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return column value as String, the same instance as for the same value of the previous rows
+     * while the table of the row is not full
+     */
+    String getSharedString(int column) {
+        if (strings == null) {
+            strings = new StringTable();
+        }
+        return strings.decode(buffer, fieldStarts[column], fieldEnds[column]);
+    }
+
+    /**
+     * @return column value as Long, null when the value is blank, is not a number or does not fit into long
+     */
+    Long getLong(int column) {
+        return this.parseLong(column) == VALID ? value : null;
+    }
+
+    /**
+     * @return column value with scale 2 rounded HALF_UP, null when the value is blank or is not a number
+     */
+    BigDecimal getDecimal(int column) {
+        return switch (this.parseCents(column)) {
+            case VALID -> BigDecimal.valueOf(value, 2);
+            // the grammar is already checked, so the JDK parser can not fail
+            case OUT_OF_RANGE -> new BigDecimal(this.getString(column)).setScale(2, RoundingMode.HALF_UP);
+            default -> null;
+        };
+    }
+
+    /**
+     * Parse column as a signed long, same grammar as {@link Long#parseLong(String)} restricted to ASCII digits.
+     *
+     * @return VALID, BLANK, MALFORMED or OUT_OF_RANGE
+     */
+    int parseLong(int column) {
+        var position = fieldStarts[column];
+        var end = fieldEnds[column];
+        if (position == end) {
+            return BLANK;
+        }
+        var negative = false;
+        var first = buffer.get(position);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            position++;
+            if (position == end) {
+                return MALFORMED;
+            }
+        }
+        // accumulate negatively, so Long.MIN_VALUE is representable
+        var limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        var multiplyLimit = limit / 10;
+        long result = 0;
+        var overflowed = false;
+        while (position < end) {
+            var digit = buffer.get(position++) - '0';
+            if (digit < 0 || digit > 9) {
+                return MALFORMED;
+            }
+            if (result < multiplyLimit || result * 10 < limit + digit) {
+                overflowed = true;
+            } else {
+                result = result * 10 - digit;
+            }
+        }
+        if (overflowed) {
+            return OUT_OF_RANGE;
+        }
+        value = negative ? result : -result;
+        return VALID;
+    }
+
+    /**
+     * Parse column as a decimal number and convert it to cents, rounding HALF_UP on the second fraction digit.
+     * The grammar is the one of {@link BigDecimal#BigDecimal(String)} restricted to ASCII digits:
+     * optional sign, digits with an optional point and an optional exponent.
+     *
+     * @return VALID, BLANK, MALFORMED or OUT_OF_RANGE when the value does not fit into long cents
+     */
+    int parseCents(int column) {
+        var position = fieldStarts[column];
+        var end = fieldEnds[column];
+        if (position == end) {
+            return BLANK;
+        }
+        var negative = false;
+        var first = buffer.get(position);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            position++;
+        }
+        var integerStart = position;
+        position = this.skipDigits(position, end);
+        var integerEnd = position;
+        var fractionStart = integerEnd;
+        if (position < end && buffer.get(position) == '.') {
+            fractionStart = position + 1;
+            position = this.skipDigits(fractionStart, end);
+        }
+        var fractionEnd = position;
+        var digits = (integerEnd - integerStart) + (fractionEnd - fractionStart);
+        if (digits == 0) {
+            return MALFORMED;
+        }
+        var exponent = 0;
+        if (position < end && (buffer.get(position) | 0x20) == 'e') {
+            position++;
+            var negativeExponent = false;
+            if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                negativeExponent = buffer.get(position) == '-';
+                position++;
+            }
+            if (position == end) {
+                return MALFORMED;
+            }
+            while (position < end) {
+                var digit = buffer.get(position++) - '0';
+                if (digit < 0 || digit > 9) {
+                    return MALFORMED;
+                }
+                exponent = exponent * 10 + digit;
+                if (exponent > MAX_EXPONENT) {
+                    return MALFORMED;
+                }
+            }
+            exponent = negativeExponent ? -exponent : exponent;
+        }
+        if (position != end) {
+            return MALFORMED;
+        }
+
+        // digits of integer and fraction parts form one sequence, cents end two digits after the point
+        var centsEnd = (integerEnd - integerStart) + exponent + 2;
+        var firstSignificant = 0;
+        while (firstSignificant < digits
+                && this.digitAt(firstSignificant, integerStart, integerEnd, fractionStart) == 0) {
+            firstSignificant++;
+        }
+        if (centsEnd - firstSignificant > MAX_LONG_DIGITS) {
+            return firstSignificant == digits ? this.validCents(0, false) : OUT_OF_RANGE;
+        }
+        long cents = 0;
+        for (var i = firstSignificant; i < centsEnd; i++) {
+            var digit = i < digits ? this.digitAt(i, integerStart, integerEnd, fractionStart) : 0;
+            if (cents > (Long.MAX_VALUE - digit) / 10) {
+                return OUT_OF_RANGE;
+            }
+            cents = cents * 10 + digit;
+        }
+        if (centsEnd >= 0 && centsEnd < digits && this.digitAt(centsEnd, integerStart, integerEnd, fractionStart) >= 5) {
+            if (cents == Long.MAX_VALUE) {
+                return OUT_OF_RANGE;
+            }
+            cents++;
+        }
+        return this.validCents(cents, negative);
+    }
+
+    private int validCents(long cents, boolean negative) {
+        value = negative ? -cents : cents;
+        return VALID;
+    }
+
+    private int skipDigits(int position, int end) {
+        while (position < end && buffer.get(position) >= '0' && buffer.get(position) <= '9') {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * @param index index of the digit in the sequence of integer and fraction digits
+     */
+    private int digitAt(int index, int integerStart, int integerEnd, int fractionStart) {
+        var integerDigits = integerEnd - integerStart;
+        var position = index < integerDigits ? integerStart + index : fractionStart + index - integerDigits;
+        return buffer.get(position) - '0';
+    }
+
+    private static boolean isTrimmed(byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+}
@@ -1,22 +1,57 @@
 package com.swissre.bigcompanyanalyzer.control.file;
 
+import com.swissre.bigcompanyanalyzer.control.instrumentation.PipelineInstrumentation;
+import com.swissre.bigcompanyanalyzer.control.instrumentation.PipelineStage;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
 import com.swissre.bigcompanyanalyzer.entity.Employee;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public class FileDataRetriever {
     private final FileParser fileParser;
+    private final StructureSnapshotStore structureSnapshotStore;
+    private final StructureValidator structureValidator = new StructureValidator();
+    private final PipelineInstrumentation instrumentation;
 
     public FileDataRetriever(FileParser fileParser) {
+        this(fileParser, null);
+    }
+
+    /**
+     * @param structureSnapshotStore store of parsed structures, null when every retrieval must parse the file
+     */
+    public FileDataRetriever(FileParser fileParser, StructureSnapshotStore structureSnapshotStore) {
+        this(fileParser, structureSnapshotStore, PipelineInstrumentation.DISABLED);
+    }
+
+    /**
+     * @param instrumentation measures parsing, snapshot reading and linking
+     */
+    public FileDataRetriever(FileParser fileParser, StructureSnapshotStore structureSnapshotStore,
+                             PipelineInstrumentation instrumentation) {
         this.fileParser = fileParser;
+        this.structureSnapshotStore = structureSnapshotStore;
+        this.instrumentation = instrumentation;
     }
 
     public Map<Long, Employee> retrieveLinkedCompanyEmployeesData(Path path) {
         try {
-            var idsToEmployees = fileParser.parse(path);
-            this.linkSubordinatesWithManagers(idsToEmployees);
+            Map<Long, Employee> idsToEmployees;
+            try (var stage = instrumentation.start(PipelineStage.PARSING, path)) {
+                var parsingResult = fileParser.parse(path);
+                idsToEmployees = parsingResult.idsToEmployees();
+                stage.items(idsToEmployees.size()).rejected(parsingResult.rejectedRows().getCount());
+            }
+            try (var stage = instrumentation.start(PipelineStage.LINKING, path)) {
+                this.throwIfInvalid(structureValidator.validate(idsToEmployees));
+                this.linkSubordinatesWithManagers(idsToEmployees);
+                stage.items(idsToEmployees.size());
+            }
             return idsToEmployees;
         } catch (IOException ex) {
             throw new FileException("Impossible to read file. Additional information: %s"
@@ -24,6 +59,65 @@ public class FileDataRetriever {
         }
     }
 
+    /**
+     * Retrieve the company structure in the compact columnar form, without creating Employee objects.
+     * Rows are validated before linking, all duplicated ids, missing managers and cycles are reported at once.
+     * When the snapshot store is configured, a valid snapshot with all fields read by the parser is used instead of parsing,
+     * otherwise the file is parsed and the snapshot is rebuilt.
+     */
+    public CompanyStructure retrieveCompanyStructure(Path path) {
+        try {
+            var sourceKey = structureSnapshotStore != null
+                    ? structureSnapshotStore.keyOf(path)
+                    : Optional.<StructureSnapshotStore.SourceKey>empty();
+            if (sourceKey.isPresent()) {
+                try (var stage = instrumentation.start(PipelineStage.SNAPSHOT_READING, path)) {
+                    var snapshot = structureSnapshotStore.read(path, sourceKey.get(), fileParser.getFields());
+                    if (snapshot.isPresent()) {
+                        stage.items(snapshot.get().size());
+                        return snapshot.get();
+                    }
+                }
+            }
+            CompanyStructure.Builder rows;
+            try (var stage = instrumentation.start(PipelineStage.PARSING, path)) {
+                rows = fileParser.parseStructure(path);
+                stage.items(rows.size()).rejected(rows.getRejectedRowsCount());
+                if (instrumentation.isEnabled()) {
+                    stage.bytes(Files.size(path));
+                }
+            }
+            var companyStructure = this.link(path, rows);
+            sourceKey.ifPresent(key -> structureSnapshotStore.write(path, key, companyStructure, fileParser.getFields()));
+            return companyStructure;
+        } catch (IOException ex) {
+            throw new FileException("Impossible to read file. Additional information: %s"
+                    .formatted(ex.getMessage()));
+        }
+    }
+
+    /**
+     * Validate parsed rows and link them into the structure
+     */
+    CompanyStructure link(Path path, CompanyStructure.Builder rows) {
+        try (var stage = instrumentation.start(PipelineStage.LINKING, path)) {
+            this.throwIfInvalid(structureValidator.validate(rows));
+            var companyStructure = rows.build();
+            stage.items(companyStructure.size());
+            return companyStructure;
+        }
+    }
+
+    PipelineInstrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    private void throwIfInvalid(List<String> errors) {
+        if (!errors.isEmpty()) {
+            throw new FileException(errors);
+        }
+    }
+
     private void linkSubordinatesWithManagers(Map<Long, Employee> idToEmployeeMap) {
         for (var employee : idToEmployeeMap.values()) {
             var managerId = employee.getManagerId();
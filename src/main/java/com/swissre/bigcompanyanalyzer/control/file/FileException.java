@@ -2,8 +2,14 @@ package com.swissre.bigcompanyanalyzer.control.file;
 
 import com.swissre.bigcompanyanalyzer.control.ReportException;
 
+import java.util.List;
+
 public class FileException extends ReportException {
     FileException(String error) {
         super(error);
     }
+
+    FileException(List<String> errors) {
+        super(errors);
+    }
 }
@@ -1,16 +1,26 @@
 package com.swissre.bigcompanyanalyzer.control.file;
 
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
 import com.swissre.bigcompanyanalyzer.entity.Employee;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeField;
+import com.swissre.bigcompanyanalyzer.entity.RejectedRows;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
 
 /**
  * File parser, works only with CSV files, with comma delimiter.
@@ -18,81 +28,409 @@ import java.util.stream.Collectors;
  * <b>id, firstName, lastName, salary, managerId</b>
  * Names of the headers are case-insensitive
  * <p>
+ * Rows without all columns or without a valid id are skipped and recorded as {@link RejectedRows},
+ * numbers are validated without exceptions, so a file with many bad rows is parsed as fast as a clean one.
+ * <p>
+ * Gzip compressed files are recognized by their content and are read as a stream, see {@link InflatingCsvReader}.
+ * <p>
+ * Only the projected fields are read, id and manager id are always read. Bytes of the other fields are only counted,
+ * they are neither trimmed nor decoded, names which are read are deduplicated by a {@link StringTable}
+ * of every parsing thread.
+ * <p>
  * Author: Oleg Pitsik
  */
 public class FileParser {
 
     private static final String FILE_DELIMITER = ",";
+    private static final int COLUMNS = Column.values().length;
+    /**
+     * Longer values are cut in the reasons of rejected rows
+     */
+    private static final int MAX_QUOTED_VALUE_LENGTH = 40;
+
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final int parallelism;
+    private final int mappedWindowSize;
+    private final Set<EmployeeField> fields;
+    private final int skippedFields;
+
+    public FileParser() {
+        this(1);
+    }
+
+    /**
+     * @param parallelism amount of worker threads parsing the file, 1 means sequential parsing in the calling thread
+     */
+    public FileParser(int parallelism) {
+        this(parallelism, EmployeeField.all());
+    }
+
+    /**
+     * @param fields fields of the rows which are read, e.g. the fields required by the reports,
+     *               not projected names are null and not projected salaries are missing
+     */
+    public FileParser(int parallelism, Set<EmployeeField> fields) {
+        this(parallelism, MappedCsvReader.MAX_WINDOW_SIZE, fields);
+    }
+
+    FileParser(int parallelism, int mappedWindowSize) {
+        this(parallelism, mappedWindowSize, EmployeeField.all());
+    }
+
+    FileParser(int parallelism, int mappedWindowSize, Set<EmployeeField> fields) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, but was %d".formatted(parallelism));
+        }
+        this.parallelism = parallelism;
+        this.mappedWindowSize = mappedWindowSize;
+        this.fields = EnumSet.copyOf(EmployeeField.STRUCTURE);
+        this.fields.addAll(fields);
+        var skipped = 0;
+        for (var column : Column.values()) {
+            if (!this.fields.contains(column.field)) {
+                skipped |= 1 << column.index;
+            }
+        }
+        this.skippedFields = skipped;
+    }
 
     /**
-     * Parse file and return employee structure as a Map of ids and Employees.
-     * <p>
-     * Improvements: return new object ParsingResult with map and errors, put in error all invalid rows
-     * (with incorrect format, or without ids)
-     * Then it is possible to add all errors to the report.
+     * @return fields of the rows which are read
+     */
+    public Set<EmployeeField> getFields() {
+        return EnumSet.copyOf(fields);
+    }
+
+    /**
+     * Parse file and return employee structure as a Map of ids and Employees with the skipped rows.
+     * The file is memory-mapped and read once, fields are located directly in the bytes,
+     * only names are decoded to Strings.
+     * With parallelism above 1 the rows are split into byte ranges aligned to line ends,
+     * every range is parsed by a worker and the results are merged, the result is the same as for sequential parsing.
+     * A compressed file can not be split, it is inflated by one thread and parsed by the calling thread.
      *
      * @param path Path to the file
      */
-    public Map<Long, Employee> parse(Path path) throws IOException {
+    public ParsingResult parse(Path path) throws IOException {
+        return this.parse(path, () -> new ParsingResult(new HashMap<>(), new RejectedRows()), this::addEmployee,
+                (result, chunkResult) -> {
+                    chunkResult.idsToEmployees().values().forEach(employee -> this.putUnique(result.idsToEmployees(), employee));
+                    result.rejectedRows().addAll(chunkResult.rejectedRows());
+                    return result;
+                });
+    }
+
+    /**
+     * Parse file into not yet linked columnar rows, no Employee objects are created.
+     * Rules are the same as for {@link #parse(Path)}, salaries are kept in cents.
+     *
+     * @param path Path to the file
+     */
+    public CompanyStructure.Builder parseStructure(Path path) throws IOException {
+        return this.parse(path, CompanyStructure.Builder::new, this::addRow, (rows, chunkRows) -> {
+            rows.addAll(chunkRows);
+            return rows;
+        });
+    }
+
+    /**
+     * Parse file row by row without keeping the rows, every accepted row is handed to the consumer in the order
+     * of the file. Rules are the same as for {@link #parse(Path)}, salaries are kept in cents.
+     * Rows are parsed sequentially in the calling thread, so the consumer needs no synchronization.
+     *
+     * @param path Path to the file
+     * @return rows skipped by the parser
+     */
+    public RejectedRows parseRows(Path path, RowConsumer consumer) throws IOException {
+        var rejectedRows = new RejectedRows();
+        this.parse(path, false, () -> rejectedRows, (rejected, row) -> this.acceptRow(rejected, row, consumer), null);
+        return rejectedRows;
+    }
+
+    /**
+     * Consumer of the rows accepted by {@link #parseRows(Path, RowConsumer)}
+     */
+    public interface RowConsumer {
+        /**
+         * @param position   byte position of the row start in the file, positions grow with the rows
+         * @param salary     salary in cents, {@link CompanyStructure#NO_SALARY} when it is not a number
+         * @param hasManager false when the manager id is empty or not a number
+         */
+        void accept(long position, long id, long salary, boolean hasManager, long managerId);
+    }
+
+    /**
+     * @return true when the file is gzip compressed, so positions in the file are not positions of rows
+     */
+    static boolean isCompressed(FileChannel channel) throws IOException {
+        return InflatingCsvReader.isCompressed(channel);
+    }
+
+    /**
+     * @return size of the content of the file, for compressed files it is estimated from the gzip trailer
+     */
+    public static long contentSizeOf(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return InflatingCsvReader.contentSizeOf(channel);
+        }
+    }
+
+    /**
+     * Same as {@link #parseStructure(Path)} for a not compressed file, rows are parsed only up to the given size,
+     * so rows appended to the file during parsing are left for the next parsing of the appended part
+     */
+    CompanyStructure.Builder parseStructure(FileChannel channel, long size) throws IOException {
+        return this.parseMapped(channel, size, parallelism > 1, CompanyStructure.Builder::new, this::addRow,
+                (rows, chunkRows) -> {
+                    rows.addAll(chunkRows);
+                    return rows;
+                });
+    }
+
+    /**
+     * Parse rows between two positions of the file into already parsed rows, the header is not checked.
+     * Used for rows appended to a not compressed file after it was parsed, {@code from} must point to the start of a row.
+     */
+    void parseStructureRows(FileChannel channel, CompanyStructure.Builder rows, long from, long to) throws IOException {
+        new MappedCsvReader(channel, mappedWindowSize)
+                .readRows(from, to, COLUMNS, skippedFields, row -> this.addRow(rows, row));
+    }
+
+    private <T> T parse(Path path, Supplier<T> resultFactory, BiConsumer<T, CsvRow> rowConsumer,
+                        BinaryOperator<T> merger) throws IOException {
+        return this.parse(path, parallelism > 1, resultFactory, rowConsumer, merger);
+    }
+
+    /**
+     * @param inParallel false when the rows must be consumed in the order of the file, the merger is not used then
+     */
+    private <T> T parse(Path path, boolean inParallel, Supplier<T> resultFactory, BiConsumer<T, CsvRow> rowConsumer,
+                        BinaryOperator<T> merger) throws IOException {
         if (!Files.exists(path)) {
             throw new FileException("File %s does not exist".formatted(path.toString()));
         }
-        try (var headersStream = Files.lines(path);
-             var rowsStream = Files.lines(path).skip(1)
-        ) {
-            var headers = headersStream.findFirst()
-                    .orElse(null);
-            if (!checkHeaders(headers)) {
-                throw new FileException("Invalid file structure, headers must be presented on the first line in the next order: (%s)"
-                        .formatted(Column.getNamesByOrder())
-                );
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (isCompressed(channel)) {
+                return this.parseCompressed(path, resultFactory, rowConsumer);
             }
-            return rowsStream.map(this::convert)
-                    .filter(Objects::nonNull)
-                    .filter(employee -> Objects.nonNull(employee.getId()))
-                    .collect(Collectors.toMap(Employee::getId, Function.identity()));
+            return this.parseMapped(channel, channel.size(), inParallel, resultFactory, rowConsumer, merger);
         }
     }
 
-    private Employee convert(String row) {
-        if (row == null || row.length() == 0) {
-            return null;
-        }
-        String[] arr = row.split(FILE_DELIMITER, -1);
-        if (arr.length != Column.values().length) {
-            return null;
+    /**
+     * @param size position the rows are parsed up to, the end of the last row
+     */
+    private <T> T parseMapped(FileChannel channel, long size, boolean inParallel, Supplier<T> resultFactory,
+                              BiConsumer<T, CsvRow> rowConsumer, BinaryOperator<T> merger) throws IOException {
+        var reader = new MappedCsvReader(channel, mappedWindowSize);
+        var header = reader.readHeader();
+        this.checkHeader(header);
+        // the header is read from the current content, it may end after the size when the file was empty
+        var rowsStart = Math.min(header.rowsStart(), size);
+        var chunks = (int) Math.min((long) parallelism * CHUNKS_PER_WORKER, (size - rowsStart) / MIN_CHUNK_SIZE);
+        if (!inParallel || chunks < 2) {
+            var result = resultFactory.get();
+            reader.readRows(rowsStart, size, COLUMNS, skippedFields, row -> rowConsumer.accept(result, row));
+            return result;
         }
+        var boundaries = reader.splitRows(rowsStart, size, chunks);
+        return this.parseInParallel(reader, boundaries, resultFactory, rowConsumer, merger);
+    }
 
-        var id = this.convertToLong(arr[Column.ID.index].trim());
-        var firstName = arr[Column.FIRST_NAME.index].trim();
-        var lastName = arr[Column.LAST_NAME.index].trim();
-        var salary = this.convertToBigDecimalWithScale(arr[Column.SALARY.index].trim());
-        var managerId = this.convertToLong(arr[Column.MANAGER_ID.index].trim());
+    private <T> T parseCompressed(Path path, Supplier<T> resultFactory, BiConsumer<T, CsvRow> rowConsumer) throws IOException {
+        try (var reader = new InflatingCsvReader(path, Math.min(mappedWindowSize, InflatingCsvReader.DEFAULT_BUFFER_SIZE))) {
+            this.checkHeader(reader.readHeader());
+            var result = resultFactory.get();
+            reader.readRows(COLUMNS, skippedFields, row -> rowConsumer.accept(result, row));
+            return result;
+        }
+    }
 
-        return new Employee(id, firstName, lastName, salary, managerId);
+    private void checkHeader(MappedCsvReader.Header header) {
+        if (!checkHeaders(header.line())) {
+            throw new FileException("Invalid file structure, headers must be presented on the first line in the next order: (%s)"
+                    .formatted(Column.getNamesByOrder())
+            );
+        }
     }
 
-    private Long convertToLong(String rawValue) {
-        if (rawValue.isBlank()) {
-            return null;
+    private <T> T parseInParallel(MappedCsvReader reader, long[] boundaries, Supplier<T> resultFactory,
+                                  BiConsumer<T, CsvRow> rowConsumer, BinaryOperator<T> merger) throws IOException {
+        var executor = Executors.newFixedThreadPool(Math.min(parallelism, boundaries.length - 1));
+        try {
+            var chunkResults = new ArrayList<Future<T>>(boundaries.length - 1);
+            for (var i = 0; i + 1 < boundaries.length; i++) {
+                var from = boundaries[i];
+                var to = boundaries[i + 1];
+                chunkResults.add(executor.submit(() -> {
+                    var chunkResult = resultFactory.get();
+                    reader.readRows(from, to, COLUMNS, skippedFields, row -> rowConsumer.accept(chunkResult, row));
+                    return chunkResult;
+                }));
+            }
+            T result = null;
+            for (var chunkResult : chunkResults) {
+                var chunk = this.awaitChunk(chunkResult);
+                result = result == null ? chunk : merger.apply(result, chunk);
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
         }
+    }
+
+    private <T> T awaitChunk(Future<T> chunkResult) throws IOException {
         try {
-            return Long.parseLong(rawValue);
-        } catch (NumberFormatException e) {
-            return null;
+            return chunkResult.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FileException("File parsing was interrupted");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(ex.getCause());
         }
     }
 
-    private BigDecimal convertToBigDecimalWithScale(String rawValue) {
-        if (rawValue.isBlank()) {
-            return null;
+    private void addEmployee(ParsingResult result, CsvRow row) {
+        if (this.isAccepted(row, result.rejectedRows())) {
+            this.putUnique(result.idsToEmployees(), this.convert(row));
         }
-        try {
-            BigDecimal number = new BigDecimal(rawValue);
-            return number.setScale(2, RoundingMode.HALF_UP);
-        } catch (NumberFormatException e) {
-            return null;
+    }
+
+    private void putUnique(Map<Long, Employee> idsToEmployees, Employee employee) {
+        if (idsToEmployees.putIfAbsent(employee.getId(), employee) != null) {
+            throw new FileException("Employee id %d is duplicated".formatted(employee.getId()));
+        }
+    }
+
+    private void acceptRow(RejectedRows rejectedRows, CsvRow row, RowConsumer consumer) {
+        if (!this.isAccepted(row, rejectedRows)) {
+            return;
+        }
+        var id = row.value();
+        var managerIdStatus = this.parseManagerId(row, id, rejectedRows);
+        if (managerIdStatus != CsvRow.VALID && managerIdStatus != CsvRow.BLANK) {
+            return;
+        }
+        var managerId = managerIdStatus == CsvRow.VALID ? row.value() : 0;
+        var salaryStatus = this.parseSalary(row, id, rejectedRows);
+        if (salaryStatus == CsvRow.OUT_OF_RANGE) {
+            return;
+        }
+        var salary = salaryStatus == CsvRow.VALID ? row.value() : CompanyStructure.NO_SALARY;
+        consumer.accept(row.position(), id, salary, managerIdStatus == CsvRow.VALID, managerId);
+    }
+
+    private void addRow(CompanyStructure.Builder rows, CsvRow row) {
+        if (!this.isAccepted(row, rows.getRejectedRows())) {
+            return;
+        }
+        var id = row.value();
+        var managerIdStatus = this.parseManagerId(row, id, rows.getRejectedRows());
+        if (managerIdStatus != CsvRow.VALID && managerIdStatus != CsvRow.BLANK) {
+            return;
         }
+        var managerId = managerIdStatus == CsvRow.VALID ? row.value() : 0;
+        var salaryStatus = this.parseSalary(row, id, rows.getRejectedRows());
+        if (salaryStatus == CsvRow.OUT_OF_RANGE) {
+            return;
+        }
+        var salary = salaryStatus == CsvRow.VALID ? row.value() : CompanyStructure.NO_SALARY;
+        rows.tryAdd(id,
+                this.name(row, Column.FIRST_NAME),
+                this.name(row, Column.LAST_NAME),
+                salary,
+                managerIdStatus == CsvRow.VALID,
+                managerId);
+    }
+
+    /**
+     * Check that the row has all columns and a valid id, the id is left in {@link CsvRow#value()}.
+     * The reason of a rejected row is created only while rejected rows are sampled.
+     *
+     * @return false when the row is recorded as rejected
+     */
+    private boolean isAccepted(CsvRow row, RejectedRows rejectedRows) {
+        var fieldCount = row.fieldCount();
+        var idStatus = fieldCount == COLUMNS ? row.parseLong(Column.ID.index) : CsvRow.MALFORMED;
+        if (idStatus == CsvRow.VALID) {
+            return true;
+        }
+        rejectedRows.add(row.position(), rejectedRows.isSampleFull() ? null : rejectionReason(row, idStatus));
+        return false;
+    }
+
+    private static String rejectionReason(CsvRow row, int idStatus) {
+        if (row.fieldCount() != COLUMNS) {
+            return "it has %d columns instead of %d".formatted(row.fieldCount(), COLUMNS);
+        }
+        return switch (idStatus) {
+            case CsvRow.BLANK -> "employee id is missing";
+            case CsvRow.OUT_OF_RANGE -> "employee id %s is out of range".formatted(quote(row, Column.ID.index));
+            default -> "employee id %s is not a number".formatted(quote(row, Column.ID.index));
+        };
+    }
+
+    /**
+     * Parse the manager id into {@link CsvRow#value()}, a manager id which is not blank and not a valid number
+     * rejects the row, so it is never read as a row without manager
+     *
+     * @return status of the manager id
+     */
+    private int parseManagerId(CsvRow row, long id, RejectedRows rejectedRows) {
+        var status = row.parseLong(Column.MANAGER_ID.index);
+        if (status == CsvRow.MALFORMED || status == CsvRow.OUT_OF_RANGE) {
+            rejectedRows.add(row.position(), rejectedRows.isSampleFull() ? null
+                    : "manager id %s of the employee with id %d is %s".formatted(quote(row, Column.MANAGER_ID.index), id,
+                    status == CsvRow.OUT_OF_RANGE ? "out of range" : "not a number"));
+        }
+        return status;
+    }
+
+    /**
+     * Parse the salary into {@link CsvRow#value()} as cents, a salary which does not fit into long cents rejects the row
+     *
+     * @return status of the salary, BLANK when salaries are not read
+     */
+    private int parseSalary(CsvRow row, long id, RejectedRows rejectedRows) {
+        if (!fields.contains(EmployeeField.SALARY)) {
+            return CsvRow.BLANK;
+        }
+        var status = row.parseCents(Column.SALARY.index);
+        if (status == CsvRow.OUT_OF_RANGE) {
+            rejectedRows.add(row.position(), rejectedRows.isSampleFull() ? null
+                    : "salary %s of the employee with id %d is out of the supported range"
+                    .formatted(quote(row, Column.SALARY.index), id));
+        }
+        return status;
+    }
+
+    private static String quote(CsvRow row, int column) {
+        var value = row.getString(column);
+        return value.length() > MAX_QUOTED_VALUE_LENGTH
+                ? "'%s...'".formatted(value.substring(0, MAX_QUOTED_VALUE_LENGTH))
+                : "'%s'".formatted(value);
+    }
+
+    private Employee convert(CsvRow row) {
+        var id = row.value();
+        var firstName = this.name(row, Column.FIRST_NAME);
+        var lastName = this.name(row, Column.LAST_NAME);
+        var salary = fields.contains(EmployeeField.SALARY) ? row.getDecimal(Column.SALARY.index) : null;
+        var managerId = row.getLong(Column.MANAGER_ID.index);
+
+        return new Employee(id, firstName, lastName, salary, managerId);
+    }
+
+    private String name(CsvRow row, Column column) {
+        return fields.contains(column.field) ? row.getSharedString(column.index) : null;
     }
 
     private boolean checkHeaders(String s) {
@@ -100,7 +438,7 @@ public class FileParser {
             return false;
         }
         String[] arr = s.split(FILE_DELIMITER);
-        if (arr.length != Column.values().length) {
+        if (arr.length != COLUMNS) {
             return false;
         }
         return arr[Column.ID.index].equalsIgnoreCase(Column.ID.name)
@@ -111,18 +449,20 @@ public class FileParser {
     }
 
     private enum Column {
-        ID(0, "id"),
-        FIRST_NAME(1, "firstName"),
-        LAST_NAME(2, "lastName"),
-        SALARY(3, "salary"),
-        MANAGER_ID(4, "managerId");
+        ID(0, "id", EmployeeField.ID),
+        FIRST_NAME(1, "firstName", EmployeeField.FIRST_NAME),
+        LAST_NAME(2, "lastName", EmployeeField.LAST_NAME),
+        SALARY(3, "salary", EmployeeField.SALARY),
+        MANAGER_ID(4, "managerId", EmployeeField.MANAGER_ID);
 
         private final int index;
         private final String name;
+        private final EmployeeField field;
 
-        Column(int index, String name) {
+        Column(int index, String name, EmployeeField field) {
             this.index = index;
             this.name = name;
+            this.field = field;
         }
 
         static String getNamesByOrder() {
@@ -0,0 +1,218 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * CSV reader of gzip compressed files, the file is never decompressed to disk.
+ * Inflating runs on its own thread and hands filled buffers to the reading thread through a small ring
+ * of reusable buffers, so inflating of the next buffer overlaps with parsing of the previous one.
+ * Every handed buffer ends on a row boundary: the inflating thread moves the started row to the beginning
+ * of the next buffer, so rows are parsed straight from the buffers, the same way as from a mapped window.
+ * <p>
+ * Positions of rows are positions in the inflated content.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+final class InflatingCsvReader implements AutoCloseable {
+    static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final int RING_SIZE = 4;
+    private static final int INPUT_BUFFER_SIZE = 1 << 16;
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    private final Path path;
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<>(RING_SIZE);
+    /**
+     * One more place than buffers, so the failure of the inflating thread is always accepted
+     */
+    private final BlockingQueue<Chunk> filledChunks = new ArrayBlockingQueue<>(RING_SIZE + 1);
+    private final Thread inflater;
+    private Chunk current;
+
+    /**
+     * Inflated part of the file
+     *
+     * @param position position of the buffer start in the inflated content
+     * @param last     true for the last part, its buffer may end in the middle of a row
+     * @param failure  exception of the inflating thread, the other fields are not set then
+     */
+    private record Chunk(ByteBuffer buffer, long position, boolean last, Exception failure) {
+    }
+
+    /**
+     * @param bufferSize size of the buffers in the ring, rows longer than it can not be read
+     */
+    InflatingCsvReader(Path path, int bufferSize) {
+        this.path = path;
+        this.bufferSize = bufferSize;
+        for (var i = 0; i < RING_SIZE; i++) {
+            freeBuffers.add(ByteBuffer.allocate(bufferSize));
+        }
+        this.inflater = new Thread(this::inflate, "inflater-" + path.getFileName());
+        this.inflater.setDaemon(true);
+        this.inflater.start();
+    }
+
+    /**
+     * @return true when the file starts with the gzip magic number
+     */
+    static boolean isCompressed(FileChannel channel) throws IOException {
+        if (channel.size() < 2) {
+            return false;
+        }
+        var magic = ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(magic, 0);
+        return magic.getShort(0) == (short) GZIP_MAGIC;
+    }
+
+    /**
+     * Size of the content of a compressed file is taken from the gzip trailer, it is known only modulo 4 GB,
+     * so it is never taken smaller than the compressed size
+     *
+     * @return size of the content of the file
+     */
+    static long contentSizeOf(FileChannel channel) throws IOException {
+        var size = channel.size();
+        if (!isCompressed(channel) || size < 4) {
+            return size;
+        }
+        var trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(trailer, size - 4);
+        return Math.max(size, Integer.toUnsignedLong(trailer.getInt(0)));
+    }
+
+    /**
+     * Read the first line, must be called before {@link #readRows(int, int, MappedCsvReader.RowHandler)}
+     */
+    MappedCsvReader.Header readHeader() throws IOException {
+        var chunk = this.nextChunk();
+        var buffer = chunk.buffer();
+        var limit = buffer.limit();
+        if (limit == 0) {
+            current = chunk;
+            return new MappedCsvReader.Header(null, 0);
+        }
+        var end = 0;
+        while (end < limit && !MappedCsvReader.isLineEnd(buffer.get(end))) {
+            end++;
+        }
+        var bytes = new byte[end];
+        buffer.get(0, bytes);
+        var rowsStart = end;
+        if (rowsStart < limit && buffer.get(rowsStart++) == '\r' && rowsStart < limit && buffer.get(rowsStart) == '\n') {
+            rowsStart++;
+        }
+        current = new Chunk(buffer.position(rowsStart).slice(), rowsStart, chunk.last(), null);
+        return new MappedCsvReader.Header(new String(bytes, StandardCharsets.UTF_8), rowsStart);
+    }
+
+    /**
+     * Read all rows after the header
+     *
+     * @param recordedFields amount of leading fields whose boundaries are kept for every row
+     * @param skippedFields  bit mask of the recorded fields whose values are never read
+     */
+    void readRows(int recordedFields, int skippedFields, MappedCsvReader.RowHandler handler) throws IOException {
+        var row = new CsvRow(recordedFields, skippedFields);
+        var chunk = current != null ? current : this.nextChunk();
+        while (true) {
+            // every chunk ends on a row boundary, so it is read as the last window
+            MappedCsvReader.readRows(chunk.buffer(), chunk.position(), true, row, handler);
+            if (chunk.last()) {
+                return;
+            }
+            // the slice after the header shares the array of the buffer taken from the ring
+            freeBuffers.add(ByteBuffer.wrap(chunk.buffer().array()));
+            chunk = this.nextChunk();
+        }
+    }
+
+    /**
+     * Stop the inflating thread and wait until it closes the file
+     */
+    @Override
+    public void close() {
+        inflater.interrupt();
+        var interrupted = false;
+        while (inflater.isAlive()) {
+            try {
+                inflater.join();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Chunk nextChunk() throws IOException {
+        Chunk chunk;
+        try {
+            chunk = filledChunks.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FileException("File parsing was interrupted");
+        }
+        if (chunk.failure() instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (chunk.failure() instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        return chunk;
+    }
+
+    private void inflate() {
+        try (var input = new GZIPInputStream(Files.newInputStream(path), INPUT_BUFFER_SIZE)) {
+            var buffer = freeBuffers.take().clear();
+            var position = 0L;
+            while (true) {
+                var read = input.read(buffer.array(), buffer.position(), buffer.remaining());
+                if (read < 0) {
+                    filledChunks.put(new Chunk(buffer.flip(), position, true, null));
+                    return;
+                }
+                buffer.position(buffer.position() + read);
+                if (buffer.hasRemaining()) {
+                    continue;
+                }
+                var rowsEnd = lastRowEnd(buffer);
+                if (rowsEnd == 0) {
+                    throw new FileException("Row starting at byte %d is longer than %d bytes".formatted(position, bufferSize));
+                }
+                var next = freeBuffers.take().clear();
+                next.put(buffer.array(), rowsEnd, bufferSize - rowsEnd);
+                filledChunks.put(new Chunk(buffer.limit(rowsEnd).position(0), position, false, null));
+                position += rowsEnd;
+                buffer = next;
+            }
+        } catch (InterruptedException ex) {
+            // reading is finished or failed, nobody waits for the next buffers
+        } catch (IOException | RuntimeException ex) {
+            filledChunks.offer(new Chunk(null, 0, true, ex));
+        }
+    }
+
+    /**
+     * @return position after the last line end of the full buffer, 0 when there is no line end
+     */
+    private static int lastRowEnd(ByteBuffer buffer) {
+        for (var i = buffer.limit() - 1; i >= 0; i--) {
+            if (MappedCsvReader.isLineEnd(buffer.get(i))) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
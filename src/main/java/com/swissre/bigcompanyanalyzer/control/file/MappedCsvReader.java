@@ -0,0 +1,170 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Single-pass CSV reader on top of a memory-mapped file channel.
+ * Rows are split on '\n', '\r' or "\r\n" (same as {@link java.io.BufferedReader#readLine()}),
+ * fields are split on ',' without creating Strings, empty rows are skipped.
+ * Files larger than one mapping are read by consecutive windows, each window ends on a row boundary.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+final class MappedCsvReader {
+    static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    private static final byte DELIMITER = ',';
+
+    private final FileChannel channel;
+    private final int windowSize;
+
+    MappedCsvReader(FileChannel channel, int windowSize) {
+        this.channel = channel;
+        this.windowSize = windowSize;
+    }
+
+    interface RowHandler {
+        void handle(CsvRow row);
+    }
+
+    /**
+     * First line of the file with its position, the header is decoded to a String once per file.
+     */
+    record Header(String line, long rowsStart) {
+    }
+
+    Header readHeader() throws IOException {
+        var size = channel.size();
+        if (size == 0) {
+            return new Header(null, 0);
+        }
+        var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_WINDOW_SIZE));
+        var limit = buffer.limit();
+        var end = 0;
+        while (end < limit && !isLineEnd(buffer.get(end))) {
+            end++;
+        }
+        if (end == limit && limit < size) {
+            return new Header(null, 0);
+        }
+        var bytes = new byte[end];
+        buffer.get(0, bytes);
+        var rowsStart = end;
+        if (rowsStart < limit && buffer.get(rowsStart++) == '\r' && rowsStart < limit && buffer.get(rowsStart) == '\n') {
+            rowsStart++;
+        }
+        return new Header(new String(bytes, StandardCharsets.UTF_8), rowsStart);
+    }
+
+    /**
+     * Read all rows between two positions of the file, {@code from} must point to the start of a row.
+     *
+     * @param recordedFields amount of leading fields whose boundaries are kept for every row
+     */
+    void readRows(long from, long to, int recordedFields, RowHandler handler) throws IOException {
+        this.readRows(from, to, recordedFields, 0, handler);
+    }
+
+    /**
+     * Same as {@link #readRows(long, long, int, RowHandler)}, but the fields of the mask are only counted
+     *
+     * @param skippedFields bit mask of the recorded fields whose values are never read
+     */
+    void readRows(long from, long to, int recordedFields, int skippedFields, RowHandler handler) throws IOException {
+        var row = new CsvRow(recordedFields, skippedFields);
+        var position = from;
+        while (position < to) {
+            var length = (int) Math.min(to - position, windowSize);
+            var lastWindow = position + length == to;
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            var consumed = readRows(buffer, position, lastWindow, row, handler);
+            if (consumed == 0) {
+                throw new FileException("Row starting at byte %d is longer than %d bytes".formatted(position, windowSize));
+            }
+            position += consumed;
+        }
+    }
+
+    /**
+     * Split rows between two positions into ranges of roughly equal size, every range starts at the beginning of a row.
+     *
+     * @return boundaries of the ranges, range {@code i} is {@code [boundaries[i], boundaries[i + 1])}
+     */
+    long[] splitRows(long from, long to, int chunks) throws IOException {
+        var boundaries = new long[chunks + 1];
+        var count = 0;
+        boundaries[count++] = from;
+        var step = (to - from) / chunks;
+        var scan = ByteBuffer.allocate(8192);
+        for (var i = 1; i < chunks; i++) {
+            var boundary = this.nextRowStart(Math.max(from + step * i, boundaries[count - 1]), to, scan);
+            if (boundary > boundaries[count - 1] && boundary < to) {
+                boundaries[count++] = boundary;
+            }
+        }
+        boundaries[count++] = to;
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    private long nextRowStart(long position, long to, ByteBuffer scan) throws IOException {
+        while (position < to) {
+            scan.clear();
+            var read = channel.read(scan, position);
+            if (read <= 0) {
+                return to;
+            }
+            for (var i = 0; i < read; i++) {
+                if (isLineEnd(scan.get(i))) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return to;
+    }
+
+    /**
+     * @param bufferPosition position of the buffer start in the file
+     * @return amount of bytes consumed, only complete rows are consumed unless it is the last window
+     */
+    static int readRows(ByteBuffer buffer, long bufferPosition, boolean lastWindow, CsvRow row, RowHandler handler) {
+        var limit = buffer.limit();
+        var rowStart = 0;
+        var fieldStart = 0;
+        row.reset(buffer, bufferPosition);
+        for (var i = 0; i < limit; i++) {
+            var b = buffer.get(i);
+            if (b == DELIMITER) {
+                row.addField(fieldStart, i);
+                fieldStart = i + 1;
+            } else if (isLineEnd(b)) {
+                if (i > rowStart) {
+                    row.addField(fieldStart, i);
+                    handler.handle(row);
+                }
+                if (b == '\r' && i + 1 < limit && buffer.get(i + 1) == '\n') {
+                    i++;
+                }
+                rowStart = i + 1;
+                fieldStart = rowStart;
+                row.reset(buffer, bufferPosition + rowStart);
+            }
+        }
+        if (!lastWindow) {
+            return rowStart;
+        }
+        if (limit > rowStart) {
+            row.addField(fieldStart, limit);
+            handler.handle(row);
+        }
+        return limit;
+    }
+
+    static boolean isLineEnd(byte b) {
+        return b == '\n' || b == '\r';
+    }
+}
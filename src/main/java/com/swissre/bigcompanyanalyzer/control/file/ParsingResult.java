@@ -0,0 +1,15 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import com.swissre.bigcompanyanalyzer.entity.Employee;
+import com.swissre.bigcompanyanalyzer.entity.RejectedRows;
+
+import java.util.Map;
+
+/**
+ * Employees parsed from the file by their ids and the rows which were skipped
+ *
+ * @param idsToEmployees employees with valid ids, not linked with managers
+ * @param rejectedRows   rows without all columns or without a valid id
+ */
+public record ParsingResult(Map<Long, Employee> idsToEmployees, RejectedRows rejectedRows) {
+}
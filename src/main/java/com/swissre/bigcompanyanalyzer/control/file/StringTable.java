@@ -0,0 +1,100 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decoded strings by their UTF-8 bytes, so a repeated value, e.g. a common first name, is decoded
+ * and kept only once. Bytes are looked up straight in the buffer, a String is created only for a new value.
+ * The table keeps at most {@value #MAX_ENTRIES} values, later new values are decoded without being kept,
+ * so a column of unique values does not grow the table.
+ * <p>
+ * The table is not thread safe, every parsing thread has its own.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+final class StringTable {
+    static final int MAX_ENTRIES = 1 << 16;
+
+    private static final int INITIAL_CAPACITY = 1 << 8;
+
+    private byte[][] keys = new byte[INITIAL_CAPACITY][];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @return String of the bytes between two positions of the buffer
+     */
+    String decode(ByteBuffer buffer, int start, int end) {
+        var hash = hashOf(buffer, start, end);
+        var mask = keys.length - 1;
+        var slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && equals(keys[slot], buffer, start, end)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        var bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        var value = new String(bytes, StandardCharsets.UTF_8);
+        if (size == MAX_ENTRIES) {
+            return value;
+        }
+        keys[slot] = bytes;
+        values[slot] = value;
+        hashes[slot] = hash;
+        size++;
+        if (size * 2 > keys.length) {
+            this.grow();
+        }
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        var oldKeys = keys;
+        var oldValues = values;
+        var oldHashes = hashes;
+        keys = new byte[oldKeys.length * 2][];
+        values = new String[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        var mask = keys.length - 1;
+        for (var i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                var slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int hashOf(ByteBuffer buffer, int start, int end) {
+        var hash = 1;
+        for (var i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        // spread the higher bits, the slot is taken from the lower ones
+        return hash ^ hash >>> 16;
+    }
+
+    private static boolean equals(byte[] key, ByteBuffer buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (var i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
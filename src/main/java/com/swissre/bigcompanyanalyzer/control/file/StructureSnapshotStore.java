@@ -0,0 +1,298 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeField;
+import com.swissre.bigcompanyanalyzer.entity.RejectedRows;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshots of the linked company structure, stored next to the source file with {@value #SUFFIX} suffix.
+ * Snapshot keeps the arrays of {@link CompanyStructure} as they are, so reading it is a bulk copy from the mapped file
+ * instead of parsing and linking.
+ * <p>
+ * Snapshot is bound to the source file by its size, modification time and CRC32C of its content,
+ * the snapshot itself ends with CRC32C of all previous bytes. A snapshot of another version, of another source
+ * content or with a wrong checksum is ignored, so it is rebuilt by the next parsing. A snapshot of a structure parsed
+ * without some of the required fields is ignored as well.
+ * <p>
+ * Format, big-endian: magic, version, source size, source modification time, source checksum, amount of employees,
+ * amount of subordinate links, names flag, mask of the parsed fields, ids, salaries, managers, subordinates offsets, subordinates,
+ * names as length-prefixed UTF-8 (-1 for null) when the names flag is set, amount of rejected rows,
+ * amount of sampled rejected rows, their positions and length-prefixed reasons, checksum.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class StructureSnapshotStore {
+    static final String SUFFIX = ".snapshot";
+
+    private static final int MAGIC = 0x42434153;
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4 + 1 + 1;
+    private static final int CHECKSUM_SIZE = 4;
+    private static final int WINDOW_SIZE = 1 << 30;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Identity of the source file the snapshot was made from
+     */
+    record SourceKey(long size, long modifiedMillis, int checksum) {
+    }
+
+    /**
+     * @return key of the source file, empty when the file does not exist
+     */
+    Optional<SourceKey> keyOf(Path source) throws IOException {
+        if (!Files.exists(source)) {
+            return Optional.empty();
+        }
+        var modifiedMillis = Files.getLastModifiedTime(source).toMillis();
+        try (var channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            var size = channel.size();
+            return Optional.of(new SourceKey(size, modifiedMillis, checksum(channel, size)));
+        }
+    }
+
+    /**
+     * @return structure from the snapshot, empty when there is no snapshot or it is stale or corrupted
+     */
+    Optional<CompanyStructure> read(Path source, SourceKey sourceKey) throws IOException {
+        return this.read(source, sourceKey, EmployeeField.all());
+    }
+
+    /**
+     * @param requiredFields fields the structure must be parsed with
+     * @return structure from the snapshot, empty when there is no snapshot, it is stale or corrupted
+     * or it misses a required field
+     */
+    Optional<CompanyStructure> read(Path source, SourceKey sourceKey, Set<EmployeeField> requiredFields) throws IOException {
+        var snapshot = snapshotOf(source);
+        if (!Files.exists(snapshot)) {
+            return Optional.empty();
+        }
+        try (var channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            var size = channel.size();
+            if (size < HEADER_SIZE + CHECKSUM_SIZE) {
+                return Optional.empty();
+            }
+            var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION
+                    || !sourceKey.equals(new SourceKey(header.getLong(), header.getLong(), header.getInt()))) {
+                return Optional.empty();
+            }
+            var count = header.getInt();
+            var subordinatesCount = header.getInt();
+            var hasNames = header.get() != 0;
+            var fieldsMask = header.get();
+            if ((fieldsMask & maskOf(requiredFields)) != maskOf(requiredFields)) {
+                return Optional.empty();
+            }
+            var arraysEnd = HEADER_SIZE + (long) count * (8 + 8 + 4 + 4) + 4 + (long) subordinatesCount * 4;
+            if (count < 0 || subordinatesCount < 0 || arraysEnd + CHECKSUM_SIZE > size
+                    || channel.map(FileChannel.MapMode.READ_ONLY, size - CHECKSUM_SIZE, CHECKSUM_SIZE).getInt()
+                    != checksum(channel, size - CHECKSUM_SIZE)) {
+                return Optional.empty();
+            }
+
+            var position = (long) HEADER_SIZE;
+            var ids = new long[count];
+            position = readLongs(channel, position, ids);
+            var salaries = new long[count];
+            position = readLongs(channel, position, salaries);
+            var managers = new int[count];
+            position = readInts(channel, position, managers);
+            var subordinatesOffsets = new int[count + 1];
+            position = readInts(channel, position, subordinatesOffsets);
+            var subordinates = new int[subordinatesCount];
+            position = readInts(channel, position, subordinates);
+
+            String[] firstNames = null;
+            String[] lastNames = null;
+            var input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(position)), BUFFER_SIZE));
+            if (hasNames) {
+                firstNames = new String[count];
+                lastNames = new String[count];
+                for (var i = 0; i < count; i++) {
+                    firstNames[i] = readString(input);
+                    lastNames[i] = readString(input);
+                }
+            }
+            return Optional.of(CompanyStructure.restore(ids, salaries, managers, subordinatesOffsets, subordinates,
+                    firstNames, lastNames, readRejectedRows(input)));
+        }
+    }
+
+    /**
+     * Write the snapshot through a temporary file, so readers never see a partially written snapshot.
+     * Snapshot is only a cache, the structure is not affected when it can not be written.
+     */
+    void write(Path source, SourceKey sourceKey, CompanyStructure companyStructure) {
+        this.write(source, sourceKey, companyStructure, EmployeeField.all());
+    }
+
+    /**
+     * Same as {@link #write(Path, SourceKey, CompanyStructure)} for a structure parsed with some of the fields only
+     */
+    void write(Path source, SourceKey sourceKey, CompanyStructure companyStructure, Set<EmployeeField> fields) {
+        var snapshot = snapshotOf(source);
+        var temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try {
+            try (var file = Files.newOutputStream(temporary)) {
+                var checksum = new CRC32C();
+                var output = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, checksum), BUFFER_SIZE));
+                writeBody(output, sourceKey, companyStructure, fields);
+                output.flush();
+                new DataOutputStream(file).writeInt((int) checksum.getValue());
+            }
+            try {
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // next write replaces the temporary file
+            }
+        }
+    }
+
+    static Path snapshotOf(Path source) {
+        return source.resolveSibling(source.getFileName() + SUFFIX);
+    }
+
+    private static void writeBody(DataOutputStream output, SourceKey sourceKey, CompanyStructure companyStructure,
+                                  Set<EmployeeField> fields) throws IOException {
+        var count = companyStructure.size();
+        var subordinatesCount = count == 0 ? 0 : companyStructure.getSubordinatesEnd(count - 1);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(sourceKey.size());
+        output.writeLong(sourceKey.modifiedMillis());
+        output.writeInt(sourceKey.checksum());
+        output.writeInt(count);
+        output.writeInt(subordinatesCount);
+        output.writeBoolean(companyStructure.hasNames());
+        output.writeByte(maskOf(fields));
+        for (var i = 0; i < count; i++) {
+            output.writeLong(companyStructure.getId(i));
+        }
+        for (var i = 0; i < count; i++) {
+            output.writeLong(companyStructure.getSalary(i));
+        }
+        for (var i = 0; i < count; i++) {
+            output.writeInt(companyStructure.getManager(i));
+        }
+        for (var i = 0; i < count; i++) {
+            output.writeInt(companyStructure.getSubordinatesStart(i));
+        }
+        output.writeInt(subordinatesCount);
+        for (var position = 0; position < subordinatesCount; position++) {
+            output.writeInt(companyStructure.getSubordinateAt(position));
+        }
+        if (companyStructure.hasNames()) {
+            for (var i = 0; i < count; i++) {
+                writeString(output, companyStructure.getFirstName(i));
+                writeString(output, companyStructure.getLastName(i));
+            }
+        }
+        var rejectedRows = companyStructure.getRejectedRows();
+        output.writeLong(rejectedRows.getCount());
+        output.writeInt(rejectedRows.getSampledCount());
+        for (var i = 0; i < rejectedRows.getSampledCount(); i++) {
+            output.writeLong(rejectedRows.getPosition(i));
+            writeString(output, rejectedRows.getReason(i));
+        }
+    }
+
+    private static int maskOf(Set<EmployeeField> fields) {
+        var mask = 0;
+        for (var field : fields) {
+            mask |= 1 << field.ordinal();
+        }
+        return mask;
+    }
+
+    private static RejectedRows readRejectedRows(DataInputStream input) throws IOException {
+        var count = input.readLong();
+        var sampled = input.readInt();
+        var rejectedRows = new RejectedRows();
+        for (var i = 0; i < sampled; i++) {
+            rejectedRows.add(input.readLong(), readString(input));
+        }
+        rejectedRows.addNotSampled(count - sampled);
+        return rejectedRows;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        var length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(input.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static long readLongs(FileChannel channel, long position, long[] values) throws IOException {
+        var offset = 0;
+        while (offset < values.length) {
+            var length = Math.min(values.length - offset, WINDOW_SIZE / 8);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, length * 8L).asLongBuffer().get(values, offset, length);
+            position += length * 8L;
+            offset += length;
+        }
+        return position;
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] values) throws IOException {
+        var offset = 0;
+        while (offset < values.length) {
+            var length = Math.min(values.length - offset, WINDOW_SIZE / 4);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, length * 4L).asIntBuffer().get(values, offset, length);
+            position += length * 4L;
+            offset += length;
+        }
+        return position;
+    }
+
+    private static int checksum(FileChannel channel, long size) throws IOException {
+        var checksum = new CRC32C();
+        updateChecksum(checksum, channel, 0, size);
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Update the checksum with the bytes of the file between two positions, read by mapped windows
+     */
+    static void updateChecksum(CRC32C checksum, FileChannel channel, long from, long to) throws IOException {
+        for (var position = from; position < to; position += WINDOW_SIZE) {
+            checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, to - position)));
+        }
+    }
+}
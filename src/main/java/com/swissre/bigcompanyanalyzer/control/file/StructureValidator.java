@@ -0,0 +1,188 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Employee;
+import com.swissre.bigcompanyanalyzer.entity.IdIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks parsed rows before they are linked: duplicated ids, managers that do not exist, reporting cycles
+ * and employees which are not reachable from a CEO because of them. All problems are found in one pass.
+ * <p>
+ * Every employee is coloured once by walking up to its managers without recursion: the walk marks employees
+ * as being on the current path until it reaches a CEO, a missing manager or an already coloured employee,
+ * reaching an employee on the current path means a cycle. Then the same path is walked again and coloured
+ * with the result, so every employee is walked at most twice and the check is linear.
+ * <p>
+ * The external-memory analysis checks with it only the rows it could not reach from a CEO or a missing manager.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class StructureValidator {
+    private static final int MAX_LISTED_CYCLE_IDS = 10;
+
+    private static final int ROOT = -1;
+    private static final int ORPHAN = -2;
+
+    private static final byte NOT_VISITED = 0;
+    private static final byte ON_PATH = 1;
+    private static final byte REACHABLE = 2;
+    private static final byte UNREACHABLE = 3;
+
+    /**
+     * @return errors found in the rows, empty when the rows can be linked
+     */
+    public List<String> validate(CompanyStructure.Builder rows) {
+        var errors = new ArrayList<String>();
+        for (var duplicateId : rows.getDuplicateIds()) {
+            errors.add("Employee id %d is duplicated".formatted(duplicateId));
+        }
+
+        var size = rows.size();
+        var managers = new int[size];
+        for (var i = 0; i < size; i++) {
+            if (!rows.hasManager(i)) {
+                managers[i] = ROOT;
+            } else {
+                var manager = rows.indexOf(rows.getManagerId(i));
+                managers[i] = manager == IdIndex.ABSENT ? ORPHAN : manager;
+            }
+        }
+
+        var states = new byte[size];
+        var unreachableGroups = new UnreachableGroups(rows);
+        for (var start = 0; start < size; start++) {
+            if (states[start] != NOT_VISITED) {
+                continue;
+            }
+            var top = start;
+            var current = start;
+            while (current >= 0 && states[current] == NOT_VISITED) {
+                states[current] = ON_PATH;
+                top = current;
+                current = managers[current];
+            }
+
+            int group;
+            if (current == ROOT || current >= 0 && states[current] == REACHABLE) {
+                group = ROOT;
+            } else if (current == ORPHAN) {
+                errors.add("Employer with Id: %d has non-existed manager id %d".formatted(rows.getId(top), rows.getManagerId(top)));
+                group = unreachableGroups.add(top, 1);
+            } else if (states[current] == ON_PATH) {
+                errors.add(cycleError(rows, managers, current));
+                group = unreachableGroups.add(current, cycleLength(managers, current));
+            } else {
+                group = unreachableGroups.groupOf(current);
+            }
+
+            var state = group == ROOT ? REACHABLE : UNREACHABLE;
+            current = start;
+            while (current >= 0 && states[current] == ON_PATH) {
+                states[current] = state;
+                if (group != ROOT) {
+                    unreachableGroups.assign(current, group);
+                }
+                current = managers[current];
+            }
+        }
+        unreachableGroups.addErrors(errors);
+        return errors;
+    }
+
+    /**
+     * Validation of employees already collected by ids, duplicated ids are not possible there
+     */
+    List<String> validate(Map<Long, Employee> idsToEmployees) {
+        var rows = new CompanyStructure.Builder(idsToEmployees.size());
+        for (var employee : idsToEmployees.values()) {
+            var managerId = employee.getManagerId();
+            rows.add(employee.getId(), null, null, CompanyStructure.NO_SALARY, managerId != null, managerId != null ? managerId : 0);
+        }
+        return this.validate(rows);
+    }
+
+    private static String cycleError(CompanyStructure.Builder rows, int[] managers, int entry) {
+        var ids = new ArrayList<Long>();
+        var length = 0;
+        var current = entry;
+        do {
+            if (ids.size() < MAX_LISTED_CYCLE_IDS) {
+                ids.add(rows.getId(current));
+            }
+            length++;
+            current = managers[current];
+        } while (current != entry);
+        return length > ids.size()
+                ? "Employees with ids %s and %d more are in a reporting cycle".formatted(ids, length - ids.size())
+                : "Employees with ids %s are in a reporting cycle".formatted(ids);
+    }
+
+    private static int cycleLength(int[] managers, int entry) {
+        var length = 0;
+        var current = entry;
+        do {
+            length++;
+            current = managers[current];
+        } while (current != entry);
+        return length;
+    }
+
+    /**
+     * Employees cut off by one missing manager or one cycle form a group, groups are created only for invalid rows
+     */
+    private static final class UnreachableGroups {
+        private final CompanyStructure.Builder rows;
+        private int[] groupsOfEmployees;
+        private int[] groupRoots = new int[0];
+        private int[] groupSizes = new int[0];
+        private int[] groupRootSizes = new int[0];
+        private int count;
+
+        private UnreachableGroups(CompanyStructure.Builder rows) {
+            this.rows = rows;
+        }
+
+        /**
+         * @param root     employee without existing manager or the first found employee of a cycle
+         * @param rootSize amount of employees causing the problem: 1 or the length of the cycle
+         */
+        int add(int root, int rootSize) {
+            if (groupsOfEmployees == null) {
+                groupsOfEmployees = new int[rows.size()];
+            }
+            if (count == groupRoots.length) {
+                var capacity = Math.max(4, count * 2);
+                groupRoots = Arrays.copyOf(groupRoots, capacity);
+                groupSizes = Arrays.copyOf(groupSizes, capacity);
+                groupRootSizes = Arrays.copyOf(groupRootSizes, capacity);
+            }
+            groupRoots[count] = root;
+            groupRootSizes[count] = rootSize;
+            return count++;
+        }
+
+        int groupOf(int employee) {
+            return groupsOfEmployees[employee];
+        }
+
+        void assign(int employee, int group) {
+            groupsOfEmployees[employee] = group;
+            groupSizes[group]++;
+        }
+
+        void addErrors(List<String> errors) {
+            for (var group = 0; group < count; group++) {
+                var cutOff = groupSizes[group] - groupRootSizes[group];
+                if (cutOff > 0) {
+                    errors.add("%d employees under the employee with id %d are not reachable from the CEO"
+                            .formatted(cutOff, rows.getId(groupRoots[group])));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import com.swissre.bigcompanyanalyzer.control.instrumentation.PipelineInstrumentation;
+import com.swissre.bigcompanyanalyzer.control.instrumentation.PipelineStage;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Retriever for files which are usually changed by appending rows, like files of an upstream export.
+ * Rows of the last retrieved version of every file are kept, when the file has only grown, only the appended bytes
+ * are parsed and added to a copy of the kept rows. Any other change parses the whole file again.
+ * <p>
+ * The previously parsed part is compared by CRC32C, reading bytes is much cheaper than parsing them again.
+ * A file is treated as appendable only when it ends with a line break, so a row which is still being written
+ * is never split between two retrievals. Compressed files are always parsed again.
+ * <p>
+ * Not thread-safe, it is meant for one watching thread.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class TailingFileDataRetriever extends FileDataRetriever {
+    private final FileParser fileParser;
+    private final Map<Path, ParsedFile> parsedFiles = new HashMap<>();
+
+    public TailingFileDataRetriever(FileParser fileParser) {
+        this(fileParser, PipelineInstrumentation.DISABLED);
+    }
+
+    public TailingFileDataRetriever(FileParser fileParser, PipelineInstrumentation instrumentation) {
+        super(fileParser, null, instrumentation);
+        this.fileParser = fileParser;
+    }
+
+    /**
+     * Rows and checksum of the file content up to its size at the moment of parsing
+     *
+     * @param appendable       true when the file is not compressed and ends with a line break
+     * @param companyStructure structure of the rows, null when the rows are not valid
+     */
+    private record ParsedFile(long size, int checksum, boolean appendable, CompanyStructure.Builder rows,
+                              CompanyStructure companyStructure) {
+    }
+
+    @Override
+    public CompanyStructure retrieveCompanyStructure(Path path) {
+        var key = path.toAbsolutePath().normalize();
+        var parsedFile = parsedFiles.remove(key);
+        if (!Files.exists(path)) {
+            return super.retrieveCompanyStructure(path);
+        }
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+            var checksum = new CRC32C();
+            var checked = 0L;
+            CompanyStructure.Builder rows;
+            if (parsedFile != null && size >= parsedFile.size()
+                    && isUnchangedPart(channel, parsedFile, checksum)) {
+                checked = parsedFile.size();
+                if (size == parsedFile.size() && parsedFile.companyStructure() != null) {
+                    parsedFiles.put(key, parsedFile);
+                    return parsedFile.companyStructure();
+                }
+                try (var stage = this.getInstrumentation().start(PipelineStage.PARSING, path)) {
+                    rows = parsedFile.rows().copy();
+                    fileParser.parseStructureRows(channel, rows, parsedFile.size(), size);
+                    stage.items(rows.size() - parsedFile.rows().size())
+                            .rejected(rows.getRejectedRowsCount() - parsedFile.rows().getRejectedRowsCount())
+                            .bytes(size - parsedFile.size());
+                }
+            } else {
+                checksum.reset();
+                try (var stage = this.getInstrumentation().start(PipelineStage.PARSING, path)) {
+                    // the same channel and size as the checksum, so rows appended meanwhile are parsed by the next tail
+                    rows = FileParser.isCompressed(channel)
+                            ? fileParser.parseStructure(path)
+                            : fileParser.parseStructure(channel, size);
+                    stage.items(rows.size()).rejected(rows.getRejectedRowsCount()).bytes(size);
+                }
+            }
+            StructureSnapshotStore.updateChecksum(checksum, channel, checked, size);
+
+            // rows are kept before linking, so rows completing an invalid file are still parsed alone
+            var appendable = !FileParser.isCompressed(channel) && endsWithLineBreak(channel, size);
+            var newParsedFile = new ParsedFile(size, (int) checksum.getValue(), appendable, rows, null);
+            parsedFiles.put(key, newParsedFile);
+            var companyStructure = this.link(path, rows);
+            parsedFiles.put(key, new ParsedFile(newParsedFile.size(), newParsedFile.checksum(),
+                    newParsedFile.appendable(), rows, companyStructure));
+            return companyStructure;
+        } catch (IOException ex) {
+            throw new FileException("Impossible to read file. Additional information: %s"
+                    .formatted(ex.getMessage()));
+        }
+    }
+
+    private static boolean isUnchangedPart(FileChannel channel, ParsedFile parsedFile, CRC32C checksum) throws IOException {
+        if (!parsedFile.appendable()) {
+            return false;
+        }
+        StructureSnapshotStore.updateChecksum(checksum, channel, 0, parsedFile.size());
+        return (int) checksum.getValue() == parsedFile.checksum();
+    }
+
+    private static boolean endsWithLineBreak(FileChannel channel, long size) throws IOException {
+        if (size == 0) {
+            return false;
+        }
+        var last = ByteBuffer.allocate(1);
+        channel.read(last, size - 1);
+        return last.get(0) == '\n' || last.get(0) == '\r';
+    }
+}
@@ -0,0 +1,36 @@
+package com.swissre.bigcompanyanalyzer.control.instrumentation;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registration of the MXBeans of the analyzer
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class MXBeans {
+
+    private MXBeans() {
+    }
+
+    /**
+     * Register the bean under the name, an already registered instance is replaced
+     *
+     * @throws IllegalStateException when the bean is not a compliant MXBean or the name is invalid
+     */
+    public static void register(MBeanServer mBeanServer, Object bean, String objectName) {
+        try {
+            var name = new ObjectName(objectName);
+            try {
+                mBeanServer.registerMBean(bean, name);
+            } catch (InstanceAlreadyExistsException ex) {
+                mBeanServer.unregisterMBean(name);
+                mBeanServer.registerMBean(bean, name);
+            }
+        } catch (JMException ex) {
+            throw new IllegalStateException("Impossible to register %s".formatted(objectName), ex);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.swissre.bigcompanyanalyzer.control.instrumentation;
+
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import javax.management.MBeanServer;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Timings and counters of the analysis stages, exposed as {@link PipelineMetricsMXBean} and as
+ * {@code com.swissre.bigcompanyanalyzer.PipelineStage} JFR events.
+ * <p>
+ * Every stage is measured by a {@link Stage} started before it and closed after it.
+ * {@link #DISABLED} returns one shared stage doing nothing, so disabled instrumentation costs one call per stage
+ * and never reads the clock or allocates.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class PipelineInstrumentation implements PipelineMetricsMXBean {
+    // initialized before DISABLED, its counters are created from the stages
+    private static final PipelineStage[] STAGES = PipelineStage.values();
+
+    public static final PipelineInstrumentation DISABLED = new PipelineInstrumentation(false);
+
+    static final String OBJECT_NAME = "com.swissre.bigcompanyanalyzer:type=PipelineMetrics";
+
+    private final boolean enabled;
+    private final Stage disabledStage = new Stage(null, null);
+    private final LongAdder[] nanos = adders();
+    private final LongAdder[] calls = adders();
+    private final LongAdder[] items = adders();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    public PipelineInstrumentation() {
+        this(true);
+    }
+
+    private PipelineInstrumentation(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return false for {@link #DISABLED}, measurements which need extra work can be skipped then
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param file file of the analysis, null when the stage is not bound to a file
+     */
+    public Stage start(PipelineStage stage, Path file) {
+        return enabled ? new Stage(stage, file) : disabledStage;
+    }
+
+    /**
+     * @return report entries and errors of all reports
+     */
+    public static long entriesOf(Collection<Report> reports) {
+        var entries = 0L;
+        for (var report : reports) {
+            entries += report.getReportEntriesCount() + report.getErrorsReportEntriesCount();
+        }
+        return entries;
+    }
+
+    /**
+     * Register as the platform MXBean, an already registered instance is replaced
+     */
+    public void register(MBeanServer mBeanServer) {
+        MXBeans.register(mBeanServer, this, OBJECT_NAME);
+    }
+
+    /**
+     * @return one line per stage which was called at least once
+     */
+    public String summary() {
+        var summary = new StringBuilder("Pipeline summary:");
+        for (var stage : STAGES) {
+            var stageCalls = calls[stage.ordinal()].sum();
+            if (stageCalls > 0) {
+                summary.append(System.lineSeparator())
+                        .append("%s: %d ms, %d calls, %d items".formatted(stage,
+                                TimeUnit.NANOSECONDS.toMillis(nanos[stage.ordinal()].sum()), stageCalls, items[stage.ordinal()].sum()));
+                if (stage == PipelineStage.PARSING) {
+                    summary.append(", %d rejected rows, %d bytes".formatted(rejected.sum(), bytes.sum()));
+                }
+            }
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public Map<String, Long> getStageMillis() {
+        return byStage(stage -> TimeUnit.NANOSECONDS.toMillis(nanos[stage].sum()));
+    }
+
+    @Override
+    public Map<String, Long> getStageCalls() {
+        return byStage(stage -> calls[stage].sum());
+    }
+
+    @Override
+    public Map<String, Long> getStageItems() {
+        return byStage(stage -> items[stage].sum());
+    }
+
+    @Override
+    public long getRowsParsed() {
+        return items[PipelineStage.PARSING.ordinal()].sum();
+    }
+
+    @Override
+    public long getRowsRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getEmployeesLinked() {
+        return items[PipelineStage.LINKING.ordinal()].sum();
+    }
+
+    @Override
+    public long getReportEntriesEmitted() {
+        return items[PipelineStage.REPORT_GENERATION.ordinal()].sum();
+    }
+
+    @Override
+    public void reset() {
+        for (var stage : STAGES) {
+            nanos[stage.ordinal()].reset();
+            calls[stage.ordinal()].reset();
+            items[stage.ordinal()].reset();
+        }
+        rejected.reset();
+        bytes.reset();
+    }
+
+    private static Map<String, Long> byStage(IntFunction<Long> value) {
+        var values = new LinkedHashMap<String, Long>();
+        for (var stage : STAGES) {
+            values.put(stage.name(), value.apply(stage.ordinal()));
+        }
+        return values;
+    }
+
+    private static LongAdder[] adders() {
+        var adders = new LongAdder[STAGES.length];
+        for (var i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Measurement of one stage, counts are added to the totals when it is closed
+     */
+    public final class Stage implements AutoCloseable {
+        private final PipelineStage stage;
+        private final Path file;
+        private final long startNanos;
+        private final PipelineStageEvent event;
+        private long stageItems;
+        private long stageRejected;
+        private long stageBytes;
+
+        private Stage(PipelineStage stage, Path file) {
+            this.stage = stage;
+            this.file = file;
+            if (stage == null) {
+                this.startNanos = 0;
+                this.event = null;
+            } else {
+                this.event = new PipelineStageEvent();
+                event.begin();
+                this.startNanos = System.nanoTime();
+            }
+        }
+
+        public Stage items(long count) {
+            if (stage != null) {
+                stageItems += count;
+            }
+            return this;
+        }
+
+        public Stage rejected(long count) {
+            if (stage != null) {
+                stageRejected += count;
+            }
+            return this;
+        }
+
+        public Stage bytes(long count) {
+            if (stage != null) {
+                stageBytes += count;
+            }
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (stage == null) {
+                return;
+            }
+            var ordinal = stage.ordinal();
+            nanos[ordinal].add(System.nanoTime() - startNanos);
+            calls[ordinal].increment();
+            items[ordinal].add(stageItems);
+            rejected.add(stageRejected);
+            bytes.add(stageBytes);
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage.name();
+                event.file = file != null ? file.toString() : null;
+                event.items = stageItems;
+                event.rejected = stageRejected;
+                event.bytes = stageBytes;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.swissre.bigcompanyanalyzer.control.instrumentation;
+
+import java.util.Map;
+
+/**
+ * Totals of all analyses since the start or the last {@link #reset()}, stages are keyed by {@link PipelineStage} names
+ */
+public interface PipelineMetricsMXBean {
+
+    Map<String, Long> getStageMillis();
+
+    Map<String, Long> getStageCalls();
+
+    Map<String, Long> getStageItems();
+
+    long getRowsParsed();
+
+    long getRowsRejected();
+
+    long getBytesRead();
+
+    long getEmployeesLinked();
+
+    long getReportEntriesEmitted();
+
+    void reset();
+}
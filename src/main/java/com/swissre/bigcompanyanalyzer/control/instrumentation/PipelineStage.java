@@ -0,0 +1,27 @@
+package com.swissre.bigcompanyanalyzer.control.instrumentation;
+
+/**
+ * Stages of one analysis, every stage counts its own items
+ */
+public enum PipelineStage {
+    /**
+     * Items are parsed rows, rejected rows and bytes of the file are counted separately
+     */
+    PARSING,
+    /**
+     * Items are employees read from the structure snapshot
+     */
+    SNAPSHOT_READING,
+    /**
+     * Validation and linking of parsed rows, items are linked employees
+     */
+    LINKING,
+    /**
+     * Items are report entries and errors of all generated reports
+     */
+    REPORT_GENERATION,
+    /**
+     * Items are report entries and errors of all written reports
+     */
+    OUTPUT
+}
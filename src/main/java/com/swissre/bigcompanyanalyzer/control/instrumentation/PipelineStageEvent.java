@@ -0,0 +1,36 @@
+package com.swissre.bigcompanyanalyzer.control.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of one stage, its duration is the duration of the stage
+ */
+@Name("com.swissre.bigcompanyanalyzer.PipelineStage")
+@Label("Pipeline Stage")
+@Category({"Big Company Analyzer"})
+@Description("One stage of the company structure analysis")
+@StackTrace(false)
+class PipelineStageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("File")
+    String file;
+
+    @Label("Items")
+    @Description("Parsed rows, linked employees or report entries, depending on the stage")
+    long items;
+
+    @Label("Rejected Rows")
+    long rejected;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytes;
+}
@@ -0,0 +1,122 @@
+package com.swissre.bigcompanyanalyzer.control.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes filled buffers to the file on a dedicated thread.
+ * There is a fixed amount of buffers: producers take free buffers, fill them and submit them back,
+ * the writer thread writes them and returns them to the free buffers. When the disk is slower than the producers,
+ * all buffers are in the queue and {@link #take()} waits, so memory usage is bounded by the amount of buffers.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+final class AsyncFileWriter implements BufferSink, AutoCloseable {
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+    private final BlockingQueue<ByteBuffer> filledBuffers;
+    private final Thread writerThread;
+    private volatile IOException failure;
+    private boolean closed;
+
+    AsyncFileWriter(Path path, int bufferSize, int buffersCount) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.freeBuffers = new ArrayBlockingQueue<>(buffersCount);
+        this.filledBuffers = new ArrayBlockingQueue<>(buffersCount + 1);
+        for (var i = 0; i < buffersCount; i++) {
+            freeBuffers.add(ByteBuffer.allocateDirect(bufferSize));
+        }
+        this.writerThread = new Thread(this::writeBuffers, "report-writer-" + path.getFileName());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * @return empty buffer, waits while all buffers are queued for writing
+     */
+    @Override
+    public ByteBuffer take() {
+        this.checkFailure();
+        try {
+            return freeBuffers.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OutputException("Interrupted while waiting for the report writer");
+        }
+    }
+
+    /**
+     * Queue the buffer for writing, the buffer must not be used after that
+     */
+    @Override
+    public void submit(ByteBuffer buffer) {
+        buffer.flip();
+        try {
+            filledBuffers.put(buffer);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OutputException("Interrupted while waiting for the report writer");
+        }
+    }
+
+    /**
+     * Wait until all submitted buffers are written and close the file
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            filledBuffers.put(END);
+            writerThread.join();
+            channel.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OutputException("Interrupted while waiting for the report writer");
+        } catch (IOException ex) {
+            failure = ex;
+        }
+        this.checkFailure();
+    }
+
+    private void writeBuffers() {
+        try {
+            while (true) {
+                var buffer = filledBuffers.take();
+                if (buffer == END) {
+                    return;
+                }
+                try {
+                    if (failure == null) {
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                    }
+                } catch (IOException ex) {
+                    // keep draining the queue, so producers are not blocked, the failure is reported to them
+                    failure = ex;
+                }
+                buffer.clear();
+                freeBuffers.put(buffer);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new OutputException("Impossible to write reports. Additional information: %s".formatted(failure.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.swissre.bigcompanyanalyzer.control.output;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Destination of the buffers filled by {@link ReportEncoder}
+ */
+interface BufferSink {
+
+    /**
+     * @return empty buffer to fill
+     */
+    ByteBuffer take();
+
+    /**
+     * Hand over the filled buffer, the buffer must not be used after that
+     */
+    void submit(ByteBuffer buffer);
+}
@@ -19,17 +19,17 @@ public class ConsoleOutputReportService implements ReportOutputService {
             System.out.println(report.getType().getReportName());
 
             System.out.println("Errors:");
-            if (report.getErrorsReportEntries().isEmpty()) {
+            if (report.getErrorsReportEntriesCount() == 0) {
                 System.out.println("No errors.");
             } else {
-                report.getErrorsReportEntries().forEach(System.out::println);
+                report.forEachErrorsReportEntry(System.out::println);
             }
 
             System.out.println("Report:");
-            if (report.getReportEntries().isEmpty()) {
+            if (report.getReportEntriesCount() == 0) {
                 System.out.println("No issues.");
             } else {
-                report.getReportEntries().forEach(System.out::println);
+                report.forEachReportEntry(System.out::println);
             }
             System.out.println("------------------------");
         });
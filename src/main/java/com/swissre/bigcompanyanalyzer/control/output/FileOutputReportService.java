@@ -0,0 +1,64 @@
+package com.swissre.bigcompanyanalyzer.control.output;
+
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Writes reports to the file in the chosen {@link ReportFormat}.
+ * Reports are encoded into large buffers by the calling thread and written by a dedicated writer thread,
+ * the amount of buffers is bounded, so a slow disk slows down the caller instead of growing the memory.
+ * The file is complete only after {@link #close()}.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class FileOutputReportService implements ReportOutputService, AutoCloseable {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    private static final int DEFAULT_BUFFERS_COUNT = 8;
+
+    private final ReportFormat reportFormat;
+    private final AsyncFileWriter writer;
+    private final ReportEncoder encoder;
+
+    public FileOutputReportService(Path path, ReportFormat reportFormat) {
+        this(path, reportFormat, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFERS_COUNT);
+    }
+
+    /**
+     * @param bufferSize   size of one buffer in bytes
+     * @param buffersCount amount of buffers, both filled and waiting for writing
+     */
+    public FileOutputReportService(Path path, ReportFormat reportFormat, int bufferSize, int buffersCount) {
+        this.reportFormat = reportFormat;
+        try {
+            this.writer = new AsyncFileWriter(path, bufferSize, buffersCount);
+        } catch (IOException ex) {
+            throw new OutputException("Impossible to create report file. Additional information: %s".formatted(ex.getMessage()));
+        }
+        this.encoder = new ReportEncoder(writer);
+        reportFormat.writeHeader(encoder);
+    }
+
+    @Override
+    public synchronized void writeReports(Collection<Report> reports) {
+        reports.forEach(report -> reportFormat.writeReport(report, encoder));
+        encoder.flush();
+    }
+
+    @Override
+    public synchronized void writeErrorReport(Report report) {
+        reportFormat.writeReport(report, encoder);
+        encoder.flush();
+    }
+
+    /**
+     * Wait until all reports are written and close the file
+     */
+    @Override
+    public synchronized void close() {
+        encoder.flush();
+        writer.close();
+    }
+}
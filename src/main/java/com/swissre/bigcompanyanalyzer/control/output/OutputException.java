@@ -0,0 +1,9 @@
+package com.swissre.bigcompanyanalyzer.control.output;
+
+import com.swissre.bigcompanyanalyzer.control.ReportException;
+
+public class OutputException extends ReportException {
+    OutputException(String error) {
+        super(error);
+    }
+}
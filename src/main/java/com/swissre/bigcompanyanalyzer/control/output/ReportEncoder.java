@@ -0,0 +1,120 @@
+package com.swissre.bigcompanyanalyzer.control.output;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes report values as UTF-8 straight into the buffers of a {@link BufferSink}.
+ * Numbers are written digit by digit, without creating Strings.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+final class ReportEncoder {
+    private static final int MAX_LONG_DIGITS = 20;
+
+    private final BufferSink sink;
+    private final byte[] digits = new byte[MAX_LONG_DIGITS];
+    private ByteBuffer buffer;
+
+    ReportEncoder(BufferSink sink) {
+        this.sink = sink;
+    }
+
+    ReportEncoder ascii(char value) {
+        this.ensureRemaining(1);
+        buffer.put((byte) value);
+        return this;
+    }
+
+    ReportEncoder number(long value) {
+        if (value == Long.MIN_VALUE) {
+            return this.text(Long.toString(value));
+        }
+        var position = digits.length;
+        var negative = value < 0;
+        var remaining = Math.abs(value);
+        do {
+            digits[--position] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (negative) {
+            digits[--position] = '-';
+        }
+        this.ensureRemaining(digits.length - position);
+        buffer.put(digits, position, digits.length - position);
+        return this;
+    }
+
+    ReportEncoder text(String value) {
+        return this.bytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Text as a quoted JSON string
+     */
+    ReportEncoder jsonText(String value) {
+        this.ascii('"');
+        var plainStart = 0;
+        for (var i = 0; i < value.length(); i++) {
+            var character = value.charAt(i);
+            if (character == '"' || character == '\\' || character < ' ') {
+                this.text(value.substring(plainStart, i));
+                switch (character) {
+                    case '"' -> this.ascii('\\').ascii('"');
+                    case '\\' -> this.ascii('\\').ascii('\\');
+                    case '\n' -> this.ascii('\\').ascii('n');
+                    case '\r' -> this.ascii('\\').ascii('r');
+                    case '\t' -> this.ascii('\\').ascii('t');
+                    default -> this.text("\\u%04x".formatted((int) character));
+                }
+                plainStart = i + 1;
+            }
+        }
+        return this.text(value.substring(plainStart)).ascii('"');
+    }
+
+    /**
+     * Text as a CSV field, quoted only when it contains a delimiter, a quote or a line break
+     */
+    ReportEncoder csvText(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return this.text(value);
+        }
+        return this.ascii('"').text(value.replace("\"", "\"\"")).ascii('"');
+    }
+
+    ReportEncoder newLine() {
+        return this.ascii('\n');
+    }
+
+    /**
+     * Submit the partially filled buffer for writing
+     */
+    void flush() {
+        if (buffer != null && buffer.position() > 0) {
+            sink.submit(buffer);
+            buffer = null;
+        }
+    }
+
+    private ReportEncoder bytes(byte[] value) {
+        var offset = 0;
+        while (offset < value.length) {
+            this.ensureRemaining(1);
+            var length = Math.min(buffer.remaining(), value.length - offset);
+            buffer.put(value, offset, length);
+            offset += length;
+        }
+        return this;
+    }
+
+    private void ensureRemaining(int length) {
+        if (buffer != null && buffer.remaining() < length) {
+            sink.submit(buffer);
+            buffer = null;
+        }
+        if (buffer == null) {
+            buffer = sink.take();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.swissre.bigcompanyanalyzer.control.output;
+
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import com.swissre.bigcompanyanalyzer.entity.ReportEntries;
+
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Formats of report files. CSV and JSON Lines have one entry per line with the fields of typed entries,
+ * so typed entries are never formatted to text. Text entries have only the message field.
+ * Group entries also have the amount of their employees: in the message of CSV and in the count field of JSON Lines.
+ * Typed entries are written in the {@link ReportEntries#renderingOrder() rendering order} in all formats.
+ * TEXT has the same layout as the console output.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public enum ReportFormat {
+    CSV("csv") {
+        @Override
+        void writeHeader(ReportEncoder encoder) {
+            encoder.text("report,severity,type,employeeId,value,limit,message").newLine();
+        }
+
+        @Override
+        void writeReport(Report report, ReportEncoder encoder) {
+            var reportName = report.getType().getReportName();
+            writeTyped(reportName, ERROR, report.getTypedErrorsReportEntries(), encoder);
+            writeText(reportName, ERROR, report.getTextErrorsReportEntries(), encoder);
+            writeTyped(reportName, ISSUE, report.getTypedReportEntries(), encoder);
+            writeText(reportName, ISSUE, report.getTextReportEntries(), encoder);
+        }
+
+        private void writeTyped(String reportName, String severity, ReportEntries entries, ReportEncoder encoder) {
+            for (var i : entries.renderingOrder()) {
+                encoder.text(reportName).ascii(',').text(severity).ascii(',').text(entries.getType(i).name()).ascii(',')
+                        .number(entries.getEmployeeId(i)).ascii(',')
+                        .number(entries.getValue(i)).ascii(',')
+                        .number(entries.getLimit(i)).ascii(',');
+                if (entries.getType(i).isGroup()) {
+                    encoder.csvText(entries.format(i));
+                }
+                encoder.newLine();
+            }
+        }
+
+        private void writeText(String reportName, String severity, Set<String> entries, ReportEncoder encoder) {
+            for (var entry : entries) {
+                encoder.text(reportName).ascii(',').text(severity).text(",,,,,").csvText(entry).newLine();
+            }
+        }
+    },
+    JSON_LINES("jsonl") {
+        @Override
+        void writeReport(Report report, ReportEncoder encoder) {
+            var reportName = report.getType().getReportName();
+            writeTyped(reportName, ERROR, report.getTypedErrorsReportEntries(), encoder);
+            writeText(reportName, ERROR, report.getTextErrorsReportEntries(), encoder);
+            writeTyped(reportName, ISSUE, report.getTypedReportEntries(), encoder);
+            writeText(reportName, ISSUE, report.getTextReportEntries(), encoder);
+        }
+
+        private void writeTyped(String reportName, String severity, ReportEntries entries, ReportEncoder encoder) {
+            for (var i : entries.renderingOrder()) {
+                encoder.text("{\"report\":").jsonText(reportName)
+                        .text(",\"severity\":\"").text(severity)
+                        .text("\",\"type\":\"").text(entries.getType(i).name())
+                        .text("\",\"employeeId\":").number(entries.getEmployeeId(i))
+                        .text(",\"value\":").number(entries.getValue(i))
+                        .text(",\"limit\":").number(entries.getLimit(i));
+                if (entries.getType(i).isGroup()) {
+                    encoder.text(",\"count\":").number(entries.getCount(i));
+                }
+                encoder.ascii('}').newLine();
+            }
+        }
+
+        private void writeText(String reportName, String severity, Set<String> entries, ReportEncoder encoder) {
+            for (var entry : entries) {
+                encoder.text("{\"report\":").jsonText(reportName)
+                        .text(",\"severity\":\"").text(severity)
+                        .text("\",\"message\":").jsonText(entry)
+                        .ascii('}').newLine();
+            }
+        }
+    },
+    TEXT("txt") {
+        @Override
+        void writeReport(Report report, ReportEncoder encoder) {
+            encoder.text("------------------------").newLine();
+            encoder.text(report.getType().getReportName()).newLine();
+            encoder.text("Errors:").newLine();
+            if (report.getErrorsReportEntriesCount() == 0) {
+                encoder.text("No errors.").newLine();
+            } else {
+                report.forEachErrorsReportEntry(entry -> encoder.text(entry).newLine());
+            }
+            encoder.text("Report:").newLine();
+            if (report.getReportEntriesCount() == 0) {
+                encoder.text("No issues.").newLine();
+            } else {
+                report.forEachReportEntry(entry -> encoder.text(entry).newLine());
+            }
+            encoder.text("------------------------").newLine();
+        }
+    };
+
+    private static final String ERROR = "error";
+    private static final String ISSUE = "issue";
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    private final String fileExtension;
+
+    ReportFormat(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Write reports to the stream on the calling thread, the stream is neither flushed nor closed
+     */
+    public void write(Collection<Report> reports, OutputStream outputStream) {
+        var encoder = new ReportEncoder(new StreamBufferSink(outputStream, STREAM_BUFFER_SIZE));
+        this.writeHeader(encoder);
+        reports.forEach(report -> this.writeReport(report, encoder));
+        encoder.flush();
+    }
+
+    /**
+     * Written once at the beginning of the file
+     */
+    void writeHeader(ReportEncoder encoder) {
+    }
+
+    abstract void writeReport(Report report, ReportEncoder encoder);
+}
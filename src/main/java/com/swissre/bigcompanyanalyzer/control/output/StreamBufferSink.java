@@ -0,0 +1,32 @@
+package com.swissre.bigcompanyanalyzer.control.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes every submitted buffer to the stream on the calling thread, one buffer is reused.
+ */
+final class StreamBufferSink implements BufferSink {
+    private final OutputStream outputStream;
+    private final ByteBuffer buffer;
+
+    StreamBufferSink(OutputStream outputStream, int bufferSize) {
+        this.outputStream = outputStream;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    @Override
+    public ByteBuffer take() {
+        return buffer.clear();
+    }
+
+    @Override
+    public void submit(ByteBuffer buffer) {
+        try {
+            outputStream.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+        } catch (IOException ex) {
+            throw new OutputException("Impossible to write reports. Additional information: %s".formatted(ex.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Generates reports in parallel on a fork/join pool.
+ * Subtrees larger than the threshold are split, neighbouring smaller subtrees are grouped into one task. Every task collects reports of its subtrees by its own visitors,
+ * the reports are merged in the order of subordinates, so the result is the same as for
+ * {@link FusedReportGenerationEngine}.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class ForkJoinReportGenerationEngine implements ReportGenerationEngine {
+    private static final int DEFAULT_SUBTREE_THRESHOLD = 10_000;
+
+    private final ForkJoinPool pool;
+    private final int subtreeThreshold;
+
+    public ForkJoinReportGenerationEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SUBTREE_THRESHOLD);
+    }
+
+    /**
+     * @param subtreeThreshold subtrees with more employees are split between several tasks
+     */
+    public ForkJoinReportGenerationEngine(ForkJoinPool pool, int subtreeThreshold) {
+        if (subtreeThreshold < 1) {
+            throw new IllegalArgumentException("Subtree threshold must be positive, but was %d".formatted(subtreeThreshold));
+        }
+        this.pool = pool;
+        this.subtreeThreshold = subtreeThreshold;
+    }
+
+    @Override
+    public List<Report> generateReports(CompanyStructure companyStructure, List<ReportGenerationService> reportGenerationServices) {
+        var ceo = ReportGenerationService.findCEO(companyStructure);
+        var subtreeSizes = this.countSubtreeSizes(companyStructure, ceo);
+        return pool.invoke(new SubtreesTask(companyStructure, reportGenerationServices, subtreeSizes,
+                new int[]{ceo}, 0, 1, 0));
+    }
+
+    private int[] countSubtreeSizes(CompanyStructure companyStructure, int ceo) {
+        var subtreeSizes = new int[companyStructure.size()];
+        var order = new int[companyStructure.size()];
+        var tail = 0;
+        order[tail++] = ceo;
+        for (var head = 0; head < tail; head++) {
+            var end = companyStructure.getSubordinatesEnd(order[head]);
+            for (var position = companyStructure.getSubordinatesStart(order[head]); position < end; position++) {
+                order[tail++] = companyStructure.getSubordinateAt(position);
+            }
+        }
+        for (var i = tail - 1; i >= 0; i--) {
+            var employee = order[i];
+            subtreeSizes[employee]++;
+            if (employee != ceo) {
+                subtreeSizes[companyStructure.getManager(employee)] += subtreeSizes[employee];
+            }
+        }
+        return subtreeSizes;
+    }
+
+    /**
+     * Reports of the subtrees of {@code roots[from..to)}, all roots have the same depth
+     */
+    private final class SubtreesTask extends RecursiveTask<List<Report>> {
+        private final CompanyStructure companyStructure;
+        private final List<ReportGenerationService> reportGenerationServices;
+        private final int[] subtreeSizes;
+        private final int[] roots;
+        private final int from;
+        private final int to;
+        private final int depth;
+
+        private SubtreesTask(CompanyStructure companyStructure, List<ReportGenerationService> reportGenerationServices,
+                             int[] subtreeSizes, int[] roots, int from, int to, int depth) {
+            this.companyStructure = companyStructure;
+            this.reportGenerationServices = reportGenerationServices;
+            this.subtreeSizes = subtreeSizes;
+            this.roots = roots;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+
+        @Override
+        protected List<Report> compute() {
+            var visitors = reportGenerationServices.stream()
+                    .map(reportGenerationService -> reportGenerationService.createVisitor(companyStructure))
+                    .toArray(HierarchyVisitor[]::new);
+            var subtasks = new ArrayList<SubtreesTask>();
+            for (var i = from; i < to; i++) {
+                if (subtreeSizes[roots[i]] > subtreeThreshold) {
+                    this.visitHeavyPath(visitors, roots[i], subtasks);
+                } else {
+                    this.visitSubtree(visitors, roots[i], depth);
+                }
+            }
+            var reports = new ArrayList<Report>(visitors.length);
+            for (var visitor : visitors) {
+                reports.add(visitor.getReport());
+            }
+            for (var subtask : subtasks) {
+                var subtaskReports = subtask.join();
+                for (var i = 0; i < reports.size(); i++) {
+                    reports.get(i).merge(subtaskReports.get(i));
+                }
+            }
+            return reports;
+        }
+
+        /**
+         * Walk down through the largest subordinates in this task, other subordinates are forked as separate tasks.
+         * Every forked subtree is at most half of its manager subtree, so nesting of tasks stays logarithmic
+         * even for very deep hierarchies.
+         */
+        private void visitHeavyPath(HierarchyVisitor[] visitors, int root, List<SubtreesTask> subtasks) {
+            var employee = root;
+            var employeeDepth = depth;
+            while (subtreeSizes[employee] > subtreeThreshold) {
+                this.visit(visitors, employee, employeeDepth);
+                var start = companyStructure.getSubordinatesStart(employee);
+                var end = companyStructure.getSubordinatesEnd(employee);
+                var heaviest = start;
+                for (var position = start + 1; position < end; position++) {
+                    if (subtreeSizes[companyStructure.getSubordinateAt(position)] > subtreeSizes[companyStructure.getSubordinateAt(heaviest)]) {
+                        heaviest = position;
+                    }
+                }
+                var others = new int[end - start - 1];
+                var count = 0;
+                for (var position = start; position < end; position++) {
+                    if (position != heaviest) {
+                        others[count++] = companyStructure.getSubordinateAt(position);
+                    }
+                }
+                this.forkGroups(others, employeeDepth + 1, subtasks);
+                employee = companyStructure.getSubordinateAt(heaviest);
+                employeeDepth++;
+            }
+            this.visitSubtree(visitors, employee, employeeDepth);
+        }
+
+        /**
+         * Fork neighbouring subtrees grouped by the threshold size
+         */
+        private void forkGroups(int[] subtreeRoots, int subtreeDepth, List<SubtreesTask> subtasks) {
+            var groupStart = 0;
+            var groupSize = 0;
+            for (var i = 0; i < subtreeRoots.length; i++) {
+                groupSize += subtreeSizes[subtreeRoots[i]];
+                if (groupSize >= subtreeThreshold || i == subtreeRoots.length - 1) {
+                    var subtask = new SubtreesTask(companyStructure, reportGenerationServices, subtreeSizes,
+                            subtreeRoots, groupStart, i + 1, subtreeDepth);
+                    subtask.fork();
+                    subtasks.add(subtask);
+                    groupStart = i + 1;
+                    groupSize = 0;
+                }
+            }
+        }
+
+        private void visitSubtree(HierarchyVisitor[] visitors, int root, int rootDepth) {
+            // depth-first walk with an explicit stack, the subtree is not larger than the threshold
+            var size = subtreeSizes[root];
+            var stack = new int[size];
+            var depths = new int[size];
+            var top = 0;
+            stack[top] = root;
+            depths[top++] = rootDepth;
+            while (top > 0) {
+                var employee = stack[--top];
+                var employeeDepth = depths[top];
+                this.visit(visitors, employee, employeeDepth);
+                var end = companyStructure.getSubordinatesEnd(employee);
+                for (var position = companyStructure.getSubordinatesStart(employee); position < end; position++) {
+                    stack[top] = companyStructure.getSubordinateAt(position);
+                    depths[top++] = employeeDepth + 1;
+                }
+            }
+        }
+
+        private void visit(HierarchyVisitor[] visitors, int employee, int employeeDepth) {
+            for (var visitor : visitors) {
+                visitor.visit(employee, employeeDepth);
+            }
+        }
+    }
+}
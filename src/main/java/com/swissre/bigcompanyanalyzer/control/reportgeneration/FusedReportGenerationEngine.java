@@ -0,0 +1,52 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.util.List;
+
+/**
+ * Walks the hierarchy once, breadth-first from the CEO, and feeds every employee with its depth
+ * to the visitors of all services. The CEO is searched once for all reports.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class FusedReportGenerationEngine implements ReportGenerationEngine {
+
+    @Override
+    public List<Report> generateReports(CompanyStructure companyStructure, List<ReportGenerationService> reportGenerationServices) {
+        var visitors = reportGenerationServices.stream()
+                .map(reportGenerationService -> reportGenerationService.createVisitor(companyStructure))
+                .toList();
+        walk(companyStructure, visitors);
+        return visitors.stream()
+                .map(HierarchyVisitor::getReport)
+                .toList();
+    }
+
+    static void walk(CompanyStructure companyStructure, List<HierarchyVisitor> visitors) {
+        var visitorsArray = visitors.toArray(HierarchyVisitor[]::new);
+        // the queue holds the current level between levelStart and levelEnd, the next level is appended after it
+        var queue = new int[companyStructure.size()];
+        var levelEnd = 0;
+        queue[levelEnd++] = ReportGenerationService.findCEO(companyStructure);
+        var levelStart = 0;
+        var depth = 0;
+        while (levelStart < levelEnd) {
+            var tail = levelEnd;
+            for (var i = levelStart; i < levelEnd; i++) {
+                var employee = queue[i];
+                for (var visitor : visitorsArray) {
+                    visitor.visit(employee, depth);
+                }
+                var end = companyStructure.getSubordinatesEnd(employee);
+                for (var position = companyStructure.getSubordinatesStart(employee); position < end; position++) {
+                    queue[tail++] = companyStructure.getSubordinateAt(position);
+                }
+            }
+            levelStart = levelEnd;
+            levelEnd = tail;
+            depth++;
+        }
+    }
+}
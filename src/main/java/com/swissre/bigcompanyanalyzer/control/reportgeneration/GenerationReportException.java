@@ -2,9 +2,15 @@ package com.swissre.bigcompanyanalyzer.control.reportgeneration;
 
 import com.swissre.bigcompanyanalyzer.control.ReportException;
 
+import java.util.List;
+
 public class GenerationReportException extends ReportException {
 
     protected GenerationReportException(String error) {
         super(error);
     }
+
+    protected GenerationReportException(List<String> errors) {
+        super(errors);
+    }
 }
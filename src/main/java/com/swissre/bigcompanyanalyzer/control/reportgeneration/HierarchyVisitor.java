@@ -0,0 +1,19 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+/**
+ * Receives employees of the company structure during one walk through the hierarchy,
+ * every {@link ReportGenerationService} provides its own visitor collecting its report.
+ */
+public interface HierarchyVisitor {
+    /**
+     * Called once for every employee reachable from the CEO
+     *
+     * @param employee index of the employee in the company structure
+     * @param depth    amount of managers above the employee, 0 for the CEO
+     */
+    void visit(int employee, int depth);
+
+    Report getReport();
+}
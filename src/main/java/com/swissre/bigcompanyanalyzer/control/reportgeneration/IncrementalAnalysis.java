@@ -0,0 +1,390 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeChange;
+import com.swissre.bigcompanyanalyzer.entity.IdIndex;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Mutable company structure which keeps salary and reporting line verdicts up to date while changes are applied.
+ * For every manager the {@link SubordinateSalaries subordinates salaries} are kept, as well as the depth of
+ * every employee. A hire, a leave or a salary change re-evaluates only the employee and its manager,
+ * a move re-evaluates both managers and the reporting lines of the moved subtree.
+ * Changes that would break the hierarchy (unknown ids, a second CEO, cycles, leaving managers) or leave a paid manager
+ * with subordinates of which none has a positive salary, so without an average to compare with, are rejected
+ * and listed in the changes report, which covers only the changes of the last {@link #applyChanges(List)} call.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class IncrementalAnalysis {
+    private static final int NONE = -1;
+    private static final String NO_SUBORDINATES_AVERAGE = "manager with id %d would have no subordinates with a positive salary";
+
+    private final ReportingLineReportGenerationService reportingLineReportGenerationService;
+    private final SalaryLevelReportGenerationService salaryLevelReportGenerationService;
+    private final IdIndex idIndex;
+    private final int ceo;
+
+    private long[] ids;
+    private long[] salaries;
+    private int[] managers;
+    private int[] firstSubordinates;
+    private int[] nextSiblings;
+    private int[] previousSiblings;
+    private int[] depths;
+    private int[] salaryPercents;
+    private int size;
+    private final SubordinateSalaries subordinateSalaries = new SubordinateSalaries();
+
+    /**
+     * Employees that left the company or are not reachable from the CEO, they are not part of the reports
+     */
+    private final BitSet detached = new BitSet();
+    private final BitSet tooLongReportingLines = new BitSet();
+    private final BitSet salariesOutOfRange = new BitSet();
+    private final BitSet missingSalaries = new BitSet();
+    private final BitSet negativeSalaries = new BitSet();
+
+    private int appliedChanges;
+    private final List<String> rejectedChanges = new ArrayList<>();
+
+    public IncrementalAnalysis(CompanyStructure companyStructure,
+                               ReportingLineReportGenerationService reportingLineReportGenerationService,
+                               SalaryLevelReportGenerationService salaryLevelReportGenerationService) {
+        this.reportingLineReportGenerationService = reportingLineReportGenerationService;
+        this.salaryLevelReportGenerationService = salaryLevelReportGenerationService;
+        this.ceo = ReportGenerationService.findCEO(companyStructure);
+
+        size = companyStructure.size();
+        var capacity = Math.max(size, 16);
+        ids = new long[capacity];
+        salaries = new long[capacity];
+        managers = new int[capacity];
+        firstSubordinates = new int[capacity];
+        nextSiblings = new int[capacity];
+        previousSiblings = new int[capacity];
+        depths = new int[capacity];
+        salaryPercents = new int[capacity];
+        idIndex = new IdIndex(capacity);
+
+        Arrays.fill(firstSubordinates, NONE);
+        Arrays.fill(managers, NONE);
+        detached.set(0, size);
+        for (var i = 0; i < size; i++) {
+            ids[i] = companyStructure.getId(i);
+            salaries[i] = companyStructure.getSalary(i);
+            idIndex.putIfAbsent(ids[i], i);
+        }
+        this.linkReachableFromCEO(companyStructure);
+    }
+
+    /**
+     * Apply changes in their order, rejected changes do not stop the following ones
+     */
+    public void applyChanges(List<EmployeeChange> changes) {
+        appliedChanges = 0;
+        rejectedChanges.clear();
+        for (var change : changes) {
+            var rejection = switch (change.type()) {
+                case ADD -> this.add(change);
+                case REMOVE -> this.remove(change);
+                case MOVE -> this.move(change);
+                case SALARY -> this.changeSalary(change);
+            };
+            if (rejection == null) {
+                appliedChanges++;
+            } else {
+                rejectedChanges.add("%s of employee with id %d is rejected: %s".formatted(change.type(), change.id(), rejection));
+            }
+        }
+    }
+
+    /**
+     * Reports of the current structure: reporting line report, salary report and changes report
+     */
+    public List<Report> getReports() {
+        var reportingLineReport = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        tooLongReportingLines.stream()
+                .forEach(employee -> reportingLineReportGenerationService.addToReport(ids[employee], depths[employee], reportingLineReport));
+
+        var salaryReport = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        salariesOutOfRange.stream()
+                .forEach(employee -> salaryLevelReportGenerationService.addToReportIfNeeded(ids[employee], salaryPercents[employee], salaryReport));
+        missingSalaries.stream()
+                .forEach(employee -> salaryLevelReportGenerationService.addNoSalaryError(ids[employee], salaryReport));
+        negativeSalaries.stream()
+                .forEach(employee -> salaryLevelReportGenerationService.addNegativeSalaryError(ids[employee], salaryReport));
+
+        var changesReport = new Report(Report.ReportType.CHANGES_REPORT);
+        changesReport.addReportEntry("%d changes applied, %d changes rejected".formatted(appliedChanges, rejectedChanges.size()));
+        rejectedChanges.forEach(changesReport::addErrorsReportEntry);
+        return List.of(reportingLineReport, salaryReport, changesReport);
+    }
+
+    private String add(EmployeeChange change) {
+        if (idIndex.get(change.id()) != IdIndex.ABSENT) {
+            return "employee already exists";
+        }
+        if (!change.hasManager()) {
+            return "company already has a CEO";
+        }
+        var manager = idIndex.get(change.managerId());
+        if (manager == IdIndex.ABSENT || detached.get(manager)) {
+            return "manager with id %d does not exist".formatted(change.managerId());
+        }
+        if (this.hasNoSubordinatesAverage(manager, salaries[manager], 1, positive(change.salary()))) {
+            return NO_SUBORDINATES_AVERAGE.formatted(change.managerId());
+        }
+        if (size == ids.length) {
+            this.grow();
+        }
+        var employee = size++;
+        ids[employee] = change.id();
+        salaries[employee] = change.salary();
+        firstSubordinates[employee] = NONE;
+        idIndex.putIfAbsent(change.id(), employee);
+
+        this.link(employee, manager);
+        this.updateDepth(employee, depths[manager] + 1);
+        this.evaluateSalary(employee);
+        this.evaluateSalary(manager);
+        return null;
+    }
+
+    private String remove(EmployeeChange change) {
+        var employee = idIndex.get(change.id());
+        if (employee == IdIndex.ABSENT || detached.get(employee)) {
+            return "employee does not exist";
+        }
+        if (employee == ceo) {
+            return "CEO can not leave the company";
+        }
+        if (firstSubordinates[employee] != NONE) {
+            return "employee still has subordinates";
+        }
+        var manager = managers[employee];
+        if (this.hasNoSubordinatesAverage(manager, salaries[manager], -1, -positive(salaries[employee]))) {
+            return NO_SUBORDINATES_AVERAGE.formatted(ids[manager]);
+        }
+        this.unlink(employee);
+        idIndex.remove(change.id());
+        detached.set(employee);
+        tooLongReportingLines.clear(employee);
+        this.clearSalaryVerdicts(employee);
+        this.evaluateSalary(manager);
+        return null;
+    }
+
+    private String move(EmployeeChange change) {
+        var employee = idIndex.get(change.id());
+        if (employee == IdIndex.ABSENT || detached.get(employee)) {
+            return "employee does not exist";
+        }
+        if (employee == ceo) {
+            return "CEO can not be moved";
+        }
+        var newManager = idIndex.get(change.managerId());
+        if (newManager == IdIndex.ABSENT || detached.get(newManager)) {
+            return "manager with id %d does not exist".formatted(change.managerId());
+        }
+        for (var ancestor = newManager; ancestor != NONE; ancestor = managers[ancestor]) {
+            if (ancestor == employee) {
+                return "manager with id %d is a subordinate of the employee".formatted(change.managerId());
+            }
+        }
+        var oldManager = managers[employee];
+        if (oldManager != newManager) {
+            var positiveSalary = positive(salaries[employee]);
+            if (this.hasNoSubordinatesAverage(oldManager, salaries[oldManager], -1, -positiveSalary)) {
+                return NO_SUBORDINATES_AVERAGE.formatted(ids[oldManager]);
+            }
+            if (this.hasNoSubordinatesAverage(newManager, salaries[newManager], 1, positiveSalary)) {
+                return NO_SUBORDINATES_AVERAGE.formatted(change.managerId());
+            }
+        }
+        this.unlink(employee);
+        this.link(employee, newManager);
+        this.evaluateSalary(oldManager);
+        this.evaluateSalary(newManager);
+
+        var depthChange = depths[newManager] + 1 - depths[employee];
+        if (depthChange != 0) {
+            // pre-order walk of the moved subtree by manager and sibling links, no additional memory needed
+            var current = employee;
+            while (current != NONE) {
+                this.updateDepth(current, depths[current] + depthChange);
+                current = this.nextInSubtree(current, employee);
+            }
+        }
+        return null;
+    }
+
+    private String changeSalary(EmployeeChange change) {
+        var employee = idIndex.get(change.id());
+        if (employee == IdIndex.ABSENT || detached.get(employee)) {
+            return "employee does not exist";
+        }
+        var manager = managers[employee];
+        if (manager != NONE && this.hasNoSubordinatesAverage(manager, salaries[manager], 0,
+                positive(change.salary()) - positive(salaries[employee]))) {
+            return NO_SUBORDINATES_AVERAGE.formatted(ids[manager]);
+        }
+        if (this.hasNoSubordinatesAverage(employee, change.salary(), 0, 0)) {
+            return NO_SUBORDINATES_AVERAGE.formatted(change.id());
+        }
+        if (manager != NONE) {
+            this.removeFromManagerSalaries(employee, manager);
+        }
+        salaries[employee] = change.salary();
+        if (manager != NONE) {
+            this.addToManagerSalaries(employee, manager);
+            this.evaluateSalary(manager);
+        }
+        this.evaluateSalary(employee);
+        return null;
+    }
+
+    /**
+     * @throws GenerationReportException when a manager has subordinates but none of them has a positive salary,
+     *                                   the full analysis can not make the salary report of such a structure either
+     */
+    private void linkReachableFromCEO(CompanyStructure companyStructure) {
+        var queue = new int[size];
+        var tail = 0;
+        queue[tail++] = ceo;
+        depths[ceo] = 0;
+        for (var head = 0; head < tail; head++) {
+            var manager = queue[head];
+            var end = companyStructure.getSubordinatesEnd(manager);
+            for (var position = companyStructure.getSubordinatesStart(manager); position < end; position++) {
+                var employee = companyStructure.getSubordinateAt(position);
+                this.link(employee, manager);
+                depths[employee] = depths[manager] + 1;
+                queue[tail++] = employee;
+            }
+        }
+        var errors = new ArrayList<String>();
+        for (var head = 0; head < tail; head++) {
+            var employee = queue[head];
+            detached.clear(employee);
+            tooLongReportingLines.set(employee, reportingLineReportGenerationService.isTooLong(depths[employee]));
+            if (this.hasNoSubordinatesAverage(employee, salaries[employee], 0, 0)) {
+                errors.add("Manager with id %d has no subordinates with a positive salary".formatted(ids[employee]));
+            }
+            this.evaluateSalary(employee);
+        }
+        if (!errors.isEmpty()) {
+            throw new GenerationReportException(errors);
+        }
+    }
+
+    /**
+     * @param salary             salary of the manager after the change
+     * @param subordinatesChange change of the amount of subordinates of the manager
+     * @param positiveChange     change of the amount of subordinates with a positive salary
+     * @return true when the manager would be compared with the average of subordinates and there would be none
+     */
+    private boolean hasNoSubordinatesAverage(int manager, long salary, int subordinatesChange, int positiveChange) {
+        return salary != CompanyStructure.NO_SALARY && salary >= 0
+                && subordinateSalaries.count(manager) + subordinatesChange > 0
+                && subordinateSalaries.positiveCount(manager) + positiveChange == 0;
+    }
+
+    private void link(int employee, int manager) {
+        managers[employee] = manager;
+        previousSiblings[employee] = NONE;
+        nextSiblings[employee] = firstSubordinates[manager];
+        if (firstSubordinates[manager] != NONE) {
+            previousSiblings[firstSubordinates[manager]] = employee;
+        }
+        firstSubordinates[manager] = employee;
+        this.addToManagerSalaries(employee, manager);
+    }
+
+    private void unlink(int employee) {
+        var manager = managers[employee];
+        this.removeFromManagerSalaries(employee, manager);
+        if (previousSiblings[employee] != NONE) {
+            nextSiblings[previousSiblings[employee]] = nextSiblings[employee];
+        } else {
+            firstSubordinates[manager] = nextSiblings[employee];
+        }
+        if (nextSiblings[employee] != NONE) {
+            previousSiblings[nextSiblings[employee]] = previousSiblings[employee];
+        }
+        managers[employee] = NONE;
+    }
+
+    private void addToManagerSalaries(int employee, int manager) {
+        subordinateSalaries.add(manager, salaries[employee]);
+    }
+
+    private void removeFromManagerSalaries(int employee, int manager) {
+        subordinateSalaries.remove(manager, salaries[employee]);
+    }
+
+    private int nextInSubtree(int current, int root) {
+        if (firstSubordinates[current] != NONE) {
+            return firstSubordinates[current];
+        }
+        while (current != root) {
+            if (nextSiblings[current] != NONE) {
+                return nextSiblings[current];
+            }
+            current = managers[current];
+        }
+        return NONE;
+    }
+
+    private void updateDepth(int employee, int depth) {
+        depths[employee] = depth;
+        tooLongReportingLines.set(employee, reportingLineReportGenerationService.isTooLong(depth));
+    }
+
+    private void evaluateSalary(int employee) {
+        this.clearSalaryVerdicts(employee);
+        var salary = salaries[employee];
+        if (salary == CompanyStructure.NO_SALARY) {
+            missingSalaries.set(employee);
+            return;
+        } else if (salary < 0) {
+            negativeSalaries.set(employee);
+            return;
+        } else if (subordinateSalaries.positiveCount(employee) == 0) {
+            // no subordinates, changes leaving subordinates without a positive salary are rejected
+            return;
+        }
+        var salaryPercent = subordinateSalaries.percentOf(employee, salary);
+        if (salaryLevelReportGenerationService.isOutOfRange(salaryPercent)) {
+            salaryPercents[employee] = salaryPercent;
+            salariesOutOfRange.set(employee);
+        }
+    }
+
+    private void clearSalaryVerdicts(int employee) {
+        salariesOutOfRange.clear(employee);
+        missingSalaries.clear(employee);
+        negativeSalaries.clear(employee);
+    }
+
+    private void grow() {
+        var capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        salaries = Arrays.copyOf(salaries, capacity);
+        managers = Arrays.copyOf(managers, capacity);
+        firstSubordinates = Arrays.copyOf(firstSubordinates, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        previousSiblings = Arrays.copyOf(previousSiblings, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+        salaryPercents = Arrays.copyOf(salaryPercents, capacity);
+    }
+
+    private static int positive(long salary) {
+        return salary != CompanyStructure.NO_SALARY && salary > 0 ? 1 : 0;
+    }
+}
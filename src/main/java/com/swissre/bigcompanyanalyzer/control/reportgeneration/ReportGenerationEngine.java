@@ -0,0 +1,16 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.util.List;
+
+/**
+ * Generates reports of several services at once
+ */
+public interface ReportGenerationEngine {
+    /**
+     * @return reports in the same order as services
+     */
+    List<Report> generateReports(CompanyStructure companyStructure, List<ReportGenerationService> reportGenerationServices);
+}
@@ -1,11 +1,64 @@
 package com.swissre.bigcompanyanalyzer.control.reportgeneration;
 
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
 import com.swissre.bigcompanyanalyzer.entity.Employee;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeField;
 import com.swissre.bigcompanyanalyzer.entity.Report;
 
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 public interface ReportGenerationService {
+    /**
+     * Create visitor collecting the report during a walk through the hierarchy,
+     * it allows to generate several reports in one walk by {@link FusedReportGenerationEngine}
+     *
+     * @param companyStructure Company employees structure, subordinates are linked with managers
+     */
+    HierarchyVisitor createVisitor(CompanyStructure companyStructure);
+
+    /**
+     * Fields of the employees read by the report, the parser skips the fields which no report requires
+     *
+     * @return all fields, unless the service declares fewer
+     */
+    default Set<EmployeeField> getRequiredFields() {
+        return EmployeeField.all();
+    }
+
+    /**
+     * Key of the service type and its parameters, reports of services with equal keys for the same file content are equal
+     *
+     * @return empty when the reports must not be cached, unless the service declares its key
+     */
+    default Optional<String> getCacheKey() {
+        return Optional.empty();
+    }
+
+    /**
+     * @return fields required by at least one of the services
+     */
+    static Set<EmployeeField> requiredFieldsOf(Collection<? extends ReportGenerationService> reportGenerationServices) {
+        var fields = EnumSet.noneOf(EmployeeField.class);
+        reportGenerationServices.forEach(reportGenerationService -> fields.addAll(reportGenerationService.getRequiredFields()));
+        return fields;
+    }
+
+    /**
+     * Generate report based on Company employees structure
+     *
+     * @param companyStructure Company employees structure, subordinates are linked with managers
+     */
+    default Report generateReport(CompanyStructure companyStructure) {
+        var visitor = this.createVisitor(companyStructure);
+        FusedReportGenerationEngine.walk(companyStructure, List.of(visitor));
+        return visitor.getReport();
+    }
+
     /**
      * Generate report based on Company employees structure
      * <p>
@@ -14,21 +67,25 @@ public interface ReportGenerationService {
      *
      * @param linkedManagersToSubordinatesStructure Company employees structure
      */
-    Report generateReport(Map<Long, Employee> linkedManagersToSubordinatesStructure);
-
-    default Employee findCEO(Map<Long, Employee> idsToEmployees) {
-        Employee ceo = null;
-        for (var employee : idsToEmployees.values()) {
-            var managerId = employee.getManagerId();
-            if (managerId == null) {
-                if (ceo != null) {
+    default Report generateReport(Map<Long, Employee> linkedManagersToSubordinatesStructure) {
+        return this.generateReport(CompanyStructure.of(linkedManagersToSubordinatesStructure));
+    }
+
+    /**
+     * @return index of the CEO in the structure
+     */
+    static int findCEO(CompanyStructure companyStructure) {
+        var ceo = CompanyStructure.NO_MANAGER;
+        for (var i = 0; i < companyStructure.size(); i++) {
+            if (companyStructure.getManager(i) == CompanyStructure.NO_MANAGER) {
+                if (ceo != CompanyStructure.NO_MANAGER) {
                     throw new GenerationReportException("There are more than 1 CEO in the company structure");
                 } else {
-                    ceo = employee;
+                    ceo = i;
                 }
             }
         }
-        if (ceo == null) {
+        if (ceo == CompanyStructure.NO_MANAGER) {
             throw new GenerationReportException("There is no CEO in the company structure");
         }
         return ceo;
@@ -1,46 +1,137 @@
 package com.swissre.bigcompanyanalyzer.control.reportgeneration;
 
-import com.swissre.bigcompanyanalyzer.entity.Employee;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeField;
+import com.swissre.bigcompanyanalyzer.entity.IdIndex;
 import com.swissre.bigcompanyanalyzer.entity.Report;
 
-import java.util.List;
-import java.util.Map;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Report of employees with too long reporting lines, one entry per employee or, in the summary mode,
+ * one {@link Report.EntryType#REPORTING_LINE_GROUP_TOO_LONG} entry per subtree under the highest employee
+ * with a too long line, with the amount of employees and the longest line of the subtree.
+ */
 public class ReportingLineReportGenerationService implements ReportGenerationService {
     private final int allowedReportingLevel;
+    private final boolean summary;
 
     public ReportingLineReportGenerationService(int allowedReportingLevel) {
+        this(allowedReportingLevel, false);
+    }
+
+    /**
+     * @param summary true to group employees under the highest employee with a too long line instead of one entry per employee
+     */
+    public ReportingLineReportGenerationService(int allowedReportingLevel, boolean summary) {
         this.allowedReportingLevel = allowedReportingLevel;
+        this.summary = summary;
+    }
+
+    @Override
+    public Set<EmployeeField> getRequiredFields() {
+        return EnumSet.of(EmployeeField.ID, EmployeeField.MANAGER_ID);
+    }
+
+    @Override
+    public Optional<String> getCacheKey() {
+        return Optional.of("reportingLine(allowedReportingLevel=%d,summary=%b)".formatted(allowedReportingLevel, summary));
     }
 
     @Override
-    public Report generateReport(Map<Long, Employee> linkedManagersToSubordinatesStructure) {
-        var report = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+    public HierarchyVisitor createVisitor(CompanyStructure companyStructure) {
+        return summary ? new ReportingLineSummaryVisitor(companyStructure) : new ReportingLineVisitor(companyStructure);
+    }
+
+    /**
+     * @return whether the reporting line is too long, the CEO at level 0 has no reporting line and is never reported
+     */
+    boolean isTooLong(int reportingLineLevel) {
+        return reportingLineLevel > 0 && reportingLineLevel > allowedReportingLevel;
+    }
+
+    void addToReport(long employeeId, int reportingLineLevel, Report report) {
+        report.addReportEntry(Report.EntryType.REPORTING_LINE_TOO_LONG, employeeId, reportingLineLevel, allowedReportingLevel);
+    }
+
+    void addToGroup(long groupEmployeeId, int reportingLineLevel, Report report) {
+        report.addReportEntry(Report.EntryType.REPORTING_LINE_GROUP_TOO_LONG, groupEmployeeId, reportingLineLevel,
+                allowedReportingLevel, 1);
+    }
+
+    /**
+     * @return level of the highest employees with too long lines, they head the groups of the summary
+     */
+    int groupLevel() {
+        return Math.max(1, allowedReportingLevel + 1);
+    }
+
+    private final class ReportingLineVisitor implements HierarchyVisitor {
+        private final CompanyStructure companyStructure;
+        private final Report report = new Report(Report.ReportType.REPORTING_LINE_REPORT);
 
-        var ceo = this.findCEO(linkedManagersToSubordinatesStructure);
-        var subordinates = this.getSubordinatesFrom(List.of(ceo));
-        var reportingLineLevel = 1;
+        private ReportingLineVisitor(CompanyStructure companyStructure) {
+            this.companyStructure = companyStructure;
+        }
 
-        while (!subordinates.isEmpty()) {
-            if (reportingLineLevel > allowedReportingLevel) {
-                this.addToReport(subordinates, reportingLineLevel, allowedReportingLevel, report);
+        @Override
+        public void visit(int employee, int reportingLineLevel) {
+            if (isTooLong(reportingLineLevel)) {
+                addToReport(companyStructure.getId(employee), reportingLineLevel, report);
             }
-            reportingLineLevel++;
-            subordinates = this.getSubordinatesFrom(subordinates);
         }
-        return report;
-    }
 
-    private List<Employee> getSubordinatesFrom(List<Employee> employees) {
-        return employees.stream()
-                .flatMap(employee -> employee.getSubordinates().stream())
-                .toList();
+        @Override
+        public Report getReport() {
+            return report;
+        }
     }
 
-    private void addToReport(List<Employee> employees, int reportingLineLevel, int allowedLevel, Report report) {
-        employees.forEach(employee -> report.addReportEntry(
-                "The employee with id %d has a reporting line of %d levels, which is %d more than the allowed level %d"
-                        .formatted(employee.getId(), reportingLineLevel, reportingLineLevel - allowedLevel, allowedLevel))
-        );
+    /**
+     * Groups of a subtree may be walked by several visitors, their reports are merged by combining the group entries.
+     * Managers with too long lines keep the head of their group, so the group of an employee is found by
+     * its manager, or by walking up when the manager was walked by another visitor.
+     */
+    private final class ReportingLineSummaryVisitor implements HierarchyVisitor {
+        private final CompanyStructure companyStructure;
+        private final Report report = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        private final IdIndex groupHeads = new IdIndex(16);
+        private final int groupLevel = groupLevel();
+
+        private ReportingLineSummaryVisitor(CompanyStructure companyStructure) {
+            this.companyStructure = companyStructure;
+        }
+
+        @Override
+        public void visit(int employee, int reportingLineLevel) {
+            if (!isTooLong(reportingLineLevel)) {
+                return;
+            }
+            var groupHead = this.findGroupHead(employee, reportingLineLevel);
+            if (companyStructure.getSubordinatesCount(employee) > 0) {
+                groupHeads.putIfAbsent(employee, groupHead);
+            }
+            addToGroup(companyStructure.getId(groupHead), reportingLineLevel, report);
+        }
+
+        @Override
+        public Report getReport() {
+            return report;
+        }
+
+        private int findGroupHead(int employee, int reportingLineLevel) {
+            var ancestor = employee;
+            for (var level = reportingLineLevel; level > groupLevel; level--) {
+                var manager = companyStructure.getManager(ancestor);
+                var groupHead = groupHeads.get(manager);
+                if (groupHead != IdIndex.ABSENT) {
+                    return groupHead;
+                }
+                ancestor = manager;
+            }
+            return ancestor;
+        }
     }
 }
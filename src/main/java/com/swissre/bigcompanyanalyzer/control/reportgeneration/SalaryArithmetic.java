@@ -0,0 +1,56 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Salary percent calculation on salaries in cents.
+ * The fixed-point methods give exactly the same result as the BigDecimal calculation:
+ * average of subordinates is rounded HALF_UP to cents, salary to average ratio is rounded HALF_UP
+ * to 4 decimal places and then multiplied by 100 and truncated to int.
+ * BigDecimal is used only when a value does not fit into long.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class SalaryArithmetic {
+    private static final long RATIO_SCALE = 10_000;
+    private static final long MAX_SCALABLE_SALARY = Long.MAX_VALUE / RATIO_SCALE;
+
+    private SalaryArithmetic() {
+    }
+
+    /**
+     * @param salary             salary of the manager in cents, not negative
+     * @param subordinatesSum    sum of subordinates salaries in cents, not negative
+     * @param subordinatesCount  amount of subordinates in the sum
+     * @return salary of the manager in percents of average salary of subordinates
+     * @throws ArithmeticException when there are no subordinates or their average salary is zero
+     */
+    public static int percentOfAverage(long salary, long subordinatesSum, int subordinatesCount) {
+        var averageSalary = divideHalfUp(subordinatesSum, subordinatesCount);
+        if (salary > MAX_SCALABLE_SALARY) {
+            return percentOfAverage(BigDecimal.valueOf(salary, 2), BigDecimal.valueOf(averageSalary, 2));
+        }
+        return (int) (divideHalfUp(salary * RATIO_SCALE, averageSalary) / 100);
+    }
+
+    /**
+     * BigDecimal version of {@link #percentOfAverage(long, long, int)}, used when the sum of salaries overflows long
+     */
+    public static int percentOfAverage(BigDecimal salary, BigDecimal subordinatesSum, int subordinatesCount) {
+        var averageSalary = subordinatesSum.divide(new BigDecimal(subordinatesCount), RoundingMode.HALF_UP);
+        return percentOfAverage(salary, averageSalary);
+    }
+
+    private static int percentOfAverage(BigDecimal salary, BigDecimal averageSalary) {
+        return salary.divide(averageSalary, averageSalary.scale() + salary.scale(), RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+                .intValue();
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        var quotient = dividend / divisor;
+        var remainder = dividend % divisor;
+        return remainder >= divisor - remainder ? quotient + 1 : quotient;
+    }
+}
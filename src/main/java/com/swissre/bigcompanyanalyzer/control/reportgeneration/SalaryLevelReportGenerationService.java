@@ -1,14 +1,12 @@
 package com.swissre.bigcompanyanalyzer.control.reportgeneration;
 
-import com.swissre.bigcompanyanalyzer.entity.Employee;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeField;
 import com.swissre.bigcompanyanalyzer.entity.Report;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.util.EnumSet;
 import java.util.Optional;
+import java.util.Set;
 
 public class SalaryLevelReportGenerationService implements ReportGenerationService {
 
@@ -22,63 +20,96 @@ public class SalaryLevelReportGenerationService implements ReportGenerationServi
     }
 
     @Override
-    public Report generateReport(Map<Long, Employee> linkedManagersToSubordinatesStructure) {
-        var report = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
-
-        var employees = List.of(this.findCEO(linkedManagersToSubordinatesStructure));
-        while (!employees.isEmpty()) {
-            employees.forEach(employee ->
-                    getRelativeToSubordinatesSalaryPercent(employee, report)
-                            .ifPresent(salaryPercent -> this.addToReportIfNeeded(employee, salaryPercent, report))
-            );
-            employees = this.getSubordinatesFrom(employees);
-        }
-        return report;
+    public Set<EmployeeField> getRequiredFields() {
+        return EnumSet.of(EmployeeField.ID, EmployeeField.SALARY, EmployeeField.MANAGER_ID);
+    }
+
+    /**
+     * Create aggregation making the same report while the rows are parsed, without linking the company structure
+     */
+    public StreamingSalaryAggregation createAggregation() {
+        return new StreamingSalaryAggregation(this);
+    }
+
+    @Override
+    public Optional<String> getCacheKey() {
+        return Optional.of("salaryLevel(minAllowedPercent=%d,maxAllowedPercent=%d)".formatted(minAllowedPercent, maxAllowedPercent));
     }
 
-    private Optional<Integer> getRelativeToSubordinatesSalaryPercent(Employee employee, Report report) {
-        var employeeSalary = employee.getSalary();
-        if (employeeSalary == null) {
-            report.addErrorsReportEntry("Employee with id %d has no salary".formatted(employee.getId()));
+    @Override
+    public HierarchyVisitor createVisitor(CompanyStructure companyStructure) {
+        return new SalaryLevelVisitor(companyStructure);
+    }
+
+    private Optional<Integer> getRelativeToSubordinatesSalaryPercent(CompanyStructure companyStructure, int employee,
+                                                                     SubordinateSalaries subordinateSalaries,
+                                                                     Report report) {
+        var salary = companyStructure.getSalary(employee);
+        if (salary == CompanyStructure.NO_SALARY) {
+            addNoSalaryError(companyStructure.getId(employee), report);
             return Optional.empty();
-        } else if (employeeSalary.compareTo(BigDecimal.ZERO) < 0) {
-            report.addErrorsReportEntry("Employee with id %d has negative salary".formatted(employee.getId()));
+        } else if (salary < 0) {
+            addNegativeSalaryError(companyStructure.getId(employee), report);
             return Optional.empty();
-        } else if (!employee.hasSubordinates()) {
+        } else if (companyStructure.getSubordinatesCount(employee) == 0) {
             return Optional.empty();
         }
+        return Optional.of(percentOfSubordinatesAverage(companyStructure, employee, subordinateSalaries));
+    }
 
-        var subordinateSalaries = employee.getSubordinates()
-                .stream()
-                .map(Employee::getSalary)
-                .filter(Objects::nonNull)
-                .filter(subordinate -> subordinate.compareTo(BigDecimal.ZERO) > 0)
-                .toList();
-
-        var averageSalary = subordinateSalaries.stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .divide(new BigDecimal(subordinateSalaries.size()), RoundingMode.HALF_UP);
-
-        return Optional.of(
-                employeeSalary.divide(averageSalary, averageSalary.scale() + employeeSalary.scale(), RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100))
-                        .intValue()
-        );
+    /**
+     * @param employee            manager with a not negative salary and at least one subordinate
+     * @param subordinateSalaries aggregates reused between the calls, only the slot 0 is used
+     * @return salary of the manager in percents of average positive salary of their subordinates
+     */
+    static int percentOfSubordinatesAverage(CompanyStructure companyStructure, int employee,
+                                            SubordinateSalaries subordinateSalaries) {
+        subordinateSalaries.clear(0);
+        var end = companyStructure.getSubordinatesEnd(employee);
+        for (var position = companyStructure.getSubordinatesStart(employee); position < end; position++) {
+            subordinateSalaries.add(0, companyStructure.getSalary(companyStructure.getSubordinateAt(position)));
+        }
+        return subordinateSalaries.percentOf(0, companyStructure.getSalary(employee));
     }
 
-    private void addToReportIfNeeded(Employee employee, int salaryPercent, Report report) {
+    boolean isOutOfRange(int salaryPercent) {
+        return salaryPercent > maxAllowedPercent || salaryPercent < minAllowedPercent;
+    }
+
+    void addNoSalaryError(long employeeId, Report report) {
+        report.addErrorsReportEntry(Report.EntryType.NO_SALARY, employeeId);
+    }
+
+    void addNegativeSalaryError(long employeeId, Report report) {
+        report.addErrorsReportEntry(Report.EntryType.NEGATIVE_SALARY, employeeId);
+    }
+
+    void addToReportIfNeeded(long employeeId, int salaryPercent, Report report) {
         if (salaryPercent > maxAllowedPercent) {
-            report.addReportEntry("Manager with id %d earn %d percent of their subordinates, the maximum allowed level is %d".formatted(
-                    employee.getId(), salaryPercent, maxAllowedPercent));
+            report.addReportEntry(Report.EntryType.SALARY_ABOVE_MAXIMUM, employeeId, salaryPercent, maxAllowedPercent);
         } else if (salaryPercent < minAllowedPercent) {
-            report.addReportEntry("Manager with id %d earn %d percent of their subordinates, the minimum allowed level is %d".formatted(
-                    employee.getId(), salaryPercent, minAllowedPercent));
+            report.addReportEntry(Report.EntryType.SALARY_BELOW_MINIMUM, employeeId, salaryPercent, minAllowedPercent);
         }
     }
 
-    private List<Employee> getSubordinatesFrom(List<Employee> employees) {
-        return employees.stream()
-                .flatMap(employee -> employee.getSubordinates().stream())
-                .toList();
+    private final class SalaryLevelVisitor implements HierarchyVisitor {
+        private final CompanyStructure companyStructure;
+        private final Report report = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        private final SubordinateSalaries subordinateSalaries = new SubordinateSalaries();
+
+        private SalaryLevelVisitor(CompanyStructure companyStructure) {
+            this.companyStructure = companyStructure;
+        }
+
+        @Override
+        public void visit(int employee, int depth) {
+            getRelativeToSubordinatesSalaryPercent(companyStructure, employee, subordinateSalaries, report)
+                    .ifPresent(salaryPercent -> addToReportIfNeeded(companyStructure.getId(employee), salaryPercent, report));
+        }
+
+        @Override
+        public Report getReport() {
+            return report;
+        }
     }
 }
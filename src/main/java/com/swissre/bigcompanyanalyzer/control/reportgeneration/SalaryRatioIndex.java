@@ -0,0 +1,184 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Salary percents of all managers relative to the average salary of their subordinates, computed once and sorted,
+ * so salary thresholds can be tried without walking the hierarchy again. Managers below a minimum are a prefix
+ * and managers above a maximum are a suffix of the sorted percents, both are found by binary search.
+ * <p>
+ * Percents are the same as in {@link SalaryLevelReportGenerationService}, so {@link #generateReport(int, int)}
+ * gives the same report as the service with the same thresholds.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class SalaryRatioIndex {
+    private final int[] percents;
+    private final long[] ids;
+    private final Report errors;
+
+    private SalaryRatioIndex(int[] percents, long[] ids, Report errors) {
+        this.percents = percents;
+        this.ids = ids;
+        this.errors = errors;
+    }
+
+    /**
+     * Compute salary percents of all managers reachable from the CEO in one walk
+     */
+    public static SalaryRatioIndex of(CompanyStructure companyStructure) {
+        var visitor = new RatioVisitor(companyStructure);
+        FusedReportGenerationEngine.walk(companyStructure, List.of(visitor));
+
+        // percent in the high half and employee in the low half, so one primitive sort orders both
+        var keys = Arrays.copyOf(visitor.keys, visitor.size);
+        Arrays.sort(keys);
+        var percents = new int[keys.length];
+        var ids = new long[keys.length];
+        for (var i = 0; i < keys.length; i++) {
+            percents[i] = (int) (keys[i] >> 32);
+            ids[i] = companyStructure.getId((int) keys[i]);
+        }
+        return new SalaryRatioIndex(percents, ids, visitor.getReport());
+    }
+
+    /**
+     * @return amount of managers with subordinates and a valid salary
+     */
+    public int size() {
+        return percents.length;
+    }
+
+    public int getPercent(int position) {
+        return percents[position];
+    }
+
+    public long getEmployeeId(int position) {
+        return ids[position];
+    }
+
+    /**
+     * @return amount of managers earning less than the minimum percent, they are at the first positions
+     */
+    public int countBelow(int minAllowedPercent) {
+        return firstPositionNotBelow(minAllowedPercent);
+    }
+
+    /**
+     * @return amount of managers earning more than the maximum percent, they are at the last positions
+     */
+    public int countAbove(int maxAllowedPercent) {
+        return percents.length - firstPositionAbove(maxAllowedPercent);
+    }
+
+    /**
+     * Evaluate every pair of a minimum and a maximum percent
+     *
+     * @return amount of managers out of range, {@code [i][j]} is for {@code minAllowedPercents[i]} and {@code maxAllowedPercents[j]}
+     */
+    public int[][] countOutOfRange(int[] minAllowedPercents, int[] maxAllowedPercents) {
+        var belowLimits = new int[minAllowedPercents.length];
+        for (var i = 0; i < minAllowedPercents.length; i++) {
+            belowLimits[i] = firstPositionNotBelow(minAllowedPercents[i]);
+        }
+        var aboveStarts = new int[maxAllowedPercents.length];
+        for (var j = 0; j < maxAllowedPercents.length; j++) {
+            aboveStarts[j] = firstPositionAbove(maxAllowedPercents[j]);
+        }
+        var counts = new int[minAllowedPercents.length][maxAllowedPercents.length];
+        for (var i = 0; i < minAllowedPercents.length; i++) {
+            for (var j = 0; j < maxAllowedPercents.length; j++) {
+                // when the minimum is above the maximum, managers in both ranges are counted once
+                counts[i][j] = Math.min(belowLimits[i], aboveStarts[j]) + percents.length - aboveStarts[j];
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return salary report with the thresholds, same as {@link SalaryLevelReportGenerationService#generateReport(CompanyStructure)}
+     */
+    public Report generateReport(int minAllowedPercent, int maxAllowedPercent) {
+        var report = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        report.merge(errors);
+        var aboveStart = firstPositionAbove(maxAllowedPercent);
+        for (var position = aboveStart; position < percents.length; position++) {
+            report.addReportEntry(Report.EntryType.SALARY_ABOVE_MAXIMUM, ids[position], percents[position], maxAllowedPercent);
+        }
+        // a manager above the maximum is not reported below the minimum, same as in the service
+        var belowLimit = Math.min(firstPositionNotBelow(minAllowedPercent), aboveStart);
+        for (var position = 0; position < belowLimit; position++) {
+            report.addReportEntry(Report.EntryType.SALARY_BELOW_MINIMUM, ids[position], percents[position], minAllowedPercent);
+        }
+        return report;
+    }
+
+    private int firstPositionNotBelow(int percent) {
+        var low = 0;
+        var high = percents.length;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (percents[middle] < percent) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int firstPositionAbove(int percent) {
+        var low = 0;
+        var high = percents.length;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (percents[middle] <= percent) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static final class RatioVisitor implements HierarchyVisitor {
+        private final CompanyStructure companyStructure;
+        private final Report report = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        private final SubordinateSalaries subordinateSalaries = new SubordinateSalaries();
+        private long[] keys = new long[16];
+        private int size;
+
+        private RatioVisitor(CompanyStructure companyStructure) {
+            this.companyStructure = companyStructure;
+        }
+
+        @Override
+        public void visit(int employee, int depth) {
+            var salary = companyStructure.getSalary(employee);
+            if (salary == CompanyStructure.NO_SALARY) {
+                report.addErrorsReportEntry(Report.EntryType.NO_SALARY, companyStructure.getId(employee));
+            } else if (salary < 0) {
+                report.addErrorsReportEntry(Report.EntryType.NEGATIVE_SALARY, companyStructure.getId(employee));
+            } else if (companyStructure.getSubordinatesCount(employee) > 0) {
+                var percent = SalaryLevelReportGenerationService.percentOfSubordinatesAverage(companyStructure, employee,
+                        subordinateSalaries);
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                }
+                keys[size++] = ((long) percent << 32) | employee;
+            }
+        }
+
+        /**
+         * @return errors of employees without valid salary
+         */
+        @Override
+        public Report getReport() {
+            return report;
+        }
+    }
+}
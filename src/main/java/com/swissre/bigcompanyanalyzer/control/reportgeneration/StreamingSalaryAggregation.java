@@ -0,0 +1,128 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.IdIndex;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.util.Arrays;
+
+/**
+ * Salary report built while the rows are parsed, without linking the company structure.
+ * Every added row updates the running salary aggregate of the subordinates of its manager. When the manager is not
+ * added yet, the salary goes to a pending aggregate kept by the manager id, which is moved to the manager when its row
+ * arrives, so pending rows are never kept one by one. After the last row only the verdicts are left to compute,
+ * one per row.
+ * <p>
+ * The report is the same as the report of {@link SalaryLevelReportGenerationService} for a structure
+ * of the same rows, provided the rows pass {@link #getRows()} validation, i.e. every row is reachable from the CEO.
+ * The rows keep only ids, salaries and manager ids, for the validation and the verdicts.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class StreamingSalaryAggregation {
+    private final SalaryLevelReportGenerationService salaryLevelReportGenerationService;
+    private final CompanyStructure.Builder rows = new CompanyStructure.Builder();
+    private final SubordinateSalaries subordinateSalaries = new SubordinateSalaries();
+    /**
+     * Pending slots by the id of the manager which is not added yet
+     */
+    private final IdIndex pendingSlots = new IdIndex(16);
+    private final SubordinateSalaries pendingSalaries = new SubordinateSalaries();
+    private int[] freePendingSlots = new int[16];
+    private int freePendingSlotsCount;
+    private int pendingSlotsCount;
+
+    StreamingSalaryAggregation(SalaryLevelReportGenerationService salaryLevelReportGenerationService) {
+        this.salaryLevelReportGenerationService = salaryLevelReportGenerationService;
+    }
+
+    /**
+     * Add a parsed row, a row with an already added id is skipped and recorded as a duplicate in {@link #getRows()}
+     *
+     * @param salary    salary in cents or {@link CompanyStructure#NO_SALARY}
+     * @param managerId ignored when {@code hasManager} is false
+     */
+    public void add(long id, long salary, boolean hasManager, long managerId) {
+        var row = rows.size();
+        if (!rows.tryAdd(id, null, null, salary, hasManager, managerId)) {
+            return;
+        }
+        var pendingSlot = pendingSlots.get(id);
+        if (pendingSlot != IdIndex.ABSENT) {
+            pendingSalaries.moveTo(pendingSlot, subordinateSalaries, row);
+            pendingSlots.remove(id);
+            this.freePendingSlot(pendingSlot);
+        }
+        if (!hasManager) {
+            return;
+        }
+        var manager = rows.indexOf(managerId);
+        if (manager != IdIndex.ABSENT) {
+            subordinateSalaries.add(manager, salary);
+        } else {
+            pendingSalaries.add(this.pendingSlotOf(managerId), salary);
+        }
+    }
+
+    /**
+     * @return added rows, to be checked before {@link #generateReport()}
+     */
+    public CompanyStructure.Builder getRows() {
+        return rows;
+    }
+
+    /**
+     * @return amount of managers which have subordinates but are not added yet
+     */
+    public int getPendingManagersCount() {
+        return pendingSlotsCount - freePendingSlotsCount;
+    }
+
+    /**
+     * @throws GenerationReportException when there is no CEO or more than one
+     * @throws ArithmeticException       when subordinates of a manager have no positive salaries,
+     *                                   as by {@link SalaryLevelReportGenerationService}
+     */
+    public Report generateReport() {
+        var ceos = 0;
+        for (var i = 0; i < rows.size(); i++) {
+            if (!rows.hasManager(i) && ++ceos > 1) {
+                throw new GenerationReportException("There are more than 1 CEO in the company structure");
+            }
+        }
+        if (ceos == 0) {
+            throw new GenerationReportException("There is no CEO in the company structure");
+        }
+
+        var report = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        for (var i = 0; i < rows.size(); i++) {
+            var salary = rows.getSalary(i);
+            if (salary == CompanyStructure.NO_SALARY) {
+                salaryLevelReportGenerationService.addNoSalaryError(rows.getId(i), report);
+            } else if (salary < 0) {
+                salaryLevelReportGenerationService.addNegativeSalaryError(rows.getId(i), report);
+            } else if (subordinateSalaries.count(i) > 0) {
+                salaryLevelReportGenerationService.addToReportIfNeeded(rows.getId(i),
+                        subordinateSalaries.percentOf(i, salary), report);
+            }
+        }
+        return report;
+    }
+
+    private int pendingSlotOf(long managerId) {
+        var slot = pendingSlots.get(managerId);
+        if (slot != IdIndex.ABSENT) {
+            return slot;
+        }
+        slot = freePendingSlotsCount > 0 ? freePendingSlots[--freePendingSlotsCount] : pendingSlotsCount++;
+        pendingSlots.putIfAbsent(managerId, slot);
+        return slot;
+    }
+
+    private void freePendingSlot(int slot) {
+        if (freePendingSlotsCount == freePendingSlots.length) {
+            freePendingSlots = Arrays.copyOf(freePendingSlots, freePendingSlotsCount * 2);
+        }
+        freePendingSlots[freePendingSlotsCount++] = slot;
+    }
+}
@@ -0,0 +1,139 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running salary aggregates of the subordinates of managers by slot: amount of all subordinates, amount and sum
+ * of their positive salaries in cents. A sum switches to BigDecimal only when it overflows long.
+ * The salary report, the salary ratio index, the streaming aggregation, the external-memory analysis and
+ * the incremental analysis all aggregate here, so they calculate the same percents.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class SubordinateSalaries {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final BigDecimal MAX_LONG_SUM = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[] positiveCounts = new int[INITIAL_CAPACITY];
+    private long[] positiveSums = new long[INITIAL_CAPACITY];
+    private final Map<Integer, BigDecimal> overflowedSums = new HashMap<>();
+
+    /**
+     * @param salary salary of the subordinate in cents or {@link CompanyStructure#NO_SALARY}
+     */
+    public void add(int slot, long salary) {
+        this.ensureCapacity(slot);
+        counts[slot]++;
+        if (salary == CompanyStructure.NO_SALARY || salary <= 0) {
+            return;
+        }
+        positiveCounts[slot]++;
+        var overflowedSum = overflowedSums.isEmpty() ? null : overflowedSums.get(slot);
+        if (overflowedSum != null) {
+            overflowedSums.put(slot, overflowedSum.add(BigDecimal.valueOf(salary, 2)));
+        } else if (positiveSums[slot] + salary < 0) {
+            overflowedSums.put(slot, BigDecimal.valueOf(positiveSums[slot], 2).add(BigDecimal.valueOf(salary, 2)));
+        } else {
+            positiveSums[slot] += salary;
+        }
+    }
+
+    /**
+     * Remove a subordinate added to the slot before, an overflowed sum goes back to long when it fits again
+     *
+     * @param salary salary the subordinate was added with
+     */
+    public void remove(int slot, long salary) {
+        counts[slot]--;
+        if (salary == CompanyStructure.NO_SALARY || salary <= 0) {
+            return;
+        }
+        positiveCounts[slot]--;
+        var overflowedSum = overflowedSums.isEmpty() ? null : overflowedSums.get(slot);
+        if (overflowedSum == null) {
+            positiveSums[slot] -= salary;
+            return;
+        }
+        var sum = overflowedSum.subtract(BigDecimal.valueOf(salary, 2));
+        if (sum.compareTo(MAX_LONG_SUM) <= 0) {
+            overflowedSums.remove(slot);
+            positiveSums[slot] = sum.unscaledValue().longValueExact();
+        } else {
+            overflowedSums.put(slot, sum);
+        }
+    }
+
+    /**
+     * Move the aggregate of a slot to an empty slot of the target, the slot is empty afterwards
+     */
+    void moveTo(int slot, SubordinateSalaries target, int targetSlot) {
+        target.ensureCapacity(targetSlot);
+        target.counts[targetSlot] = counts[slot];
+        target.positiveCounts[targetSlot] = positiveCounts[slot];
+        target.positiveSums[targetSlot] = positiveSums[slot];
+        var overflowedSum = overflowedSums.remove(slot);
+        if (overflowedSum != null) {
+            target.overflowedSums.put(targetSlot, overflowedSum);
+        }
+        counts[slot] = 0;
+        positiveCounts[slot] = 0;
+        positiveSums[slot] = 0;
+    }
+
+    /**
+     * Remove all subordinates from the slot
+     */
+    public void clear(int slot) {
+        if (slot < counts.length) {
+            counts[slot] = 0;
+            positiveCounts[slot] = 0;
+            positiveSums[slot] = 0;
+        }
+        if (!overflowedSums.isEmpty()) {
+            overflowedSums.remove(slot);
+        }
+    }
+
+    /**
+     * @return amount of all subordinates added to the slot
+     */
+    public int count(int slot) {
+        return slot < counts.length ? counts[slot] : 0;
+    }
+
+    /**
+     * @return amount of subordinates of the slot with a positive salary
+     */
+    public int positiveCount(int slot) {
+        return slot < positiveCounts.length ? positiveCounts[slot] : 0;
+    }
+
+    /**
+     * @param salary salary of the manager in cents, not negative
+     * @return salary of the manager in percents of the average positive salary of the subordinates of the slot
+     * @throws ArithmeticException when no subordinate has a positive salary
+     */
+    public int percentOf(int slot, long salary) {
+        var overflowedSum = overflowedSums.isEmpty() ? null : overflowedSums.get(slot);
+        if (overflowedSum != null) {
+            return SalaryArithmetic.percentOfAverage(BigDecimal.valueOf(salary, 2), overflowedSum, positiveCounts[slot]);
+        }
+        return SalaryArithmetic.percentOfAverage(salary, positiveSums[slot], positiveCounts[slot]);
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < counts.length) {
+            return;
+        }
+        var capacity = Math.max(slot + 1, counts.length * 2);
+        counts = Arrays.copyOf(counts, capacity);
+        positiveCounts = Arrays.copyOf(positiveCounts, capacity);
+        positiveSums = Arrays.copyOf(positiveSums, capacity);
+    }
+}
@@ -0,0 +1,424 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compact, columnar representation of the linked company structure.
+ * Every employee has a dense index, all attributes are stored in parallel arrays by this index:
+ * id, salary in cents and index of the manager. Subordinates are stored as one adjacency array,
+ * subordinates of the employee with index {@code i} are placed between {@link #getSubordinatesStart(int)}
+ * and {@link #getSubordinatesEnd(int)}.
+ * {@link Employee} objects are created only on request.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class CompanyStructure {
+    /**
+     * Salary value of employees without salary
+     */
+    public static final long NO_SALARY = Long.MIN_VALUE;
+    /**
+     * Manager index of the employees without manager id (CEO)
+     */
+    public static final int NO_MANAGER = -1;
+    /**
+     * Manager index of the employees whose manager id is not presented in the structure
+     */
+    public static final int UNKNOWN_MANAGER = -2;
+
+    private final long[] ids;
+    private final long[] salaries;
+    private final int[] managers;
+    private final int[] subordinatesOffsets;
+    private final int[] subordinates;
+    private final String[] firstNames;
+    private final String[] lastNames;
+    private final IdIndex idIndex;
+    private final RejectedRows rejectedRows;
+    private volatile HierarchyIndex hierarchyIndex;
+
+    private CompanyStructure(long[] ids, long[] salaries, int[] managers, int[] subordinatesOffsets, int[] subordinates,
+                             String[] firstNames, String[] lastNames, IdIndex idIndex, RejectedRows rejectedRows) {
+        this.ids = ids;
+        this.salaries = salaries;
+        this.managers = managers;
+        this.subordinatesOffsets = subordinatesOffsets;
+        this.subordinates = subordinates;
+        this.firstNames = firstNames;
+        this.lastNames = lastNames;
+        this.idIndex = idIndex;
+        this.rejectedRows = rejectedRows;
+    }
+
+    /**
+     * Create the structure from employees linked by manager ids
+     */
+    public static CompanyStructure of(Map<Long, Employee> idsToEmployees) {
+        var builder = new Builder(idsToEmployees.size());
+        for (var employee : idsToEmployees.values()) {
+            var managerId = employee.getManagerId();
+            builder.add(employee.getId(), employee.getFirstName(), employee.getLastName(), toCents(employee.getSalary()),
+                    managerId != null, managerId != null ? managerId : 0);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create the structure from already linked arrays, for example restored from a snapshot.
+     * Arrays are used as they are, without copying and without checking their consistency.
+     *
+     * @param firstNames null when names are not kept
+     * @param lastNames  null when names are not kept
+     */
+    public static CompanyStructure restore(long[] ids, long[] salaries, int[] managers, int[] subordinatesOffsets,
+                                           int[] subordinates, String[] firstNames, String[] lastNames) {
+        return restore(ids, salaries, managers, subordinatesOffsets, subordinates, firstNames, lastNames, new RejectedRows());
+    }
+
+    /**
+     * Same as {@link #restore(long[], long[], int[], int[], int[], String[], String[])} with the rows
+     * the parser skipped in the source file
+     */
+    public static CompanyStructure restore(long[] ids, long[] salaries, int[] managers, int[] subordinatesOffsets,
+                                           int[] subordinates, String[] firstNames, String[] lastNames,
+                                           RejectedRows rejectedRows) {
+        var idIndex = new IdIndex(ids.length);
+        for (var i = 0; i < ids.length; i++) {
+            idIndex.putIfAbsent(ids[i], i);
+        }
+        return new CompanyStructure(ids, salaries, managers, subordinatesOffsets, subordinates, firstNames, lastNames,
+                idIndex, rejectedRows);
+    }
+
+    /**
+     * Convert salary to cents, rounding HALF_UP
+     *
+     * @throws ArithmeticException when the salary does not fit into long cents
+     */
+    public static long toCents(BigDecimal salary) {
+        if (salary == null) {
+            return NO_SALARY;
+        }
+        var cents = salary.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        if (cents == NO_SALARY) {
+            throw new ArithmeticException("Salary %s is out of range".formatted(salary));
+        }
+        return cents;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return rows of the source file skipped by the parser, empty for structures not parsed from a file
+     */
+    public RejectedRows getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public long getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * @return salary in cents or {@link #NO_SALARY}
+     */
+    public long getSalary(int index) {
+        return salaries[index];
+    }
+
+    /**
+     * @return index of the manager, {@link #NO_MANAGER} or {@link #UNKNOWN_MANAGER}
+     */
+    public int getManager(int index) {
+        return managers[index];
+    }
+
+    public boolean hasNames() {
+        return firstNames != null;
+    }
+
+    public String getFirstName(int index) {
+        return firstNames != null ? firstNames[index] : null;
+    }
+
+    public String getLastName(int index) {
+        return lastNames != null ? lastNames[index] : null;
+    }
+
+    public int getSubordinatesStart(int index) {
+        return subordinatesOffsets[index];
+    }
+
+    public int getSubordinatesEnd(int index) {
+        return subordinatesOffsets[index + 1];
+    }
+
+    public int getSubordinatesCount(int index) {
+        return subordinatesOffsets[index + 1] - subordinatesOffsets[index];
+    }
+
+    /**
+     * @param position position between {@link #getSubordinatesStart(int)} and {@link #getSubordinatesEnd(int)}
+     * @return index of the subordinate
+     */
+    public int getSubordinateAt(int position) {
+        return subordinates[position];
+    }
+
+    /**
+     * @return index of the employee or -1 when there is no employee with this id
+     */
+    public int indexOf(long id) {
+        return idIndex.get(id);
+    }
+
+    public Employee getEmployee(int index) {
+        var manager = managers[index];
+        return new Employee(ids[index], this.getFirstName(index), this.getLastName(index),
+                salaries[index] != NO_SALARY ? BigDecimal.valueOf(salaries[index], 2) : null,
+                manager >= 0 ? ids[manager] : null);
+    }
+
+    /**
+     * @return index of subtrees, built on the first request and kept for later requests
+     */
+    public HierarchyIndex getHierarchyIndex() {
+        var index = hierarchyIndex;
+        if (index == null) {
+            // concurrent first requests may build the index twice, both results are the same
+            index = HierarchyIndex.of(this);
+            hierarchyIndex = index;
+        }
+        return index;
+    }
+
+    public Optional<Employee> findEmployee(long id) {
+        var index = idIndex.get(id);
+        return index == IdIndex.ABSENT ? Optional.empty() : Optional.of(this.getEmployee(index));
+    }
+
+    /**
+     * Collects parsed, not yet linked rows. {@link #build()} links subordinates with managers.
+     */
+    public static final class Builder {
+        private long[] ids;
+        private long[] salaries;
+        private long[] managerIds;
+        private final BitSet withoutManager = new BitSet();
+        private String[] firstNames;
+        private String[] lastNames;
+        private final IdIndex idIndex;
+        private int size;
+        private long[] duplicateIds = new long[0];
+        private int duplicatesCount;
+        private final RejectedRows rejectedRows;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedSize) {
+            var capacity = Math.max(expectedSize, 1);
+            this.ids = new long[capacity];
+            this.salaries = new long[capacity];
+            this.managerIds = new long[capacity];
+            this.idIndex = new IdIndex(capacity);
+            this.rejectedRows = new RejectedRows();
+        }
+
+        private Builder(Builder other) {
+            this.ids = other.ids.clone();
+            this.salaries = other.salaries.clone();
+            this.managerIds = other.managerIds.clone();
+            this.withoutManager.or(other.withoutManager);
+            this.firstNames = other.firstNames != null ? other.firstNames.clone() : null;
+            this.lastNames = other.lastNames != null ? other.lastNames.clone() : null;
+            this.idIndex = other.idIndex.copy();
+            this.size = other.size;
+            this.duplicateIds = other.duplicateIds.clone();
+            this.duplicatesCount = other.duplicatesCount;
+            this.rejectedRows = other.rejectedRows.copy();
+        }
+
+        /**
+         * Structures built by a builder share its id index, so rows must be added to a copy
+         * when structures already built by this builder are still in use
+         *
+         * @return independent builder with the same rows
+         */
+        public Builder copy() {
+            return new Builder(this);
+        }
+
+        /**
+         * @param salary    salary in cents or {@link #NO_SALARY}
+         * @param managerId ignored when {@code hasManager} is false
+         * @throws IllegalStateException when an employee with the same id is already added
+         */
+        public void add(long id, String firstName, String lastName, long salary, boolean hasManager, long managerId) {
+            if (!this.tryAdd(id, firstName, lastName, salary, hasManager, managerId)) {
+                throw new IllegalStateException("Duplicate key %d".formatted(id));
+            }
+        }
+
+        /**
+         * Same as {@link #add(long, String, String, long, boolean, long)}, but a row with an already added id
+         * is skipped and its id is recorded in {@link #getDuplicateIds()}
+         *
+         * @return false when the row is skipped
+         */
+        public boolean tryAdd(long id, String firstName, String lastName, long salary, boolean hasManager, long managerId) {
+            if (!idIndex.putIfAbsent(id, size)) {
+                this.recordDuplicate(id);
+                return false;
+            }
+            if (size == ids.length) {
+                this.grow();
+            }
+            ids[size] = id;
+            salaries[size] = salary;
+            managerIds[size] = managerId;
+            if (!hasManager) {
+                withoutManager.set(size);
+            }
+            if (firstName != null || lastName != null) {
+                this.ensureNames();
+                firstNames[size] = firstName;
+                lastNames[size] = lastName;
+            }
+            size++;
+            return true;
+        }
+
+        /**
+         * Add all rows of another builder, keeping their order, duplicated ids are recorded as by {@link #tryAdd}
+         */
+        public void addAll(Builder other) {
+            rejectedRows.addAll(other.rejectedRows);
+            for (var i = 0; i < other.duplicatesCount; i++) {
+                this.recordDuplicate(other.duplicateIds[i]);
+            }
+            for (var i = 0; i < other.size; i++) {
+                this.tryAdd(other.ids[i],
+                        other.firstNames != null ? other.firstNames[i] : null,
+                        other.lastNames != null ? other.lastNames[i] : null,
+                        other.salaries[i], other.hasManager(i), other.managerIds[i]);
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return rows skipped by the parser, e.g. because of a wrong amount of fields or a missing id
+         */
+        public RejectedRows getRejectedRows() {
+            return rejectedRows;
+        }
+
+        public long getRejectedRowsCount() {
+            return rejectedRows.getCount();
+        }
+
+        public long getId(int index) {
+            return ids[index];
+        }
+
+        /**
+         * @return salary in cents or {@link #NO_SALARY}
+         */
+        public long getSalary(int index) {
+            return salaries[index];
+        }
+
+        public boolean hasManager(int index) {
+            return !withoutManager.get(index);
+        }
+
+        public long getManagerId(int index) {
+            return managerIds[index];
+        }
+
+        public boolean contains(long id) {
+            return idIndex.get(id) != IdIndex.ABSENT;
+        }
+
+        /**
+         * @return index of the row with this id or -1 when there is no such row
+         */
+        public int indexOf(long id) {
+            return idIndex.get(id);
+        }
+
+        /**
+         * @return ids of skipped rows, an id is repeated when it is skipped several times
+         */
+        public long[] getDuplicateIds() {
+            return Arrays.copyOf(duplicateIds, duplicatesCount);
+        }
+
+        public CompanyStructure build() {
+            var managers = new int[size];
+            var subordinatesOffsets = new int[size + 1];
+            for (var i = 0; i < size; i++) {
+                if (!hasManager(i)) {
+                    managers[i] = NO_MANAGER;
+                } else {
+                    var manager = idIndex.get(managerIds[i]);
+                    managers[i] = manager == IdIndex.ABSENT ? UNKNOWN_MANAGER : manager;
+                    if (manager != IdIndex.ABSENT) {
+                        subordinatesOffsets[manager + 1]++;
+                    }
+                }
+            }
+            for (var i = 0; i < size; i++) {
+                subordinatesOffsets[i + 1] += subordinatesOffsets[i];
+            }
+            var subordinates = new int[subordinatesOffsets[size]];
+            var positions = Arrays.copyOf(subordinatesOffsets, size);
+            for (var i = 0; i < size; i++) {
+                if (managers[i] >= 0) {
+                    subordinates[positions[managers[i]]++] = i;
+                }
+            }
+            return new CompanyStructure(Arrays.copyOf(ids, size), Arrays.copyOf(salaries, size), managers,
+                    subordinatesOffsets, subordinates,
+                    firstNames != null ? Arrays.copyOf(firstNames, size) : null,
+                    lastNames != null ? Arrays.copyOf(lastNames, size) : null,
+                    idIndex, rejectedRows.copy());
+        }
+
+        private void recordDuplicate(long id) {
+            if (duplicatesCount == duplicateIds.length) {
+                duplicateIds = Arrays.copyOf(duplicateIds, Math.max(4, duplicatesCount * 2));
+            }
+            duplicateIds[duplicatesCount++] = id;
+        }
+
+        private void grow() {
+            var capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            salaries = Arrays.copyOf(salaries, capacity);
+            managerIds = Arrays.copyOf(managerIds, capacity);
+            if (firstNames != null) {
+                firstNames = Arrays.copyOf(firstNames, capacity);
+                lastNames = Arrays.copyOf(lastNames, capacity);
+            }
+        }
+
+        private void ensureNames() {
+            if (firstNames == null) {
+                firstNames = new String[ids.length];
+                lastNames = new String[ids.length];
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+/**
+ * One change of the company structure from a change log
+ *
+ * @param salary    new salary in cents or {@link CompanyStructure#NO_SALARY}, used by ADD and SALARY changes
+ * @param managerId id of the new manager, used by ADD and MOVE changes when {@code hasManager} is true
+ */
+public record EmployeeChange(Type type, long id, long salary, boolean hasManager, long managerId) {
+
+    public enum Type {
+        ADD,
+        REMOVE,
+        MOVE,
+        SALARY
+    }
+}
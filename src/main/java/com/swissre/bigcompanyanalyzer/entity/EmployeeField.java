@@ -0,0 +1,25 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Fields of an employee row, used to parse only the fields which are needed by the reports
+ */
+public enum EmployeeField {
+    ID,
+    FIRST_NAME,
+    LAST_NAME,
+    SALARY,
+    MANAGER_ID;
+
+    /**
+     * Fields which are needed to link employees with their managers, they are always parsed
+     */
+    public static final Set<EmployeeField> STRUCTURE = Collections.unmodifiableSet(EnumSet.of(ID, MANAGER_ID));
+
+    public static Set<EmployeeField> all() {
+        return EnumSet.allOf(EmployeeField.class);
+    }
+}
@@ -0,0 +1,194 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Employees of the {@link CompanyStructure} laid out in depth-first order, so every subtree is one contiguous range
+ * of positions: from the entry position of its root to its exit position, exclusive.
+ * It answers "is X under Y" in O(1) and subtree headcount and payroll from prefix sums in O(1).
+ * <p>
+ * Positions are assigned from subtree sizes without recursion. Employees which are not reachable from an employee
+ * without manager have no position and are not part of any subtree.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class HierarchyIndex {
+    /**
+     * Entry position of employees which are not reachable from an employee without manager
+     */
+    public static final int NOT_INDEXED = -1;
+
+    private final int[] entries;
+    private final int[] exits;
+    private final int[] depths;
+    private final int[] employeesByPosition;
+    /**
+     * Sum of salaries in cents before the position, employees without salary are not counted
+     */
+    private final long[] salaryPrefixSums;
+    private final boolean salaryPrefixSumsOverflowed;
+    private final CompanyStructure companyStructure;
+
+    private HierarchyIndex(CompanyStructure companyStructure, int[] entries, int[] exits, int[] depths,
+                           int[] employeesByPosition) {
+        this.companyStructure = companyStructure;
+        this.entries = entries;
+        this.exits = exits;
+        this.depths = depths;
+        this.employeesByPosition = employeesByPosition;
+
+        var indexed = employeesByPosition.length;
+        this.salaryPrefixSums = new long[indexed + 1];
+        var overflowed = false;
+        for (var position = 0; position < indexed; position++) {
+            var salary = companyStructure.getSalary(employeesByPosition[position]);
+            var sum = salaryPrefixSums[position];
+            if (salary != CompanyStructure.NO_SALARY) {
+                var newSum = sum + salary;
+                // overflow when both operands have the same sign and the result has another one
+                overflowed |= ((sum ^ newSum) & (salary ^ newSum)) < 0;
+                sum = newSum;
+            }
+            salaryPrefixSums[position + 1] = sum;
+        }
+        this.salaryPrefixSumsOverflowed = overflowed;
+    }
+
+    public static HierarchyIndex of(CompanyStructure companyStructure) {
+        var size = companyStructure.size();
+        var depths = new int[size];
+        var entries = new int[size];
+        var exits = new int[size];
+        Arrays.fill(entries, NOT_INDEXED);
+
+        // breadth-first order, employees without manager first
+        var order = new int[size];
+        var tail = 0;
+        for (var employee = 0; employee < size; employee++) {
+            if (companyStructure.getManager(employee) == CompanyStructure.NO_MANAGER) {
+                order[tail++] = employee;
+            }
+        }
+        var roots = tail;
+        for (var head = 0; head < tail; head++) {
+            var manager = order[head];
+            var end = companyStructure.getSubordinatesEnd(manager);
+            for (var position = companyStructure.getSubordinatesStart(manager); position < end; position++) {
+                var subordinate = companyStructure.getSubordinateAt(position);
+                depths[subordinate] = depths[manager] + 1;
+                order[tail++] = subordinate;
+            }
+        }
+
+        // subtree sizes, kept in exits until positions are known
+        for (var i = tail - 1; i >= 0; i--) {
+            var employee = order[i];
+            exits[employee]++;
+            var manager = companyStructure.getManager(employee);
+            if (manager >= 0) {
+                exits[manager] += exits[employee];
+            }
+        }
+
+        // a subordinate starts right after its manager and the subtrees of its previous siblings
+        var employeesByPosition = new int[tail];
+        var nextRootEntry = 0;
+        for (var i = 0; i < tail; i++) {
+            var employee = order[i];
+            if (i < roots) {
+                entries[employee] = nextRootEntry;
+                nextRootEntry += exits[employee];
+            }
+            var subtreeSize = exits[employee];
+            var nextEntry = entries[employee] + 1;
+            var end = companyStructure.getSubordinatesEnd(employee);
+            for (var position = companyStructure.getSubordinatesStart(employee); position < end; position++) {
+                var subordinate = companyStructure.getSubordinateAt(position);
+                entries[subordinate] = nextEntry;
+                nextEntry += exits[subordinate];
+            }
+            exits[employee] = entries[employee] + subtreeSize;
+            employeesByPosition[entries[employee]] = employee;
+        }
+        for (var employee = 0; employee < size; employee++) {
+            if (entries[employee] == NOT_INDEXED) {
+                exits[employee] = NOT_INDEXED;
+            }
+        }
+        return new HierarchyIndex(companyStructure, entries, exits, depths, employeesByPosition);
+    }
+
+    /**
+     * @return amount of employees reachable from employees without manager
+     */
+    public int size() {
+        return employeesByPosition.length;
+    }
+
+    public boolean isIndexed(int employee) {
+        return entries[employee] != NOT_INDEXED;
+    }
+
+    /**
+     * @return position of the employee or {@link #NOT_INDEXED}
+     */
+    public int getEntry(int employee) {
+        return entries[employee];
+    }
+
+    /**
+     * @return position after the last employee of the subtree or {@link #NOT_INDEXED}
+     */
+    public int getExit(int employee) {
+        return exits[employee];
+    }
+
+    /**
+     * @return amount of managers above the employee, 0 for employees without manager
+     */
+    public int getDepth(int employee) {
+        return depths[employee];
+    }
+
+    public int getEmployeeAt(int position) {
+        return employeesByPosition[position];
+    }
+
+    /**
+     * @return true when the manager is above the employee on any level, false for the employee itself
+     */
+    public boolean isUnder(int employee, int manager) {
+        var entry = entries[employee];
+        return entry != NOT_INDEXED && entries[manager] < entry && entry < exits[manager];
+    }
+
+    /**
+     * @return amount of employees directly or indirectly reporting to the manager
+     */
+    public int getSubtreeHeadcount(int manager) {
+        return isIndexed(manager) ? exits[manager] - entries[manager] - 1 : 0;
+    }
+
+    /**
+     * @return sum of salaries of the employee and everybody under them, employees without salary are skipped
+     */
+    public BigDecimal getSubtreePayroll(int employee) {
+        if (!isIndexed(employee)) {
+            return BigDecimal.ZERO.setScale(2);
+        }
+        var from = entries[employee];
+        var to = exits[employee];
+        if (!salaryPrefixSumsOverflowed) {
+            return BigDecimal.valueOf(salaryPrefixSums[to] - salaryPrefixSums[from], 2);
+        }
+        var sum = BigDecimal.ZERO.setScale(2);
+        for (var position = from; position < to; position++) {
+            var salary = companyStructure.getSalary(employeesByPosition[position]);
+            if (salary != CompanyStructure.NO_SALARY) {
+                sum = sum.add(BigDecimal.valueOf(salary, 2));
+            }
+        }
+        return sum;
+    }
+}
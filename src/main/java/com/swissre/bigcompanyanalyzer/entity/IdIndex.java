@@ -0,0 +1,127 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from employee id to dense index, without boxing of keys and values.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class IdIndex {
+    public static final int ABSENT = -1;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public IdIndex(int expectedSize) {
+        var capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(values, ABSENT);
+    }
+
+    private IdIndex(IdIndex other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.mask = other.mask;
+        this.size = other.size;
+    }
+
+    /**
+     * @return independent index with the same entries
+     */
+    public IdIndex copy() {
+        return new IdIndex(this);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(long key) {
+        var slot = slot(key);
+        while (values[slot] != ABSENT) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ABSENT;
+    }
+
+    /**
+     * @return false when the key is already present, the stored value is not changed in that case
+     */
+    public boolean putIfAbsent(long key, int value) {
+        if (size + 1 > (int) (keys.length * LOAD_FACTOR)) {
+            this.grow();
+        }
+        var slot = slot(key);
+        while (values[slot] != ABSENT) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return false when the key is not present
+     */
+    public boolean remove(long key) {
+        var hole = slot(key);
+        while (values[hole] != ABSENT && keys[hole] != key) {
+            hole = (hole + 1) & mask;
+        }
+        if (values[hole] == ABSENT) {
+            return false;
+        }
+        // shift back the following entries of the probe sequence, so lookups never stop on the removed slot
+        var next = (hole + 1) & mask;
+        while (values[next] != ABSENT) {
+            var ideal = slot(keys[next]);
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = ABSENT;
+        size--;
+        return true;
+    }
+
+    private void grow() {
+        var oldKeys = keys;
+        var oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(values, ABSENT);
+        for (var i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != ABSENT) {
+                var slot = slot(oldKeys[i]);
+                while (values[slot] != ABSENT) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        var hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
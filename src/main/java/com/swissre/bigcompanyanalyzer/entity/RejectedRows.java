@@ -0,0 +1,99 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+import java.util.Arrays;
+
+/**
+ * Rows of the file skipped by the parser: the amount of all of them and a sample of the first
+ * {@value #MAX_SAMPLED_ROWS} rows with their positions and reasons.
+ * Reasons are kept only for the sampled rows, so a file with many bad rows does not create a text per row.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class RejectedRows {
+    public static final int MAX_SAMPLED_ROWS = 100;
+
+    private long count;
+    private long[] positions = new long[0];
+    private String[] reasons = new String[0];
+    private int sampled;
+
+    public RejectedRows() {
+    }
+
+    private RejectedRows(RejectedRows other) {
+        this.count = other.count;
+        this.positions = other.positions.clone();
+        this.reasons = other.reasons.clone();
+        this.sampled = other.sampled;
+    }
+
+    public RejectedRows copy() {
+        return new RejectedRows(this);
+    }
+
+    /**
+     * @return true when the reasons of the next rows are not kept, so there is no need to create them
+     */
+    public boolean isSampleFull() {
+        return sampled == MAX_SAMPLED_ROWS;
+    }
+
+    /**
+     * @param position byte position of the row start in the file
+     * @param reason   why the row is skipped, may be null when {@link #isSampleFull()}
+     */
+    public void add(long position, String reason) {
+        count++;
+        if (!this.isSampleFull()) {
+            this.addSample(position, reason);
+        }
+    }
+
+    /**
+     * Count rows whose positions and reasons are not known, e.g. restored from the amount only
+     */
+    public void addNotSampled(long rows) {
+        count += rows;
+    }
+
+    /**
+     * Add rows rejected after the rows of this object, e.g. in the next chunk of the file
+     */
+    public void addAll(RejectedRows other) {
+        count += other.count;
+        for (var i = 0; i < other.sampled && !this.isSampleFull(); i++) {
+            this.addSample(other.positions[i], other.reasons[i]);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int getSampledCount() {
+        return sampled;
+    }
+
+    public long getPosition(int index) {
+        return positions[index];
+    }
+
+    public String getReason(int index) {
+        return reasons[index];
+    }
+
+    private void addSample(long position, String reason) {
+        if (sampled == positions.length) {
+            var capacity = Math.min(MAX_SAMPLED_ROWS, Math.max(4, sampled * 2));
+            positions = Arrays.copyOf(positions, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+        }
+        positions[sampled] = position;
+        reasons[sampled] = reason;
+        sampled++;
+    }
+}
@@ -2,11 +2,18 @@ package com.swissre.bigcompanyanalyzer.entity;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Consumer;
 
+/**
+ * Report entries are either free text or typed entries of {@link EntryType}.
+ * Typed entries are kept in primitive arrays and are formatted only when they are rendered.
+ */
 public class Report {
     private final ReportType type;
-    private final Set<String> reportEntries = new HashSet<>();
-    private final Set<String> errorsReportEntries = new HashSet<>();
+    private final Set<String> textReportEntries = new HashSet<>();
+    private final Set<String> textErrorsReportEntries = new HashSet<>();
+    private final ReportEntries typedReportEntries = new ReportEntries();
+    private final ReportEntries typedErrorsReportEntries = new ReportEntries();
 
     public Report(ReportType type) {
         this.type = type;
@@ -16,22 +23,96 @@ public class Report {
         return type;
     }
 
+    /**
+     * @return formatted copy of all report entries, prefer {@link #forEachReportEntry(Consumer)} for rendering
+     */
     public Set<String> getReportEntries() {
-        return reportEntries;
+        return render(textReportEntries, typedReportEntries);
     }
 
+    /**
+     * @return formatted copy of all errors, prefer {@link #forEachErrorsReportEntry(Consumer)} for rendering
+     */
     public Set<String> getErrorsReportEntries() {
-        return errorsReportEntries;
+        return render(textErrorsReportEntries, typedErrorsReportEntries);
+    }
+
+    public ReportEntries getTypedReportEntries() {
+        return typedReportEntries;
+    }
+
+    public ReportEntries getTypedErrorsReportEntries() {
+        return typedErrorsReportEntries;
+    }
+
+    public Set<String> getTextReportEntries() {
+        return textReportEntries;
+    }
+
+    public Set<String> getTextErrorsReportEntries() {
+        return textErrorsReportEntries;
+    }
+
+    public int getReportEntriesCount() {
+        return textReportEntries.size() + typedReportEntries.size();
+    }
+
+    public int getErrorsReportEntriesCount() {
+        return textErrorsReportEntries.size() + typedErrorsReportEntries.size();
+    }
+
+    public void forEachReportEntry(Consumer<String> consumer) {
+        textReportEntries.forEach(consumer);
+        typedReportEntries.forEachFormatted(consumer);
+    }
+
+    public void forEachErrorsReportEntry(Consumer<String> consumer) {
+        textErrorsReportEntries.forEach(consumer);
+        typedErrorsReportEntries.forEachFormatted(consumer);
     }
 
     public void addReportEntry(String reportLine) {
-        reportEntries.add(reportLine);
+        textReportEntries.add(reportLine);
     }
 
     public void addErrorsReportEntry(String reportLine) {
-        errorsReportEntries.add(reportLine);
+        textErrorsReportEntries.add(reportLine);
+    }
+
+    public void addReportEntry(EntryType entryType, long employeeId, int value, int limit) {
+        typedReportEntries.add(entryType, employeeId, value, limit);
     }
 
+    /**
+     * @param count amount of employees the entry stands for, see {@link EntryType#isGroup()}
+     */
+    public void addReportEntry(EntryType entryType, long employeeId, int value, int limit, int count) {
+        typedReportEntries.add(entryType, employeeId, value, limit, count);
+    }
+
+    public void addErrorsReportEntry(EntryType entryType, long employeeId) {
+        typedErrorsReportEntries.add(entryType, employeeId, 0, 0);
+    }
+
+    /**
+     * Add all entries and errors of another report of the same type
+     */
+    public void merge(Report report) {
+        textReportEntries.addAll(report.textReportEntries);
+        textErrorsReportEntries.addAll(report.textErrorsReportEntries);
+        typedReportEntries.addAll(report.typedReportEntries);
+        typedErrorsReportEntries.addAll(report.typedErrorsReportEntries);
+    }
+
+    private static Set<String> render(Set<String> textEntries, ReportEntries typedEntries) {
+        var entries = new HashSet<String>(textEntries);
+        typedEntries.forEachFormatted(entries::add);
+        return entries;
+    }
+
+    /**
+     * Reports are equal when they render the same entries, so typed and text entries are comparable
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -40,21 +121,26 @@ public class Report {
         Report report = (Report) o;
 
         if (type != report.type) return false;
-        if (!reportEntries.equals(report.reportEntries)) return false;
-        return errorsReportEntries.equals(report.errorsReportEntries);
+        if (!getReportEntries().equals(report.getReportEntries())) return false;
+        return getErrorsReportEntries().equals(report.getErrorsReportEntries());
     }
 
     @Override
     public int hashCode() {
         int result = type.hashCode();
-        result = 31 * result + reportEntries.hashCode();
-        result = 31 * result + errorsReportEntries.hashCode();
+        result = 31 * result + getReportEntries().hashCode();
+        result = 31 * result + getErrorsReportEntries().hashCode();
         return result;
     }
 
     public enum ReportType {
         SALARY_LEVEL_REPORT("SALARY REPORT"),
         REPORTING_LINE_REPORT("REPORTING LINE REPORT"),
+        CHANGES_REPORT("CHANGES REPORT"),
+        STATUS_REPORT("STATUS REPORT"),
+        BATCH_SUMMARY_REPORT("BATCH SUMMARY REPORT"),
+        SALARY_THRESHOLDS_REPORT("SALARY THRESHOLDS REPORT"),
+        PARSING_REPORT("PARSING REPORT"),
 
         UNRECOVERABLE_ERROR_REPORT("UNRECOVERABLE ERROR REPORT");
 
@@ -70,4 +156,60 @@ public class Report {
 
     }
 
+    public enum EntryType {
+        /**
+         * Value is the reporting line level, limit is the allowed level
+         */
+        REPORTING_LINE_TOO_LONG("The employee with id %d has a reporting line of %d levels, which is %d more than the allowed level %d"),
+        /**
+         * Employees with too long reporting lines under the highest of them, the employee of the entry.
+         * Value is the longest reporting line level of the group, limit is the allowed level,
+         * count is the amount of employees. The shortest line of the group is the line of the employee of the entry.
+         */
+        REPORTING_LINE_GROUP_TOO_LONG("%d employees under and including the employee with id %d have reporting lines %d to %d levels more than the allowed level %d"),
+        /**
+         * Value is the salary percent, limit is the maximum allowed percent
+         */
+        SALARY_ABOVE_MAXIMUM("Manager with id %d earn %d percent of their subordinates, the maximum allowed level is %d"),
+        /**
+         * Value is the salary percent, limit is the minimum allowed percent
+         */
+        SALARY_BELOW_MINIMUM("Manager with id %d earn %d percent of their subordinates, the minimum allowed level is %d"),
+        NO_SALARY("Employee with id %d has no salary"),
+        NEGATIVE_SALARY("Employee with id %d has negative salary");
+
+        private static final EntryType[] VALUES = values();
+
+        private final String template;
+
+        EntryType(String template) {
+            this.template = template;
+        }
+
+        static EntryType of(int ordinal) {
+            return VALUES[ordinal];
+        }
+
+        /**
+         * @return true when an entry stands for several employees, entries of the same employee are combined
+         */
+        public boolean isGroup() {
+            return this == REPORTING_LINE_GROUP_TOO_LONG;
+        }
+
+        public String format(long employeeId, int value, int limit) {
+            return this.format(employeeId, value, limit, 1);
+        }
+
+        public String format(long employeeId, int value, int limit, int count) {
+            return switch (this) {
+                case REPORTING_LINE_TOO_LONG -> template.formatted(employeeId, value, value - limit, limit);
+                // the highest employee of the group is on the first level over the allowed one, or right under the CEO
+                case REPORTING_LINE_GROUP_TOO_LONG -> template.formatted(count, employeeId, Math.max(1, 1 - limit), value - limit, limit);
+                case SALARY_ABOVE_MAXIMUM, SALARY_BELOW_MINIMUM -> template.formatted(employeeId, value, limit);
+                case NO_SALARY, NEGATIVE_SALARY -> template.formatted(employeeId);
+            };
+        }
+    }
+
 }
@@ -0,0 +1,137 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Typed report entries kept in parallel primitive arrays: type, employee id, value, limit and count.
+ * Text of an entry is created only when it is rendered. There is at most one entry of each type per employee,
+ * the first added entry is kept, except for {@link Report.EntryType#isGroup() group} entries, which are combined:
+ * their counts are summed and the largest value is kept.
+ * Entries are rendered in {@link #renderingOrder() type and employee id order}, not in the order they were added,
+ * so the output does not depend on how a report was generated and merged.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public final class ReportEntries {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private byte[] types = new byte[0];
+    private long[] ids = new long[0];
+    private int[] values = new int[0];
+    private int[] limits = new int[0];
+    private int[] counts = new int[0];
+    private final IdIndex[] addedIds = new IdIndex[Report.EntryType.values().length];
+    private int size;
+
+    /**
+     * @return false when an entry of this type for the employee is already present
+     */
+    public boolean add(Report.EntryType type, long employeeId, int value, int limit) {
+        return this.add(type, employeeId, value, limit, 1);
+    }
+
+    /**
+     * @param count amount of employees the entry stands for, 1 for entries which are not groups
+     * @return false when an entry of this type for the employee is already present, a group entry is combined with it
+     */
+    public boolean add(Report.EntryType type, long employeeId, int value, int limit, int count) {
+        var typeIds = addedIds[type.ordinal()];
+        if (typeIds == null) {
+            typeIds = new IdIndex(INITIAL_CAPACITY);
+            addedIds[type.ordinal()] = typeIds;
+        }
+        if (!typeIds.putIfAbsent(employeeId, size)) {
+            if (type.isGroup()) {
+                var index = typeIds.get(employeeId);
+                counts[index] += count;
+                values[index] = Math.max(values[index], value);
+            }
+            return false;
+        }
+        if (size == ids.length) {
+            this.grow();
+        }
+        types[size] = (byte) type.ordinal();
+        ids[size] = employeeId;
+        values[size] = value;
+        limits[size] = limit;
+        counts[size] = count;
+        size++;
+        return true;
+    }
+
+    public void addAll(ReportEntries other) {
+        for (var i = 0; i < other.size; i++) {
+            this.add(other.getType(i), other.ids[i], other.values[i], other.limits[i], other.counts[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Report.EntryType getType(int index) {
+        return Report.EntryType.of(types[index]);
+    }
+
+    public long getEmployeeId(int index) {
+        return ids[index];
+    }
+
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    public int getLimit(int index) {
+        return limits[index];
+    }
+
+    public int getCount(int index) {
+        return counts[index];
+    }
+
+    public String format(int index) {
+        return this.getType(index).format(ids[index], values[index], limits[index], counts[index]);
+    }
+
+    public void forEachFormatted(Consumer<String> consumer) {
+        for (var index : this.renderingOrder()) {
+            consumer.accept(this.format(index));
+        }
+    }
+
+    /**
+     * @return indexes of all entries ordered by entry type and then by employee id
+     */
+    public int[] renderingOrder() {
+        var order = new int[size];
+        var position = 0;
+        for (var type = 0; type < addedIds.length; type++) {
+            if (addedIds[type] == null) {
+                continue;
+            }
+            var typeIds = new long[addedIds[type].size()];
+            var count = 0;
+            for (var i = 0; i < size; i++) {
+                if (types[i] == type) {
+                    typeIds[count++] = ids[i];
+                }
+            }
+            Arrays.sort(typeIds);
+            for (var id : typeIds) {
+                order[position++] = addedIds[type].get(id);
+            }
+        }
+        return order;
+    }
+
+    private void grow() {
+        var capacity = Math.max(INITIAL_CAPACITY, ids.length * 2);
+        types = Arrays.copyOf(types, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        values = Arrays.copyOf(values, capacity);
+        limits = Arrays.copyOf(limits, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+    }
+}
@@ -0,0 +1,273 @@
+package com.swissre.bigcompanyanalyzer.facade;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.swissre.bigcompanyanalyzer.control.ReportException;
+import com.swissre.bigcompanyanalyzer.control.ResidentAnalysisService;
+import com.swissre.bigcompanyanalyzer.control.VirtualThreads;
+import com.swissre.bigcompanyanalyzer.control.output.ReportFormat;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Entry point for keeping a company's structure in memory and serving reports of it over HTTP.
+ * <p>
+ * Endpoints:
+ * GET /reports - reports of the loaded structure, optional parameters: allowedReportingLevel, minSalaryPercent,
+ * maxSalaryPercent, reportingLineSummary (true groups too long reporting lines by subtree, false by default)
+ * and format (CSV, JSON_LINES or TEXT), missing parameters take the server defaults
+ * GET /salary-thresholds - amount of managers out of the salary range for every pair of comma separated
+ * minSalaryPercents and maxSalaryPercents, without generating reports
+ * GET /status - loaded file, amount of employees, load time and the error of the last failed reload
+ * POST /reload - load the file given by the file parameter, or the loaded file again, in the background
+ * <p>
+ * Requests are handled by virtual threads when the runtime provides them, otherwise by a cached thread pool.
+ * Errors are written as the unrecoverable error report in the requested format.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class AnalysisServer implements AutoCloseable {
+    private static final int STOP_DELAY_SECONDS = 1;
+
+    private final ResidentAnalysisService residentAnalysisService;
+    private final String basicDirectory;
+    private final int defaultAllowedReportingLevel;
+    private final int defaultMinAllowedSalaryPercent;
+    private final int defaultMaxAllowedSalaryPercent;
+    private final AtomicReference<String> lastReloadError = new AtomicReference<>();
+    private HttpServer httpServer;
+    private ExecutorService requestExecutor;
+
+    /**
+     * @param basicDirectory directory of files which can be reloaded, files outside of it are rejected
+     */
+    public AnalysisServer(ResidentAnalysisService residentAnalysisService, String basicDirectory,
+                          int defaultAllowedReportingLevel, int defaultMinAllowedSalaryPercent,
+                          int defaultMaxAllowedSalaryPercent) {
+        this.residentAnalysisService = residentAnalysisService;
+        this.basicDirectory = basicDirectory;
+        this.defaultAllowedReportingLevel = defaultAllowedReportingLevel;
+        this.defaultMinAllowedSalaryPercent = defaultMinAllowedSalaryPercent;
+        this.defaultMaxAllowedSalaryPercent = defaultMaxAllowedSalaryPercent;
+    }
+
+    /**
+     * Load the file and start serving on the port, 0 takes any free port
+     */
+    public void start(String fileName, int port) throws IOException {
+        residentAnalysisService.load(Path.of(basicDirectory, fileName));
+        this.requestExecutor = VirtualThreads.newPerTaskExecutor();
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        httpServer.setExecutor(requestExecutor);
+        httpServer.createContext("/reports", exchange -> this.handle(exchange, "GET", this::reports));
+        httpServer.createContext("/salary-thresholds", exchange -> this.handle(exchange, "GET", this::salaryThresholds));
+        httpServer.createContext("/status", exchange -> this.handle(exchange, "GET", this::status));
+        httpServer.createContext("/reload", exchange -> this.handle(exchange, "POST", this::reload));
+        httpServer.start();
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (httpServer != null) {
+            httpServer.stop(STOP_DELAY_SECONDS);
+            requestExecutor.shutdown();
+        }
+    }
+
+    private Response reports(Map<String, String> parameters) {
+        var reports = residentAnalysisService.generateReports(
+                intParameter(parameters, "allowedReportingLevel", defaultAllowedReportingLevel),
+                intParameter(parameters, "minSalaryPercent", defaultMinAllowedSalaryPercent),
+                intParameter(parameters, "maxSalaryPercent", defaultMaxAllowedSalaryPercent),
+                booleanParameter(parameters, "reportingLineSummary"));
+        return new Response(200, formatOf(parameters), reports);
+    }
+
+    private Response salaryThresholds(Map<String, String> parameters) {
+        var minPercents = intsParameter(parameters, "minSalaryPercents", defaultMinAllowedSalaryPercent);
+        var maxPercents = intsParameter(parameters, "maxSalaryPercents", defaultMaxAllowedSalaryPercent);
+        var counts = residentAnalysisService.countSalariesOutOfRange(minPercents, maxPercents);
+        var report = new Report(Report.ReportType.SALARY_THRESHOLDS_REPORT);
+        for (var i = 0; i < minPercents.length; i++) {
+            for (var j = 0; j < maxPercents.length; j++) {
+                report.addReportEntry("%d managers are out of the salary range from %d to %d percent"
+                        .formatted(counts[i][j], minPercents[i], maxPercents[j]));
+            }
+        }
+        return new Response(200, formatOf(parameters), List.of(report));
+    }
+
+    private Response status(Map<String, String> parameters) {
+        var loaded = residentAnalysisService.getLoadedStructure()
+                .orElseThrow(() -> new ServerException(503, "Company structure is not loaded"));
+        var status = new Report(Report.ReportType.STATUS_REPORT);
+        status.addReportEntry("File %s with %d employees is loaded at %s"
+                .formatted(loaded.path().getFileName(), loaded.companyStructure().size(), loaded.loadedAt()));
+        var reloadError = lastReloadError.get();
+        if (reloadError != null) {
+            status.addErrorsReportEntry("Last reload failed: %s".formatted(reloadError));
+        }
+        return new Response(200, formatOf(parameters), List.of(status));
+    }
+
+    private Response reload(Map<String, String> parameters) {
+        var fileName = parameters.get("file");
+        var path = fileName != null
+                ? resolveInBasicDirectory(fileName)
+                : residentAnalysisService.getLoadedStructure()
+                .orElseThrow(() -> new ServerException(400, "File parameter is required, no file is loaded"))
+                .path();
+        residentAnalysisService.reload(path).whenComplete((loaded, ex) ->
+                lastReloadError.set(ex == null ? null : ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage()));
+        var accepted = new Report(Report.ReportType.STATUS_REPORT);
+        accepted.addReportEntry("Reload of %s is started".formatted(path.getFileName()));
+        return new Response(202, formatOf(parameters), List.of(accepted));
+    }
+
+    private Path resolveInBasicDirectory(String fileName) {
+        var directory = Path.of(basicDirectory).toAbsolutePath().normalize();
+        var path = directory.resolve(fileName).normalize();
+        if (!path.startsWith(directory)) {
+            throw new ServerException(400, "File %s is outside of the basic directory".formatted(fileName));
+        }
+        return path;
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        Response response;
+        Map<String, String> parameters = Map.of();
+        try {
+            parameters = parametersOf(exchange.getRequestURI().getRawQuery());
+            if (!method.equals(exchange.getRequestMethod())) {
+                throw new ServerException(405, "Method %s is not allowed".formatted(exchange.getRequestMethod()));
+            }
+            response = handler.handle(parameters);
+        } catch (ServerException ex) {
+            response = errorResponse(ex.status, ex.getErrors(), parameters);
+        } catch (ReportException ex) {
+            response = errorResponse(503, ex.getErrors(), parameters);
+        } catch (RuntimeException ex) {
+            response = errorResponse(500, List.of(String.valueOf(ex.getMessage())), parameters);
+        }
+        // reports are streamed in chunks, so large reports are not collected in memory
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", contentTypeOf(response.format()));
+            exchange.sendResponseHeaders(response.status(), 0);
+            response.format().write(response.reports(), exchange.getResponseBody());
+        }
+    }
+
+    private static Response errorResponse(int status, List<String> errors, Map<String, String> parameters) {
+        var errorReport = new Report(Report.ReportType.UNRECOVERABLE_ERROR_REPORT);
+        errors.forEach(errorReport::addErrorsReportEntry);
+        ReportFormat format;
+        try {
+            format = formatOf(parameters);
+        } catch (ServerException ex) {
+            format = ReportFormat.TEXT;
+        }
+        return new Response(status, format, List.of(errorReport));
+    }
+
+    private static Map<String, String> parametersOf(String query) {
+        var parameters = new HashMap<String, String>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (var pair : query.split("&")) {
+            var separator = pair.indexOf('=');
+            var name = separator < 0 ? pair : pair.substring(0, separator);
+            var value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> parameters, String name, int defaultValue) {
+        var value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new ServerException(400, "Parameter %s must be an integer, but was %s".formatted(name, value));
+        }
+    }
+
+    private static boolean booleanParameter(Map<String, String> parameters, String name) {
+        var value = parameters.get(name);
+        if (value == null || value.equals("false")) {
+            return false;
+        }
+        if (value.equals("true")) {
+            return true;
+        }
+        throw new ServerException(400, "Parameter %s must be true or false, but was %s".formatted(name, value));
+    }
+
+    private static int[] intsParameter(Map<String, String> parameters, String name, int defaultValue) {
+        var value = parameters.get(name);
+        if (value == null) {
+            return new int[]{defaultValue};
+        }
+        var values = value.split(",");
+        var ints = new int[values.length];
+        for (var i = 0; i < values.length; i++) {
+            ints[i] = intParameter(Map.of(name, values[i].trim()), name, defaultValue);
+        }
+        return ints;
+    }
+
+    private static ReportFormat formatOf(Map<String, String> parameters) {
+        var value = parameters.get("format");
+        if (value == null) {
+            return ReportFormat.TEXT;
+        }
+        try {
+            return ReportFormat.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ServerException(400, "Format %s is not supported".formatted(value));
+        }
+    }
+
+    private static String contentTypeOf(ReportFormat format) {
+        return switch (format) {
+            case CSV -> "text/csv; charset=utf-8";
+            case JSON_LINES -> "application/x-ndjson; charset=utf-8";
+            case TEXT -> "text/plain; charset=utf-8";
+        };
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(Map<String, String> parameters);
+    }
+
+    private record Response(int status, ReportFormat format, List<Report> reports) {
+    }
+
+    private static final class ServerException extends ReportException {
+        private final int status;
+
+        private ServerException(int status, String error) {
+            super(error);
+            this.status = status;
+        }
+    }
+}
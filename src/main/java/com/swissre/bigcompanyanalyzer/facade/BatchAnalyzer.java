@@ -0,0 +1,31 @@
+package com.swissre.bigcompanyanalyzer.facade;
+
+import com.swissre.bigcompanyanalyzer.control.BatchReportService;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Entry point for analyzing many company files at once, every file gets its own report and the batch gets a summary.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class BatchAnalyzer {
+    private final BatchReportService batchReportService;
+
+    public BatchAnalyzer(BatchReportService batchReportService) {
+        this.batchReportService = batchReportService;
+    }
+
+    public void analyzeDirectory(String basicDirectory) {
+        batchReportService.analyzeDirectory(Path.of(basicDirectory));
+    }
+
+    public void analyzeFiles(List<String> fileNames, String basicDirectory) {
+        var paths = fileNames.stream()
+                .map(fileName -> Path.of(basicDirectory, fileName))
+                .toList();
+        batchReportService.analyzeFiles(paths);
+    }
+
+}
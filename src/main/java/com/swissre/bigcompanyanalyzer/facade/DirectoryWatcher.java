@@ -0,0 +1,67 @@
+package com.swissre.bigcompanyanalyzer.facade;
+
+import com.swissre.bigcompanyanalyzer.control.ReportService;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point for analyzing a file again every time it is changed in the directory.
+ * File events come in bursts while a file is written, so the analysis starts only after there were no events
+ * of the directory during the quiet period, and a burst causes one analysis.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class DirectoryWatcher {
+    private final ReportService reportService;
+    private final Duration quietPeriod;
+
+    public DirectoryWatcher(ReportService reportService, Duration quietPeriod) {
+        this.reportService = reportService;
+        this.quietPeriod = quietPeriod;
+    }
+
+    /**
+     * Analyze the file and then analyze it after every change, until the thread is interrupted
+     * or the directory is no longer accessible
+     */
+    public void watch(String fileName, String basicDirectory) throws IOException {
+        var directory = Path.of(basicDirectory);
+        var path = directory.resolve(fileName);
+        try (var watchService = FileSystems.getDefault().newWatchService()) {
+            var directoryKey = directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            reportService.analyzeAndMakeReportFromFile(path);
+            // the key becomes invalid when the directory is deleted
+            while (directoryKey.isValid()) {
+                var key = watchService.take();
+                var changed = isChanged(key, path.getFileName());
+                while ((key = watchService.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    changed |= isChanged(key, path.getFileName());
+                }
+                if (changed) {
+                    reportService.analyzeAndMakeReportFromFile(path);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return true when one of the events is about the file or events were lost
+     */
+    private static boolean isChanged(WatchKey key, Path fileName) {
+        var changed = false;
+        for (var event : key.pollEvents()) {
+            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -0,0 +1,29 @@
+package com.swissre.bigcompanyanalyzer.facade;
+
+import com.swissre.bigcompanyanalyzer.control.IncrementalReportService;
+
+import java.nio.file.Path;
+
+/**
+ * Entry point for analyzing a company's structure once and then applying daily change files to it.
+ * <p>
+ * Author: Oleg Pitsik
+ */
+public class IncrementalAnalyzer {
+    private final IncrementalReportService incrementalReportService;
+
+    public IncrementalAnalyzer(IncrementalReportService incrementalReportService) {
+        this.incrementalReportService = incrementalReportService;
+    }
+
+    public void loadFromFile(String fileName, String basicDirectory) {
+        Path path = Path.of(basicDirectory, fileName);
+        incrementalReportService.loadFromFile(path);
+    }
+
+    public void applyChangesFromFile(String fileName, String basicDirectory) {
+        Path path = Path.of(basicDirectory, fileName);
+        incrementalReportService.applyChangesFromFile(path);
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.swissre.bigcompanyanalyzer.control;
+
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.output.ReportFormat;
+import com.swissre.bigcompanyanalyzer.control.output.ReportOutputService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.FusedReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryLevelReportGenerationService;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Employee;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchReportServiceTest {
+    private static final String HEADER = "Id,firstName,lastName,salary,managerId\n";
+
+    ReportOutputService summaryOutputService = mock(ReportOutputService.class);
+    List<ReportGenerationService> reportGenerationServices = List.of(new SalaryLevelReportGenerationService(120, 150));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldWriteReportPerFileAndSummaryWhenSomeFilesAreInvalid() throws IOException {
+        //Given
+        Files.writeString(directory.resolve("a.csv"), HEADER + "1,Joe,Doe,60000,\n2,Martin,Chekov,60000,1\n");
+        Files.writeString(directory.resolve("b.csv"), HEADER + "1,Joe,Doe,60000,\n2,Martin,Chekov,45000,7\n");
+        Files.writeString(directory.resolve("notes.txt"), "not a company");
+        Path outputDirectory = directory.resolve("reports");
+        BatchReportService batchReportService = new BatchReportService(new FileDataRetriever(new FileParser()),
+                reportGenerationServices, new FusedReportGenerationEngine(), summaryOutputService,
+                outputDirectory, ReportFormat.TEXT, 1 << 20);
+
+        //When
+        Report summary = batchReportService.analyzeDirectory(directory);
+
+        //Then
+        assertEquals(Set.of("File a.csv with 2 employees has 1 issues and 0 errors, report: a.csv.report.txt"),
+                summary.getReportEntries());
+        assertEquals(Set.of("File b.csv is not analyzed: 1 errors are in the report"), summary.getErrorsReportEntries());
+        assertTrue(Files.readString(outputDirectory.resolve("a.csv.report.txt"))
+                .contains("Manager with id 1 earn 100 percent of their subordinates, the minimum allowed level is 120"));
+        assertTrue(Files.readString(outputDirectory.resolve("b.csv.report.txt"))
+                .contains("Employer with Id: 2 has non-existed manager id 7"));
+        verify(summaryOutputService).writeReports(List.of(summary));
+    }
+
+    @Test
+    void shouldNotAnalyzeMoreFilesAtOnceThanMemoryBudgetAllows() throws IOException {
+        //Given
+        FileDataRetriever fileDataRetriever = mock(FileDataRetriever.class);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(fileDataRetriever.retrieveCompanyStructure(any())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return CompanyStructure.of(Map.of(1L, new Employee(1L, null, null, null, null)));
+        });
+        List<Path> paths = List.of(file("a.csv", 1024), file("b.csv", 1024), file("c.csv", 1024), file("d.csv", 10));
+        BatchReportService batchReportService = new BatchReportService(fileDataRetriever, reportGenerationServices,
+                new FusedReportGenerationEngine(), summaryOutputService, directory.resolve("reports"), ReportFormat.CSV, 8 << 10);
+
+        //When
+        Report summary = batchReportService.analyzeFiles(paths);
+
+        //Then
+        assertEquals(4, summary.getReportEntriesCount());
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    void shouldAnalyzeSmallFilesWhileLargeFileWaitsForMemoryBudget() throws IOException {
+        //Given
+        FileDataRetriever fileDataRetriever = mock(FileDataRetriever.class);
+        Path running = file("a.csv", 10);
+        List<Path> paths = new ArrayList<>(List.of(running, file("b.csv", 2048)));
+        for (int i = 0; i < 6; i++) {
+            paths.add(file("c%d.csv".formatted(i), 10));
+        }
+        CountDownLatch smallFilesStarted = new CountDownLatch(6);
+        AtomicBoolean smallFilesStartedWhileRunning = new AtomicBoolean();
+        when(fileDataRetriever.retrieveCompanyStructure(any())).thenAnswer(invocation -> {
+            Path path = invocation.getArgument(0);
+            if (path.equals(running)) {
+                smallFilesStartedWhileRunning.set(smallFilesStarted.await(5, TimeUnit.SECONDS));
+            } else if (path.getFileName().toString().startsWith("c")) {
+                smallFilesStarted.countDown();
+            }
+            return CompanyStructure.of(Map.of(1L, new Employee(1L, null, null, null, null)));
+        });
+        BatchReportService batchReportService = new BatchReportService(fileDataRetriever, reportGenerationServices,
+                new FusedReportGenerationEngine(), summaryOutputService, directory.resolve("reports"), ReportFormat.CSV, 8 << 10);
+
+        //When
+        Report summary = batchReportService.analyzeFiles(paths);
+
+        //Then
+        assertEquals(8, summary.getReportEntriesCount());
+        assertTrue(smallFilesStartedWhileRunning.get());
+    }
+
+    @Test
+    void shouldContinueWhenReportGenerationFailsUnexpectedly() throws IOException {
+        //Given
+        ReportGenerationEngine reportGenerationEngine = mock(ReportGenerationEngine.class);
+        when(reportGenerationEngine.generateReports(any(), any())).thenThrow(new ArithmeticException("/ by zero"));
+        Files.writeString(directory.resolve("a.csv"), HEADER + "1,Joe,Doe,60000,\n");
+        BatchReportService batchReportService = new BatchReportService(new FileDataRetriever(new FileParser()),
+                reportGenerationServices, reportGenerationEngine, summaryOutputService,
+                directory.resolve("reports"), ReportFormat.CSV, 1 << 20);
+
+        //When
+        Report summary = batchReportService.analyzeFiles(List.of(directory.resolve("a.csv"), directory.resolve("missing.csv")));
+
+        //Then
+        assertEquals(Set.of("File a.csv is not analyzed: / by zero",
+                "File missing.csv is not analyzed: 1 errors are in the report"), summary.getErrorsReportEntries());
+    }
+
+    @Test
+    void shouldNumberReportsOfFilesWithSameNameFromDifferentDirectories() throws IOException {
+        //Given
+        Path first = Files.createDirectories(directory.resolve("first")).resolve("x.csv");
+        Path second = Files.createDirectories(directory.resolve("second")).resolve("x.csv");
+        Files.writeString(first, HEADER + "1,Joe,Doe,60000,\n2,Martin,Chekov,60000,1\n");
+        Files.writeString(second, HEADER + "1,Joe,Doe,60000,\n2,Martin,Chekov,60000,1\n3,Ann,Lee,60000,1\n");
+        Path outputDirectory = directory.resolve("reports");
+        BatchReportService batchReportService = new BatchReportService(new FileDataRetriever(new FileParser()),
+                reportGenerationServices, new FusedReportGenerationEngine(), summaryOutputService,
+                outputDirectory, ReportFormat.TEXT, 1 << 20);
+
+        //When
+        Report summary = batchReportService.analyzeFiles(List.of(first, second));
+
+        //Then
+        assertEquals(Set.of("File x.csv with 2 employees has 1 issues and 0 errors, report: x.csv.report.txt",
+                        "File x.csv with 3 employees has 1 issues and 0 errors, report: x.csv.2.report.txt"),
+                summary.getReportEntries());
+        assertTrue(Files.exists(outputDirectory.resolve("x.csv.report.txt")));
+        assertTrue(Files.exists(outputDirectory.resolve("x.csv.2.report.txt")));
+    }
+
+    private Path file(String name, int size) throws IOException {
+        return Files.write(directory.resolve(name), new byte[size]);
+    }
+}
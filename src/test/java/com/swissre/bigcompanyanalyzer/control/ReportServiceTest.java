@@ -1,17 +1,29 @@
 package com.swissre.bigcompanyanalyzer.control;
 
+import com.swissre.bigcompanyanalyzer.control.cache.ReportCache;
+import com.swissre.bigcompanyanalyzer.control.external.ExternalMemoryAnalysis;
 import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.instrumentation.PipelineInstrumentation;
 import com.swissre.bigcompanyanalyzer.control.output.ReportOutputService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationEngine;
 import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationService;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
 import com.swissre.bigcompanyanalyzer.entity.Employee;
+import com.swissre.bigcompanyanalyzer.entity.RejectedRows;
 import com.swissre.bigcompanyanalyzer.entity.Report;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -23,6 +35,8 @@ class ReportServiceTest {
 
     ReportService reportService = new ReportService(fileDataRetriever, reportOutputService, reportGenerationServices);
 
+    @TempDir
+    Path directory;
 
     @Test
     void shouldProvideErrorReportToOutputServiceWhenDataRetrieverThrowsReportException() {
@@ -32,7 +46,7 @@ class ReportServiceTest {
         Report expected = new Report(Report.ReportType.UNRECOVERABLE_ERROR_REPORT);
         expected.addErrorsReportEntry("error");
 
-        when(fileDataRetriever.retrieveLinkedCompanyEmployeesData(path)).thenThrow(new ReportException("error"));
+        when(fileDataRetriever.retrieveCompanyStructure(path)).thenThrow(new ReportException("error"));
 
         //When
         reportService.analyzeAndMakeReportFromFile(path);
@@ -45,12 +59,12 @@ class ReportServiceTest {
     void shouldProvideErrorReportToOutputServiceWhenGenerationServiceThrowsReportException() {
         //Given
         Path path = Path.of("myFolder");
-        Map<Long, Employee> teamStructure = Map.of(123L, new Employee(123L, null, null, null, null));
+        CompanyStructure teamStructure = CompanyStructure.of(Map.of(123L, new Employee(123L, null, null, null, null)));
 
         Report expected = new Report(Report.ReportType.UNRECOVERABLE_ERROR_REPORT);
         expected.addErrorsReportEntry("error");
 
-        when(fileDataRetriever.retrieveLinkedCompanyEmployeesData(path)).thenReturn(teamStructure);
+        when(fileDataRetriever.retrieveCompanyStructure(path)).thenReturn(teamStructure);
         when(generationService.generateReport(teamStructure)).thenThrow(new ReportException("error"));
 
         //When
@@ -64,20 +78,139 @@ class ReportServiceTest {
     void shouldRetrieveDataGenerateReportsAndProvideThemToOutputService() {
         //Given
         Path path = Path.of("myFolder");
-        Map<Long, Employee> teamStructure = Map.of(123L, new Employee(123L, null, null, null, null));
+        CompanyStructure teamStructure = CompanyStructure.of(Map.of(123L, new Employee(123L, null, null, null, null)));
         Report report = new Report(Report.ReportType.REPORTING_LINE_REPORT);
 
 
-        when(fileDataRetriever.retrieveLinkedCompanyEmployeesData(path)).thenReturn(teamStructure);
+        when(fileDataRetriever.retrieveCompanyStructure(path)).thenReturn(teamStructure);
         when(generationService.generateReport(teamStructure)).thenReturn(report);
 
         //When
         reportService.analyzeAndMakeReportFromFile(path);
 
         //Then
-        verify(fileDataRetriever).retrieveLinkedCompanyEmployeesData(path);
+        verify(fileDataRetriever).retrieveCompanyStructure(path);
         verify(generationService).generateReport(teamStructure);
         verify(reportOutputService).writeReports(List.of(report));
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldGenerateReportsByEngineWhenMoreThanOneServiceIsConfigured() {
+        //Given
+        Path path = Path.of("myFolder");
+        CompanyStructure teamStructure = CompanyStructure.of(Map.of(123L, new Employee(123L, null, null, null, null)));
+        ReportGenerationService anotherGenerationService = mock(ReportGenerationService.class);
+        List<ReportGenerationService> services = List.of(generationService, anotherGenerationService);
+        ReportGenerationEngine engine = mock(ReportGenerationEngine.class);
+        List<Report> reports = List.of(new Report(Report.ReportType.REPORTING_LINE_REPORT),
+                new Report(Report.ReportType.SALARY_LEVEL_REPORT));
+
+        when(fileDataRetriever.retrieveCompanyStructure(path)).thenReturn(teamStructure);
+        when(engine.generateReports(teamStructure, services)).thenReturn(reports);
+
+        //When
+        new ReportService(fileDataRetriever, reportOutputService, services, engine).analyzeAndMakeReportFromFile(path);
+
+        //Then
+        verify(engine).generateReports(teamStructure, services);
+        verify(reportOutputService).writeReports(reports);
+    }
+
+    @Test
+    void shouldAddParsingReportWhenRowsOfFileAreRejected() {
+        //Given
+        Path path = Path.of("myFolder");
+        CompanyStructure.Builder rows = new CompanyStructure.Builder();
+        rows.add(123L, null, null, 100L, false, 0);
+        rows.getRejectedRows().add(57, "employee id is missing");
+        CompanyStructure teamStructure = rows.build();
+        Report report = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        Report parsingReport = new Report(Report.ReportType.PARSING_REPORT);
+        parsingReport.addReportEntry("1 rows of the file are rejected");
+        parsingReport.addErrorsReportEntry("Row at byte 57 is rejected: employee id is missing");
+
+        when(fileDataRetriever.retrieveCompanyStructure(path)).thenReturn(teamStructure);
+        when(generationService.generateReport(teamStructure)).thenReturn(report);
+
+        //When
+        reportService.analyzeAndMakeReportFromFile(path);
+
+        //Then
+        verify(reportOutputService).writeReports(List.of(parsingReport, report));
+    }
+
+    @Test
+    void shouldWriteReportsOfExternalMemoryAnalysisWithParsingReport() {
+        //Given
+        Path path = Path.of("myFolder");
+        ExternalMemoryAnalysis externalMemoryAnalysis = mock(ExternalMemoryAnalysis.class);
+        ReportService externalReportService = new ReportService(externalMemoryAnalysis, reportOutputService,
+                PipelineInstrumentation.DISABLED);
+        RejectedRows rejectedRows = new RejectedRows();
+        rejectedRows.add(57, "employee id is missing");
+        Report report = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        Report parsingReport = new Report(Report.ReportType.PARSING_REPORT);
+        parsingReport.addReportEntry("1 rows of the file are rejected");
+        parsingReport.addErrorsReportEntry("Row at byte 57 is rejected: employee id is missing");
+
+        when(externalMemoryAnalysis.analyze(path)).thenReturn(new AnalysisResult(List.of(report), rejectedRows));
+
+        //When
+        externalReportService.analyzeAndMakeReportFromFile(path);
+
+        //Then
+        verify(reportOutputService).writeReports(List.of(parsingReport, report));
+    }
+
+    @Test
+    void shouldWriteCachedReportsWithoutRetrievingSameContentAgain() throws IOException {
+        //Given
+        Path path = Files.writeString(directory.resolve("file.csv"), "id,firstName,lastName,salary,managerId\n123,Joe,Doe,100,\n");
+        CompanyStructure teamStructure = CompanyStructure.of(Map.of(123L, new Employee(123L, null, null, null, null)));
+        Report report = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        ReportCache reportCache = new ReportCache(1 << 20);
+        ReportService cachingReportService = new ReportService(fileDataRetriever, reportOutputService,
+                reportGenerationServices, null, PipelineInstrumentation.DISABLED, reportCache);
+
+        when(generationService.getCacheKey()).thenReturn(Optional.of("salaryLevel"));
+        when(fileDataRetriever.retrieveCompanyStructure(path)).thenReturn(teamStructure);
+        when(generationService.generateReport(teamStructure)).thenReturn(report);
+
+        //When
+        cachingReportService.analyzeAndMakeReportFromFile(path);
+        cachingReportService.analyzeAndMakeReportFromFile(path);
+
+        //Then
+        verify(fileDataRetriever, times(1)).retrieveCompanyStructure(path);
+        verify(reportOutputService, times(2)).writeReports(List.of(report));
+        assertEquals(1, reportCache.getHits());
+        assertEquals(1, reportCache.getMisses());
+    }
+
+    @Test
+    void shouldNotCacheReportsWhenFileChangesWhileItIsAnalyzed() throws IOException {
+        //Given
+        Path path = Files.writeString(directory.resolve("file.csv"), "id,firstName,lastName,salary,managerId\n123,Joe,Doe,100,\n");
+        CompanyStructure teamStructure = CompanyStructure.of(Map.of(124L, new Employee(124L, null, null, null, null)));
+        Report report = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        ReportCache reportCache = new ReportCache(1 << 20);
+        ReportService cachingReportService = new ReportService(fileDataRetriever, reportOutputService,
+                reportGenerationServices, null, PipelineInstrumentation.DISABLED, reportCache);
+
+        when(generationService.getCacheKey()).thenReturn(Optional.of("salaryLevel"));
+        ReportCache.Key originalKey = reportCache.keyOf(path, reportGenerationServices).orElseThrow();
+        when(fileDataRetriever.retrieveCompanyStructure(path)).thenAnswer(invocation -> {
+            Files.writeString(path, "id,firstName,lastName,salary,managerId\n124,Martin,Chekov,100,\n");
+            return teamStructure;
+        });
+        when(generationService.generateReport(teamStructure)).thenReturn(report);
+
+        //When
+        cachingReportService.analyzeAndMakeReportFromFile(path);
+
+        //Then
+        verify(reportOutputService).writeReports(List.of(report));
+        assertEquals(0, reportCache.getEntries());
+        assertEquals(Optional.empty(), reportCache.get(originalKey));
+    }
+}
@@ -0,0 +1,112 @@
+package com.swissre.bigcompanyanalyzer.control;
+
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.FusedReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResidentAnalysisServiceTest {
+    FileDataRetriever fileDataRetriever = mock(FileDataRetriever.class);
+    ExecutorService reloadExecutor = Executors.newSingleThreadExecutor();
+
+    ResidentAnalysisService residentAnalysisService =
+            new ResidentAnalysisService(fileDataRetriever, new FusedReportGenerationEngine(), reloadExecutor);
+
+    @AfterEach
+    void shutdown() {
+        reloadExecutor.shutdownNow();
+    }
+
+    @Test
+    void shouldThrowReportExceptionWhenStructureIsNotLoaded() {
+        //When
+        ReportException exception = assertThrows(ReportException.class,
+                () -> residentAnalysisService.generateReports(4, 120, 150));
+
+        //Then
+        assertEquals("Company structure is not loaded", exception.getMessage());
+    }
+
+    @Test
+    void shouldGenerateReportsWithThresholdsOfTheRequest() {
+        //Given
+        Path path = Path.of("company.csv");
+        when(fileDataRetriever.retrieveCompanyStructure(path)).thenReturn(threeLevels(10_000));
+        residentAnalysisService.load(path);
+
+        Report expectedReportingLine = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        expectedReportingLine.addReportEntry(Report.EntryType.REPORTING_LINE_TOO_LONG, 3, 2, 1);
+        Report expectedSalary = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        expectedSalary.addReportEntry(Report.EntryType.SALARY_BELOW_MINIMUM, 1, 100, 120);
+        expectedSalary.addReportEntry(Report.EntryType.SALARY_BELOW_MINIMUM, 2, 100, 120);
+
+        //When
+        List<Report> strict = residentAnalysisService.generateReports(1, 120, 150);
+        List<Report> lenient = residentAnalysisService.generateReports(4, 100, 150);
+
+        //Then
+        assertEquals(List.of(expectedReportingLine, expectedSalary), strict);
+        assertEquals(0, lenient.get(0).getReportEntriesCount());
+        assertEquals(0, lenient.get(1).getReportEntriesCount());
+    }
+
+    @Test
+    void shouldReplaceLoadedStructureAfterReload() {
+        //Given
+        Path path = Path.of("company.csv");
+        Path newPath = Path.of("newCompany.csv");
+        CompanyStructure newStructure = threeLevels(20_000);
+        when(fileDataRetriever.retrieveCompanyStructure(path)).thenReturn(threeLevels(10_000));
+        when(fileDataRetriever.retrieveCompanyStructure(newPath)).thenReturn(newStructure);
+        residentAnalysisService.load(path);
+
+        //When
+        ResidentAnalysisService.LoadedStructure reloaded = residentAnalysisService.reload(newPath).join();
+
+        //Then
+        assertSame(reloaded, residentAnalysisService.getLoadedStructure().orElseThrow());
+        assertSame(newStructure, reloaded.companyStructure());
+        assertEquals(newPath, reloaded.path());
+    }
+
+    @Test
+    void shouldKeepLoadedStructureWhenReloadFails() {
+        //Given
+        Path path = Path.of("company.csv");
+        Path brokenPath = Path.of("broken.csv");
+        when(fileDataRetriever.retrieveCompanyStructure(path)).thenReturn(threeLevels(10_000));
+        when(fileDataRetriever.retrieveCompanyStructure(brokenPath)).thenThrow(new ReportException("error"));
+        ResidentAnalysisService.LoadedStructure loaded = residentAnalysisService.load(path);
+
+        //When
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> residentAnalysisService.reload(brokenPath).join());
+
+        //Then
+        assertTrue(exception.getCause() instanceof ReportException);
+        assertSame(loaded, residentAnalysisService.getLoadedStructure().orElseThrow());
+    }
+
+    private static CompanyStructure threeLevels(long salary) {
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, salary, false, 0);
+        builder.add(2, null, null, salary, true, 1);
+        builder.add(3, null, null, salary, true, 2);
+        return builder.build();
+    }
+}
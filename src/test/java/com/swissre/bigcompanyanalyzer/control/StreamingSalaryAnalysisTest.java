@@ -0,0 +1,87 @@
+package com.swissre.bigcompanyanalyzer.control;
+
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryLevelReportGenerationService;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamingSalaryAnalysisTest {
+
+    @TempDir
+    Path directory;
+
+    SalaryLevelReportGenerationService salaryLevelReportGenerationService = new SalaryLevelReportGenerationService(120, 150);
+    StreamingSalaryAnalysis analysis = new StreamingSalaryAnalysis(new FileParser(), salaryLevelReportGenerationService);
+
+    @Test
+    void shouldMakeSameSalaryReportAsInMemoryAnalysis() throws IOException {
+        //Given
+        Path file = this.writeFile("""
+                3,First,Last,3000,2
+                4,First,Last,2000,2
+                2,First,Last,4000,1
+                5,First,Last,,1
+                bad,First,Last,100,1
+                1,Ceo,Ceo,9000,
+                """);
+        Report inMemoryReport = salaryLevelReportGenerationService.generateReport(
+                new FileDataRetriever(new FileParser()).retrieveCompanyStructure(file));
+
+        //When
+        AnalysisResult result = analysis.analyze(file);
+
+        //Then
+        assertEquals(List.of(inMemoryReport), result.reports());
+        assertEquals(Set.of(
+                "Manager with id 1 earn 225 percent of their subordinates, the maximum allowed level is 150",
+                "Manager with id 2 earn 160 percent of their subordinates, the maximum allowed level is 150"),
+                result.reports().get(0).getReportEntries());
+        assertEquals(1, result.rejectedRows().getCount());
+    }
+
+    @Test
+    void shouldThrowReportExceptionWithValidationErrors() throws IOException {
+        //Given
+        Path file = this.writeFile("""
+                1,Ceo,Ceo,100,
+                2,First,Last,100,1
+                2,First,Last,100,1
+                3,First,Last,100,99
+                """);
+
+        //When
+        ReportException exception = assertThrows(ReportException.class, () -> analysis.analyze(file));
+
+        //Then
+        assertEquals(Set.of(
+                "Employee id 2 is duplicated",
+                "Employer with Id: 3 has non-existed manager id 99"),
+                new HashSet<>(exception.getErrors()));
+    }
+
+    @Test
+    void shouldThrowReportExceptionWhenFileDoesNotExist() {
+        //Given
+        Path file = directory.resolve("missing.csv");
+
+        //When
+        //Then
+        assertThrows(ReportException.class, () -> analysis.analyze(file));
+    }
+
+    private Path writeFile(String rows) throws IOException {
+        return Files.writeString(directory.resolve("file.csv"), "id,firstName,lastName,salary,managerId\n" + rows);
+    }
+}
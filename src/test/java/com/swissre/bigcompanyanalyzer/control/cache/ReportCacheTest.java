@@ -0,0 +1,163 @@
+package com.swissre.bigcompanyanalyzer.control.cache;
+
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportGenerationService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportingLineReportGenerationService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryLevelReportGenerationService;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReportCacheTest {
+    private static final String ROWS = "id,firstName,lastName,salary,managerId\n123,Joe,Doe,100,\n";
+
+    @TempDir
+    Path directory;
+
+    List<ReportGenerationService> services = List.of(new ReportingLineReportGenerationService(4),
+            new SalaryLevelReportGenerationService(120, 150));
+
+    @Test
+    void shouldKeyReportsByContentAndParameters() throws IOException {
+        //Given
+        ReportCache cache = new ReportCache(1 << 20);
+        Path file = Files.writeString(directory.resolve("file.csv"), ROWS);
+        Path copy = Files.writeString(directory.resolve("copy.csv"), ROWS);
+        Path changed = Files.writeString(directory.resolve("changed.csv"), ROWS + "124,Martin,Chekov,45000,123\n");
+
+        //When
+        ReportCache.Key key = cache.keyOf(file, services).orElseThrow();
+
+        //Then
+        assertEquals(key, cache.keyOf(copy, services).orElseThrow());
+        assertNotEquals(key, cache.keyOf(changed, services).orElseThrow());
+        assertNotEquals(key, cache.keyOf(file, List.of(new ReportingLineReportGenerationService(4),
+                new SalaryLevelReportGenerationService(120, 140))).orElseThrow());
+        assertNotEquals(key, cache.keyOf(file, List.of(new ReportingLineReportGenerationService(4, true),
+                new SalaryLevelReportGenerationService(120, 150))).orElseThrow());
+    }
+
+    @Test
+    void shouldNotKeyReportsOfServiceWithoutCacheKey() throws IOException {
+        //Given
+        ReportCache cache = new ReportCache(1 << 20);
+        Path file = Files.writeString(directory.resolve("file.csv"), ROWS);
+        ReportGenerationService service = mock(ReportGenerationService.class);
+        when(service.getCacheKey()).thenReturn(Optional.empty());
+
+        //When
+        Optional<ReportCache.Key> key = cache.keyOf(file, List.of(service));
+
+        //Then
+        assertTrue(key.isEmpty());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedReportsAboveWeight() {
+        //Given
+        List<Report> reports = reports(10);
+        ReportCache cache = new ReportCache(ReportCache.weightOf(reports) * 2);
+        ReportCache.Key first = new ReportCache.Key("1", "p");
+        ReportCache.Key second = new ReportCache.Key("2", "p");
+        ReportCache.Key third = new ReportCache.Key("3", "p");
+
+        //When
+        cache.put(first, reports);
+        cache.put(second, reports);
+        cache.get(first);
+        cache.put(third, reports);
+
+        //Then
+        assertTrue(cache.get(first).isPresent());
+        assertFalse(cache.get(second).isPresent());
+        assertTrue(cache.get(third).isPresent());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.getEntries());
+        assertEquals(ReportCache.weightOf(reports) * 2, cache.getWeight());
+    }
+
+    @Test
+    void shouldReadReportsFromDiskTierOfAnotherCache() {
+        //Given
+        List<Report> reports = reports(3);
+        ReportCache.Key key = new ReportCache.Key("1", "p");
+        new ReportCache(1 << 20, directory, 1 << 20).put(key, reports);
+        ReportCache cache = new ReportCache(1 << 20, directory, 1 << 20);
+
+        //When
+        Optional<List<Report>> fromDisk = cache.get(key);
+        Optional<List<Report>> fromMemory = cache.get(key);
+
+        //Then
+        assertEquals(Optional.of(reports), fromDisk);
+        assertEquals(5, fromDisk.orElseThrow().get(0).getTypedReportEntries().getCount(0));
+        assertEquals(fromDisk, fromMemory);
+        assertEquals(1, cache.getDiskHits());
+        assertEquals(1, cache.getHits());
+        assertTrue(cache.get(new ReportCache.Key("1", "other")).isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreCorruptedFileOfDiskTier() throws IOException {
+        //Given
+        ReportCache.Key key = new ReportCache.Key("1", "p");
+        new ReportCache(1 << 20, directory, 1 << 20).put(key, reports(3));
+        DiskTier diskTier = new DiskTier(directory, 1 << 20);
+        byte[] bytes = Files.readAllBytes(diskTier.fileOf(key));
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(diskTier.fileOf(key), bytes);
+
+        //When
+        Optional<List<Report>> reports = new ReportCache(1 << 20, directory, 1 << 20).get(key);
+
+        //Then
+        assertTrue(reports.isEmpty());
+    }
+
+    @Test
+    void shouldEvictOldestFilesAboveDiskLimit() throws IOException {
+        //Given
+        List<Report> reports = reports(100);
+        DiskTier diskTier = new DiskTier(directory, Long.MAX_VALUE);
+        ReportCache.Key first = new ReportCache.Key("1", "p");
+        diskTier.write(first, reports);
+        long fileSize = Files.size(diskTier.fileOf(first));
+        Files.setLastModifiedTime(diskTier.fileOf(first), FileTime.fromMillis(0));
+        DiskTier limitedDiskTier = new DiskTier(directory, fileSize * 2 - 1);
+
+        //When
+        limitedDiskTier.write(new ReportCache.Key("2", "p"), reports);
+
+        //Then
+        assertFalse(Files.exists(diskTier.fileOf(first)));
+        assertTrue(limitedDiskTier.read(new ReportCache.Key("2", "p")).isPresent());
+    }
+
+    private static List<Report> reports(int entries) {
+        Report reportingLineReport = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        reportingLineReport.addReportEntry(Report.EntryType.REPORTING_LINE_GROUP_TOO_LONG, 1L, 8, 4, 5);
+        Report salaryReport = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        for (int i = 0; i < entries; i++) {
+            salaryReport.addReportEntry(Report.EntryType.SALARY_ABOVE_MAXIMUM, i, 160, 150);
+        }
+        salaryReport.addErrorsReportEntry(Report.EntryType.NO_SALARY, -1L);
+        salaryReport.addErrorsReportEntry("Salary of \"Joe\" is unknown");
+        salaryReport.addReportEntry("Free text entry");
+        return List.of(reportingLineReport, salaryReport);
+    }
+}
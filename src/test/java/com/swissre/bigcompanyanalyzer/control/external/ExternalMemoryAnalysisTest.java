@@ -0,0 +1,166 @@
+package com.swissre.bigcompanyanalyzer.control.external;
+
+import com.swissre.bigcompanyanalyzer.control.ReportException;
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.FusedReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportingLineReportGenerationService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryLevelReportGenerationService;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExternalMemoryAnalysisTest {
+    private static final int ALLOWED_REPORTING_LEVEL = 4;
+    private static final int MIN_ALLOWED_PERCENT = 120;
+    private static final int MAX_ALLOWED_PERCENT = 150;
+    /**
+     * Runs of 32 records, so every step of the analysis spills and merges
+     */
+    private static final long MEMORY_BUDGET = 2_048;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldMakeSameReportsAsInMemoryAnalysis() throws IOException {
+        //Given
+        Random random = new Random(11);
+        StringBuilder rows = new StringBuilder();
+        rows.append("1,Ceo,Ceo,90000,\n");
+        for (int id = 2; id <= 2_000; id++) {
+            // a random manager among the recent employees gives deep reporting lines
+            int managerId = Math.max(1, id - 1 - random.nextInt(Math.min(id - 1, 40)));
+            rows.append(id).append(",First,Last,").append(20_000 + random.nextInt(60_000)).append(',').append(managerId).append('\n');
+        }
+        rows.append("2001,First,Last,,1\n");
+        rows.append("2002,First,Last,-10,1\n");
+        rows.append("bad,First,Last,100,1\n");
+        Path file = this.writeFile(shuffled(rows, random));
+
+        //When
+        Outcome external = outcomeOf(() -> this.externalReports(file));
+        Outcome inMemory = outcomeOf(() -> this.inMemoryReports(file));
+
+        //Then
+        assertTrue(external.errors().isEmpty());
+        assertFalse(external.reports().get(0).getReportEntries().isEmpty());
+        assertFalse(external.reports().get(1).getReportEntries().isEmpty());
+        assertEquals(inMemory, external);
+        assertEquals(1, this.analysis().analyze(file).rejectedRows().getCount());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void shouldReportSameErrorsAsInMemoryValidation() throws IOException {
+        //Given
+        Path file = this.writeFile("""
+                1,Ceo,Ceo,100,
+                2,First,Last,100,1
+                2,First,Last,100,1
+                3,First,Last,100,99
+                4,First,Last,100,3
+                5,First,Last,100,4
+                6,First,Last,100,8
+                7,First,Last,100,6
+                8,First,Last,100,7
+                9,First,Last,100,8
+                10,First,Last,100,9
+                """);
+
+        //When
+        Outcome external = outcomeOf(() -> this.externalReports(file));
+        Outcome inMemory = outcomeOf(() -> this.inMemoryReports(file));
+
+        //Then
+        assertEquals(Set.of(
+                "Employee id 2 is duplicated",
+                "Employer with Id: 3 has non-existed manager id 99",
+                "2 employees under the employee with id 3 are not reachable from the CEO",
+                "Employees with ids [6, 8, 7] are in a reporting cycle",
+                "2 employees under the employee with id 6 are not reachable from the CEO"), external.errors());
+        assertEquals(inMemory, external);
+    }
+
+    @Test
+    void shouldReportSeveralCeosAfterValidation() throws IOException {
+        //Given
+        Path file = this.writeFile("""
+                1,Ceo,Ceo,100,
+                2,Ceo,Ceo,100,
+                3,First,Last,100,1
+                """);
+
+        //When
+        Outcome external = outcomeOf(() -> this.externalReports(file));
+
+        //Then
+        assertEquals(Set.of("There are more than 1 CEO in the company structure"), external.errors());
+        assertEquals(outcomeOf(() -> this.inMemoryReports(file)), external);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenFileDoesNotExist() {
+        //Given
+        ExternalMemoryAnalysis analysis = this.analysis();
+
+        //When
+        //Then
+        assertThrows(ReportException.class, () -> analysis.analyze(directory.resolve("missing.csv")));
+    }
+
+    private ExternalMemoryAnalysis analysis() {
+        return new ExternalMemoryAnalysis(new FileParser(), ALLOWED_REPORTING_LEVEL,
+                MIN_ALLOWED_PERCENT, MAX_ALLOWED_PERCENT, MEMORY_BUDGET, directory);
+    }
+
+    private List<Report> externalReports(Path file) {
+        return this.analysis().analyze(file).reports();
+    }
+
+    private List<Report> inMemoryReports(Path file) {
+        return new FusedReportGenerationEngine().generateReports(
+                new FileDataRetriever(new FileParser()).retrieveCompanyStructure(file),
+                List.of(new ReportingLineReportGenerationService(ALLOWED_REPORTING_LEVEL),
+                        new SalaryLevelReportGenerationService(MIN_ALLOWED_PERCENT, MAX_ALLOWED_PERCENT)));
+    }
+
+    private Path writeFile(CharSequence rows) throws IOException {
+        return Files.writeString(directory.resolve("file.csv"), "id,firstName,lastName,salary,managerId\n" + rows);
+    }
+
+    private static String shuffled(CharSequence rows, Random random) {
+        List<String> lines = new ArrayList<>(List.of(rows.toString().split("\n")));
+        Collections.shuffle(lines, random);
+        return String.join("\n", lines) + "\n";
+    }
+
+    private static Outcome outcomeOf(Supplier<List<Report>> analysis) {
+        try {
+            return new Outcome(analysis.get(), Set.of());
+        } catch (ReportException ex) {
+            return new Outcome(List.of(), new HashSet<>(ex.getErrors()));
+        }
+    }
+
+    private record Outcome(List<Report> reports, Set<String> errors) {
+    }
+}
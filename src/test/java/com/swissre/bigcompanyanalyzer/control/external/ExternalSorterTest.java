@@ -0,0 +1,75 @@
+package com.swissre.bigcompanyanalyzer.control.external;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ExternalSorterTest {
+
+    @Test
+    void shouldSortRecordsSpilledToManyRuns(@TempDir Path directory) throws IOException {
+        //Given
+        Random random = new Random(3);
+        // 16 records per run and 2 runs merged at once, so the runs are merged in several passes
+        ExternalSorter sorter = new ExternalSorter(directory, 1_024);
+        List<long[]> expected = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            long[] record = {random.nextInt(100) - 50, random.nextLong(), random.nextLong(), i};
+            expected.add(record);
+            sorter.add(record[0], record[1], record[2], record[3]);
+        }
+        expected.sort(Comparator.<long[]>comparingLong(record -> record[0]).thenComparingLong(record -> record[3]));
+
+        //When
+        List<long[]> sorted = new ArrayList<>();
+        try (ExternalSorter.Records records = sorter.sorted()) {
+            while (records.next()) {
+                sorted.add(new long[]{records.field(0), records.field(1), records.field(2), records.field(3)});
+            }
+        }
+
+        //Then
+        assertEquals(expected.size(), sorted.size());
+        for (int i = 0; i < expected.size(); i++) {
+            for (int field = 0; field < ExternalSorter.FIELDS; field++) {
+                assertEquals(expected.get(i)[field], sorted.get(i)[field]);
+            }
+        }
+        try (var files = Files.list(directory)) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+
+    @Test
+    void shouldSortInMemoryWhenRecordsFitIntoBudget(@TempDir Path directory) throws IOException {
+        //Given
+        ExternalSorter sorter = new ExternalSorter(directory, 1 << 20);
+        sorter.add(3, 0, 0, 1);
+        sorter.add(1, 0, 0, 2);
+        sorter.add(3, 0, 0, 0);
+
+        //When
+        List<Long> orders = new ArrayList<>();
+        try (ExternalSorter.Records records = sorter.sorted()) {
+            while (records.next()) {
+                orders.add(records.field(3));
+            }
+        }
+
+        //Then
+        assertEquals(List.of(2L, 0L, 1L), orders);
+        try (var files = Files.list(directory)) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeChange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChangeFileParserTest {
+    ChangeFileParser parser = new ChangeFileParser();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldParseAllActions() throws IOException {
+        //Given
+        Path path = Files.writeString(directory.resolve("changes.csv"), """
+                Action, Id, Salary, ManagerId
+                add,10,1234.567,1
+                REMOVE,11,,
+                move,12,,1
+                salary,13,99.5,
+                """);
+
+        //When
+        List<EmployeeChange> changes = parser.parse(path);
+
+        //Then
+        assertEquals(List.of(
+                new EmployeeChange(EmployeeChange.Type.ADD, 10, 123457, true, 1),
+                new EmployeeChange(EmployeeChange.Type.REMOVE, 11, CompanyStructure.NO_SALARY, false, 0),
+                new EmployeeChange(EmployeeChange.Type.MOVE, 12, CompanyStructure.NO_SALARY, true, 1),
+                new EmployeeChange(EmployeeChange.Type.SALARY, 13, 9950, false, 0)
+        ), changes);
+    }
+
+    @Test
+    void shouldThrowWhenFileHasWrongHeaders() throws IOException {
+        //Given
+        Path path = Files.writeString(directory.resolve("changes.csv"), "id,action,salary,managerId\n");
+
+        //When
+        Throwable exception = assertThrows(FileException.class, () -> parser.parse(path));
+
+        //Then
+        assertEquals("Invalid change file structure, headers must be presented on the first line in the next order: (action,id,salary,managerId)",
+                exception.getMessage());
+    }
+
+    @Test
+    void shouldThrowWhenActionIsUnknown() throws IOException {
+        //Given
+        Path path = Files.writeString(directory.resolve("changes.csv"), "action,id,salary,managerId\nadd,1,100,2\nhire,2,100,1\n");
+
+        //When
+        Throwable exception = assertThrows(FileException.class, () -> parser.parse(path));
+
+        //Then
+        assertEquals("Change 2 has unknown action hire", exception.getMessage());
+    }
+
+    @Test
+    void shouldThrowWhenMoveHasNoManager() throws IOException {
+        //Given
+        Path path = Files.writeString(directory.resolve("changes.csv"), "action,id,salary,managerId\nmove,5,,\n");
+
+        //When
+        Throwable exception = assertThrows(FileException.class, () -> parser.parse(path));
+
+        //Then
+        assertEquals("Change 1 moves employee with id 5 to no manager", exception.getMessage());
+    }
+
+    @Test
+    void shouldThrowWhenSalaryChangeHasNoSalary() throws IOException {
+        //Given
+        Path path = Files.writeString(directory.resolve("changes.csv"), "action,id,salary,managerId\nsalary,5,abc,\n");
+
+        //When
+        Throwable exception = assertThrows(FileException.class, () -> parser.parse(path));
+
+        //Then
+        assertEquals("Change 1 has no valid salary", exception.getMessage());
+    }
+}
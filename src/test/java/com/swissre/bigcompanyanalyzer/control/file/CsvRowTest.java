@@ -0,0 +1,86 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvRowTest {
+
+    @Test
+    void shouldParseLongsWithSameRulesAsLongParseLong() {
+        assertLong(CsvRow.VALID, 123L, " 123 ");
+        assertLong(CsvRow.VALID, -123L, "-123");
+        assertLong(CsvRow.VALID, 123L, "+123");
+        assertLong(CsvRow.VALID, Long.MAX_VALUE, "9223372036854775807");
+        assertLong(CsvRow.VALID, Long.MIN_VALUE, "-9223372036854775808");
+        assertLong(CsvRow.OUT_OF_RANGE, 0, "9223372036854775808");
+        assertLong(CsvRow.MALFORMED, 0, "99999999999999999999x");
+        assertLong(CsvRow.MALFORMED, 0, "-");
+        assertLong(CsvRow.MALFORMED, 0, "12a");
+        assertLong(CsvRow.MALFORMED, 0, "1.0");
+        assertLong(CsvRow.MALFORMED, 0, "\u0661\u0662");
+        assertLong(CsvRow.BLANK, 0, "  ");
+    }
+
+    @Test
+    void shouldParseCentsWithHalfUpRounding() {
+        assertCents(CsvRow.VALID, 6_000_000L, "60000");
+        assertCents(CsvRow.VALID, 6_000_050L, "60000.5");
+        assertCents(CsvRow.VALID, 13L, "0.125");
+        assertCents(CsvRow.VALID, 12L, "0.1249");
+        assertCents(CsvRow.VALID, -13L, "-0.125");
+        assertCents(CsvRow.VALID, 50L, ".5");
+        assertCents(CsvRow.VALID, 500L, "5.");
+        assertCents(CsvRow.MALFORMED, 0, ".");
+        assertCents(CsvRow.MALFORMED, 0, "smth");
+        assertCents(CsvRow.VALID, Long.MAX_VALUE, "92233720368547758.07");
+        assertCents(CsvRow.OUT_OF_RANGE, 0, "92233720368547758.08");
+        assertCents(CsvRow.OUT_OF_RANGE, 0, "-92233720368547758.075");
+        assertCents(CsvRow.BLANK, 0, "");
+    }
+
+    @Test
+    void shouldParseCentsOfValuesWithExponent() {
+        assertCents(CsvRow.VALID, 470_000L, "4.7e3");
+        assertCents(CsvRow.VALID, -470_000L, "-4.7E+3");
+        assertCents(CsvRow.VALID, 15_000L, "1.5e2");
+        assertCents(CsvRow.VALID, 1L, "5e-3");
+        assertCents(CsvRow.VALID, 0L, "4e-3");
+        assertCents(CsvRow.VALID, 13L, "12.5e-2");
+        assertCents(CsvRow.VALID, 0L, "0e9999");
+        assertCents(CsvRow.VALID, 0L, "1e-9999");
+        assertCents(CsvRow.OUT_OF_RANGE, 0, "1e17");
+        assertCents(CsvRow.OUT_OF_RANGE, 0, "1e9999");
+        assertCents(CsvRow.MALFORMED, 0, "1e10000");
+        assertCents(CsvRow.MALFORMED, 0, "1e");
+        assertCents(CsvRow.MALFORMED, 0, "e3");
+        assertCents(CsvRow.MALFORMED, 0, "1e3.5");
+    }
+
+    private void assertLong(int expectedStatus, long expectedValue, String field) {
+        CsvRow row = rowOf(field);
+        assertEquals(expectedStatus, row.parseLong(0), field);
+        if (expectedStatus == CsvRow.VALID) {
+            assertEquals(expectedValue, row.value(), field);
+        }
+    }
+
+    private void assertCents(int expectedStatus, long expectedValue, String field) {
+        CsvRow row = rowOf(field);
+        assertEquals(expectedStatus, row.parseCents(0), field);
+        if (expectedStatus == CsvRow.VALID) {
+            assertEquals(expectedValue, row.value(), field);
+        }
+    }
+
+    private CsvRow rowOf(String field) {
+        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+        CsvRow row = new CsvRow(1);
+        row.reset(ByteBuffer.wrap(bytes), 0);
+        row.addField(0, bytes.length);
+        return row;
+    }
+}
@@ -1,9 +1,13 @@
 package com.swissre.bigcompanyanalyzer.control.file;
 
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
 import com.swissre.bigcompanyanalyzer.entity.Employee;
+import com.swissre.bigcompanyanalyzer.entity.RejectedRows;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
@@ -12,6 +16,7 @@ import java.util.Set;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -47,7 +52,7 @@ class FileDataRetrieverTest {
                 14L, new Employee(14L, null, null, null, 12L),
                 15L, new Employee(15L, null, null, null, 13L)
         );
-        when(fileParser.parse(path)).thenReturn(map);
+        when(fileParser.parse(path)).thenReturn(new ParsingResult(map, new RejectedRows()));
 
         //When
         Map<Long, Employee> actualMap = fileDataRetriever.retrieveLinkedCompanyEmployeesData(path);
@@ -75,7 +80,7 @@ class FileDataRetrieverTest {
                 12L, new Employee(12L, null, null, null, null),
                 13L, new Employee(13L, null, null, null, 588L)
         );
-        when(fileParser.parse(path)).thenReturn(map);
+        when(fileParser.parse(path)).thenReturn(new ParsingResult(map, new RejectedRows()));
 
         String expectedMessage = "Employer with Id: 13 has non-existed manager id 588";
 
@@ -87,4 +92,108 @@ class FileDataRetrieverTest {
         //Then
         assertEquals(expectedMessage, exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldBuildCompanyStructureFromParsedRows() throws IOException {
+        //Given
+        Path path = Path.of("myFolder");
+        CompanyStructure.Builder rows = new CompanyStructure.Builder();
+        rows.add(12L, null, null, 100L, false, 0);
+        rows.add(13L, null, null, 100L, true, 12L);
+        when(fileParser.parseStructure(path)).thenReturn(rows);
+
+        //When
+        CompanyStructure structure = fileDataRetriever.retrieveCompanyStructure(path);
+
+        //Then
+        assertEquals(2, structure.size());
+        assertEquals(structure.indexOf(12L), structure.getManager(structure.indexOf(13L)));
+    }
+
+    @Test
+    void shouldThrowFileExceptionWhenRowHasInvalidManagerId() throws IOException {
+        //Given
+        Path path = Path.of("myFolder");
+        CompanyStructure.Builder rows = new CompanyStructure.Builder();
+        rows.add(12L, null, null, 100L, false, 0);
+        rows.add(13L, null, null, 100L, true, 588L);
+        when(fileParser.parseStructure(path)).thenReturn(rows);
+
+        //When
+        Exception exception = assertThrows(FileException.class, () ->
+                fileDataRetriever.retrieveCompanyStructure(path)
+        );
+
+        //Then
+        assertEquals("Employer with Id: 13 has non-existed manager id 588", exception.getMessage());
+    }
+
+    @Test
+    void shouldThrowFileExceptionWithAllErrorsOfRows() throws IOException {
+        //Given
+        Path path = Path.of("myFolder");
+        CompanyStructure.Builder rows = new CompanyStructure.Builder();
+        rows.add(12L, null, null, 100L, false, 0);
+        rows.tryAdd(12L, null, null, 100L, false, 0);
+        rows.add(13L, null, null, 100L, true, 588L);
+        rows.add(14L, null, null, 100L, true, 15L);
+        rows.add(15L, null, null, 100L, true, 14L);
+        when(fileParser.parseStructure(path)).thenReturn(rows);
+
+        //When
+        FileException exception = assertThrows(FileException.class, () ->
+                fileDataRetriever.retrieveCompanyStructure(path)
+        );
+
+        //Then
+        assertEquals(List.of(
+                "Employee id 12 is duplicated",
+                "Employer with Id: 13 has non-existed manager id 588",
+                "Employees with ids [14, 15] are in a reporting cycle"
+        ), exception.getErrors());
+    }
+
+    @Test
+    void shouldUseSnapshotInsteadOfParsingUnchangedFile(@TempDir Path directory) throws IOException {
+        //Given
+        Path path = Files.writeString(directory.resolve("file.csv"), "content");
+        CompanyStructure.Builder rows = new CompanyStructure.Builder();
+        rows.add(12L, "Joe", "Doe", 100L, false, 0);
+        rows.add(13L, "Bob", "Ronstad", 100L, true, 12L);
+        when(fileParser.parseStructure(path)).thenReturn(rows);
+        FileDataRetriever retriever = new FileDataRetriever(fileParser, new StructureSnapshotStore());
+
+        //When
+        CompanyStructure parsed = retriever.retrieveCompanyStructure(path);
+        CompanyStructure restored = retriever.retrieveCompanyStructure(path);
+
+        //Then
+        verify(fileParser, times(1)).parseStructure(path);
+        StructureSnapshotStoreTest.assertSameStructure(parsed, restored);
+    }
+
+    @Test
+    void shouldRebuildSnapshotWhenFileChanged(@TempDir Path directory) throws IOException {
+        //Given
+        Path path = Files.writeString(directory.resolve("file.csv"), "content");
+        CompanyStructure.Builder rows = new CompanyStructure.Builder();
+        rows.add(12L, null, null, 100L, false, 0);
+        when(fileParser.parseStructure(path)).thenReturn(rows);
+        FileDataRetriever retriever = new FileDataRetriever(fileParser, new StructureSnapshotStore());
+        retriever.retrieveCompanyStructure(path);
+
+        //When
+        Files.writeString(path, "changed content");
+        CompanyStructure.Builder changedRows = new CompanyStructure.Builder();
+        changedRows.add(12L, null, null, 100L, false, 0);
+        changedRows.add(13L, null, null, 100L, true, 12L);
+        when(fileParser.parseStructure(path)).thenReturn(changedRows);
+        CompanyStructure structure = retriever.retrieveCompanyStructure(path);
+
+        //Then
+        verify(fileParser, times(2)).parseStructure(path);
+        assertEquals(2, structure.size());
+        assertEquals(2, retriever.retrieveCompanyStructure(path).size());
+        verify(fileParser, times(2)).parseStructure(path);
+    }
+}
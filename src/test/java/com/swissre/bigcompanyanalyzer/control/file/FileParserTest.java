@@ -1,16 +1,32 @@
 package com.swissre.bigcompanyanalyzer.control.file;
 
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
 import com.swissre.bigcompanyanalyzer.entity.Employee;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeField;
+import com.swissre.bigcompanyanalyzer.entity.RejectedRows;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class FileParserTest {
     FileParser parser = new FileParser();
@@ -87,7 +103,7 @@ class FileParserTest {
         Path path = Path.of(basicDirectory + fileName);
 
         //When
-        Map<Long, Employee> actualMap = parser.parse(path);
+        Map<Long, Employee> actualMap = parser.parse(path).idsToEmployees();
 
         //Then
         assertEquals(actualMap, expectedMap);
@@ -104,7 +120,7 @@ class FileParserTest {
         Path path = Path.of(basicDirectory + fileName);
 
         //When
-        Map<Long, Employee> actualMap = parser.parse(path);
+        Map<Long, Employee> actualMap = parser.parse(path).idsToEmployees();
 
         //Then
         assertEquals(actualMap.size(), expectedMap.size());
@@ -123,7 +139,7 @@ class FileParserTest {
         Path path = Path.of(basicDirectory + fileName);
 
         //When
-        Map<Long, Employee> actualMap = parser.parse(path);
+        Map<Long, Employee> actualMap = parser.parse(path).idsToEmployees();
 
         //Then
         assertEquals(actualMap.size(), expectedMap.size());
@@ -141,11 +157,341 @@ class FileParserTest {
         Path path = Path.of(basicDirectory + fileName);
 
         //When
-        Map<Long, Employee> actualMap = parser.parse(path);
+        Map<Long, Employee> actualMap = parser.parse(path).idsToEmployees();
 
         //Then
         assertEquals(actualMap.size(), expectedMap.size());
         assertEquals(actualMap.get(124L), expectedMap.get(124L));
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldParseRowsWithDifferentLineEndingsAndTrimmedValues(@TempDir Path directory) throws IOException {
+        //Given
+        Map<Long, Employee> expectedMap = Map.of(
+                123L, new Employee(123L, "Joe", "Doe", BigDecimal.valueOf(60000.5).setScale(2, RoundingMode.HALF_UP), null),
+                124L, new Employee(124L, "Martin", "Chekov", BigDecimal.valueOf(45000.13).setScale(2, RoundingMode.HALF_UP), 123L),
+                125L, new Employee(125L, "Bob", "Ronstad", BigDecimal.valueOf(4700).setScale(2, RoundingMode.HALF_UP), 123L)
+        );
+        Path path = directory.resolve("lineEndings.csv");
+        Files.writeString(path, "Id,firstName,lastName,salary,managerId\r\n"
+                + " 123 , Joe ,Doe, 60000.5 ,\r\n"
+                + "\n"
+                + "124,Martin,Chekov,45000.125,+123\r"
+                + "125,Bob,Ronstad,4.7e3,123");
+
+        //When
+        Map<Long, Employee> actualMap = parser.parse(path).idsToEmployees();
+
+        //Then
+        assertEquals(expectedMap, actualMap);
+    }
+
+    @Test
+    void shouldReturnSameMapWhenFileIsReadByManyMappedWindows(@TempDir Path directory) throws IOException {
+        //Given
+        StringBuilder content = new StringBuilder("Id,firstName,lastName,salary,managerId\n123,Joe,Doe,60000,\n");
+        for (int i = 0; i < 500; i++) {
+            content.append(1000 + i).append(",First").append(i).append(",Last").append(i)
+                    .append(',').append(30000 + i).append(".5").append(",123\r\n");
+        }
+        Path path = directory.resolve("windows.csv");
+        Files.writeString(path, content);
+
+        //When
+        Map<Long, Employee> actualMap = new FileParser(1, 64).parse(path).idsToEmployees();
+
+        //Then
+        assertEquals(parser.parse(path).idsToEmployees(), actualMap);
+        assertEquals(501, actualMap.size());
+        assertEquals(new Employee(1499L, "First499", "Last499", BigDecimal.valueOf(30499.5).setScale(2, RoundingMode.HALF_UP), 123L),
+                actualMap.get(1499L));
+    }
+
+    @Test
+    void shouldThrowWhenRowIsLongerThanMappedWindow(@TempDir Path directory) throws IOException {
+        //Given
+        Path path = directory.resolve("longRow.csv");
+        Files.writeString(path, "Id,firstName,lastName,salary,managerId\n123,Joe,Doe,60000,\n124,Martin,Chekov,45000,123\n");
+
+        //When
+        Throwable exception = assertThrows(FileException.class, () -> new FileParser(1, 20).parse(path));
+
+        //Then
+        assertEquals("Row starting at byte 58 is longer than 20 bytes", exception.getMessage());
+    }
+
+    @Test
+    void shouldReturnSameMapWhenFileIsParsedInParallel(@TempDir Path directory) throws IOException {
+        //Given
+        Path path = directory.resolve("large.csv");
+        Files.writeString(path, largeFileContent(100_000, ""));
+
+        //When
+        Map<Long, Employee> actualMap = new FileParser(4).parse(path).idsToEmployees();
+
+        //Then
+        assertEquals(100_001, actualMap.size());
+        assertEquals(parser.parse(path).idsToEmployees(), actualMap);
+    }
+
+    @Test
+    void shouldThrowWhenDuplicatedIdsAreInDifferentChunks(@TempDir Path directory) throws IOException {
+        //Given
+        Path path = directory.resolve("duplicates.csv");
+        Files.writeString(path, largeFileContent(100_000, "1000,Again,Duplicated,100,123\n"));
+
+        //When
+        Throwable exception = assertThrows(FileException.class, () -> new FileParser(4).parse(path));
+
+        //Then
+        assertEquals("Employee id 1000 is duplicated", exception.getMessage());
+    }
+
+    @Test
+    void shouldRecordDuplicatedIdsInCompanyStructureFromDifferentChunks(@TempDir Path directory) throws IOException {
+        //Given
+        Path path = directory.resolve("duplicates.csv");
+        Files.writeString(path, largeFileContent(100_000, "1000,Again,Duplicated,100,123\n123,Joe,Again,100,\n"));
+
+        //When
+        CompanyStructure.Builder rows = new FileParser(4).parseStructure(path);
+
+        //Then
+        assertEquals(100_001, rows.size());
+        assertArrayEquals(new long[]{1000L, 123L}, rows.getDuplicateIds());
+    }
+
+    @Test
+    void shouldRecordRejectedRowsWithPositionsAndReasons(@TempDir Path directory) throws IOException {
+        //Given
+        Path path = directory.resolve("dirty.csv");
+        Files.writeString(path, "Id,firstName,lastName,salary,managerId\n"
+                + "123,Joe,Doe,60000,\n"
+                + "124,Martin\n"
+                + ",Bob,Ronstad,4700,123\n"
+                + "E-125,Alice,Hasacat,4700,123\n"
+                + "99999999999999999999,Big,Id,4700,123\n"
+                + "126,Bad,Salary,n/a,123\n");
+
+        //When
+        ParsingResult result = parser.parse(path);
+        CompanyStructure.Builder rows = parser.parseStructure(path);
+
+        //Then
+        assertEquals(Set.of(123L, 126L), result.idsToEmployees().keySet());
+        RejectedRows rejectedRows = result.rejectedRows();
+        assertEquals(4, rejectedRows.getCount());
+        assertEquals(4, rejectedRows.getSampledCount());
+        assertEquals(58, rejectedRows.getPosition(0));
+        assertEquals("it has 2 columns instead of 5", rejectedRows.getReason(0));
+        assertEquals("employee id is missing", rejectedRows.getReason(1));
+        assertEquals("employee id 'E-125' is not a number", rejectedRows.getReason(2));
+        assertEquals("employee id '99999999999999999999' is out of range", rejectedRows.getReason(3));
+        assertEquals(2, rows.size());
+        assertEquals(4, rows.getRejectedRowsCount());
+        assertEquals(rejectedRows.getPosition(3), rows.getRejectedRows().getPosition(3));
+    }
+
+    @Test
+    void shouldRejectRowsWithMalformedManagerIdOrSalaryOutOfRangeWhenStructureIsParsed(@TempDir Path directory) throws IOException {
+        //Given
+        Path path = directory.resolve("dirty.csv");
+        Files.writeString(path, "Id,firstName,lastName,salary,managerId\n"
+                + "123,Joe,Doe,60000,\n"
+                + "124,Martin,Chekov,45000,12x\n"
+                + "125,Bob,Ronstad,1e30,123\n"
+                + "126,Alice,Hasacat,4700,99999999999999999999\n"
+                + "127,Bad,Salary,n/a,123\n");
+
+        //When
+        CompanyStructure.Builder rows = parser.parseStructure(path);
+
+        //Then
+        assertEquals(2, rows.size());
+        RejectedRows rejectedRows = rows.getRejectedRows();
+        assertEquals(3, rejectedRows.getCount());
+        assertEquals("manager id '12x' of the employee with id 124 is not a number", rejectedRows.getReason(0));
+        assertEquals("salary '1e30' of the employee with id 125 is out of the supported range", rejectedRows.getReason(1));
+        assertEquals("manager id '99999999999999999999' of the employee with id 126 is out of range", rejectedRows.getReason(2));
+    }
+
+    @Test
+    void shouldSampleSameRejectedRowsWhenFileIsParsedInParallel(@TempDir Path directory) throws IOException {
+        //Given
+        StringBuilder content = new StringBuilder("Id,firstName,lastName,salary,managerId\n123,Joe,Doe,60000,\n");
+        for (int i = 0; i < 100_000; i++) {
+            content.append(i % 100 == 0 ? "x" : "").append(1000 + i).append(",First,Last,30000.25,123\n");
+        }
+        Path path = directory.resolve("dirty.csv");
+        Files.writeString(path, content);
+
+        //When
+        RejectedRows sequential = parser.parseStructure(path).getRejectedRows();
+        RejectedRows parallel = new FileParser(4).parseStructure(path).getRejectedRows();
+
+        //Then
+        assertEquals(1_000, parallel.getCount());
+        assertEquals(RejectedRows.MAX_SAMPLED_ROWS, parallel.getSampledCount());
+        for (int i = 0; i < RejectedRows.MAX_SAMPLED_ROWS; i++) {
+            assertEquals(sequential.getPosition(i), parallel.getPosition(i));
+            assertEquals("employee id 'x%d' is not a number".formatted(1000 + i * 100), parallel.getReason(i));
+        }
+    }
+
+    @Test
+    void shouldParseGzipCompressedFileSameAsPlainFile(@TempDir Path directory) throws IOException {
+        //Given
+        StringBuilder content = new StringBuilder("Id,firstName,lastName,salary,managerId\r\n123,Joe,Doe,60000,\r\n");
+        for (int i = 0; i < 5_000; i++) {
+            content.append(i % 50 == 0 ? "x" : "").append(1000 + i).append(",First").append(i).append(",Last,30000.5,123\r\n");
+        }
+        Path plain = Files.writeString(directory.resolve("company.csv"), content);
+        Path compressed = gzip(plain, directory.resolve("company.csv.gz"));
+        FileParser smallBuffersParser = new FileParser(1, 64);
+
+        //When
+        ParsingResult result = smallBuffersParser.parse(compressed);
+        CompanyStructure.Builder rows = new FileParser(4).parseStructure(compressed);
+
+        //Then
+        ParsingResult expected = parser.parse(plain);
+        assertEquals(expected.idsToEmployees(), result.idsToEmployees());
+        assertEquals(100, result.rejectedRows().getCount());
+        for (int i = 0; i < result.rejectedRows().getSampledCount(); i++) {
+            assertEquals(expected.rejectedRows().getPosition(i), result.rejectedRows().getPosition(i));
+            assertEquals(expected.rejectedRows().getReason(i), rows.getRejectedRows().getReason(i));
+        }
+        assertEquals(4_901, rows.size());
+        assertEquals(Files.size(plain), FileParser.contentSizeOf(compressed));
+    }
+
+    @Test
+    void shouldThrowWhenCompressedFileIsTruncated(@TempDir Path directory) throws IOException {
+        //Given
+        Path plain = Files.writeString(directory.resolve("company.csv"), largeFileContent(10_000, ""));
+        Path compressed = gzip(plain, directory.resolve("company.csv.gz"));
+        byte[] bytes = Files.readAllBytes(compressed);
+        Files.write(compressed, Arrays.copyOf(bytes, bytes.length / 2));
+
+        //When
+        //Then
+        assertThrows(IOException.class, () -> parser.parseStructure(compressed));
+        assertNoInflaterIsRunning();
+    }
+
+    @Test
+    void shouldStopInflatingWhenCompressedFileHasDuplicatedIds(@TempDir Path directory) throws IOException {
+        //Given
+        Path plain = Files.writeString(directory.resolve("company.csv"),
+                "Id,firstName,lastName,salary,managerId\n123,Joe,Doe,60000,\n123,Joe,Again,60000,\n" + "7,Bob,Ronstad,100,123\n".repeat(10_000));
+        Path compressed = gzip(plain, directory.resolve("company.csv.gz"));
+
+        //When
+        Throwable exception = assertThrows(FileException.class, () -> new FileParser(1, 64).parse(compressed));
+
+        //Then
+        assertEquals("Employee id 123 is duplicated", exception.getMessage());
+        assertNoInflaterIsRunning();
+    }
+
+    private static Path gzip(Path source, Path target) throws IOException {
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(target))) {
+            Files.copy(source, output);
+        }
+        return target;
+    }
+
+    private static void assertNoInflaterIsRunning() {
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(thread -> thread.getName().startsWith("inflater-")));
+    }
+
+    private String largeFileContent(int rows, String lastRow) {
+        StringBuilder content = new StringBuilder("Id,firstName,lastName,salary,managerId\n123,Joe,Doe,60000,\n");
+        for (int i = 0; i < rows; i++) {
+            content.append(1000 + i).append(",First").append(i).append(",Last").append(i)
+                    .append(',').append(30000 + i % 1000).append(".25").append(",123\n");
+        }
+        return content.append(lastRow).toString();
+    }
+
+    @Test
+    void shouldParseSameEmployeesIntoCompanyStructure(@TempDir Path directory) throws IOException {
+        //Given
+        Path path = directory.resolve("large.csv");
+        Files.writeString(path, largeFileContent(100_000, "7,Bad,Salary,smth,123\n8,Exp,Salary,1e3,\n"));
+        Map<Long, Employee> expectedMap = parser.parse(path).idsToEmployees();
+
+        //When
+        CompanyStructure structure = new FileParser(4).parseStructure(path).build();
+
+        //Then
+        assertEquals(expectedMap.size(), structure.size());
+        for (int i = 0; i < structure.size(); i++) {
+            assertEquals(expectedMap.get(structure.getId(i)), structure.getEmployee(i));
+        }
+    }
+
+    @Test
+    void shouldParseStructureOnlyUpToGivenSize(@TempDir Path directory) throws IOException {
+        //Given
+        StringBuilder content = new StringBuilder("id,firstName,lastName,salary,managerId\n1,Joe,Doe,100,\n");
+        for (int id = 2; id <= 5_000; id++) {
+            content.append(id).append(",First,Last,100,1\n");
+        }
+        Path path = Files.writeString(directory.resolve("file.csv"), content);
+        long size = Files.size(path);
+        Files.writeString(path, "5001,First,Last,100,1\n", StandardOpenOption.APPEND);
+
+        //When
+        CompanyStructure.Builder rows;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            rows = new FileParser(4).parseStructure(channel, size);
+        }
+
+        //Then
+        assertEquals(5_000, rows.size());
+        assertFalse(rows.contains(5_001));
+    }
+
+    @Test
+    void shouldSkipFieldsWhichAreNotProjected(@TempDir Path directory) throws IOException {
+        //Given
+        Path path = Files.writeString(directory.resolve("file.csv"), """
+                id,firstName,lastName,salary,managerId
+                1,Joe,Doe,60000,
+                2,Martin,Chekov,not a number,1
+                """);
+        FileParser projectingParser = new FileParser(1, EnumSet.of(EmployeeField.ID, EmployeeField.MANAGER_ID));
+
+        //When
+        CompanyStructure structure = projectingParser.parseStructure(path).build();
+        Map<Long, Employee> employees = projectingParser.parse(path).idsToEmployees();
+
+        //Then
+        assertEquals(EnumSet.of(EmployeeField.ID, EmployeeField.MANAGER_ID), projectingParser.getFields());
+        assertFalse(structure.hasNames());
+        assertEquals(CompanyStructure.NO_SALARY, structure.getSalary(structure.indexOf(1)));
+        assertEquals(structure.indexOf(1), structure.getManager(structure.indexOf(2)));
+        assertEquals(new Employee(2L, null, null, null, 1L), employees.get(2L));
+    }
+
+    @Test
+    void shouldShareRepeatedNames(@TempDir Path directory) throws IOException {
+        //Given
+        Path path = Files.writeString(directory.resolve("file.csv"), """
+                id,firstName,lastName,salary,managerId
+                1,Joe,Doe,60000,
+                2, Joe ,Chekov,45000,1
+                3,Alice,Doe,47000,1
+                """);
+
+        //When
+        CompanyStructure structure = parser.parseStructure(path).build();
+
+        //Then
+        assertEquals("Joe", structure.getFirstName(structure.indexOf(2)));
+        assertSame(structure.getFirstName(structure.indexOf(1)), structure.getFirstName(structure.indexOf(2)));
+        assertSame(structure.getLastName(structure.indexOf(1)), structure.getLastName(structure.indexOf(3)));
+    }
+}
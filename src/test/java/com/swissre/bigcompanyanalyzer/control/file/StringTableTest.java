@@ -0,0 +1,54 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class StringTableTest {
+
+    @Test
+    void shouldDecodeSameBytesToSameString() {
+        //Given
+        ByteBuffer buffer = ByteBuffer.wrap("Joe,Jö,Joe".getBytes(StandardCharsets.UTF_8));
+        StringTable table = new StringTable();
+
+        //When
+        String first = table.decode(buffer, 0, 3);
+        String other = table.decode(buffer, 4, 7);
+        String repeated = table.decode(buffer, 8, 11);
+
+        //Then
+        assertEquals("Joe", first);
+        assertEquals("Jö", other);
+        assertSame(first, repeated);
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void shouldNotKeepNewValuesWhenTableIsFull() {
+        //Given
+        StringTable table = new StringTable();
+        for (int i = 0; i < StringTable.MAX_ENTRIES; i++) {
+            table.decode(bytesOf(String.valueOf(i)), 0, String.valueOf(i).length());
+        }
+
+        //When
+        String first = table.decode(bytesOf("new"), 0, 3);
+        String second = table.decode(bytesOf("new"), 0, 3);
+
+        //Then
+        assertEquals(StringTable.MAX_ENTRIES, table.size());
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertSame(table.decode(bytesOf("7"), 0, 1), table.decode(bytesOf("7"), 0, 1));
+    }
+
+    private static ByteBuffer bytesOf(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,156 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeField;
+import com.swissre.bigcompanyanalyzer.entity.RejectedRows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructureSnapshotStoreTest {
+    StructureSnapshotStore store = new StructureSnapshotStore();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadWrittenSnapshot() throws IOException {
+        //Given
+        Path source = Files.writeString(directory.resolve("file.csv"), "some content");
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, "Joe", "Dö", 6_000_000, false, 0);
+        builder.add(2, null, "Chekov", CompanyStructure.NO_SALARY, true, 1);
+        builder.add(3, "Bob", null, -100, true, 1);
+        builder.add(4, "Alice", "Hasacat", 5_000_000, true, 3);
+        CompanyStructure structure = builder.build();
+        StructureSnapshotStore.SourceKey key = store.keyOf(source).orElseThrow();
+
+        //When
+        store.write(source, key, structure);
+        Optional<CompanyStructure> snapshot = store.read(source, key);
+
+        //Then
+        assertTrue(snapshot.isPresent());
+        assertSameStructure(structure, snapshot.get());
+    }
+
+    @Test
+    void shouldKeepRejectedRowsInSnapshot() throws IOException {
+        //Given
+        Path source = Files.writeString(directory.resolve("file.csv"), "some content");
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100, false, 0);
+        for (int i = 0; i < RejectedRows.MAX_SAMPLED_ROWS + 5; i++) {
+            builder.getRejectedRows().add(100 + i, "reason " + i);
+        }
+        StructureSnapshotStore.SourceKey key = store.keyOf(source).orElseThrow();
+
+        //When
+        store.write(source, key, builder.build());
+        RejectedRows rejectedRows = store.read(source, key).orElseThrow().getRejectedRows();
+
+        //Then
+        assertEquals(RejectedRows.MAX_SAMPLED_ROWS + 5, rejectedRows.getCount());
+        assertEquals(RejectedRows.MAX_SAMPLED_ROWS, rejectedRows.getSampledCount());
+        assertEquals(199, rejectedRows.getPosition(99));
+        assertEquals("reason 99", rejectedRows.getReason(99));
+    }
+
+    @Test
+    void shouldIgnoreSnapshotOfChangedSource() throws IOException {
+        //Given
+        Path source = Files.writeString(directory.resolve("file.csv"), "some content");
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100, false, 0);
+        store.write(source, store.keyOf(source).orElseThrow(), builder.build());
+
+        //When
+        Files.writeString(source, "other content");
+        Optional<CompanyStructure> snapshot = store.read(source, store.keyOf(source).orElseThrow());
+
+        //Then
+        assertFalse(snapshot.isPresent());
+    }
+
+    @Test
+    void shouldIgnoreCorruptedSnapshot() throws IOException {
+        //Given
+        Path source = Files.writeString(directory.resolve("file.csv"), "some content");
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100, false, 0);
+        builder.add(2, null, null, 100, true, 1);
+        StructureSnapshotStore.SourceKey key = store.keyOf(source).orElseThrow();
+        store.write(source, key, builder.build());
+
+        //When
+        Path snapshotPath = StructureSnapshotStore.snapshotOf(source);
+        byte[] bytes = Files.readAllBytes(snapshotPath);
+        bytes[bytes.length - 10] ^= 1;
+        Files.write(snapshotPath, bytes);
+
+        //Then
+        assertFalse(store.read(source, key).isPresent());
+    }
+
+    @Test
+    void shouldIgnoreTruncatedSnapshot() throws IOException {
+        //Given
+        Path source = Files.writeString(directory.resolve("file.csv"), "some content");
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100, false, 0);
+        StructureSnapshotStore.SourceKey key = store.keyOf(source).orElseThrow();
+        store.write(source, key, builder.build());
+
+        //When
+        Path snapshotPath = StructureSnapshotStore.snapshotOf(source);
+        byte[] bytes = Files.readAllBytes(snapshotPath);
+        Files.write(snapshotPath, Arrays.copyOf(bytes, 20));
+
+        //Then
+        assertFalse(store.read(source, key).isPresent());
+    }
+
+    static void assertSameStructure(CompanyStructure expected, CompanyStructure actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getEmployee(i), actual.getEmployee(i));
+            assertEquals(expected.getFirstName(i), actual.getFirstName(i));
+            assertEquals(expected.getLastName(i), actual.getLastName(i));
+            assertEquals(expected.getSalary(i), actual.getSalary(i));
+            assertEquals(expected.getManager(i), actual.getManager(i));
+            assertEquals(expected.getSubordinatesStart(i), actual.getSubordinatesStart(i));
+            assertEquals(expected.getSubordinatesEnd(i), actual.getSubordinatesEnd(i));
+            assertEquals(i, actual.indexOf(expected.getId(i)));
+        }
+        for (int position = 0; position < expected.getSubordinatesEnd(expected.size() - 1); position++) {
+            assertEquals(expected.getSubordinateAt(position), actual.getSubordinateAt(position));
+        }
+    }
+
+    @Test
+    void shouldIgnoreSnapshotParsedWithoutRequiredFields() throws IOException {
+        //Given
+        Path source = Files.writeString(directory.resolve("file.csv"), "some content");
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, CompanyStructure.NO_SALARY, false, 0);
+        StructureSnapshotStore.SourceKey key = store.keyOf(source).orElseThrow();
+
+        //When
+        store.write(source, key, builder.build(), EmployeeField.STRUCTURE);
+
+        //Then
+        assertTrue(store.read(source, key, EmployeeField.STRUCTURE).isPresent());
+        assertFalse(store.read(source, key, EnumSet.of(EmployeeField.ID, EmployeeField.SALARY)).isPresent());
+        assertFalse(store.read(source, key).isPresent());
+    }
+}
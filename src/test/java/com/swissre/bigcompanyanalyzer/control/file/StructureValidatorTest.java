@@ -0,0 +1,112 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+
+class StructureValidatorTest {
+    StructureValidator validator = new StructureValidator();
+
+    @Test
+    void shouldFindNoErrorsInValidStructure() {
+        //Given
+        CompanyStructure.Builder rows = new CompanyStructure.Builder();
+        rows.add(1, null, null, 100, false, 0);
+        rows.add(2, null, null, 100, true, 1);
+        rows.add(3, null, null, 100, true, 2);
+
+        //When
+        List<String> errors = validator.validate(rows);
+
+        //Then
+        assertEquals(List.of(), errors);
+    }
+
+    @Test
+    void shouldFindAllErrorsAtOnce() {
+        //Given
+        CompanyStructure.Builder rows = new CompanyStructure.Builder();
+        rows.add(1, null, null, 100, false, 0);
+        rows.add(2, null, null, 100, true, 1);
+        rows.tryAdd(2, null, null, 100, true, 1);
+        // cycle 10 -> 11 -> 12 -> 10 with subtree 13 -> 14
+        rows.add(13, null, null, 100, true, 11);
+        rows.add(10, null, null, 100, true, 12);
+        rows.add(11, null, null, 100, true, 10);
+        rows.add(12, null, null, 100, true, 11);
+        rows.add(14, null, null, 100, true, 13);
+        // orphan 20 with subordinate 21
+        rows.add(21, null, null, 100, true, 20);
+        rows.add(20, null, null, 100, true, 99);
+        // employee managing itself
+        rows.add(30, null, null, 100, true, 30);
+
+        //When
+        List<String> errors = validator.validate(rows);
+
+        //Then
+        assertEquals(List.of(
+                "Employee id 2 is duplicated",
+                "Employees with ids [11, 10, 12] are in a reporting cycle",
+                "Employer with Id: 20 has non-existed manager id 99",
+                "Employees with ids [30] are in a reporting cycle",
+                "2 employees under the employee with id 11 are not reachable from the CEO",
+                "1 employees under the employee with id 20 are not reachable from the CEO"
+        ), errors);
+    }
+
+    @Test
+    void shouldListFirstIdsOfLongCycle() {
+        //Given
+        CompanyStructure.Builder rows = new CompanyStructure.Builder();
+        rows.add(0, null, null, 100, false, 0);
+        for (int i = 1; i <= 20; i++) {
+            rows.add(i, null, null, 100, true, i == 20 ? 1 : i + 1);
+        }
+
+        //When
+        List<String> errors = validator.validate(rows);
+
+        //Then
+        assertEquals(List.of("Employees with ids [1, 2, 3, 4, 5, 6, 7, 8, 9, 10] and 10 more are in a reporting cycle"), errors);
+    }
+
+    @Test
+    void shouldValidateEmployeesByIds() {
+        //Given
+        Map<Long, Employee> idsToEmployees = Map.of(
+                1L, new Employee(1L, null, null, null, null),
+                2L, new Employee(2L, null, null, null, 3L),
+                3L, new Employee(3L, null, null, null, 2L)
+        );
+
+        //When
+        List<String> errors = validator.validate(idsToEmployees);
+
+        //Then
+        assertEquals(1, errors.size());
+    }
+
+    @Test
+    void shouldValidateDeepChainWithoutRecursion() {
+        //Given
+        int size = 1_000_000;
+        CompanyStructure.Builder rows = new CompanyStructure.Builder(size);
+        for (int i = size - 1; i >= 0; i--) {
+            rows.add(i, null, null, 100, i > 0, i - 1);
+        }
+
+        //When
+        List<String> errors = assertTimeout(Duration.ofSeconds(5), () -> validator.validate(rows));
+
+        //Then
+        assertEquals(List.of(), errors);
+    }
+}
@@ -0,0 +1,125 @@
+package com.swissre.bigcompanyanalyzer.control.file;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TailingFileDataRetrieverTest {
+    private static final String HEADER = "Id,firstName,lastName,salary,managerId\n";
+
+    FileParser fileParser = spy(new FileParser());
+    TailingFileDataRetriever retriever = new TailingFileDataRetriever(fileParser);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldParseOnlyAppendedRows() throws IOException {
+        //Given
+        Path path = directory.resolve("company.csv");
+        Files.writeString(path, HEADER + "1,Joe,Doe,60000,\n2,Martin,Chekov,45000,1\n");
+        CompanyStructure first = retriever.retrieveCompanyStructure(path);
+        Files.writeString(path, "3,Bob,Ronstad,47000,2\n", StandardOpenOption.APPEND);
+
+        //When
+        CompanyStructure second = retriever.retrieveCompanyStructure(path);
+
+        //Then
+        verify(fileParser, times(1)).parseStructure(any(FileChannel.class), anyLong());
+        assertEquals(2, first.size());
+        assertEquals(-1, first.indexOf(3));
+        assertEquals(3, second.size());
+        assertEquals(second.indexOf(2), second.getManager(second.indexOf(3)));
+        assertEquals("Bob", second.getFirstName(second.indexOf(3)));
+    }
+
+    @Test
+    void shouldReturnSameStructureWhenFileIsUnchanged() throws IOException {
+        //Given
+        Path path = directory.resolve("company.csv");
+        Files.writeString(path, HEADER + "1,Joe,Doe,60000,\n");
+        CompanyStructure first = retriever.retrieveCompanyStructure(path);
+
+        //When
+        CompanyStructure second = retriever.retrieveCompanyStructure(path);
+
+        //Then
+        verify(fileParser, times(1)).parseStructure(any(FileChannel.class), anyLong());
+        assertSame(first, second);
+    }
+
+    @Test
+    void shouldParseWholeFileWhenParsedPartIsChanged() throws IOException {
+        //Given
+        Path path = directory.resolve("company.csv");
+        Files.writeString(path, HEADER + "1,Joe,Doe,60000,\n2,Martin,Chekov,45000,1\n");
+        retriever.retrieveCompanyStructure(path);
+        Files.writeString(path, HEADER + "1,Joe,Doe,60000,\n2,Martin,Chekov,46000,1\n3,Bob,Ronstad,47000,2\n");
+
+        //When
+        CompanyStructure structure = retriever.retrieveCompanyStructure(path);
+
+        //Then
+        verify(fileParser, times(2)).parseStructure(any(FileChannel.class), anyLong());
+        assertEquals(4_600_000, structure.getSalary(structure.indexOf(2)));
+        assertEquals(3, structure.size());
+    }
+
+    @Test
+    void shouldParseWholeFileWhenLastRowWasNotTerminated() throws IOException {
+        //Given
+        Path path = directory.resolve("company.csv");
+        Files.writeString(path, HEADER + "1,Joe,Doe,60000,\n2,Martin,Chekov,45");
+        retriever.retrieveCompanyStructure(path);
+        Files.writeString(path, "000,1\n", StandardOpenOption.APPEND);
+
+        //When
+        CompanyStructure structure = retriever.retrieveCompanyStructure(path);
+
+        //Then
+        verify(fileParser, times(2)).parseStructure(any(FileChannel.class), anyLong());
+        assertEquals(4_500_000, structure.getSalary(structure.indexOf(2)));
+    }
+
+    @Test
+    void shouldParseAppendedRowsCompletingInvalidFile() throws IOException {
+        //Given
+        Path path = directory.resolve("company.csv");
+        Files.writeString(path, HEADER + "1,Joe,Doe,60000,\n3,Bob,Ronstad,47000,2\n");
+        assertThrows(FileException.class, () -> retriever.retrieveCompanyStructure(path));
+        Files.writeString(path, "2,Martin,Chekov,45000,1\n", StandardOpenOption.APPEND);
+
+        //When
+        CompanyStructure structure = retriever.retrieveCompanyStructure(path);
+
+        //Then
+        verify(fileParser, times(1)).parseStructure(any(FileChannel.class), anyLong());
+        assertEquals(3, structure.size());
+        assertEquals(structure.indexOf(2), structure.getManager(structure.indexOf(3)));
+    }
+
+    @Test
+    void shouldThrowFileExceptionWhenFileDoesNotExist() {
+        //When
+        Exception exception = assertThrows(FileException.class,
+                () -> retriever.retrieveCompanyStructure(directory.resolve("missing.csv")));
+
+        //Then
+        assertEquals("File %s does not exist".formatted(directory.resolve("missing.csv")), exception.getMessage());
+    }
+}
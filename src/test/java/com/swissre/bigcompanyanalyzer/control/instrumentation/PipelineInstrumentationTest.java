@@ -0,0 +1,113 @@
+package com.swissre.bigcompanyanalyzer.control.instrumentation;
+
+import com.swissre.bigcompanyanalyzer.control.ReportService;
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.output.ReportOutputService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.FusedReportGenerationEngine;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.ReportingLineReportGenerationService;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.SalaryLevelReportGenerationService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class PipelineInstrumentationTest {
+    private static final String FILE = """
+            Id,firstName,lastName,salary,managerId
+            1,Joe,Doe,60000,
+            2,Martin,Chekov,45000,1
+            3,Bob,Ronstad,30000,2
+            broken row
+            """;
+
+    PipelineInstrumentation instrumentation = new PipelineInstrumentation();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldCountEveryStageAndExposeCountsThroughMXBean() throws Exception {
+        //Given
+        Path path = Files.writeString(directory.resolve("company.csv"), FILE);
+        ReportService reportService = reportService();
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        instrumentation.register(mBeanServer);
+
+        //When
+        reportService.analyzeAndMakeReportFromFile(path);
+
+        //Then
+        assertEquals(3, instrumentation.getRowsParsed());
+        assertEquals(1, instrumentation.getRowsRejected());
+        assertEquals(Files.size(path), instrumentation.getBytesRead());
+        assertEquals(3, instrumentation.getEmployeesLinked());
+        // entries of the reports, the amount of rejected rows and the rejected row of the parsing report
+        assertEquals(3, instrumentation.getReportEntriesEmitted());
+        assertEquals(1L, instrumentation.getStageCalls().get("OUTPUT"));
+        assertEquals(0L, instrumentation.getStageCalls().get("SNAPSHOT_READING"));
+        assertEquals(3L, mBeanServer.getAttribute(new ObjectName(PipelineInstrumentation.OBJECT_NAME), "RowsParsed"));
+        assertTrue(instrumentation.summary().contains("PARSING:"));
+        assertTrue(instrumentation.summary().contains("1 rejected rows"));
+    }
+
+    @Test
+    void shouldEmitJfrEventPerStage() throws Exception {
+        //Given
+        Path path = Files.writeString(directory.resolve("company.csv"), FILE);
+        Path recordingFile = directory.resolve("recording.jfr");
+        ReportService reportService = reportService();
+
+        //When
+        try (Recording recording = new Recording()) {
+            recording.enable("com.swissre.bigcompanyanalyzer.PipelineStage");
+            recording.start();
+            reportService.analyzeAndMakeReportFromFile(path);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        //Then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        Set<String> stages = events.stream().map(event -> event.getString("stage")).collect(Collectors.toSet());
+        assertEquals(Set.of("PARSING", "LINKING", "REPORT_GENERATION", "OUTPUT"), stages);
+        RecordedEvent parsing = events.stream().filter(event -> event.getString("stage").equals("PARSING")).findFirst().orElseThrow();
+        assertEquals(3, parsing.getLong("items"));
+        assertEquals(1, parsing.getLong("rejected"));
+        assertEquals(path.toString(), parsing.getString("file"));
+    }
+
+    @Test
+    void shouldNotCountAnythingWhenDisabled() {
+        //When
+        PipelineInstrumentation.Stage first = PipelineInstrumentation.DISABLED.start(PipelineStage.PARSING, null);
+        first.items(10).rejected(1).bytes(100).close();
+        PipelineInstrumentation.Stage second = PipelineInstrumentation.DISABLED.start(PipelineStage.LINKING, null);
+
+        //Then
+        assertSame(first, second);
+        assertEquals(0, PipelineInstrumentation.DISABLED.getRowsParsed());
+        assertEquals(0L, PipelineInstrumentation.DISABLED.getStageCalls().get("PARSING"));
+    }
+
+    private ReportService reportService() {
+        return new ReportService(new FileDataRetriever(new FileParser(), null, instrumentation), mock(ReportOutputService.class),
+                List.of(new ReportingLineReportGenerationService(1), new SalaryLevelReportGenerationService(120, 150)),
+                new FusedReportGenerationEngine(), instrumentation);
+    }
+}
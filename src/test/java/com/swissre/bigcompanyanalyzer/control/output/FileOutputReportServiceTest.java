@@ -0,0 +1,139 @@
+package com.swissre.bigcompanyanalyzer.control.output;
+
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileOutputReportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldWriteReportsAsCsv() throws IOException {
+        //Given
+        Path path = directory.resolve("reports.csv");
+
+        //When
+        try (FileOutputReportService service = new FileOutputReportService(path, ReportFormat.CSV)) {
+            service.writeReports(List.of(salaryReport()));
+        }
+
+        //Then
+        assertEquals(List.of(
+                "report,severity,type,employeeId,value,limit,message",
+                "SALARY REPORT,error,NO_SALARY,3,0,0,",
+                "SALARY REPORT,error,,,,,\"Salary of \"\"Joe\"\", is unknown\"",
+                "SALARY REPORT,issue,SALARY_ABOVE_MAXIMUM,1,160,150,"
+        ), Files.readAllLines(path));
+    }
+
+    @Test
+    void shouldWriteReportsAsJsonLines() throws IOException {
+        //Given
+        Path path = directory.resolve("reports.jsonl");
+
+        //When
+        try (FileOutputReportService service = new FileOutputReportService(path, ReportFormat.JSON_LINES)) {
+            service.writeReports(List.of(salaryReport()));
+        }
+
+        //Then
+        assertEquals(List.of(
+                "{\"report\":\"SALARY REPORT\",\"severity\":\"error\",\"type\":\"NO_SALARY\",\"employeeId\":3,\"value\":0,\"limit\":0}",
+                "{\"report\":\"SALARY REPORT\",\"severity\":\"error\",\"message\":\"Salary of \\\"Joe\\\", is unknown\"}",
+                "{\"report\":\"SALARY REPORT\",\"severity\":\"issue\",\"type\":\"SALARY_ABOVE_MAXIMUM\",\"employeeId\":1,\"value\":160,\"limit\":150}"
+        ), Files.readAllLines(path));
+    }
+
+    @Test
+    void shouldWriteCountOfGroupEntries() throws IOException {
+        //Given
+        Path csvPath = directory.resolve("reports.csv");
+        Path jsonPath = directory.resolve("reports.jsonl");
+        Report report = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        report.addReportEntry(Report.EntryType.REPORTING_LINE_GROUP_TOO_LONG, 7L, 8, 4, 12);
+
+        //When
+        try (FileOutputReportService csv = new FileOutputReportService(csvPath, ReportFormat.CSV);
+             FileOutputReportService json = new FileOutputReportService(jsonPath, ReportFormat.JSON_LINES)) {
+            csv.writeReports(List.of(report));
+            json.writeReports(List.of(report));
+        }
+
+        //Then
+        assertEquals("REPORTING LINE REPORT,issue,REPORTING_LINE_GROUP_TOO_LONG,7,8,4,"
+                        + "12 employees under and including the employee with id 7 have reporting lines 1 to 4 levels more than the allowed level 4",
+                Files.readAllLines(csvPath).get(1));
+        assertEquals(List.of("{\"report\":\"REPORTING LINE REPORT\",\"severity\":\"issue\",\"type\":\"REPORTING_LINE_GROUP_TOO_LONG\","
+                        + "\"employeeId\":7,\"value\":8,\"limit\":4,\"count\":12}"),
+                Files.readAllLines(jsonPath));
+    }
+
+    @Test
+    void shouldWriteReportsAsText() throws IOException {
+        //Given
+        Path path = directory.resolve("reports.txt");
+        Report errorReport = new Report(Report.ReportType.UNRECOVERABLE_ERROR_REPORT);
+        errorReport.addErrorsReportEntry("error");
+
+        //When
+        try (FileOutputReportService service = new FileOutputReportService(path, ReportFormat.TEXT)) {
+            service.writeReports(List.of(new Report(Report.ReportType.REPORTING_LINE_REPORT)));
+            service.writeErrorReport(errorReport);
+        }
+
+        //Then
+        assertEquals(List.of(
+                "------------------------",
+                "REPORTING LINE REPORT",
+                "Errors:",
+                "No errors.",
+                "Report:",
+                "No issues.",
+                "------------------------",
+                "------------------------",
+                "UNRECOVERABLE ERROR REPORT",
+                "Errors:",
+                "error",
+                "Report:",
+                "No issues.",
+                "------------------------"
+        ), Files.readAllLines(path));
+    }
+
+    @Test
+    void shouldWriteAllEntriesThroughFewSmallBuffers() throws IOException {
+        //Given
+        Path path = directory.resolve("reports.csv");
+        Report report = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        for (int i = 0; i < 100_000; i++) {
+            report.addReportEntry(Report.EntryType.REPORTING_LINE_TOO_LONG, i, 5 + i % 3, 4);
+        }
+
+        //When
+        try (FileOutputReportService service = new FileOutputReportService(path, ReportFormat.CSV, 64, 2)) {
+            service.writeReports(List.of(report));
+        }
+
+        //Then
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(100_001, lines.size());
+        assertEquals("REPORTING LINE REPORT,issue,REPORTING_LINE_TOO_LONG,99999,5,4,", lines.get(100_000));
+    }
+
+    private static Report salaryReport() {
+        Report report = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        report.addErrorsReportEntry(Report.EntryType.NO_SALARY, 3L);
+        report.addErrorsReportEntry("Salary of \"Joe\", is unknown");
+        report.addReportEntry(Report.EntryType.SALARY_ABOVE_MAXIMUM, 1L, 160, 150);
+        return report;
+    }
+}
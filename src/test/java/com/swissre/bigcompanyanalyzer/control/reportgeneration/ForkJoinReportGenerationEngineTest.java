@@ -0,0 +1,112 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.control.output.ReportFormat;
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ForkJoinReportGenerationEngineTest {
+    List<ReportGenerationService> services = List.of(
+            new ReportingLineReportGenerationService(4),
+            new SalaryLevelReportGenerationService(120, 150)
+    );
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    @Test
+    void shouldGenerateSameReportsAsSequentialEngineForRandomHierarchy() {
+        //Given
+        Random random = new Random(7);
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(0, null, null, 10_000_000, false, 0);
+        int[] managers = new int[20_000];
+        for (int i = 1; i < managers.length; i++) {
+            managers[i] = random.nextInt(i);
+            builder.add(i, null, null, 1_000_000 + random.nextInt(9_000_000), true, managers[i]);
+        }
+        for (int i = 0; i < 500; i++) {
+            builder.add(-i - 1, null, null, CompanyStructure.NO_SALARY, true, managers[1 + random.nextInt(managers.length - 1)]);
+        }
+        CompanyStructure structure = builder.build();
+
+        //When
+        List<Report> reports = new ForkJoinReportGenerationEngine(pool, 16).generateReports(structure, services);
+
+        //Then
+        List<Report> expected = new FusedReportGenerationEngine().generateReports(structure, services);
+        assertEquals(expected, reports);
+    }
+
+    @Test
+    void shouldGenerateReportsForVeryDeepHierarchy() {
+        //Given
+        int depth = 200_000;
+        CompanyStructure.Builder builder = new CompanyStructure.Builder(depth);
+        builder.add(0, null, null, 100_000, false, 0);
+        for (int i = 1; i < depth; i++) {
+            builder.add(i, null, null, 100_000, true, i - 1);
+            if (i % 1_000 == 0) {
+                builder.add(-i, null, null, 50_000, true, i - 1);
+            }
+        }
+        CompanyStructure structure = builder.build();
+
+        //When
+        List<Report> reports = new ForkJoinReportGenerationEngine(pool, 10).generateReports(structure, services);
+
+        //Then
+        assertEquals(depth - 5 + depth / 1_000 - 1, reports.get(0).getReportEntries().size());
+        assertEquals(new FusedReportGenerationEngine().generateReports(structure, services), reports);
+    }
+
+    @Test
+    void shouldRenderSameOutputAsSequentialEngine() {
+        //Given
+        Random random = new Random(11);
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(0, null, null, 10_000_000, false, 0);
+        for (int i = 1; i < 200_000; i++) {
+            int manager = i < 100 ? random.nextInt(i) : i - 1 - random.nextInt(Math.min(i, 50));
+            builder.add(i, null, null, 1_000_000 + random.nextInt(9_000_000), true, manager);
+        }
+        CompanyStructure structure = builder.build();
+        List<Report> expected = new FusedReportGenerationEngine().generateReports(structure, services);
+
+        //When
+        List<Report> reports = new ForkJoinReportGenerationEngine(pool, 16).generateReports(structure, services);
+
+        //Then
+        for (ReportFormat format : ReportFormat.values()) {
+            assertArrayEquals(render(format, expected), render(format, reports), format.name());
+        }
+    }
+
+    @Test
+    void shouldThrowGenerationReportExceptionWhenStructureHasMoreThanOneCEO() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100, false, 0);
+        builder.add(2, null, null, 100, false, 0);
+
+        //When
+        Throwable exception = assertThrows(GenerationReportException.class, () ->
+                new ForkJoinReportGenerationEngine(pool, 1).generateReports(builder.build(), services));
+
+        //Then
+        assertEquals("There are more than 1 CEO in the company structure", exception.getMessage());
+    }
+
+    private static byte[] render(ReportFormat format, List<Report> reports) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        format.write(reports, output);
+        return output.toByteArray();
+    }
+}
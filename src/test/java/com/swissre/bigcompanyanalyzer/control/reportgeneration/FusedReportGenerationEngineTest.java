@@ -0,0 +1,84 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FusedReportGenerationEngineTest {
+    ReportGenerationEngine engine = new FusedReportGenerationEngine();
+
+    @Test
+    void shouldGenerateSameReportsAsEveryServiceSeparately() {
+        //Given
+        CompanyStructure structure = companyStructure();
+        List<ReportGenerationService> services = List.of(
+                new ReportingLineReportGenerationService(2),
+                new SalaryLevelReportGenerationService(120, 150)
+        );
+
+        //When
+        List<Report> reports = engine.generateReports(structure, services);
+
+        //Then
+        assertEquals(services.stream().map(service -> service.generateReport(structure)).toList(), reports);
+        assertEquals(Report.ReportType.REPORTING_LINE_REPORT, reports.get(0).getType());
+        assertEquals(2, reports.get(0).getReportEntries().size());
+        assertEquals(Report.ReportType.SALARY_LEVEL_REPORT, reports.get(1).getType());
+    }
+
+    @Test
+    void shouldVisitEveryEmployeeOnceWithItsDepth() {
+        //Given
+        CompanyStructure structure = companyStructure();
+        List<String> visits = new ArrayList<>();
+        ReportGenerationService service = companyStructure -> new HierarchyVisitor() {
+            @Override
+            public void visit(int employee, int depth) {
+                visits.add(companyStructure.getId(employee) + ":" + depth);
+            }
+
+            @Override
+            public Report getReport() {
+                return null;
+            }
+        };
+
+        //When
+        engine.generateReports(structure, List.of(service));
+
+        //Then
+        assertEquals(List.of("1:0", "2:1", "3:1", "4:2", "5:3", "6:3"), visits);
+    }
+
+    @Test
+    void shouldThrowGenerationReportExceptionWhenStructureHasNoCEO() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100, true, 2);
+        builder.add(2, null, null, 100, true, 1);
+
+        //When
+        Throwable exception = assertThrows(GenerationReportException.class, () ->
+                engine.generateReports(builder.build(), List.of(new ReportingLineReportGenerationService(2))));
+
+        //Then
+        assertEquals("There is no CEO in the company structure", exception.getMessage());
+    }
+
+    private CompanyStructure companyStructure() {
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100_000, false, 0);
+        builder.add(2, null, null, 60_000, true, 1);
+        builder.add(3, null, null, 50_000, true, 1);
+        builder.add(4, null, null, 40_000, true, 2);
+        builder.add(5, null, null, 30_000, true, 4);
+        builder.add(6, null, null, CompanyStructure.NO_SALARY, true, 4);
+        return builder.build();
+    }
+}
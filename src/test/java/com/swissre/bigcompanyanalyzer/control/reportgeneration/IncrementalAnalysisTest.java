@@ -0,0 +1,276 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeChange;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalAnalysisTest {
+    ReportingLineReportGenerationService reportingLineService = new ReportingLineReportGenerationService(4);
+    SalaryLevelReportGenerationService salaryLevelService = new SalaryLevelReportGenerationService(120, 150);
+    List<ReportGenerationService> services = List.of(reportingLineService, salaryLevelService);
+
+    @Test
+    void shouldGenerateSameReportsAsFullAnalysisAfterLoading() {
+        //Given
+        Map<Long, long[]> employees = randomCompany(new Random(3), 2_000);
+
+        //When
+        IncrementalAnalysis analysis = new IncrementalAnalysis(build(employees), reportingLineService, salaryLevelService);
+
+        //Then
+        assertEquals(new FusedReportGenerationEngine().generateReports(build(employees), services),
+                analysis.getReports().subList(0, 2));
+    }
+
+    @Test
+    void shouldGenerateSameReportsAsFullAnalysisAfterRandomChanges() {
+        //Given
+        Random random = new Random(11);
+        Map<Long, long[]> employees = randomCompany(random, 2_000);
+        IncrementalAnalysis analysis = new IncrementalAnalysis(build(employees), reportingLineService, salaryLevelService);
+        long nextId = 2_000;
+
+        for (int round = 0; round < 20; round++) {
+            List<EmployeeChange> changes = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                List<Long> ids = new ArrayList<>(employees.keySet());
+                long id = ids.get(1 + random.nextInt(ids.size() - 1));
+                switch (random.nextInt(4)) {
+                    case 0 -> {
+                        long salary = 1_000_000 + random.nextInt(9_000_000);
+                        changes.add(new EmployeeChange(EmployeeChange.Type.ADD, nextId, salary, true, id));
+                        employees.put(nextId++, new long[]{salary, id});
+                    }
+                    case 1 -> {
+                        if (!hasSubordinates(employees, id)) {
+                            changes.add(new EmployeeChange(EmployeeChange.Type.REMOVE, id, CompanyStructure.NO_SALARY, false, 0));
+                            employees.remove(id);
+                        }
+                    }
+                    case 2 -> {
+                        long manager = ids.get(random.nextInt(ids.size()));
+                        if (!isInSubtree(employees, manager, id)) {
+                            changes.add(new EmployeeChange(EmployeeChange.Type.MOVE, id, CompanyStructure.NO_SALARY, true, manager));
+                            employees.get(id)[1] = manager;
+                        }
+                    }
+                    default -> {
+                        long salary = 1_000_000 + random.nextInt(9_000_000);
+                        changes.add(new EmployeeChange(EmployeeChange.Type.SALARY, id, salary, false, 0));
+                        employees.get(id)[0] = salary;
+                    }
+                }
+            }
+
+            //When
+            analysis.applyChanges(changes);
+
+            //Then
+            List<Report> reports = analysis.getReports();
+            assertEquals(new FusedReportGenerationEngine().generateReports(build(employees), services), reports.subList(0, 2));
+            assertEquals(0, reports.get(2).getErrorsReportEntries().size());
+        }
+    }
+
+    @Test
+    void shouldGenerateSameReportsAsFullAnalysisWhenSubordinatesSalariesOverflowLong() {
+        //Given
+        long salary = Long.MAX_VALUE / 10 * 7;
+        Map<Long, long[]> employees = new LinkedHashMap<>();
+        employees.put(1L, new long[]{salary, -1});
+        employees.put(2L, new long[]{salary, 1});
+        employees.put(3L, new long[]{salary, 1});
+        employees.put(4L, new long[]{salary, 1});
+        employees.put(5L, new long[]{salary, 2});
+        IncrementalAnalysis analysis = new IncrementalAnalysis(build(employees), reportingLineService, salaryLevelService);
+        List<Report> loaded = analysis.getReports();
+        List<Report> expectedLoaded = new FusedReportGenerationEngine().generateReports(build(employees), services);
+
+        //When
+        analysis.applyChanges(List.of(
+                new EmployeeChange(EmployeeChange.Type.SALARY, 4, salary / 2, false, 0),
+                new EmployeeChange(EmployeeChange.Type.ADD, 6, salary, true, 1)
+        ));
+        employees.get(4L)[0] = salary / 2;
+        employees.put(6L, new long[]{salary, 1});
+        List<Report> changed = analysis.getReports();
+        List<Report> expectedChanged = new FusedReportGenerationEngine().generateReports(build(employees), services);
+        analysis.applyChanges(List.of(
+                new EmployeeChange(EmployeeChange.Type.REMOVE, 6, CompanyStructure.NO_SALARY, false, 0),
+                new EmployeeChange(EmployeeChange.Type.MOVE, 4, CompanyStructure.NO_SALARY, true, 2)
+        ));
+        employees.remove(6L);
+        employees.get(4L)[1] = 2;
+
+        //Then
+        assertTrue(loaded.get(1).getReportEntries()
+                .contains("Manager with id 1 earn 100 percent of their subordinates, the minimum allowed level is 120"));
+        assertEquals(expectedLoaded, loaded.subList(0, 2));
+        assertEquals(expectedChanged, changed.subList(0, 2));
+        assertEquals(new FusedReportGenerationEngine().generateReports(build(employees), services),
+                analysis.getReports().subList(0, 2));
+    }
+
+    @Test
+    void shouldUpdateReportingLinesOfMovedSubtree() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(0, null, null, 100_000, false, 0);
+        for (int i = 1; i <= 6; i++) {
+            builder.add(i, null, null, 100_000, true, i - 1);
+        }
+        IncrementalAnalysis analysis = new IncrementalAnalysis(builder.build(), reportingLineService, salaryLevelService);
+
+        //When
+        analysis.applyChanges(List.of(new EmployeeChange(EmployeeChange.Type.MOVE, 4, CompanyStructure.NO_SALARY, true, 0)));
+
+        //Then
+        assertEquals(0, analysis.getReports().get(0).getReportEntries().size());
+    }
+
+    @Test
+    void shouldRejectChangesBreakingTheHierarchy() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100_000, false, 0);
+        builder.add(2, null, null, 100_000, true, 1);
+        builder.add(3, null, null, 100_000, true, 2);
+        IncrementalAnalysis analysis = new IncrementalAnalysis(builder.build(), reportingLineService, salaryLevelService);
+
+        //When
+        analysis.applyChanges(List.of(
+                new EmployeeChange(EmployeeChange.Type.ADD, 2, 100_000, true, 1),
+                new EmployeeChange(EmployeeChange.Type.ADD, 4, 100_000, false, 0),
+                new EmployeeChange(EmployeeChange.Type.ADD, 5, 100_000, true, 9),
+                new EmployeeChange(EmployeeChange.Type.REMOVE, 1, CompanyStructure.NO_SALARY, false, 0),
+                new EmployeeChange(EmployeeChange.Type.REMOVE, 2, CompanyStructure.NO_SALARY, false, 0),
+                new EmployeeChange(EmployeeChange.Type.MOVE, 2, CompanyStructure.NO_SALARY, true, 3),
+                new EmployeeChange(EmployeeChange.Type.SALARY, 9, 100_000, false, 0),
+                new EmployeeChange(EmployeeChange.Type.REMOVE, 3, CompanyStructure.NO_SALARY, false, 0)
+        ));
+
+        //Then
+        Report changesReport = analysis.getReports().get(2);
+        assertEquals(Report.ReportType.CHANGES_REPORT, changesReport.getType());
+        assertEquals(Set.of("1 changes applied, 7 changes rejected"), changesReport.getReportEntries());
+        assertEquals(Set.of(
+                "ADD of employee with id 2 is rejected: employee already exists",
+                "ADD of employee with id 4 is rejected: company already has a CEO",
+                "ADD of employee with id 5 is rejected: manager with id 9 does not exist",
+                "REMOVE of employee with id 1 is rejected: CEO can not leave the company",
+                "REMOVE of employee with id 2 is rejected: employee still has subordinates",
+                "MOVE of employee with id 2 is rejected: manager with id 3 is a subordinate of the employee",
+                "SALARY of employee with id 9 is rejected: employee does not exist"
+        ), changesReport.getErrorsReportEntries());
+    }
+
+    @Test
+    void shouldReportOnlyChangesOfLastChangeFile() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100_000, false, 0);
+        builder.add(2, null, null, 100_000, true, 1);
+        IncrementalAnalysis analysis = new IncrementalAnalysis(builder.build(), reportingLineService, salaryLevelService);
+        analysis.applyChanges(List.of(
+                new EmployeeChange(EmployeeChange.Type.ADD, 2, 100_000, true, 1),
+                new EmployeeChange(EmployeeChange.Type.ADD, 3, 100_000, true, 1)
+        ));
+        analysis.getReports();
+
+        //When
+        analysis.applyChanges(List.of(new EmployeeChange(EmployeeChange.Type.SALARY, 3, 90_000, false, 0)));
+
+        //Then
+        Report changesReport = analysis.getReports().get(2);
+        assertEquals(Set.of("1 changes applied, 0 changes rejected"), changesReport.getReportEntries());
+        assertEquals(Set.of(), changesReport.getErrorsReportEntries());
+    }
+
+    @Test
+    void shouldRejectChangesLeavingManagerWithoutPositiveSubordinatesSalaries() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100_000, false, 0);
+        builder.add(2, null, null, 100_000, true, 1);
+        builder.add(3, null, null, 0, true, 1);
+        builder.add(4, null, null, -100, true, 2);
+        builder.add(5, null, null, 0, true, 4);
+        builder.add(7, null, null, 100_000, true, 2);
+        IncrementalAnalysis analysis = new IncrementalAnalysis(builder.build(), reportingLineService, salaryLevelService);
+
+        //When
+        analysis.applyChanges(List.of(
+                new EmployeeChange(EmployeeChange.Type.SALARY, 2, 0, false, 0),
+                new EmployeeChange(EmployeeChange.Type.MOVE, 2, CompanyStructure.NO_SALARY, true, 3),
+                new EmployeeChange(EmployeeChange.Type.ADD, 6, 0, true, 7),
+                new EmployeeChange(EmployeeChange.Type.SALARY, 4, 100, false, 0),
+                new EmployeeChange(EmployeeChange.Type.SALARY, 3, 100_000, false, 0)
+        ));
+
+        //Then
+        List<Report> reports = analysis.getReports();
+        assertEquals(Set.of("1 changes applied, 4 changes rejected"), reports.get(2).getReportEntries());
+        assertEquals(Set.of(
+                "SALARY of employee with id 2 is rejected: manager with id 1 would have no subordinates with a positive salary",
+                "MOVE of employee with id 2 is rejected: manager with id 1 would have no subordinates with a positive salary",
+                "ADD of employee with id 6 is rejected: manager with id 7 would have no subordinates with a positive salary",
+                "SALARY of employee with id 4 is rejected: manager with id 4 would have no subordinates with a positive salary"
+        ), reports.get(2).getErrorsReportEntries());
+    }
+
+    @Test
+    void shouldThrowGenerationReportExceptionWhenLoadedManagerHasNoPositiveSubordinatesSalaries() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100_000, false, 0);
+        builder.add(2, null, null, 0, true, 1);
+        CompanyStructure structure = builder.build();
+
+        //When
+        Throwable exception = assertThrows(GenerationReportException.class, () ->
+                new IncrementalAnalysis(structure, reportingLineService, salaryLevelService));
+
+        //Then
+        assertEquals("Manager with id 1 has no subordinates with a positive salary", exception.getMessage());
+    }
+
+    private static Map<Long, long[]> randomCompany(Random random, int size) {
+        Map<Long, long[]> employees = new LinkedHashMap<>();
+        employees.put(0L, new long[]{10_000_000, -1});
+        for (long i = 1; i < size; i++) {
+            employees.put(i, new long[]{1_000_000 + random.nextInt(9_000_000), random.nextInt((int) i)});
+        }
+        return employees;
+    }
+
+    private static CompanyStructure build(Map<Long, long[]> employees) {
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        employees.forEach((id, employee) -> builder.add(id, null, null, employee[0], employee[1] >= 0, employee[1]));
+        return builder.build();
+    }
+
+    private static boolean hasSubordinates(Map<Long, long[]> employees, long id) {
+        return employees.values().stream().anyMatch(employee -> employee[1] == id);
+    }
+
+    private static boolean isInSubtree(Map<Long, long[]> employees, long employee, long root) {
+        for (long current = employee; current >= 0; current = employees.get(current)[1]) {
+            if (current == root) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
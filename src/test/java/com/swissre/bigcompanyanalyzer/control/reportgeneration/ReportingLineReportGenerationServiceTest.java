@@ -1,11 +1,16 @@
 package com.swissre.bigcompanyanalyzer.control.reportgeneration;
 
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
 import com.swissre.bigcompanyanalyzer.entity.Employee;
 import com.swissre.bigcompanyanalyzer.entity.Report;
+import com.swissre.bigcompanyanalyzer.entity.ReportEntries;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -86,4 +91,83 @@ class ReportingLineReportGenerationServiceTest {
         assertEquals(Set.of(), report.getErrorsReportEntries());
     }
 
+    @Test
+    void shouldGroupEmployeesUnderHighestEmployeeWithTooLongReportingLine() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100, false, 0);
+        builder.add(2, null, null, 100, true, 1);
+        builder.add(3, null, null, 100, true, 2);
+        builder.add(4, null, null, 100, true, 3);
+        builder.add(5, null, null, 100, true, 4);
+        builder.add(6, null, null, 100, true, 4);
+        builder.add(7, null, null, 100, true, 3);
+        ReportGenerationService summaryService = new ReportingLineReportGenerationService(reportingLineLimit, true);
+
+        //When
+        Report report = summaryService.generateReport(builder.build());
+
+        //Then
+        assertEquals(Set.of(
+                "3 employees under and including the employee with id 4 have reporting lines 1 to 2 levels more than the allowed level 2",
+                "1 employees under and including the employee with id 7 have reporting lines 1 to 1 levels more than the allowed level 2"),
+                report.getReportEntries());
+    }
+
+    @Test
+    void shouldNotReportCeoWhenAllowedReportingLevelIsNegative() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100, false, 0);
+        builder.add(2, null, null, 100, true, 1);
+        builder.add(3, null, null, 100, true, 2);
+        CompanyStructure structure = builder.build();
+
+        //When
+        Report report = new ReportingLineReportGenerationService(-1).generateReport(structure);
+        Report summary = new ReportingLineReportGenerationService(-1, true).generateReport(structure);
+
+        //Then
+        assertEquals(Set.of(
+                "The employee with id 2 has a reporting line of 1 levels, which is 2 more than the allowed level -1",
+                "The employee with id 3 has a reporting line of 2 levels, which is 3 more than the allowed level -1"),
+                report.getReportEntries());
+        assertEquals(Set.of(
+                "2 employees under and including the employee with id 2 have reporting lines 2 to 3 levels more than the allowed level -1"),
+                summary.getReportEntries());
+    }
+
+    @Test
+    void shouldMakeSameSummaryWithParallelEngineAsDetailedReport() {
+        //Given
+        Random random = new Random(3);
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(0, null, null, 100, false, 0);
+        for (int i = 1; i < 20_000; i++) {
+            builder.add(i, null, null, 100, true, Math.max(0, i - 1 - random.nextInt(Math.min(i, 50))));
+        }
+        CompanyStructure structure = builder.build();
+        List<ReportGenerationService> summaryServices = List.of(new ReportingLineReportGenerationService(reportingLineLimit, true));
+
+        //When
+        Report summary = new ForkJoinReportGenerationEngine(new ForkJoinPool(4), 16).generateReports(structure, summaryServices).get(0);
+
+        //Then
+        assertEquals(new FusedReportGenerationEngine().generateReports(structure, summaryServices).get(0), summary);
+        ReportEntries detailed = service.generateReport(structure).getTypedReportEntries();
+        ReportEntries groups = summary.getTypedReportEntries();
+        int maxLevel = 0;
+        for (int i = 0; i < detailed.size(); i++) {
+            maxLevel = Math.max(maxLevel, detailed.getValue(i));
+        }
+        int groupedEmployees = 0;
+        int maxGroupLevel = 0;
+        for (int i = 0; i < groups.size(); i++) {
+            groupedEmployees += groups.getCount(i);
+            maxGroupLevel = Math.max(maxGroupLevel, groups.getValue(i));
+        }
+        assertEquals(detailed.size(), groupedEmployees);
+        assertEquals(maxLevel, maxGroupLevel);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SalaryArithmeticTest {
+
+    @Test
+    void shouldCalculateSamePercentAsBigDecimalArithmetic() {
+        //Given
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long salary = random.nextInt(3) == 0 ? random.nextInt(1_000) : random.nextLong(1L, 1_000_000_000_000L);
+            int count = 1 + random.nextInt(1_000);
+            long sum = count + random.nextLong(1_000_000_000_000L) * count / 1_000;
+
+            //When
+            int fixedPointPercent = SalaryArithmetic.percentOfAverage(salary, sum, count);
+
+            //Then
+            assertEquals(SalaryArithmetic.percentOfAverage(BigDecimal.valueOf(salary, 2), BigDecimal.valueOf(sum, 2), count),
+                    fixedPointPercent, "salary %d, sum %d, count %d".formatted(salary, sum, count));
+        }
+    }
+
+    @Test
+    void shouldRoundAverageAndRatioHalfUp() {
+        // average 0.335 -> 0.34, ratio 1.00 / 0.34 = 2.94117 -> 2.9412 -> 294
+        assertEquals(294, SalaryArithmetic.percentOfAverage(100, 67, 2));
+        // average 0.02, ratio 0.01 / 0.02 = 0.5 -> 50
+        assertEquals(50, SalaryArithmetic.percentOfAverage(1, 3, 2));
+    }
+
+    @Test
+    void shouldFallBackToBigDecimalWhenSalaryIsTooLargeForFixedPoint() {
+        long salary = Long.MAX_VALUE / 2;
+
+        assertEquals(SalaryArithmetic.percentOfAverage(BigDecimal.valueOf(salary, 2), BigDecimal.valueOf(3, 2), 1),
+                SalaryArithmetic.percentOfAverage(salary, 3, 1));
+    }
+
+    @Test
+    void shouldThrowWhenAverageSalaryIsZero() {
+        assertThrows(ArithmeticException.class, () -> SalaryArithmetic.percentOfAverage(100, 1, 3));
+    }
+}
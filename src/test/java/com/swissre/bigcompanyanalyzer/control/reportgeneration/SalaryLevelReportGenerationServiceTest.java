@@ -1,11 +1,14 @@
 package com.swissre.bigcompanyanalyzer.control.reportgeneration;
 
 import com.swissre.bigcompanyanalyzer.entity.Employee;
+import com.swissre.bigcompanyanalyzer.entity.EmployeeField;
 import com.swissre.bigcompanyanalyzer.entity.Report;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -149,4 +152,36 @@ class SalaryLevelReportGenerationServiceTest {
                 report.getReportEntries());
         assertEquals(Set.of(), report.getErrorsReportEntries());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldCalculatePercentWhenSumOfSubordinatesSalariesOverflowsLong() {
+        //Given
+        long subordinateSalary = Long.MAX_VALUE / 2 + 1;
+        Map<Long, Employee> map = Map.of(
+                12L, new Employee(12L, null, null, BigDecimal.valueOf(subordinateSalary, 2), null),
+                13L, new Employee(13L, null, null, BigDecimal.valueOf(subordinateSalary, 2), 12L),
+                14L, new Employee(14L, null, null, BigDecimal.valueOf(subordinateSalary, 2), 12L)
+        );
+
+        //When
+        Report report = service.generateReport(map);
+
+        //Then
+        assertEquals(Set.of("Manager with id %d earn %d percent of their subordinates, the minimum allowed level is %d"
+                        .formatted(12L, 100, minAllowedPercent)),
+                report.getReportEntries());
+    }
+
+    @Test
+    void shouldRequireOnlyFieldsReadByReports() {
+        //Given
+        ReportGenerationService reportingLineService = new ReportingLineReportGenerationService(4);
+
+        //When
+        Set<EmployeeField> fields = ReportGenerationService.requiredFieldsOf(List.of(service, reportingLineService));
+
+        //Then
+        assertEquals(EnumSet.of(EmployeeField.ID, EmployeeField.MANAGER_ID), reportingLineService.getRequiredFields());
+        assertEquals(EnumSet.of(EmployeeField.ID, EmployeeField.SALARY, EmployeeField.MANAGER_ID), fields);
+    }
+}
@@ -0,0 +1,82 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SalaryRatioIndexTest {
+
+    @Test
+    void shouldGenerateSameReportsAsServiceForEveryThresholds() {
+        //Given
+        Random random = new Random(17);
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(0, null, null, 10_000_00, false, 0);
+        for (int i = 1; i < 1_000; i++) {
+            builder.add(i, null, null, 1_000_00 + random.nextInt(9_000_00), true, random.nextInt(i));
+        }
+        CompanyStructure structure = builder.build();
+        int[] minPercents = {0, 80, 100, 120, 200};
+        int[] maxPercents = {90, 150, 200, 1_000};
+
+        //When
+        SalaryRatioIndex index = SalaryRatioIndex.of(structure);
+        int[][] counts = index.countOutOfRange(minPercents, maxPercents);
+
+        //Then
+        for (int i = 0; i < minPercents.length; i++) {
+            for (int j = 0; j < maxPercents.length; j++) {
+                Report expected = new SalaryLevelReportGenerationService(minPercents[i], maxPercents[j]).generateReport(structure);
+                Report actual = index.generateReport(minPercents[i], maxPercents[j]);
+                assertEquals(expected, actual);
+                assertEquals(expected.getReportEntriesCount(), counts[i][j]);
+            }
+        }
+    }
+
+    @Test
+    void shouldKeepPercentsSortedAndCountByThresholds() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 300_00, false, 0);
+        builder.add(2, null, null, 100_00, true, 1);
+        builder.add(3, null, null, 120_00, true, 2);
+        builder.add(4, null, null, 100_00, true, 3);
+
+        //When
+        SalaryRatioIndex index = SalaryRatioIndex.of(builder.build());
+
+        //Then
+        assertEquals(3, index.size());
+        assertArrayEquals(new int[]{83, 120, 300}, new int[]{index.getPercent(0), index.getPercent(1), index.getPercent(2)});
+        assertArrayEquals(new long[]{2, 3, 1}, new long[]{index.getEmployeeId(0), index.getEmployeeId(1), index.getEmployeeId(2)});
+        assertEquals(1, index.countBelow(120));
+        assertEquals(2, index.countBelow(121));
+        assertEquals(1, index.countAbove(120));
+        assertEquals(2, index.countAbove(119));
+    }
+
+    @Test
+    void shouldKeepSalaryErrorsInEveryReport() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 300_00, false, 0);
+        builder.add(2, null, null, CompanyStructure.NO_SALARY, true, 1);
+        builder.add(3, null, null, -100, true, 1);
+        builder.add(4, null, null, 200_00, true, 1);
+
+        //When
+        Report report = SalaryRatioIndex.of(builder.build()).generateReport(120, 150);
+
+        //Then
+        assertEquals(Set.of("Employee with id 2 has no salary", "Employee with id 3 has negative salary"),
+                report.getErrorsReportEntries());
+        assertEquals(0, report.getReportEntriesCount());
+    }
+}
@@ -0,0 +1,112 @@
+package com.swissre.bigcompanyanalyzer.control.reportgeneration;
+
+import com.swissre.bigcompanyanalyzer.entity.CompanyStructure;
+import com.swissre.bigcompanyanalyzer.entity.Report;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamingSalaryAggregationTest {
+
+    SalaryLevelReportGenerationService service = new SalaryLevelReportGenerationService(120, 150);
+
+    @Test
+    void shouldMakeSameReportAsLinkedStructureWhenManagersComeAfterSubordinates() {
+        //Given
+        Random random = new Random(5);
+        List<long[]> rows = new ArrayList<>();
+        rows.add(new long[]{1, 9_000_000, 0, 0});
+        for (long id = 2; id <= 3_000; id++) {
+            long managerId = Math.max(1, id - 1 - random.nextInt((int) Math.min(id - 1, 30)));
+            rows.add(new long[]{id, 2_000_000 + random.nextInt(6_000_000), 1, managerId});
+        }
+        rows.add(new long[]{3_001, CompanyStructure.NO_SALARY, 1, 1});
+        rows.add(new long[]{3_002, -100, 1, 1});
+        Collections.shuffle(rows, random);
+        StreamingSalaryAggregation aggregation = service.createAggregation();
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+
+        //When
+        for (long[] row : rows) {
+            aggregation.add(row[0], row[1], row[2] == 1, row[3]);
+            builder.add(row[0], null, null, row[1], row[2] == 1, row[3]);
+        }
+        Report report = aggregation.generateReport();
+
+        //Then
+        assertEquals(0, aggregation.getPendingManagersCount());
+        assertFalse(report.getReportEntries().isEmpty());
+        assertEquals(service.generateReport(builder.build()), report);
+    }
+
+    @Test
+    void shouldSwitchToBigDecimalWhenSumOfPendingSalariesOverflows() {
+        //Given
+        StreamingSalaryAggregation aggregation = service.createAggregation();
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        long salary = Long.MAX_VALUE / 2;
+
+        //When
+        aggregation.add(2, salary, true, 1);
+        aggregation.add(3, salary, true, 1);
+        aggregation.add(4, salary, true, 1);
+        aggregation.add(1, salary, false, 0);
+        builder.add(1, null, null, salary, false, 0);
+        builder.add(2, null, null, salary, true, 1);
+        builder.add(3, null, null, salary, true, 1);
+        builder.add(4, null, null, salary, true, 1);
+
+        //Then
+        assertEquals(service.generateReport(builder.build()), aggregation.generateReport());
+    }
+
+    @Test
+    void shouldSkipDuplicatedRows() {
+        //Given
+        StreamingSalaryAggregation aggregation = service.createAggregation();
+
+        //When
+        aggregation.add(1, 10_000, false, 0);
+        aggregation.add(2, 10_000, true, 1);
+        aggregation.add(2, 50_000, true, 1);
+
+        //Then
+        assertEquals(2, aggregation.getRows().size());
+        assertEquals(2L, aggregation.getRows().getDuplicateIds()[0]);
+        assertEquals(1, aggregation.generateReport().getReportEntriesCount());
+    }
+
+    @Test
+    void shouldThrowGenerationReportExceptionWhenThereAreSeveralCeos() {
+        //Given
+        StreamingSalaryAggregation aggregation = service.createAggregation();
+        aggregation.add(1, 10_000, false, 0);
+        aggregation.add(2, 10_000, false, 0);
+
+        //When
+        Throwable exception = assertThrows(GenerationReportException.class, aggregation::generateReport);
+
+        //Then
+        assertEquals("There are more than 1 CEO in the company structure", exception.getMessage());
+    }
+
+    @Test
+    void shouldThrowGenerationReportExceptionWhenThereIsNoCeo() {
+        //Given
+        StreamingSalaryAggregation aggregation = service.createAggregation();
+        aggregation.add(1, 10_000, true, 2);
+
+        //When
+        Throwable exception = assertThrows(GenerationReportException.class, aggregation::generateReport);
+
+        //Then
+        assertEquals("There is no CEO in the company structure", exception.getMessage());
+    }
+}
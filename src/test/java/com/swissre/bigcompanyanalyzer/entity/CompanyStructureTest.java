@@ -0,0 +1,89 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompanyStructureTest {
+
+    @Test
+    void shouldLinkSubordinatesWithManagersByIndexes() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder(1);
+        builder.add(12L, "Joe", "Doe", 6_000_000L, false, 0);
+        builder.add(13L, null, null, CompanyStructure.NO_SALARY, true, 12L);
+        builder.add(14L, null, null, 4_500_050L, true, 12L);
+        builder.add(15L, null, null, 100L, true, 13L);
+        builder.add(16L, null, null, 100L, true, 588L);
+
+        //When
+        CompanyStructure structure = builder.build();
+
+        //Then
+        assertEquals(5, structure.size());
+        int ceo = structure.indexOf(12L);
+        assertEquals(CompanyStructure.NO_MANAGER, structure.getManager(ceo));
+        assertEquals(CompanyStructure.UNKNOWN_MANAGER, structure.getManager(structure.indexOf(16L)));
+        assertEquals(ceo, structure.getManager(structure.indexOf(14L)));
+        assertEquals(Set.of(13L, 14L), subordinateIds(structure, ceo));
+        assertEquals(Set.of(15L), subordinateIds(structure, structure.indexOf(13L)));
+        assertEquals(Set.of(), subordinateIds(structure, structure.indexOf(15L)));
+        assertEquals(-1, structure.indexOf(588L));
+    }
+
+    @Test
+    void shouldCreateEmployeesOnlyOnRequest() {
+        //Given
+        CompanyStructure structure = CompanyStructure.of(Map.of(
+                12L, new Employee(12L, "Joe", "Doe", BigDecimal.valueOf(6_000_000, 2), null),
+                13L, new Employee(13L, "Martin", "Chekov", null, 12L)
+        ));
+
+        //When
+        Optional<Employee> ceo = structure.findEmployee(12L);
+        Optional<Employee> subordinate = structure.findEmployee(13L);
+
+        //Then
+        assertEquals(Optional.of(new Employee(12L, "Joe", "Doe", BigDecimal.valueOf(6_000_000, 2), null)), ceo);
+        assertEquals(Optional.of(new Employee(13L, "Martin", "Chekov", null, 12L)), subordinate);
+        assertEquals(Optional.empty(), structure.findEmployee(14L));
+    }
+
+    @Test
+    void shouldThrowWhenIdIsDuplicated() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(12L, null, null, 100L, false, 0);
+
+        //When
+        Throwable exception = assertThrows(IllegalStateException.class,
+                () -> builder.add(12L, null, null, 100L, false, 0));
+
+        //Then
+        assertEquals("Duplicate key 12", exception.getMessage());
+    }
+
+    @Test
+    void shouldConvertSalaryToCentsWithHalfUpRounding() {
+        assertEquals(CompanyStructure.NO_SALARY, CompanyStructure.toCents(null));
+        assertEquals(12_346L, CompanyStructure.toCents(new BigDecimal("123.455")));
+        assertEquals(-1L, CompanyStructure.toCents(new BigDecimal("-0.01")));
+        assertThrows(ArithmeticException.class, () -> CompanyStructure.toCents(new BigDecimal("1e30")));
+    }
+
+    private Set<Long> subordinateIds(CompanyStructure structure, int index) {
+        Set<Long> ids = new HashSet<>();
+        for (int position = structure.getSubordinatesStart(index); position < structure.getSubordinatesEnd(index); position++) {
+            ids.add(structure.getId(structure.getSubordinateAt(position)));
+        }
+        assertEquals(structure.getSubordinatesCount(index), ids.size());
+        return ids;
+    }
+}
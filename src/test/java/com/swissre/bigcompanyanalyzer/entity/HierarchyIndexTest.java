@@ -0,0 +1,119 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchyIndexTest {
+
+    @Test
+    void shouldAnswerSameAsWalkingUpTheManagers() {
+        //Given
+        Random random = new Random(5);
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(0, null, null, 10_000, false, 0);
+        for (int i = 1; i < 500; i++) {
+            builder.add(i, null, null, i % 7 == 0 ? CompanyStructure.NO_SALARY : 1_000 + random.nextInt(9_000), true, random.nextInt(i));
+        }
+        CompanyStructure structure = builder.build();
+
+        //When
+        HierarchyIndex index = HierarchyIndex.of(structure);
+
+        //Then
+        assertEquals(500, index.size());
+        int[] headcounts = new int[500];
+        long[] payrolls = new long[500];
+        for (int employee = 0; employee < 500; employee++) {
+            int depth = 0;
+            for (int manager = structure.getManager(employee); manager >= 0; manager = structure.getManager(manager)) {
+                depth++;
+                headcounts[manager]++;
+                payrolls[manager] += salaryOf(structure, employee);
+            }
+            payrolls[employee] += salaryOf(structure, employee);
+            assertEquals(depth, index.getDepth(employee));
+            assertEquals(employee, index.getEmployeeAt(index.getEntry(employee)));
+        }
+        for (int manager = 0; manager < 500; manager++) {
+            assertEquals(headcounts[manager], index.getSubtreeHeadcount(manager));
+            assertEquals(BigDecimal.valueOf(payrolls[manager], 2), index.getSubtreePayroll(manager));
+            for (int employee = 0; employee < 500; employee++) {
+                assertEquals(isUnderByWalking(structure, employee, manager), index.isUnder(employee, manager));
+            }
+        }
+    }
+
+    @Test
+    void shouldNotIndexEmployeesInCycles() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100, false, 0);
+        builder.add(2, null, null, 100, true, 1);
+        builder.add(3, null, null, 100, true, 4);
+        builder.add(4, null, null, 100, true, 3);
+        CompanyStructure structure = builder.build();
+
+        //When
+        HierarchyIndex index = HierarchyIndex.of(structure);
+
+        //Then
+        assertEquals(2, index.size());
+        assertFalse(index.isIndexed(structure.indexOf(3)));
+        assertFalse(index.isUnder(structure.indexOf(3), structure.indexOf(4)));
+        assertTrue(index.isUnder(structure.indexOf(2), structure.indexOf(1)));
+        assertEquals(0, index.getSubtreeHeadcount(structure.indexOf(4)));
+    }
+
+    @Test
+    void shouldSumPayrollExactlyWhenPrefixSumsOverflow() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, Long.MAX_VALUE - 1, false, 0);
+        builder.add(2, null, null, Long.MAX_VALUE - 1, true, 1);
+        builder.add(3, null, null, 5, true, 2);
+        CompanyStructure structure = builder.build();
+
+        //When
+        HierarchyIndex index = HierarchyIndex.of(structure);
+
+        //Then
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE, 2).multiply(BigDecimal.valueOf(2)).add(new BigDecimal("0.03")),
+                index.getSubtreePayroll(structure.indexOf(1)));
+        assertEquals(new BigDecimal("0.05"), index.getSubtreePayroll(structure.indexOf(3)));
+    }
+
+    @Test
+    void shouldKeepIndexInStructure() {
+        //Given
+        CompanyStructure.Builder builder = new CompanyStructure.Builder();
+        builder.add(1, null, null, 100, false, 0);
+        CompanyStructure structure = builder.build();
+
+        //When
+        HierarchyIndex index = structure.getHierarchyIndex();
+
+        //Then
+        assertSame(index, structure.getHierarchyIndex());
+    }
+
+    private static long salaryOf(CompanyStructure structure, int employee) {
+        long salary = structure.getSalary(employee);
+        return salary == CompanyStructure.NO_SALARY ? 0 : salary;
+    }
+
+    private static boolean isUnderByWalking(CompanyStructure structure, int employee, int manager) {
+        for (int current = structure.getManager(employee); current >= 0; current = structure.getManager(current)) {
+            if (current == manager) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdIndexTest {
+
+    @Test
+    void shouldBehaveAsMapForRandomPutsAndRemovals() {
+        //Given
+        Random random = new Random(3);
+        IdIndex index = new IdIndex(4);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        //When
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000) - 2_500L;
+            if (random.nextBoolean()) {
+                assertEquals(expected.putIfAbsent(key, i) == null, index.putIfAbsent(key, i));
+            } else {
+                assertEquals(expected.remove(key) != null, index.remove(key));
+            }
+        }
+
+        //Then
+        assertEquals(expected.size(), index.size());
+        for (long key = -2_500; key < 2_500; key++) {
+            assertEquals(expected.getOrDefault(key, IdIndex.ABSENT), index.get(key));
+        }
+    }
+
+    @Test
+    void shouldNotReplaceValueOfPresentKey() {
+        IdIndex index = new IdIndex(1);
+
+        assertTrue(index.putIfAbsent(Long.MIN_VALUE, 1));
+        assertFalse(index.putIfAbsent(Long.MIN_VALUE, 2));
+        assertEquals(1, index.get(Long.MIN_VALUE));
+        assertEquals(IdIndex.ABSENT, index.get(0));
+    }
+}
@@ -0,0 +1,62 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RejectedRowsTest {
+
+    @Test
+    void shouldCountAllRowsAndSampleFirstOnes() {
+        //Given
+        RejectedRows rejectedRows = new RejectedRows();
+
+        //When
+        for (int i = 0; i < RejectedRows.MAX_SAMPLED_ROWS * 3; i++) {
+            rejectedRows.add(i, rejectedRows.isSampleFull() ? null : "reason " + i);
+        }
+
+        //Then
+        assertEquals(RejectedRows.MAX_SAMPLED_ROWS * 3, rejectedRows.getCount());
+        assertEquals(RejectedRows.MAX_SAMPLED_ROWS, rejectedRows.getSampledCount());
+        assertTrue(rejectedRows.isSampleFull());
+        assertEquals(RejectedRows.MAX_SAMPLED_ROWS - 1, rejectedRows.getPosition(RejectedRows.MAX_SAMPLED_ROWS - 1));
+        assertEquals("reason 0", rejectedRows.getReason(0));
+    }
+
+    @Test
+    void shouldAddRowsOfNextChunkAfterOwnRows() {
+        //Given
+        RejectedRows first = new RejectedRows();
+        first.add(10, "first");
+        RejectedRows second = new RejectedRows();
+        for (int i = 0; i < RejectedRows.MAX_SAMPLED_ROWS; i++) {
+            second.add(100 + i, "second");
+        }
+
+        //When
+        RejectedRows copy = first.copy();
+        first.addAll(second);
+
+        //Then
+        assertEquals(RejectedRows.MAX_SAMPLED_ROWS + 1, first.getCount());
+        assertEquals(RejectedRows.MAX_SAMPLED_ROWS, first.getSampledCount());
+        assertEquals(10, first.getPosition(0));
+        assertEquals(100, first.getPosition(1));
+        assertEquals(1, copy.getCount());
+    }
+
+    @Test
+    void shouldCountRowsWithoutSample() {
+        //Given
+        RejectedRows rejectedRows = new RejectedRows();
+
+        //When
+        rejectedRows.addNotSampled(5);
+
+        //Then
+        assertEquals(5, rejectedRows.getCount());
+        assertEquals(0, rejectedRows.getSampledCount());
+    }
+}
@@ -0,0 +1,87 @@
+package com.swissre.bigcompanyanalyzer.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportTest {
+
+    @Test
+    void shouldFormatTypedEntriesWhenRendered() {
+        //Given
+        Report report = new Report(Report.ReportType.SALARY_LEVEL_REPORT);
+        report.addReportEntry(Report.EntryType.SALARY_ABOVE_MAXIMUM, 1L, 160, 150);
+        report.addReportEntry(Report.EntryType.SALARY_BELOW_MINIMUM, 2L, 110, 120);
+        report.addErrorsReportEntry(Report.EntryType.NO_SALARY, 3L);
+        report.addErrorsReportEntry(Report.EntryType.NEGATIVE_SALARY, 4L);
+
+        //When
+        List<String> entries = new ArrayList<>();
+        report.forEachReportEntry(entries::add);
+
+        //Then
+        assertEquals(List.of(
+                "Manager with id 1 earn 160 percent of their subordinates, the maximum allowed level is 150",
+                "Manager with id 2 earn 110 percent of their subordinates, the minimum allowed level is 120"
+        ), entries);
+        assertEquals(Set.of("Employee with id 3 has no salary", "Employee with id 4 has negative salary"),
+                report.getErrorsReportEntries());
+    }
+
+    @Test
+    void shouldKeepOneEntryOfTypePerEmployee() {
+        //Given
+        Report report = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        Report other = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+
+        //When
+        report.addReportEntry(Report.EntryType.REPORTING_LINE_TOO_LONG, 1L, 6, 4);
+        report.addReportEntry(Report.EntryType.REPORTING_LINE_TOO_LONG, 1L, 6, 4);
+        other.addReportEntry(Report.EntryType.REPORTING_LINE_TOO_LONG, 1L, 6, 4);
+        other.addReportEntry(Report.EntryType.REPORTING_LINE_TOO_LONG, 2L, 5, 4);
+        report.merge(other);
+
+        //Then
+        assertEquals(2, report.getReportEntriesCount());
+        assertEquals(2L, report.getTypedReportEntries().getEmployeeId(1));
+    }
+
+    @Test
+    void shouldCombineGroupEntriesOfEmployee() {
+        //Given
+        Report report = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        Report other = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+
+        //When
+        report.addReportEntry(Report.EntryType.REPORTING_LINE_GROUP_TOO_LONG, 1L, 5, 4, 1);
+        report.addReportEntry(Report.EntryType.REPORTING_LINE_GROUP_TOO_LONG, 1L, 7, 4, 1);
+        other.addReportEntry(Report.EntryType.REPORTING_LINE_GROUP_TOO_LONG, 1L, 6, 4, 3);
+        report.merge(other);
+
+        //Then
+        assertEquals(Set.of("5 employees under and including the employee with id 1 have reporting lines 1 to 3 levels more than the allowed level 4"),
+                report.getReportEntries());
+        assertEquals(5, report.getTypedReportEntries().getCount(0));
+    }
+
+    @Test
+    void shouldBeEqualToReportWithSameTextEntries() {
+        //Given
+        Report typed = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        typed.addReportEntry(Report.EntryType.REPORTING_LINE_TOO_LONG, 7L, 6, 4);
+        Report text = new Report(Report.ReportType.REPORTING_LINE_REPORT);
+        text.addReportEntry("The employee with id 7 has a reporting line of 6 levels, which is 2 more than the allowed level 4");
+
+        //When
+        boolean equal = typed.equals(text);
+
+        //Then
+        assertTrue(equal);
+        assertEquals(text.hashCode(), typed.hashCode());
+    }
+}
@@ -0,0 +1,142 @@
+package com.swissre.bigcompanyanalyzer.facade;
+
+import com.swissre.bigcompanyanalyzer.control.ResidentAnalysisService;
+import com.swissre.bigcompanyanalyzer.control.file.FileDataRetriever;
+import com.swissre.bigcompanyanalyzer.control.file.FileParser;
+import com.swissre.bigcompanyanalyzer.control.reportgeneration.FusedReportGenerationEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnalysisServerTest {
+    String baseDirectory = "./src/test/resources/files/";
+
+    ExecutorService reloadExecutor = Executors.newSingleThreadExecutor();
+    ResidentAnalysisService residentAnalysisService = new ResidentAnalysisService(
+            new FileDataRetriever(new FileParser()), new FusedReportGenerationEngine(), reloadExecutor);
+    AnalysisServer server = new AnalysisServer(residentAnalysisService, baseDirectory, 4, 120, 150);
+    HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws IOException {
+        server.start("correct.csv", 0);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+        reloadExecutor.shutdownNow();
+    }
+
+    @Test
+    void shouldAnswerReportsWithThresholdsOfTheRequest() throws Exception {
+        //When
+        HttpResponse<String> defaults = get("/reports?format=csv");
+        HttpResponse<String> strict = get("/reports?format=csv&maxSalaryPercent=130");
+
+        //Then
+        assertEquals(200, strict.statusCode());
+        assertEquals("text/csv; charset=utf-8", strict.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals("report,severity,type,employeeId,value,limit,message\n", defaults.body());
+        assertEquals("""
+                report,severity,type,employeeId,value,limit,message
+                SALARY REPORT,issue,SALARY_ABOVE_MAXIMUM,123,133,130,
+                """, strict.body());
+    }
+
+    @Test
+    void shouldAnswerReportingLineSummaryOnRequest() throws Exception {
+        //When
+        HttpResponse<String> summary = get("/reports?format=csv&allowedReportingLevel=-1&reportingLineSummary=true");
+        HttpResponse<String> invalid = get("/reports?reportingLineSummary=yes");
+
+        //Then
+        assertEquals("""
+                report,severity,type,employeeId,value,limit,message
+                REPORTING LINE REPORT,issue,REPORTING_LINE_GROUP_TOO_LONG,124,1,-1,1 employees under and including the employee with id 124 have reporting lines 2 to 2 levels more than the allowed level -1
+                """, summary.body());
+        assertEquals(400, invalid.statusCode());
+    }
+
+    @Test
+    void shouldCountManagersOutOfRangeForEveryThresholds() throws Exception {
+        //When
+        HttpResponse<String> response = get("/salary-thresholds?minSalaryPercents=120,140&maxSalaryPercents=130,150");
+
+        //Then
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("1 managers are out of the salary range from 120 to 130 percent"));
+        assertTrue(response.body().contains("0 managers are out of the salary range from 120 to 150 percent"));
+        assertTrue(response.body().contains("1 managers are out of the salary range from 140 to 130 percent"));
+        assertTrue(response.body().contains("1 managers are out of the salary range from 140 to 150 percent"));
+    }
+
+    @Test
+    void shouldAnswerBadRequestWithErrorReport() throws Exception {
+        //When
+        HttpResponse<String> response = get("/reports?format=json_lines&allowedReportingLevel=many");
+
+        //Then
+        assertEquals(400, response.statusCode());
+        assertEquals("""
+                {"report":"UNRECOVERABLE ERROR REPORT","severity":"error","message":"Parameter allowedReportingLevel must be an integer, but was many"}
+                """, response.body());
+    }
+
+    @Test
+    void shouldRejectReloadOfFileOutsideOfBasicDirectory() throws Exception {
+        //When
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/reload?file=../../pom.xml"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build());
+
+        //Then
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("File ../../pom.xml is outside of the basic directory"));
+    }
+
+    @Test
+    void shouldKeepServingLoadedStructureWhenReloadFails() throws Exception {
+        //When
+        HttpResponse<String> reload = send(HttpRequest.newBuilder(uri("/reload?file=withWrongHeaderName.csv"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build());
+        reloadExecutor.submit(() -> null).get();
+        HttpResponse<String> status = get("/status");
+
+        //Then
+        assertEquals(202, reload.statusCode());
+        assertTrue(status.body().contains("File correct.csv with 2 employees is loaded at"));
+        assertTrue(status.body().contains("Last reload failed:"));
+    }
+
+    @Test
+    void shouldRejectWrongMethod() throws Exception {
+        //When
+        HttpResponse<String> response = get("/reload");
+
+        //Then
+        assertEquals(405, response.statusCode());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).GET().build());
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:%d%s".formatted(server.getPort(), path));
+    }
+}
@@ -0,0 +1,40 @@
+package com.swissre.bigcompanyanalyzer.facade;
+
+import com.swissre.bigcompanyanalyzer.control.BatchReportService;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+
+class BatchAnalyzerTest {
+    String baseDirectory = "./src/test/resources/files/";
+
+    BatchReportService batchReportService = mock(BatchReportService.class);
+    BatchAnalyzer analyzer = new BatchAnalyzer(batchReportService);
+
+    @Test
+    void shouldCreatePathOfDirectoryAndPassToBatch() {
+        //When
+        analyzer.analyzeDirectory(baseDirectory);
+
+        //Then
+        verify(batchReportService).analyzeDirectory(Path.of(baseDirectory));
+    }
+
+    @Test
+    void shouldCreatePathsWithFileNamesAndPassToBatch() {
+        //Given
+        List<Path> expectedPaths = List.of(Path.of(baseDirectory + "first.csv"), Path.of(baseDirectory + "second.csv"));
+
+        //When
+        analyzer.analyzeFiles(List.of("first.csv", "second.csv"), baseDirectory);
+
+        //Then
+        verify(batchReportService).analyzeFiles(expectedPaths);
+    }
+
+}
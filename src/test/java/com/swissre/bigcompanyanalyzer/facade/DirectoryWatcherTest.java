@@ -0,0 +1,78 @@
+package com.swissre.bigcompanyanalyzer.facade;
+
+import com.swissre.bigcompanyanalyzer.control.ReportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class DirectoryWatcherTest {
+    ReportService reportService = mock(ReportService.class);
+    DirectoryWatcher watcher = new DirectoryWatcher(reportService, Duration.ofMillis(300));
+    Thread watching;
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        watching.interrupt();
+        watching.join();
+    }
+
+    @Test
+    void shouldAnalyzeOnceForBurstOfChanges() throws IOException {
+        //Given
+        Path path = directory.resolve("company.csv");
+        Files.writeString(path, "Id,firstName,lastName,salary,managerId\n");
+        startWatching();
+        verify(reportService, timeout(5_000)).analyzeAndMakeReportFromFile(path);
+
+        //When
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(path, "%d,Joe,Doe,60000,\n".formatted(i), StandardOpenOption.APPEND);
+        }
+
+        //Then
+        verify(reportService, timeout(5_000).times(2)).analyzeAndMakeReportFromFile(path);
+        verify(reportService, after(1_000).times(2)).analyzeAndMakeReportFromFile(path);
+    }
+
+    @Test
+    void shouldIgnoreChangesOfOtherFiles() throws IOException {
+        //Given
+        Path path = directory.resolve("company.csv");
+        Files.writeString(path, "Id,firstName,lastName,salary,managerId\n");
+        startWatching();
+        verify(reportService, timeout(5_000)).analyzeAndMakeReportFromFile(path);
+
+        //When
+        Files.writeString(directory.resolve("report.csv"), "report");
+
+        //Then
+        verify(reportService, after(1_000).times(1)).analyzeAndMakeReportFromFile(path);
+    }
+
+    private void startWatching() {
+        watching = new Thread(() -> {
+            try {
+                watcher.watch("company.csv", directory.toString());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        watching.start();
+    }
+}
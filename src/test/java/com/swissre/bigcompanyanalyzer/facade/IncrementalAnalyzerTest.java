@@ -0,0 +1,44 @@
+package com.swissre.bigcompanyanalyzer.facade;
+
+import com.swissre.bigcompanyanalyzer.control.IncrementalReportService;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+
+class IncrementalAnalyzerTest {
+    String baseDirectory = "./src/test/resources/files/";
+
+    IncrementalReportService incrementalReportService = mock(IncrementalReportService.class);
+    IncrementalAnalyzer analyzer = new IncrementalAnalyzer(incrementalReportService);
+
+    @Test
+    void shouldCreatePathWithFileNameAndPassToLoading() {
+        //Given
+        String fileName = "someFile";
+        Path expectedPath = Path.of(baseDirectory + fileName);
+
+        //When
+        analyzer.loadFromFile(fileName, baseDirectory);
+
+        //Then
+        verify(incrementalReportService).loadFromFile(expectedPath);
+    }
+
+    @Test
+    void shouldCreatePathWithFileNameAndPassToApplyingChanges() {
+        //Given
+        String fileName = "someChanges";
+        Path expectedPath = Path.of(baseDirectory + fileName);
+
+        //When
+        analyzer.applyChangesFromFile(fileName, baseDirectory);
+
+        //Then
+        verify(incrementalReportService).applyChangesFromFile(expectedPath);
+    }
+
+}